@@ -54,6 +54,7 @@ import org.apache.sysml.debug.DMLDebuggerProgramInfo;
 import org.apache.sysml.hops.HopsException;
 import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.hops.OptimizerUtils.OptimizationLevel;
+import org.apache.sysml.hops.cost.CostModelProfile;
 import org.apache.sysml.hops.globalopt.GlobalOptimizerWrapper;
 import org.apache.sysml.lops.Lop;
 import org.apache.sysml.lops.LopsException;
@@ -82,6 +83,7 @@ import org.apache.sysml.runtime.util.MapReduceTool;
 import org.apache.sysml.utils.Explain;
 import org.apache.sysml.utils.Explain.ExplainCounts;
 import org.apache.sysml.utils.Explain.ExplainType;
+import org.apache.sysml.utils.InstructionProfiler;
 import org.apache.sysml.utils.Statistics;
 import org.apache.sysml.yarn.DMLAppMasterUtils;
 import org.apache.sysml.yarn.DMLYarnClientProxy;
@@ -99,6 +101,8 @@ public class DMLScript
 	
 	public static RUNTIME_PLATFORM rtplatform = OptimizerUtils.getDefaultExecutionMode();
 	public static boolean STATISTICS = false; //default statistics
+	public static boolean PROFILE = false; //default instruction profiling
+	public static String PROFILE_FILE = null; //optional trace export file
 	public static boolean ENABLE_DEBUG_MODE = false; //default debug mode
 	public static boolean USE_LOCAL_SPARK_CONFIG = false; //set default local spark configuration - used for local testing
 	public static String DML_FILE_PATH_ANTLR_PARSER = null;
@@ -133,6 +137,8 @@ public class DMLScript
 			+ "   -exec: <mode> (optional) execution mode (hadoop, singlenode, [hybrid], hybrid_spark)\n"
 			+ "   -explain: <type> (optional) explain plan (hops, [runtime], recompile_hops, recompile_runtime)\n"
 			+ "   -stats: (optional) monitor and report caching/recompilation statistics\n"
+			+ "   -profile: <filename> (optional) profile instructions per script line (time, memory,\n"
+			+ "         caching, output size; implies -stats) and export a json trace to <filename>\n"
 			+ "   -clean: (optional) cleanup all SystemML working directories (FS, DFS).\n"
 			+ "         All other flags are ignored in this mode. \n"
 			+ "   -config: (optional) use config file <config_filename> (default: use parameter\n"
@@ -296,6 +302,12 @@ public class DMLScript
 				}
 				else if( args[i].equalsIgnoreCase("-stats") )
 					STATISTICS = true;
+				else if( args[i].equalsIgnoreCase("-profile") ) {
+					PROFILE = true;
+					STATISTICS = true; //cache statistics and display
+					if( args.length > (i+1) && !args[i+1].startsWith("-") )
+						PROFILE_FILE = args[++i];
+				}
 				else if ( args[i].equalsIgnoreCase("-exec")) {
 					rtplatform = parseRuntimePlatform(args[++i]);
 					if( rtplatform==null ) 
@@ -410,6 +422,7 @@ public class DMLScript
 				arg.equalsIgnoreCase("-explain") || 
 				arg.equalsIgnoreCase("-debug") || 
 				arg.equalsIgnoreCase("-stats") || 
+				arg.equalsIgnoreCase("-profile") || 
 				arg.equalsIgnoreCase("-exec") ||
 				arg.equalsIgnoreCase("-debug") ||
 				arg.startsWith("-config="))
@@ -706,8 +719,19 @@ public class DMLScript
 			//display statistics (incl caching stats if enabled)
 			Statistics.stopRunTimer();
 			LOG.info(Statistics.display());
+			if( PROFILE && PROFILE_FILE != null ) {
+				try {
+					InstructionProfiler.exportTrace(PROFILE_FILE);
+				}
+				catch(IOException ex) {
+					LOG.warn("Failed to export instruction profile to "+PROFILE_FILE, ex);
+				}
+			}
 			LOG.info("END DML run " + getDateTime() );
 			
+			//persist online refinements of cost model profile
+			CostModelProfile.shutdown();
+			
 			//cleanup scratch_space and all working dirs
 			cleanupHadoopExecution( dmlconf );		
 		}	
@@ -794,6 +818,9 @@ public class DMLScript
 		LocalFileUtils.createWorkingDirectory();
 		CacheableData.initCaching();
 						
+		//init cost model profile (load or calibrate, requires working dir)
+		CostModelProfile.initialize(config);
+		
 		//reset statistics (required if multiple scripts executed in one JVM)
 		Statistics.resetNoOfExecutedJobs( 0 );
 		if( STATISTICS ) {
@@ -70,6 +70,8 @@ public class DMLConfig
 	public static final String YARN_APPQUEUE    	= "dml.yarn.app.queue"; 
 	public static final String CP_PARALLEL_MATRIXMULT = "cp.parallel.matrixmult";
 	public static final String CP_PARALLEL_TEXTIO   = "cp.parallel.textio";
+	public static final String CP_COSTMODEL_PROFILE = "cp.costmodel.profile";
+	public static final String CP_OPERATOR_FUSION   = "cp.operator.fusion";
 
 	// supported prefixes for custom map/reduce configurations
 	public static final String PREFIX_MAPRED = "mapred";
@@ -100,6 +102,8 @@ public class DMLConfig
 		_defaultVals.put(YARN_APPQUEUE,    	     "default" );
 		_defaultVals.put(CP_PARALLEL_MATRIXMULT, "true" );
 		_defaultVals.put(CP_PARALLEL_TEXTIO,     "true" );
+		_defaultVals.put(CP_COSTMODEL_PROFILE,   "" );
+		_defaultVals.put(CP_OPERATOR_FUSION,     "false" );
 	}
 	
 	public DMLConfig()
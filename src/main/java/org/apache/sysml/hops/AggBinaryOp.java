@@ -35,6 +35,7 @@ import org.apache.sysml.lops.MMCJ;
 import org.apache.sysml.lops.MMRJ;
 import org.apache.sysml.lops.MMTSJ;
 import org.apache.sysml.lops.MMCJ.MMCJType;
+import org.apache.sysml.lops.MMGrid;
 import org.apache.sysml.lops.MMTSJ.MMTSJType;
 import org.apache.sysml.lops.MMZip;
 import org.apache.sysml.lops.MapMult;
@@ -49,6 +50,7 @@ import org.apache.sysml.parser.Expression.DataType;
 import org.apache.sysml.parser.Expression.ValueType;
 import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
+import org.apache.sysml.runtime.instructions.spark.GridmmSPInstruction;
 import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.mapred.DistributedCacheInput;
@@ -79,6 +81,7 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 		PMM,      //permutation matrix multiplication using distributed cache, for left input (mr/cp)
 		TSMM,     //transpose-self matrix multiplication (cp/mr/sp)
 		ZIPMM,    //zip matrix multiplication (sp)
+		GRIDMM,   //grid-partitioned (2D/3D) matrix multiplication (sp)
 		MM        //in-memory matrix multiplication (cp)
 	};
 	
@@ -224,6 +227,9 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 					case ZIPMM:
 						constructSparkLopsZIPMM(); 
 						break;
+					case GRIDMM:
+						constructSparkLopsGridMM(); 
+						break;
 						
 					default:
 						throw new HopsException(this.printErrorLocation() + "Invalid Matrix Mult Method (" + _method + ") while constructing SPARK lops.");	
@@ -915,6 +921,23 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 		setLops(rmm);
 	}
 	
+	/**
+	 * 
+	 * @throws LopsException
+	 * @throws HopsException
+	 */
+	private void constructSparkLopsGridMM() 
+		throws LopsException, HopsException
+	{
+		SparkAggType aggtype = getSparkMMAggregationType(true);
+		
+		Lop gridmm = new MMGrid(getInput().get(0).constructLops(), getInput().get(1).constructLops(), 
+				getDataType(), getValueType(), aggtype, ExecType.SPARK);
+		setOutputDimensions(gridmm);
+		setLineNumbers( gridmm );
+		setLops(gridmm);
+	}
+	
 	/**
 	 * 
 	 * @throws HopsException
@@ -1889,14 +1912,18 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 			return MMultMethod.ZIPMM;
 		}
 			
-		// Step 7: Decide CPMM vs RMM based on io costs
+		// Step 7: Decide CPMM vs RMM vs GRIDMM based on io costs
 		//estimate shuffle costs weighted by parallelism
 		//TODO currently we reuse the mr estimates, these need to be fine-tune for our spark operators
 		double rmm_costs = getRMMCostEstimate(m1_rows, m1_cols, m1_rpb, m1_cpb, m2_rows, m2_cols, m2_rpb, m2_cpb);
 		double cpmm_costs = getCPMMCostEstimate(m1_rows, m1_cols, m1_rpb, m1_cpb, m2_rows, m2_cols, m2_rpb, m2_cpb);
-				
+		double gridmm_costs = getGridMMCostEstimate(m1_rows, m1_cols, m1_rpb, m1_cpb, m1_nnz, 
+				m2_rows, m2_cols, m2_rpb, m2_cpb, m2_nnz);
+		
 		//final mmult method decision 
-		if ( cpmm_costs < rmm_costs ) 
+		if ( gridmm_costs < Math.min(cpmm_costs, rmm_costs) )
+			return MMultMethod.GRIDMM;
+		else if ( cpmm_costs < rmm_costs ) 
 			return MMultMethod.CPMM;
 		else 
 			return MMultMethod.RMM;
@@ -1985,6 +2012,37 @@ public class AggBinaryOp extends Hop implements MultiThreadedHop
 		return cpmm_costs;
 	}
 	
+	/**
+	 * Estimates the costs of grid-partitioned matrix multiplication for the grid
+	 * chosen by the runtime cost model (w/ sparsity-aware task memory constraints),
+	 * in terms of the same io and shuffle units (cells) as cpmm and rmm.
+	 * 
+	 * @param m1_rows
+	 * @param m1_cols
+	 * @param m1_rpb
+	 * @param m1_cpb
+	 * @param m1_nnz
+	 * @param m2_rows
+	 * @param m2_cols
+	 * @param m2_rpb
+	 * @param m2_cpb
+	 * @param m2_nnz
+	 * @return
+	 */
+	private static double getGridMMCostEstimate( long m1_rows, long m1_cols, long m1_rpb, long m1_cpb, long m1_nnz,
+			long m2_rows, long m2_cols, long m2_rpb, long m2_cpb, long m2_nnz )
+	{
+		MatrixCharacteristics mc1 = new MatrixCharacteristics(m1_rows, m1_cols, (int)m1_rpb, (int)m1_cpb, m1_nnz);
+		MatrixCharacteristics mc2 = new MatrixCharacteristics(m2_rows, m2_cols, (int)m2_rpb, (int)m2_cpb, m2_nnz);
+		
+		// Estimate the cost of GRIDMM for the grid chosen at runtime (same memory 
+		// budget and parallelism as GridmmSPInstruction for the grid selection)
+		int par = SparkExecutionContext.getDefaultParallelism(true);
+		double memBudget = SparkExecutionContext.getBroadcastMemoryBudget();
+		int[] grid = GridmmSPInstruction.getOptimalGrid(mc1, mc2, par, memBudget);
+		return GridmmSPInstruction.getGridCostEstimate(mc1, mc2, grid, par);
+	}
+	
 	@Override
 	public void refreshSizeInformation()
 	{
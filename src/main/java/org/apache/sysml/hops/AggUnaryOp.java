@@ -140,7 +140,10 @@ public class AggUnaryOp extends Hop implements MultiThreadedHop
 						setLops(unary1);
 					}
 				
-				}				
+				}
+				else if( CellwiseFusionPlanner.isFusionApplicable(this, et) ) {
+					agg1 = CellwiseFusionPlanner.constructFusedLop(this, CellwiseFusionPlanner.getAggType(this));
+				}
 				else { //general case		
 					int k = OptimizerUtils.getConstrainedNumThreads(_maxNumThreads);
 					agg1 = new PartialAggregate(input.constructLops(), 
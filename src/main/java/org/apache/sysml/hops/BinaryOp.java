@@ -37,6 +37,7 @@ import org.apache.sysml.lops.CombineBinary;
 import org.apache.sysml.lops.CombineUnary;
 import org.apache.sysml.lops.Data;
 import org.apache.sysml.lops.DataPartition;
+import org.apache.sysml.lops.FusedCellwise.AggType;
 import org.apache.sysml.lops.Group;
 import org.apache.sysml.lops.Lop;
 import org.apache.sysml.lops.LopsException;
@@ -465,6 +466,17 @@ public class BinaryOp extends Hop
 
 			setLops(pick);
 		}
+		else if( et == ExecType.CP && pick_op == PickByCount.OperationTypes.VALUEPICK 
+			&& getInput().get(1).getDataType() == DataType.SCALAR && OptimizerUtils.ALLOW_QUANTILE_SELECTION )
+		{
+			//selection-based single quantile over unsorted input (w/o sort)
+			PickByCount pick = new PickByCount( getInput().get(0).constructLops(), 
+					getInput().get(1).constructLops(), getDataType(), getValueType(), pick_op, et, true);
+			
+			setOutputDimensions(pick);
+			setLineNumbers(pick);
+			setLops(pick);
+		}
 		else //CP/SPARK 
 		{
 			SortKeys sort = SortKeys.constructSortByValueLop(
@@ -554,6 +566,12 @@ public class BinaryOp extends Hop
 		throws HopsException, LopsException 
 	{
 		/* Default behavior for BinaryOp */
+		//fused cell-wise operations (if applicable)
+		if( CellwiseFusionPlanner.isFusionApplicable(this, optFindExecType()) ) {
+			setLops(CellwiseFusionPlanner.constructFusedLop(this, AggType.NONE));
+			return;
+		}
+		
 		// it depends on input data types
 		DataType dt1 = getInput().get(0).getDataType();
 		DataType dt2 = getInput().get(1).getDataType();
@@ -813,9 +831,10 @@ public class BinaryOp extends Hop
 			ret = getInput().get(0).getMemEstimate() * 3; 
 		}
 		else if ( op == OpOp2.SOLVE ) {
-			// x=solve(A,b) relies on QR decomposition of A, which is done using Apache commons-math
-			// matrix of size same as the first input
-			double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0); 
+			// x=solve(A,b) relies on an in-place LU (square A) or QR decomposition of A (see LibMatrixLinAlg)
+			// dense copies of both inputs (the second input is permuted or transformed)
+			double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0)
+					+ OptimizerUtils.estimateSizeExactSparsity(getInput().get(1).getDim1(), getInput().get(1).getDim2(), 1.0); 
 			return interOutput;
 
 		}
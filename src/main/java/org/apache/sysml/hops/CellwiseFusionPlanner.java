@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.hops;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.apache.sysml.hops.Hop.AggOp;
+import org.apache.sysml.hops.Hop.OpOp1;
+import org.apache.sysml.hops.Hop.OpOp2;
+import org.apache.sysml.lops.FusedCellwise;
+import org.apache.sysml.lops.FusedCellwise.AggType;
+import org.apache.sysml.lops.Lop;
+import org.apache.sysml.lops.LopProperties.ExecType;
+import org.apache.sysml.lops.LopsException;
+import org.apache.sysml.parser.Expression.DataType;
+import org.apache.sysml.parser.Expression.ValueType;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+
+/**
+ * Planner for the fusion of cell-wise operation chains (binary and unary operations
+ * over matrices, scalars, and broadcast row/column vectors) with an optional sum,
+ * rowSums, or colSums aggregate into a single FusedCellwise lop. The fused region
+ * is rooted at the hop whose lops are constructed, and extends over all inputs that
+ * are supported cell-wise operations with a single consumer, i.e., intermediates that
+ * are only consumed within the region and hence never need to be materialized.
+ *
+ * Fusion is applied during lop construction (similar to the ternary aggregate rewrite)
+ * which ensures that the interior hops of a fused region never construct lops.
+ *
+ */
+public class CellwiseFusionPlanner
+{
+	//minimum number of fused operations w/o and w/ aggregation
+	private static final int MIN_FUSED_OPS_CELLWISE = 2;
+	private static final int MIN_FUSED_OPS_AGG = 1;
+
+	//supported cell-wise operations and their runtime opcodes
+	private static HashMap<OpOp2, String> _binaryOps = null;
+	private static HashMap<OpOp1, String> _unaryOps = null;
+
+	static {
+		_binaryOps = new HashMap<OpOp2, String>();
+		_binaryOps.put(OpOp2.PLUS, "+");
+		_binaryOps.put(OpOp2.MINUS, "-");
+		_binaryOps.put(OpOp2.MULT, "*");
+		_binaryOps.put(OpOp2.DIV, "/");
+		_binaryOps.put(OpOp2.POW, "^");
+		_binaryOps.put(OpOp2.MIN, "min");
+		_binaryOps.put(OpOp2.MAX, "max");
+		_binaryOps.put(OpOp2.LESS, "<");
+		_binaryOps.put(OpOp2.LESSEQUAL, "<=");
+		_binaryOps.put(OpOp2.GREATER, ">");
+		_binaryOps.put(OpOp2.GREATEREQUAL, ">=");
+		_binaryOps.put(OpOp2.EQUAL, "==");
+		_binaryOps.put(OpOp2.NOTEQUAL, "!=");
+
+		_unaryOps = new HashMap<OpOp1, String>();
+		_unaryOps.put(OpOp1.ABS, "abs");
+		_unaryOps.put(OpOp1.SIN, "sin");
+		_unaryOps.put(OpOp1.COS, "cos");
+		_unaryOps.put(OpOp1.TAN, "tan");
+		_unaryOps.put(OpOp1.SIGN, "sign");
+		_unaryOps.put(OpOp1.SQRT, "sqrt");
+		_unaryOps.put(OpOp1.LOG, "log");
+		_unaryOps.put(OpOp1.EXP, "exp");
+		_unaryOps.put(OpOp1.ROUND, "round");
+		_unaryOps.put(OpOp1.CEIL, "ceil");
+		_unaryOps.put(OpOp1.FLOOR, "floor");
+		_unaryOps.put(OpOp1.SIGMOID, "sigmoid");
+		_unaryOps.put(OpOp1.SPROP, "sprop");
+		_unaryOps.put(OpOp1.SELP, "sel+");
+	}
+
+	/**
+	 * Obtains the fused aggregation type for a given aggregate hop, or null if
+	 * the aggregate is not supported as root of a fused region.
+	 *
+	 * @param hop
+	 * @return
+	 */
+	public static AggType getAggType( AggUnaryOp hop )
+	{
+		if( hop.getOp() != AggOp.SUM )
+			return null;
+
+		switch( hop.getDirection() ) {
+			case RowCol: return AggType.SUM;
+			case Row:    return AggType.ROW_SUM;
+			case Col:    return AggType.COL_SUM;
+			default:     return null;
+		}
+	}
+
+	/**
+	 * Indicates if a fused region rooted at the given binary or unary operation
+	 * (without aggregation) is applicable.
+	 *
+	 * @param hop
+	 * @param et
+	 * @return
+	 */
+	public static boolean isFusionApplicable( Hop hop, ExecType et )
+	{
+		if( !OptimizerUtils.ALLOW_OPERATOR_FUSION || et != ExecType.CP
+			|| !isSupportedCellwiseOp(hop) || !hop.dimsKnown() )
+			return false;
+
+		FusionPlan plan = createPlan(hop, hop);
+		return plan != null
+			&& plan.numOps >= MIN_FUSED_OPS_CELLWISE
+			&& plan.getMemEstimate(hop) < OptimizerUtils.getLocalMemBudget();
+	}
+
+	/**
+	 * Indicates if a fused region rooted at the given sum, rowSums, or colSums
+	 * aggregate is applicable.
+	 *
+	 * @param hop
+	 * @param et
+	 * @return
+	 */
+	public static boolean isFusionApplicable( AggUnaryOp hop, ExecType et )
+	{
+		if( !OptimizerUtils.ALLOW_OPERATOR_FUSION || et != ExecType.CP
+			|| getAggType(hop) == null )
+			return false;
+
+		Hop input = hop.getInput().get(0);
+		if( !isSupportedCellwiseOp(input) || input.getParent().size() > 1
+			|| input.getLops() != null || !input.dimsKnown() )
+			return false;
+
+		FusionPlan plan = createPlan(input, input);
+		return plan != null
+			&& plan.numOps >= MIN_FUSED_OPS_AGG
+			&& plan.getMemEstimate(hop) < OptimizerUtils.getLocalMemBudget();
+	}
+
+	/**
+	 * Constructs the fused lop for the region rooted at the given hop (for
+	 * aggregates, rooted at the aggregate input), incl the lops of all region inputs.
+	 *
+	 * @param hop output hop (binary, unary, or aggregate)
+	 * @param aggtype
+	 * @return
+	 * @throws HopsException
+	 * @throws LopsException
+	 */
+	public static Lop constructFusedLop( Hop hop, AggType aggtype )
+		throws HopsException, LopsException
+	{
+		Hop root = (aggtype == AggType.NONE) ? hop : hop.getInput().get(0);
+		FusionPlan plan = createPlan(root, root);
+		if( plan == null )
+			throw new HopsException("Failed to create fusion plan for hop "+hop.getHopID()+".");
+
+		//construct lops of region inputs
+		ArrayList<Lop> inputs = new ArrayList<Lop>();
+		for( Hop in : plan.inputs )
+			inputs.add(in.constructLops());
+
+		int k = OptimizerUtils.getConstrainedNumThreads(-1);
+		FusedCellwise fused = new FusedCellwise(inputs, plan.getProgram(), aggtype,
+				hop.getDataType(), hop.getValueType(), ExecType.CP, k);
+
+		hop.setOutputDimensions(fused);
+		hop.setLineNumbers(fused);
+
+		return fused;
+	}
+
+	/**
+	 *
+	 * @param root
+	 * @param hop
+	 * @return
+	 */
+	private static FusionPlan createPlan( Hop root, Hop hop )
+	{
+		FusionPlan plan = new FusionPlan();
+		return rCreatePlan(root, hop, plan) ? plan : null;
+	}
+
+	/**
+	 *
+	 * @param root
+	 * @param hop
+	 * @param plan
+	 * @return
+	 */
+	private static boolean rCreatePlan( Hop root, Hop hop, FusionPlan plan )
+	{
+		//fused cell-wise operation (root or single-consumer interior node)
+		if( hop == root || isFusableInterior(root, hop) )
+		{
+			for( Hop in : hop.getInput() )
+				if( !rCreatePlan(root, in, plan) )
+					return false;
+
+			if( hop instanceof BinaryOp )
+				plan.append(FusedCellwise.BINARY_PREFIX + _binaryOps.get(((BinaryOp)hop).getOp()));
+			else
+				plan.append(FusedCellwise.UNARY_PREFIX + _unaryOps.get(((UnaryOp)hop).getOp()));
+			plan.numOps++;
+			return true;
+		}
+
+		//region input (scalar, matrix, or broadcast vector)
+		if( !isSupportedInput(root, hop) )
+			return false;
+		plan.append(FusedCellwise.INPUT_PREFIX + plan.addInput(hop));
+		return true;
+	}
+
+	/**
+	 *
+	 * @param hop
+	 * @return
+	 */
+	private static boolean isSupportedCellwiseOp( Hop hop )
+	{
+		if( hop.getDataType() != DataType.MATRIX )
+			return false;
+
+		if( hop instanceof BinaryOp ) {
+			BinaryOp bop = (BinaryOp) hop;
+			return _binaryOps.containsKey(bop.getOp())
+				&& !bop.isOuterVectorOperator();
+		}
+		else if( hop instanceof UnaryOp ) {
+			UnaryOp uop = (UnaryOp) hop;
+			return _unaryOps.containsKey(uop.getOp())
+				&& uop.getInput().get(0).getDataType() == DataType.MATRIX;
+		}
+
+		return false;
+	}
+
+	/**
+	 *
+	 * @param root
+	 * @param hop
+	 * @return
+	 */
+	private static boolean isFusableInterior( Hop root, Hop hop )
+	{
+		return isSupportedCellwiseOp(hop)
+			&& hop.getParent().size() == 1
+			&& hop.getLops() == null
+			&& hop.getDim1() == root.getDim1()
+			&& hop.getDim2() == root.getDim2()
+			&& (hop.getForcedExecType() == null || hop.getForcedExecType() == ExecType.CP)
+			&& !hop.requiresReblock() && !hop.requiresCheckpoint();
+	}
+
+	/**
+	 *
+	 * @param root
+	 * @param hop
+	 * @return
+	 */
+	private static boolean isSupportedInput( Hop root, Hop hop )
+	{
+		if( hop.getDataType() == DataType.SCALAR )
+			return hop.getValueType() != ValueType.STRING;
+
+		if( hop.getDataType() != DataType.MATRIX || !hop.dimsKnown() )
+			return false;
+
+		//exclude sparse inputs (sparse-safe unfused operations are preferable)
+		if( hop.dimsKnown(true) && OptimizerUtils.getSparsity(
+			hop.getDim1(), hop.getDim2(), hop.getNnz()) < MatrixBlock.SPARSITY_TURN_POINT )
+			return false;
+
+		//matrix or row/column vector of matching dimensions
+		//(1x1 matrices are accepted as either, and executed as scalars)
+		return (hop.getDim1() == root.getDim1() && hop.getDim2() == root.getDim2())
+			|| (hop.getDim1() == root.getDim1() && hop.getDim2() == 1)
+			|| (hop.getDim1() == 1 && hop.getDim2() == root.getDim2());
+	}
+
+	/**
+	 * Fusion plan of distinct region inputs and the postfix program over these inputs.
+	 */
+	private static class FusionPlan
+	{
+		private ArrayList<Hop> inputs = new ArrayList<Hop>();
+		private StringBuilder program = new StringBuilder();
+		private int numOps = 0;
+
+		private int addInput( Hop hop ) {
+			for( int i=0; i<inputs.size(); i++ )
+				if( inputs.get(i).getHopID() == hop.getHopID() )
+					return i;
+			inputs.add(hop);
+			return inputs.size()-1;
+		}
+
+		private void append( String token ) {
+			if( program.length() > 0 )
+				program.append(FusedCellwise.PROGRAM_DELIM);
+			program.append(token);
+		}
+
+		private String getProgram() {
+			return program.toString();
+		}
+
+		private double getMemEstimate( Hop out ) {
+			double mem = out.getOutputMemEstimate();
+			for( Hop in : inputs )
+				mem += in.getOutputMemEstimate();
+			return mem;
+		}
+	}
+}
@@ -36,6 +36,10 @@ import org.apache.sysml.runtime.util.ConvolutionUtils;
 
 public class ConvolutionOp extends Hop  implements MultiThreadedHop
 {	
+	//use direct conv2d kernels in CP (w/o im2col, matrix mult, and reshape/rotate/col2im);
+	//if disabled, conv2d and its backward passes are computed via the im2col path 
+	public static boolean FORCE_DIRECT_CONV2D_CP = true;
+	
 	private Hop.ConvOp op;
 
 	private int _maxNumThreads = -1; //-1 for unlimited
@@ -130,7 +134,7 @@ public class ConvolutionOp extends Hop  implements MultiThreadedHop
 			case DIRECT_CONV2D_BACKWARD_DATA:
 			case DIRECT_CONV2D_BACKWARD_FILTER:
 			{	
-				if( et == ExecType.GPU )
+				if( et == ExecType.GPU || et == ExecType.CP )
 				{
 					setLops(constructConvolutionLops(et, inputs));
 					break;
@@ -175,22 +175,22 @@ public class FunctionOp extends Hop
 			throw new RuntimeException("Invalid call of computeIntermediateMemEstimate in FunctionOp.");
 		else {
 			if ( getFunctionName().equalsIgnoreCase("qr") ) {
-				// matrix of size same as the input
-				double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0); 
-				//System.out.println("QRInter " + interOutput/1024/1024);
+				// dense (transposed) copy of the input and one 1D vector (diagonal of R)
+				double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0) 
+						+ OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim2(), 1, 1.0); 
 				return interOutput;
 			}
 			else if ( getFunctionName().equalsIgnoreCase("lu")) {
-				// 1D vector 
-				double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), 1, 1.0); 
-				//System.out.println("LUInter " + interOutput/1024/1024);
+				// dense copy of the input (in-place LU) and one 1D vector (pivots)
+				double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0) 
+						+ OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), 1, 1.0); 
 				return interOutput;
 			}
 			else if ( getFunctionName().equalsIgnoreCase("eigen")) {
-				// One matrix of size original input and three 1D vectors (used to represent tridiagonal matrix)
+				// One matrix of size original input (eigen vectors) and five 1D vectors (tridiagonal matrix, 
+				// rotations, and sort permutation)
 				double interOutput = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0) 
-						+ 3*OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), 1, 1.0); 
-				//System.out.println("EigenInter " + interOutput/1024/1024);
+						+ 5*OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), 1, 1.0); 
 				return interOutput;
 			}
 			else
@@ -111,6 +111,7 @@ public abstract class Hop
 	// indicates if the output of this hop needs to be checkpointed (cached)
 	// (the default storage level for caching is not yet exposed here)
 	protected boolean _requiresCheckpoint = false;
+	protected boolean _requiresCheckpointPartitioning = false;
 	
 	// indicates if the output of this hops needs to contain materialized empty blocks 
 	// if those exists; otherwise only blocks w/ non-zero values are materialized
@@ -274,6 +275,16 @@ public abstract class Hop
 		return _requiresCheckpoint;
 	}
 	
+	public void setRequiresCheckpointPartitioning(boolean flag)
+	{
+		_requiresCheckpointPartitioning = flag;
+	}
+	
+	public boolean requiresCheckpointPartitioning()
+	{
+		return _requiresCheckpointPartitioning;
+	}
+	
 	
 	/**
 	 * 
@@ -384,11 +395,15 @@ public abstract class Hop
 					setRequiresRecompile();
 				}
 			
+				//investigate need for partitioning (known dims required for block partitioner)
+				boolean partition = Checkpoint.CHECKPOINT_PARTITIONING && _requiresCheckpointPartitioning
+						&& getDataType()==DataType.MATRIX && dimsKnown();
+				
 				//construct checkpoint w/ right storage level
 				Lop input = getLops();			
 				Lop chkpoint = new Checkpoint(input, getDataType(), getValueType(), 
 						serializedStorage ? Checkpoint.getSerializeStorageLevelString() :
-								            Checkpoint.getDefaultStorageLevelString() );
+								            Checkpoint.getDefaultStorageLevelString(), partition );
 				
 				setOutputDimensions( chkpoint );
 				setLineNumbers( chkpoint );
@@ -1879,6 +1894,7 @@ public abstract class Hop
 		_requiresRecompile = that._requiresRecompile;
 		_requiresReblock = that._requiresReblock;
 		_requiresCheckpoint = that._requiresCheckpoint;
+		_requiresCheckpointPartitioning = that._requiresCheckpointPartitioning;
 		_outputEmptyBlocks = that._outputEmptyBlocks;
 		
 		_beginLine = that._beginLine;
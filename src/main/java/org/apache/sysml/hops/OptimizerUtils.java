@@ -167,6 +167,13 @@ public class OptimizerUtils
 	 */
 	public static boolean ALLOW_SUM_PRODUCT_REWRITES = true;
 	
+	/**
+	 * Enables the fusion of cell-wise operation chains with optional sum, rowSums, or
+	 * colSums aggregates into single-pass CP operators (see CellwiseFusionPlanner). 
+	 * Disabled by default but can be enabled via configuration (cp.operator.fusion). 
+	 */
+	public static boolean ALLOW_OPERATOR_FUSION = false;
+	
 	/**
 	 * Enables a specific hop dag rewrite that splits hop dags after csv persistent reads with 
 	 * unknown size in order to allow for recompile.
@@ -179,6 +186,13 @@ public class OptimizerUtils
 	 */
 	public static boolean ALLOW_LOOP_UPDATE_IN_PLACE = true;
 	
+	/**
+	 * Enables the selection-based computation of unweighted median and single quantiles 
+	 * in CP, which picks the requested value from the unsorted input (in expected linear 
+	 * time) instead of materializing the sorted input.
+	 */
+	public static boolean ALLOW_QUANTILE_SELECTION = true;
+	
 	
 	/**
 	 * Specifies a multiplier computing the degree of parallelism of parallel
@@ -353,6 +367,12 @@ public class OptimizerUtils
 				break;
 		}
 		
+		//handle operator fusion (explicitly enabled, overruled by low opt levels)
+		if( dmlconf.getBooleanValue(DMLConfig.CP_OPERATOR_FUSION) 
+			&& optlevel >= 2 && optlevel <= 4 ) {
+			ALLOW_OPERATOR_FUSION = true;
+		}
+		
 		//handle parallel text io (incl awareness of thread contention in <jdk8)
 		if (!dmlconf.getBooleanValue(DMLConfig.CP_PARALLEL_TEXTIO)) {
 			cconf.set(ConfigType.PARALLEL_CP_READ_TEXTFORMATS, false);
@@ -454,7 +474,9 @@ public class OptimizerUtils
 		//basic requirement: the broadcast needs to to fit once in the remote broadcast memory 
 		//and twice into the local memory budget because we have to create a partitioned broadcast
 		//memory and hand it over to the spark context as in-memory object
-		return ( size < memBudgetExec && 2*size < memBudgetLocal );
+		//(for local spark backends, the broadcast is passed by reference within the same jvm)
+		return ( (size < memBudgetExec || SparkExecutionContext.isLocalReferences()) 
+				&& 2*size < memBudgetLocal );
 	}
 	
 	/**
@@ -479,7 +501,8 @@ public class OptimizerUtils
 		//and twice into the local memory budget because we have to create a partitioned broadcast
 		//memory and hand it over to the spark context as in-memory object
 		return (   OptimizerUtils.isValidCPDimensions(rlen, clen)
-				&& sizeP < memBudgetExec && size+sizeP < memBudgetLocal );
+				&& (sizeP < memBudgetExec || SparkExecutionContext.isLocalReferences()) 
+				&& size+sizeP < memBudgetLocal );
 	}
 	
 	/**
@@ -30,6 +30,7 @@ import org.apache.sysml.lops.CumulativeOffsetBinary;
 import org.apache.sysml.lops.CumulativePartialAggregate;
 import org.apache.sysml.lops.CumulativeSplitAggregate;
 import org.apache.sysml.lops.Data;
+import org.apache.sysml.lops.FusedCellwise.AggType;
 import org.apache.sysml.lops.Group;
 import org.apache.sysml.lops.Lop;
 import org.apache.sysml.lops.LopProperties.ExecType;
@@ -161,6 +162,10 @@ public class UnaryOp extends Hop implements MultiThreadedHop
 						cumsumLop = constructLopsSparkCumulativeUnary();
 					setLops(cumsumLop);
 				}
+				else if( CellwiseFusionPlanner.isFusionApplicable(this, et) ) 
+				{
+					setLops(CellwiseFusionPlanner.constructFusedLop(this, AggType.NONE));
+				}
 				else //default unary 
 				{
 					int k = isCumulativeUnaryOperation() ? OptimizerUtils.getConstrainedNumThreads( _maxNumThreads ) : 1;					
@@ -225,6 +230,22 @@ public class UnaryOp extends Hop implements MultiThreadedHop
 
 			return pick;
 		}
+		else if( et == ExecType.CP && OptimizerUtils.ALLOW_QUANTILE_SELECTION ) {
+			//selection-based median over unsorted input (w/o sort)
+			PickByCount pick = new PickByCount(
+					getInput().get(0).constructLops(),
+					Data.createLiteralLop(ValueType.DOUBLE, Double.toString(0.5)),
+					getDataType(),
+					getValueType(),
+					PickByCount.OperationTypes.MEDIAN, et, true);
+
+			pick.getOutputParameters().setDimensions(getDim1(),
+					getDim2(), getRowsInBlock(), getColsInBlock(), getNnz());
+			setLineNumbers(pick);
+			setLops(pick);
+			
+			return pick;
+		}
 		else {
 			SortKeys sort = SortKeys.constructSortByValueLop(
 								getInput().get(0).constructLops(), 
@@ -572,6 +593,10 @@ public class UnaryOp extends Hop implements MultiThreadedHop
 			// getMemEstimate works for both cases of known dims and worst-case stats
 			ret = getInput().get(0).getMemEstimate() * 3; 
 		}
+		else if ( _op == OpOp1.INVERSE ) {
+			// dense copy of the input for the in-place LU decomposition (see LibMatrixLinAlg)
+			ret = OptimizerUtils.estimateSizeExactSparsity(getInput().get(0).getDim1(), getInput().get(0).getDim2(), 1.0);
+		}
 		
 		return ret;
 	}
@@ -53,9 +53,11 @@ import org.apache.sysml.runtime.instructions.cp.AggregateTernaryCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.AggregateUnaryCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.BinaryCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.CPInstruction;
+import org.apache.sysml.runtime.instructions.cp.CPOperand;
 import org.apache.sysml.runtime.instructions.cp.Data;
 import org.apache.sysml.runtime.instructions.cp.DataGenCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.FunctionCallCPInstruction;
+import org.apache.sysml.runtime.instructions.cp.FusedCellwiseCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.MMTSJCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.MultiReturnBuiltinCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.ParameterizedBuiltinCPInstruction;
@@ -597,6 +599,23 @@ public abstract class CostEstimator
 			if( vs[2] == null ) //scalar output
 				vs[2] = _scalarStats;
 		}
+		else if( inst instanceof FusedCellwiseCPInstruction )
+		{
+			//cost computation on the region dimensions (first matrix input)
+			FusedCellwiseCPInstruction finst = (FusedCellwiseCPInstruction) inst;
+			setUnknownStats(vs);
+			for( CPOperand in : finst.getInputs() )
+				if( stats.containsKey(in.getName()) ) {
+					vs[0] = stats.get(in.getName());
+					break;
+				}
+			if( stats.containsKey(finst.getOutput().getName()) )
+				vs[2] = stats.get(finst.getOutput().getName());
+			else
+				vs[2] = _scalarStats; //scalar output
+			
+			attr = new String[]{String.valueOf(finst.getNumOperations()), finst.getAggType().name()};
+		}
 		else if( inst instanceof ParameterizedBuiltinCPInstruction )
 		{
 			//ParameterizedBuiltinCPInstruction pinst = (ParameterizedBuiltinCPInstruction) inst;
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 
 import org.apache.sysml.conf.ConfigurationManager;
+import org.apache.sysml.hops.cost.CostModelProfile.CostParam;
 import org.apache.sysml.lops.DataGen;
 import org.apache.sysml.lops.Lop;
 import org.apache.sysml.lops.MapMult;
@@ -68,9 +69,8 @@ import org.apache.sysml.yarn.ropt.YarnClusterAnalyzer;
 public class CostEstimatorStaticRuntime extends CostEstimator
 {
 	
-	//time-conversion
-	private static final long DEFAULT_FLOPS = 2L * 1024 * 1024 * 1024; //2GFLOPS
-	//private static final long UNKNOWN_TIME = -1;
+	//note: hardware-specific parameters such as compute throughput, job latencies,
+	//and io bandwidth are obtained from the (optionally calibrated) cost profile
 	
 	//floating point operations
 	private static final double DEFAULT_NFLOP_NOOP = 10; 
@@ -78,25 +78,6 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 	private static final double DEFAULT_NFLOP_CP = 1; 	
 	private static final double DEFAULT_NFLOP_TEXT_IO = 350; 
 	
-	//MR job latency
-	private static final double DEFAULT_MR_JOB_LATENCY_LOCAL = 2;
-	private static final double DEFAULT_MR_JOB_LATENCY_REMOTE = 20;
-	private static final double DEFAULT_MR_TASK_LATENCY_LOCAL = 0.001;
-	private static final double DEFAULT_MR_TASK_LATENCY_REMOTE = 1.5;
-	
-	//IO READ throughput
-	private static final double DEFAULT_MBS_FSREAD_BINARYBLOCK_DENSE = 200;
-	private static final double DEFAULT_MBS_FSREAD_BINARYBLOCK_SPARSE = 100;
-	private static final double DEFAULT_MBS_HDFSREAD_BINARYBLOCK_DENSE = 150;
-	private static final double DEFAULT_MBS_HDFSREAD_BINARYBLOCK_SPARSE = 75;
-	//IO WRITE throughput
-	private static final double DEFAULT_MBS_FSWRITE_BINARYBLOCK_DENSE = 150;
-	private static final double DEFAULT_MBS_FSWRITE_BINARYBLOCK_SPARSE = 75;
-	private static final double DEFAULT_MBS_HDFSWRITE_BINARYBLOCK_DENSE = 120;
-	private static final double DEFAULT_MBS_HDFSWRITE_BINARYBLOCK_SPARSE = 60;
-	private static final double DEFAULT_MBS_HDFSWRITE_TEXT_DENSE = 40;
-	private static final double DEFAULT_MBS_HDFSWRITE_TEXT_SPARSE = 30;
-	
 	@Override
 	@SuppressWarnings("unused")
 	protected double getCPInstTimeEstimate( Instruction inst, VarStats[] vs, String[] args ) 
@@ -208,9 +189,9 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 				exportCosts += getHDFSWriteTime(vs[i]._rlen, vs[i]._clen, vs[i].getSparsity());
 		
 		//step 1: MR job / task latency (normalization by effective dop)
-		double jobLatencyCosts = localJob ? DEFAULT_MR_JOB_LATENCY_LOCAL : DEFAULT_MR_JOB_LATENCY_REMOTE;
+		double jobLatencyCosts = localJob ? CostModelProfile.get(CostParam.MR_JOB_LATENCY_LOCAL) : CostModelProfile.get(CostParam.MR_JOB_LATENCY_REMOTE);
 		double taskLatencyCost = (numMap / numEPMap + numEPRed)
-				               * (localJob ? DEFAULT_MR_TASK_LATENCY_LOCAL : DEFAULT_MR_TASK_LATENCY_REMOTE);	
+				               * (localJob ? CostModelProfile.get(CostParam.MR_TASK_LATENCY_LOCAL) : CostModelProfile.get(CostParam.MR_TASK_LATENCY_REMOTE));	
 		double latencyCosts = jobLatencyCosts + taskLatencyCost;
 		
 		//step 2: parallel read of inputs (normalization by effective dop)
@@ -682,9 +663,9 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 		double ret = ((double)MatrixBlock.estimateSizeOnDisk((long)dm, (long)dn, (long)(ds*dm*dn))) / (1024*1024);  		
 		
 		if( sparse )
-			ret /= DEFAULT_MBS_HDFSREAD_BINARYBLOCK_SPARSE;
+			ret /= CostModelProfile.get(CostParam.MBS_HDFSREAD_BINARYBLOCK_SPARSE);
 		else //dense
-			ret /= DEFAULT_MBS_HDFSREAD_BINARYBLOCK_DENSE;
+			ret /= CostModelProfile.get(CostParam.MBS_HDFSREAD_BINARYBLOCK_DENSE);
 		
 		return ret;
 	}
@@ -705,9 +686,9 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 		
 		double ret = -1;
 		if( sparse )
-			ret = mbytes / DEFAULT_MBS_HDFSWRITE_BINARYBLOCK_SPARSE;
+			ret = mbytes / CostModelProfile.get(CostParam.MBS_HDFSWRITE_BINARYBLOCK_SPARSE);
 		else //dense
-			ret = mbytes / DEFAULT_MBS_HDFSWRITE_BINARYBLOCK_DENSE;
+			ret = mbytes / CostModelProfile.get(CostParam.MBS_HDFSWRITE_BINARYBLOCK_DENSE);
 		
 		//if( LOG.isDebugEnabled() )
 		//	LOG.debug("Costs[export] = "+ret+"s, "+mbytes+" MB ("+dm+","+dn+","+ds+").");
@@ -728,17 +709,17 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 		if( format.equals("textcell") || format.equals("csv") )
 		{
 			if( sparse )
-				ret = mbytes / DEFAULT_MBS_HDFSWRITE_TEXT_SPARSE;
+				ret = mbytes / CostModelProfile.get(CostParam.MBS_HDFSWRITE_TEXT_SPARSE);
 			else //dense
-				ret = mbytes / DEFAULT_MBS_HDFSWRITE_TEXT_DENSE;	
+				ret = mbytes / CostModelProfile.get(CostParam.MBS_HDFSWRITE_TEXT_DENSE);	
 			ret *= 2.75; //text commonly 2x-3.5x larger than binary
 		}
 		else
 		{
 			if( sparse )
-				ret = mbytes / DEFAULT_MBS_HDFSWRITE_BINARYBLOCK_SPARSE;
+				ret = mbytes / CostModelProfile.get(CostParam.MBS_HDFSWRITE_BINARYBLOCK_SPARSE);
 			else //dense
-				ret = mbytes / DEFAULT_MBS_HDFSWRITE_BINARYBLOCK_DENSE;
+				ret = mbytes / CostModelProfile.get(CostParam.MBS_HDFSWRITE_BINARYBLOCK_DENSE);
 		}
 		//if( LOG.isDebugEnabled() )
 		//	LOG.debug("Costs[export] = "+ret+"s, "+mbytes+" MB ("+dm+","+dn+","+ds+").");
@@ -762,9 +743,9 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 		
 		double ret = ((double)MatrixBlock.estimateSizeOnDisk((long)dm, (long)dn, (long)(ds*dm*dn))) / (1024*1024);  		
 		if( sparse )
-			ret /= DEFAULT_MBS_FSREAD_BINARYBLOCK_SPARSE;
+			ret /= CostModelProfile.get(CostParam.MBS_FSREAD_BINARYBLOCK_SPARSE);
 		else //dense
-			ret /= DEFAULT_MBS_FSREAD_BINARYBLOCK_DENSE;
+			ret /= CostModelProfile.get(CostParam.MBS_FSREAD_BINARYBLOCK_DENSE);
 		
 		return ret;
 	}
@@ -783,9 +764,9 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 		double ret = ((double)MatrixBlock.estimateSizeOnDisk((long)dm, (long)dn, (long)(ds*dm*dn))) / (1024*1024);  		
 		
 		if( sparse )
-			ret /= DEFAULT_MBS_FSWRITE_BINARYBLOCK_SPARSE;
+			ret /= CostModelProfile.get(CostParam.MBS_FSWRITE_BINARYBLOCK_SPARSE);
 		else //dense
-			ret /= DEFAULT_MBS_FSWRITE_BINARYBLOCK_DENSE;
+			ret /= CostModelProfile.get(CostParam.MBS_FSWRITE_BINARYBLOCK_DENSE);
 		
 		return ret;
 	}
@@ -836,7 +817,7 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 	private double getInstTimeEstimate( String opcode, boolean inMR, long d1m, long d1n, double d1s, long d2m, long d2n, double d2s, long d3m, long d3n, double d3s, String[] args ) throws DMLRuntimeException
 	{
 		double nflops = getNFLOP(opcode, inMR, d1m, d1n, d1s, d2m, d2n, d2s, d3m, d3n, d3s, args);
-		double time = nflops / DEFAULT_FLOPS;
+		double time = nflops / CostModelProfile.getFlopRate(opcode);
 		
 		if( LOG.isDebugEnabled() )
 			LOG.debug("Cost["+opcode+"] = "+time+"s, "+nflops+" flops ("+d1m+","+d1n+","+d1s+","+d2m+","+d2n+","+d2s+","+d3m+","+d3n+","+d3s+").");
@@ -860,7 +841,7 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 	 * @return
 	 * @throws DMLRuntimeException
 	 */
-	private double getNFLOP( String optype, boolean inMR, long d1m, long d1n, double d1s, long d2m, long d2n, double d2s, long d3m, long d3n, double d3s, String[] args ) 
+	protected double getNFLOP( String optype, boolean inMR, long d1m, long d1n, double d1s, long d2m, long d2n, double d2s, long d3m, long d3n, double d3s, String[] args ) 
 		throws DMLRuntimeException
 	{
 		//operation costs in FLOP on matrix block level (for CP and MR instructions)
@@ -911,6 +892,10 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 					
 				case AggregateTernary: //opcodes: tak+*
 					return 6 * d1m * d1n; //2*1(*) + 4 (k+)
+				
+				case FusedCellwise: //opcodes: fcell
+					//fused cell-wise operations (and kahan aggregation)
+					return (Integer.parseInt(args[0]) + (args[1].equals("NONE") ? 0 : 4)) * d1m * d1n;
 					
 				case AggregateUnary: //opcodes: uak+, uark+, uack+, uasqk+, uarsqk+, uacsqk+,
 				                     //         uamean, uarmean, uacmean, uavar, uarvar, uacvar,
@@ -1165,7 +1150,7 @@ public class CostEstimatorStaticRuntime extends CostEstimator
 				case Partition:
 					return d1m * d1n * d1s + //partitioning costs
 						   (inMR ? 0 : //include write cost if in CP  	
-							getHDFSWriteTime(d1m, d1n, d1s)* DEFAULT_FLOPS);
+							getHDFSWriteTime(d1m, d1n, d1s)* CostModelProfile.getFlopRate(optype));
 					
 				case INVALID:
 					return 0;
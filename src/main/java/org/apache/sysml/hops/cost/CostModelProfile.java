@@ -0,0 +1,487 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.hops.cost;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.sysml.conf.DMLConfig;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.functionobjects.Plus;
+import org.apache.sysml.runtime.instructions.InstructionUtils;
+import org.apache.sysml.runtime.io.IOUtilFunctions;
+import org.apache.sysml.runtime.matrix.data.LibMatrixAgg;
+import org.apache.sysml.runtime.matrix.data.LibMatrixMult;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.operators.BinaryOperator;
+import org.apache.sysml.runtime.util.LocalFileUtils;
+
+/**
+ * Per-machine cost profile of the hardware-specific parameters of our cost models
+ * (compute throughput per operation class, local IO bandwidth, job latencies).
+ *
+ * If a profile file is configured (cp.costmodel.profile), it is loaded on startup or,
+ * if it does not exist yet, created by a calibration run of micro benchmarks over our
+ * core matrix multiplication, aggregation, cell-wise, and local IO primitives. During
+ * execution, the profile is further refined from the measured times of large operations
+ * and persisted on shutdown. Without configured profile, all parameters fall back to
+ * the static defaults, i.e., cost estimates are unchanged.
+ *
+ * Compute throughputs are measured in terms of the FLOP counts of the static cost
+ * model (see CostEstimatorStaticRuntime), i.e., they implicitly calibrate the
+ * flop count functions as well.
+ */
+public class CostModelProfile
+{
+	private static final Log LOG = LogFactory.getLog(CostModelProfile.class.getName());
+
+	public enum CostParam {
+		//compute throughput (FLOP/s, single-threaded)
+		FLOPS_MATMULT(2L * 1024 * 1024 * 1024),
+		FLOPS_AGG(2L * 1024 * 1024 * 1024),
+		FLOPS_CELLWISE(2L * 1024 * 1024 * 1024),
+		//MR job latency (s)
+		MR_JOB_LATENCY_LOCAL(2),
+		MR_JOB_LATENCY_REMOTE(20),
+		MR_TASK_LATENCY_LOCAL(0.001),
+		MR_TASK_LATENCY_REMOTE(1.5),
+		//IO read throughput (MB/s)
+		MBS_FSREAD_BINARYBLOCK_DENSE(200),
+		MBS_FSREAD_BINARYBLOCK_SPARSE(100),
+		MBS_HDFSREAD_BINARYBLOCK_DENSE(150),
+		MBS_HDFSREAD_BINARYBLOCK_SPARSE(75),
+		//IO write throughput (MB/s)
+		MBS_FSWRITE_BINARYBLOCK_DENSE(150),
+		MBS_FSWRITE_BINARYBLOCK_SPARSE(75),
+		MBS_HDFSWRITE_BINARYBLOCK_DENSE(120),
+		MBS_HDFSWRITE_BINARYBLOCK_SPARSE(60),
+		MBS_HDFSWRITE_TEXT_DENSE(40),
+		MBS_HDFSWRITE_TEXT_SPARSE(30);
+
+		private final double _default;
+
+		private CostParam( double defaultValue ) {
+			_default = defaultValue;
+		}
+
+		public double getDefault() {
+			return _default;
+		}
+	}
+
+	//calibration configuration
+	private static final int CALIB_REPEAT = 3;
+	private static final int CALIB_MM_DIM = 512;
+	private static final int CALIB_CELL_DIM = 2048;
+	private static final int CALIB_IO_DIM = 2048;
+	private static final double CALIB_IO_SPARSITY = 0.05;
+
+	//online refinement (exponential smoothing over large operations)
+	public static final double MIN_OBSERVATION_NFLOP = 64L * 1024 * 1024;
+	private static final double OBSERVATION_WEIGHT = 0.1;
+
+	//parameter values by ordinal, replaced as a whole (copy-on-write) on updates, which
+	//allows lock-free reads on the cost estimation hot path (writes are rare)
+	private static volatile double[] _params = null;
+	private static String _fname = null;
+	private static volatile boolean _online = false;
+	private static boolean _dirty = false;
+
+	static
+	{
+		resetDefaults();
+	}
+
+	/**
+	 * Initializes the cost profile according to the given configuration. If a profile
+	 * file is configured, we either load the existing profile or calibrate and persist
+	 * a new profile. Must be called after the local working directory has been created.
+	 *
+	 * @param conf
+	 */
+	public static synchronized void initialize( DMLConfig conf )
+	{
+		String fname = (conf != null) ? conf.getTextValue(DMLConfig.CP_COSTMODEL_PROFILE) : null;
+		if( fname == null || fname.trim().isEmpty() ) {
+			resetDefaults();
+			_fname = null;
+			_online = false;
+			return;
+		}
+
+		//no reload for multiple scripts in one JVM (keep refined profile)
+		if( fname.equals(_fname) )
+			return;
+
+		resetDefaults();
+		_fname = fname;
+		try
+		{
+			if( !LocalFileUtils.validateExternalFilename(fname, false) )
+				throw new DMLRuntimeException("Invalid (non-trustworthy) cost model profile filename.");
+			
+			if( new File(fname).exists() ) {
+				load(fname);
+			}
+			else {
+				calibrate();
+				persist(fname);
+			}
+			_online = true;
+		}
+		catch(Exception ex) {
+			LOG.warn("Failed to initialize cost model profile '"+fname+"', using defaults.", ex);
+			resetDefaults();
+			_online = false;
+		}
+	}
+
+	/**
+	 * Persists the cost profile if it has been refined during execution.
+	 */
+	public static synchronized void shutdown()
+	{
+		if( _fname == null || !_dirty )
+			return;
+
+		try {
+			persist(_fname);
+		}
+		catch(IOException ex) {
+			LOG.warn("Failed to persist cost model profile '"+_fname+"'.", ex);
+		}
+	}
+
+	/**
+	 *
+	 * @return
+	 */
+	public static boolean isCalibrated()
+	{
+		return _online;
+	}
+
+	/**
+	 *
+	 * @param param
+	 * @return
+	 */
+	public static double get( CostParam param )
+	{
+		return _params[param.ordinal()];
+	}
+
+	/**
+	 * Obtains the compute throughput (FLOP/s) of the given opcode's operation class.
+	 *
+	 * @param opcode
+	 * @return
+	 */
+	public static double getFlopRate( String opcode )
+	{
+		return get(getFlopParam(opcode));
+	}
+
+	/**
+	 * Maintains an observed operation execution for online refinement of the
+	 * profile. Only large operations are considered in order to prevent skew
+	 * by timer resolution and fixed overheads.
+	 *
+	 * @param param throughput parameter
+	 * @param nflop number of floating point operations (as of the static cost model)
+	 * @param nanos measured execution time
+	 * @param k degree of parallelism used for the operation
+	 */
+	public static void maintainObservation( CostParam param, double nflop, long nanos, int k )
+	{
+		if( !_online || nflop < MIN_OBSERVATION_NFLOP || nanos <= 0 )
+			return;
+
+		double rate = nflop / (nanos * 1e-9) / Math.max(k, 1);
+		synchronized( CostModelProfile.class ) {
+			double[] params = _params.clone();
+			params[param.ordinal()] = (1-OBSERVATION_WEIGHT) * params[param.ordinal()] + OBSERVATION_WEIGHT * rate;
+			_params = params;
+			_dirty = true;
+		}
+	}
+
+	/**
+	 * Runs micro benchmarks of compute and local IO primitives and updates the
+	 * related parameters of the profile.
+	 *
+	 * @throws DMLRuntimeException
+	 * @throws IOException
+	 */
+	public static void calibrate()
+		throws DMLRuntimeException, IOException
+	{
+		CostEstimatorStaticRuntime est = new CostEstimatorStaticRuntime();
+		long t0 = System.nanoTime();
+
+		//compute primitives (single-threaded)
+		double mm = calibrateMatrixMult(est);
+		double agg = calibrateAggregate(est);
+		double cell = calibrateCellwise(est);
+
+		//local io primitives (binary block, dense/sparse)
+		double[] iod = calibrateLocalIO(1.0);
+		double[] ios = calibrateLocalIO(CALIB_IO_SPARSITY);
+
+		synchronized( CostModelProfile.class ) {
+			double[] params = _params.clone();
+			params[CostParam.FLOPS_MATMULT.ordinal()] = mm;
+			params[CostParam.FLOPS_AGG.ordinal()] = agg;
+			params[CostParam.FLOPS_CELLWISE.ordinal()] = cell;
+			params[CostParam.MBS_FSREAD_BINARYBLOCK_DENSE.ordinal()] = iod[0];
+			params[CostParam.MBS_FSWRITE_BINARYBLOCK_DENSE.ordinal()] = iod[1];
+			params[CostParam.MBS_FSREAD_BINARYBLOCK_SPARSE.ordinal()] = ios[0];
+			params[CostParam.MBS_FSWRITE_BINARYBLOCK_SPARSE.ordinal()] = ios[1];
+			_params = params;
+		}
+
+		LOG.info("Calibrated cost model profile in "+((System.nanoTime()-t0)/1000000)+"ms: "
+				+ "mm="+mm+", agg="+agg+", cell="+cell+" flop/s; "
+				+ "fs dense r/w="+iod[0]+"/"+iod[1]+", fs sparse r/w="+ios[0]+"/"+ios[1]+" MB/s.");
+	}
+
+	/**
+	 *
+	 * @param fname
+	 * @throws IOException
+	 */
+	public static synchronized void load( String fname )
+		throws IOException
+	{
+		Properties props = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(fname);
+			props.load(in);
+		}
+		finally {
+			IOUtilFunctions.closeSilently(in);
+		}
+
+		double[] params = _params.clone();
+		for( CostParam param : CostParam.values() ) {
+			String val = props.getProperty(param.name().toLowerCase());
+			if( val != null ) {
+				try {
+					double dval = Double.parseDouble(val);
+					if( dval > 0 )
+						params[param.ordinal()] = dval;
+				}
+				catch(NumberFormatException ex) {
+					LOG.warn("Ignore invalid cost model parameter "+param.name().toLowerCase()+"="+val+".");
+				}
+			}
+		}
+		_params = params;
+		_dirty = false;
+	}
+
+	/**
+	 *
+	 * @param fname
+	 * @throws IOException
+	 */
+	public static synchronized void persist( String fname )
+		throws IOException
+	{
+		Properties props = new Properties();
+		double[] params = _params;
+		for( CostParam param : CostParam.values() )
+			props.setProperty(param.name().toLowerCase(), String.valueOf(params[param.ordinal()]));
+
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(fname);
+			props.store(out, "SystemML cost model profile");
+		}
+		finally {
+			IOUtilFunctions.closeSilently(out);
+		}
+		_dirty = false;
+	}
+
+	/**
+	 *
+	 */
+	private static synchronized void resetDefaults()
+	{
+		CostParam[] values = CostParam.values();
+		double[] params = new double[values.length];
+		for( CostParam param : values )
+			params[param.ordinal()] = param.getDefault();
+		_params = params;
+		_dirty = false;
+	}
+
+	/**
+	 *
+	 * @param opcode
+	 * @return
+	 */
+	private static CostParam getFlopParam( String opcode )
+	{
+		if( opcode == null )
+			return CostParam.FLOPS_CELLWISE;
+
+		if(    opcode.equals("ba+*") || opcode.equals("tsmm") || opcode.equals("mmchain")
+			|| opcode.equals("pmm") || opcode.equals("mapmm") || opcode.equals("mapmmchain")
+			|| opcode.equals("cpmm") || opcode.equals("rmm") || opcode.equals("zipmm")
+			|| opcode.equals("solve") )
+		{
+			return CostParam.FLOPS_MATMULT;
+		}
+		else if( opcode.startsWith("ua") || opcode.equals("tak+*")
+			|| opcode.equals("cm") || opcode.equals("cov") )
+		{
+			return CostParam.FLOPS_AGG;
+		}
+
+		return CostParam.FLOPS_CELLWISE;
+	}
+
+	/**
+	 *
+	 * @param est
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static double calibrateMatrixMult( CostEstimatorStaticRuntime est )
+		throws DMLRuntimeException
+	{
+		int n = CALIB_MM_DIM;
+		MatrixBlock a = MatrixBlock.randOperations(n, n, 1.0, 0, 1, "uniform", 7);
+		MatrixBlock b = MatrixBlock.randOperations(n, n, 1.0, 0, 1, "uniform", 3);
+		double nflop = est.getNFLOP("ba+*", false, n, n, 1.0, n, n, 1.0, n, n, 1.0, null);
+
+		long best = Long.MAX_VALUE;
+		for( int i=0; i<CALIB_REPEAT; i++ ) {
+			MatrixBlock c = new MatrixBlock(n, n, false);
+			long t0 = System.nanoTime();
+			LibMatrixMult.matrixMult(a, b, c);
+			best = Math.min(best, System.nanoTime()-t0);
+		}
+
+		return nflop / (Math.max(best, 1) * 1e-9);
+	}
+
+	/**
+	 *
+	 * @param est
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static double calibrateAggregate( CostEstimatorStaticRuntime est )
+		throws DMLRuntimeException
+	{
+		int n = CALIB_CELL_DIM;
+		MatrixBlock a = MatrixBlock.randOperations(n, n, 1.0, 0, 1, "uniform", 7);
+		double nflop = est.getNFLOP("uak+", false, n, n, 1.0, -1, -1, -1, 1, 1, 1.0, null);
+
+		long best = Long.MAX_VALUE;
+		for( int i=0; i<CALIB_REPEAT; i++ ) {
+			MatrixBlock c = new MatrixBlock(1, 2, false);
+			long t0 = System.nanoTime();
+			LibMatrixAgg.aggregateUnaryMatrix(a, c,
+				InstructionUtils.parseBasicAggregateUnaryOperator("uak+"));
+			best = Math.min(best, System.nanoTime()-t0);
+		}
+
+		return nflop / (Math.max(best, 1) * 1e-9);
+	}
+
+	/**
+	 *
+	 * @param est
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static double calibrateCellwise( CostEstimatorStaticRuntime est )
+		throws DMLRuntimeException
+	{
+		int n = CALIB_CELL_DIM;
+		MatrixBlock a = MatrixBlock.randOperations(n, n, 1.0, 0, 1, "uniform", 7);
+		MatrixBlock b = MatrixBlock.randOperations(n, n, 1.0, 0, 1, "uniform", 3);
+		double nflop = est.getNFLOP("+", false, n, n, 1.0, n, n, 1.0, n, n, 1.0, null);
+		BinaryOperator op = new BinaryOperator(Plus.getPlusFnObject());
+
+		long best = Long.MAX_VALUE;
+		for( int i=0; i<CALIB_REPEAT; i++ ) {
+			MatrixBlock c = new MatrixBlock(n, n, false);
+			long t0 = System.nanoTime();
+			a.binaryOperations(op, b, c);
+			best = Math.min(best, System.nanoTime()-t0);
+		}
+
+		return nflop / (Math.max(best, 1) * 1e-9);
+	}
+
+	/**
+	 * Measures the local read and write throughput in MB/s of binary block
+	 * matrices (as used by the buffer pool) of the given sparsity.
+	 *
+	 * @param sparsity
+	 * @return read and write throughput
+	 * @throws DMLRuntimeException
+	 * @throws IOException
+	 */
+	private static double[] calibrateLocalIO( double sparsity )
+		throws DMLRuntimeException, IOException
+	{
+		int n = CALIB_IO_DIM;
+		MatrixBlock a = MatrixBlock.randOperations(n, n, sparsity, 0, 1, "uniform", 7);
+		double mbytes = ((double)MatrixBlock.estimateSizeOnDisk(n, n, a.getNonZeros())) / (1024*1024);
+		String fname = LocalFileUtils.getUniqueWorkingDir("costcalib");
+
+		long bestr = Long.MAX_VALUE;
+		long bestw = Long.MAX_VALUE;
+		try
+		{
+			for( int i=0; i<CALIB_REPEAT; i++ ) {
+				long t0 = System.nanoTime();
+				LocalFileUtils.writeMatrixBlockToLocal(fname, a);
+				long t1 = System.nanoTime();
+				LocalFileUtils.readMatrixBlockFromLocal(fname);
+				long t2 = System.nanoTime();
+				bestw = Math.min(bestw, t1-t0);
+				bestr = Math.min(bestr, t2-t1);
+				LocalFileUtils.deleteFileIfExists(fname);
+			}
+		}
+		finally {
+			LocalFileUtils.deleteFileIfExists(fname);
+		}
+
+		return new double[]{
+			mbytes / (Math.max(bestr, 1) * 1e-9),
+			mbytes / (Math.max(bestw, 1) * 1e-9) };
+	}
+}
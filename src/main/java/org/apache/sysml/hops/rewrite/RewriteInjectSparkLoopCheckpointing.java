@@ -20,16 +20,24 @@
 package org.apache.sysml.hops.rewrite;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
+import org.apache.sysml.hops.BinaryOp;
 import org.apache.sysml.hops.DataOp;
 import org.apache.sysml.hops.Hop;
 import org.apache.sysml.hops.HopsException;
 import org.apache.sysml.hops.Hop.DataOpTypes;
+import org.apache.sysml.hops.Hop.VisitStatus;
+import org.apache.sysml.hops.LeftIndexingOp;
 import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.parser.DataIdentifier;
+import org.apache.sysml.parser.ForStatement;
 import org.apache.sysml.parser.ForStatementBlock;
+import org.apache.sysml.parser.IfStatement;
+import org.apache.sysml.parser.IfStatementBlock;
 import org.apache.sysml.parser.StatementBlock;
 import org.apache.sysml.parser.VariableSet;
+import org.apache.sysml.parser.WhileStatement;
 import org.apache.sysml.parser.WhileStatementBlock;
 import org.apache.sysml.parser.Expression.DataType;
 import org.apache.sysml.parser.Expression.ValueType;
@@ -39,6 +47,10 @@ import org.apache.sysml.parser.Expression.ValueType;
  * follow a heuristic of checkpointing (1) all variables used read-only in loops,
  * and (2) intermediates used by multiple consumers.
  * 
+ * Read-only loop variables that are consumed by element-wise matrix-matrix operations 
+ * or as target of left indexing within the loop body are additionally marked for block 
+ * partitioning, which avoids repeated shuffles of these inputs in subsequent joins.
+ * 
  * TODO (2) implement injection for multiple consumers (local and global).
  * 
  */
@@ -87,6 +99,8 @@ public class RewriteInjectSparkLoopCheckpointing extends StatementBlockRewriteRu
 			//step 2: insert statement block with checkpointing operations
 			if( !candidates.isEmpty() ) //existing candidates
 			{
+				HashSet<String> partCandidates = getPartitioningCandidates(sb, candidates);
+				
 				StatementBlock sb0 = new StatementBlock();
 				sb0.setDMLProg(sb.getDMLProg());
 				sb0.setAllPositions(sb.getFilename(), sb.getBeginLine(), sb.getBeginColumn(), sb.getEndLine(), sb.getEndColumn());
@@ -99,6 +113,7 @@ public class RewriteInjectSparkLoopCheckpointing extends StatementBlockRewriteRu
 					DataOp tread = new DataOp(var, DataType.MATRIX, ValueType.DOUBLE, DataOpTypes.TRANSIENTREAD, 
 							            dat.getFilename(), dat.getDim1(), dat.getDim2(), dat.getNnz(), blocksize, blocksize);
 					tread.setRequiresCheckpoint( true );
+					tread.setRequiresCheckpointPartitioning( partCandidates.contains(var) );
 					DataOp twrite = new DataOp(var, DataType.MATRIX, ValueType.DOUBLE, tread, DataOpTypes.TRANSIENTWRITE, null);
 					HopRewriteUtils.setOutputParameters(twrite, dat.getDim1(), dat.getDim2(), blocksize, blocksize, dat.getNnz());					
 					hops.add(twrite);
@@ -120,4 +135,101 @@ public class RewriteInjectSparkLoopCheckpointing extends StatementBlockRewriteRu
 		
 		return ret;
 	}
+	
+	/**
+	 * Obtains all checkpointing candidates that are consumed within the loop body
+	 * by element-wise matrix-matrix operations or as target of left indexing.
+	 * 
+	 * @param sb
+	 * @param candidates
+	 * @return
+	 */
+	private static HashSet<String> getPartitioningCandidates(StatementBlock sb, ArrayList<String> candidates)
+	{
+		HashSet<String> ret = new HashSet<String>();
+		rCollectPartitioningCandidates(sb, new HashSet<String>(candidates), ret);
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param sb
+	 * @param candidates
+	 * @param ret
+	 */
+	private static void rCollectPartitioningCandidates(StatementBlock sb, HashSet<String> candidates, HashSet<String> ret)
+	{
+		if( sb instanceof WhileStatementBlock ) {
+			WhileStatement wstmt = (WhileStatement)sb.getStatement(0);
+			for( StatementBlock csb : wstmt.getBody() )
+				rCollectPartitioningCandidates(csb, candidates, ret);
+		}
+		else if( sb instanceof ForStatementBlock ) { //incl parfor
+			ForStatement fstmt = (ForStatement)sb.getStatement(0);
+			for( StatementBlock csb : fstmt.getBody() )
+				rCollectPartitioningCandidates(csb, candidates, ret);
+		}
+		else if( sb instanceof IfStatementBlock ) {
+			IfStatement istmt = (IfStatement)sb.getStatement(0);
+			for( StatementBlock csb : istmt.getIfBody() )
+				rCollectPartitioningCandidates(csb, candidates, ret);
+			for( StatementBlock csb : istmt.getElseBody() )
+				rCollectPartitioningCandidates(csb, candidates, ret);
+		}
+		else if( sb.get_hops() != null ) { //generic (last-level)
+			Hop.resetVisitStatus(sb.get_hops());
+			for( Hop hop : sb.get_hops() )
+				rCollectPartitioningCandidates(hop, candidates, ret);
+			Hop.resetVisitStatus(sb.get_hops());
+		}
+	}
+	
+	/**
+	 * 
+	 * @param hop
+	 * @param candidates
+	 * @param ret
+	 */
+	private static void rCollectPartitioningCandidates(Hop hop, HashSet<String> candidates, HashSet<String> ret)
+	{
+		if( hop.getVisited() == VisitStatus.DONE )
+			return;
+		
+		//transient read of candidate with co-partitioned consumer
+		if( hop instanceof DataOp && ((DataOp)hop).getDataOpType()==DataOpTypes.TRANSIENTREAD
+			&& candidates.contains(hop.getName()) )
+		{
+			for( Hop p : hop.getParent() )
+				if( isCoPartitionedConsumer(p, hop) )
+					ret.add(hop.getName());
+		}
+		
+		for( Hop c : hop.getInput() )
+			rCollectPartitioningCandidates(c, candidates, ret);
+		
+		hop.setVisited(VisitStatus.DONE);
+	}
+	
+	/**
+	 * 
+	 * @param parent
+	 * @param input
+	 * @return
+	 */
+	private static boolean isCoPartitionedConsumer(Hop parent, Hop input)
+	{
+		//element-wise matrix-matrix operation (join by block indexes)
+		if( parent instanceof BinaryOp ) {
+			Hop in1 = parent.getInput().get(0);
+			Hop in2 = parent.getInput().get(1);
+			return in1.getDataType()==DataType.MATRIX && in2.getDataType()==DataType.MATRIX
+				&& HopRewriteUtils.isEqualSize(in1, in2);
+		}
+		
+		//left indexing into the given input (merge by block indexes)
+		if( parent instanceof LeftIndexingOp )
+			return parent.getInput().get(0) == input;
+		
+		return false;
+	}
 }
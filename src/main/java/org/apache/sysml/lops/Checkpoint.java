@@ -45,9 +45,12 @@ public class Checkpoint extends Lop
 	public static final StorageLevel DEFAULT_STORAGE_LEVEL = StorageLevel.MEMORY_AND_DISK();
 	public static final StorageLevel SER_STORAGE_LEVEL = StorageLevel.MEMORY_AND_DISK_SER();
 	public static final boolean CHECKPOINT_SPARSE_CSR = true; 
+	public static final boolean CHECKPOINT_PARTITIONING = true;
+	public static final boolean CHECKPOINT_ADAPTIVE_STORAGE = true;
 	public static final String STORAGE_LEVEL = "storage.level"; 
 
 	private StorageLevel _storageLevel;
+	private boolean _partition = false;
 	
 
 	/**
@@ -63,12 +66,29 @@ public class Checkpoint extends Lop
 	 */
 	public Checkpoint(Lop input, DataType dt, ValueType vt, String level) 
 		throws LopsException
+	{
+		this(input, dt, vt, level, false);
+	}
+	
+	/**
+	 * 
+	 * @param input
+	 * @param dt
+	 * @param vt
+	 * @param level
+	 * @param partition if true, partition the checkpointed matrix by blocks in order 
+	 *        to allow subsequent joins with co-partitioned inputs without shuffle
+	 * @throws LopsException
+	 */
+	public Checkpoint(Lop input, DataType dt, ValueType vt, String level, boolean partition) 
+		throws LopsException
 	{
 		super(Lop.Type.Checkpoint, dt, vt);		
 		this.addInput(input);
 		input.addOutput(this);
 		
 		_storageLevel = StorageLevel.fromString(level);
+		_partition = partition;
 		
 		boolean breaksAlignment = false;
 		boolean aligner = false;
@@ -112,6 +132,8 @@ public class Checkpoint extends Lop
 		sb.append( prepOutputOperand(output));
 		sb.append( OPERAND_DELIMITOR );
 		sb.append( getStorageLevelString(_storageLevel) );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( _partition );
 		
 		return sb.toString();
 
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.lops;
+
+import java.util.ArrayList;
+
+import org.apache.sysml.lops.LopProperties.ExecLocation;
+import org.apache.sysml.lops.LopProperties.ExecType;
+import org.apache.sysml.lops.compile.JobType;
+import org.apache.sysml.parser.Expression.DataType;
+import org.apache.sysml.parser.Expression.ValueType;
+
+
+/**
+ * Lop for a fused region of cell-wise operations with optional sum, rowSums, or
+ * colSums aggregation, executed as single-pass kernel in CP. The cell-wise
+ * operations are given as postfix program over the lop inputs (see
+ * CellwiseFusionPlanner), e.g., "$0,$1,b-,$2,b*" for (X-Y)*W.
+ *
+ */
+public class FusedCellwise extends Lop
+{
+	public static final String OPCODE = "fcell";
+
+	//program tokens and delimiter
+	public static final String PROGRAM_DELIM = ",";
+	public static final String INPUT_PREFIX = "$";
+	public static final String BINARY_PREFIX = "b";
+	public static final String UNARY_PREFIX = "u";
+
+	public enum AggType {
+		NONE,
+		SUM,
+		ROW_SUM,
+		COL_SUM
+	}
+
+	private String _program = null;
+	private AggType _aggtype = null;
+	private int _numThreads = -1;
+
+	/**
+	 *
+	 * @param inputs
+	 * @param program
+	 * @param aggtype
+	 * @param dt
+	 * @param vt
+	 * @param et
+	 * @param k
+	 */
+	public FusedCellwise(ArrayList<Lop> inputs, String program, AggType aggtype, DataType dt, ValueType vt, ExecType et, int k)
+	{
+		super(Lop.Type.FusedCellwise, dt, vt);
+
+		for( Lop in : inputs ) {
+			addInput(in);
+			in.addOutput(this);
+		}
+
+		_program = program;
+		_aggtype = aggtype;
+		_numThreads = k;
+
+		boolean breaksAlignment = false;
+		boolean aligner = false;
+		boolean definesMRJob = false;
+		lps.addCompatibility(JobType.INVALID);
+		lps.setProperties( this.inputs, et, ExecLocation.ControlProgram, breaksAlignment, aligner, definesMRJob );
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Operation: "+OPCODE+" ("+_aggtype+", "+_program+")";
+	}
+
+	@Override
+	public String getInstructions(String output)
+		throws LopsException
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append( getExecType() );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( OPCODE );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( _aggtype.name() );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( _program );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( _numThreads );
+
+		//variable number of inputs
+		for( Lop in : getInputs() ) {
+			sb.append( OPERAND_DELIMITOR );
+			sb.append( in.prepInputOperand(in.getOutputParameters().getLabel()) );
+		}
+
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( prepOutputOperand(output) );
+
+		return sb.toString();
+	}
+}
@@ -42,11 +42,13 @@ public abstract class Lop
 		Data, DataGen, 										//CP/MR read/write/datagen 
 		ReBlock, CSVReBlock,								//MR reblock operations
 		MMCJ, MMRJ, MMTSJ, PMMJ, MapMult, MapMultChain,     //MR matrix multiplications
+		MMGrid,                                             //SP grid matrix multiplication
 		UnaryCP, UNARY, BinaryCP, Binary, Ternary,          //CP/MR unary/binary/ternary
 		RangeReIndex, LeftIndex, ZeroOut,                   //CP/MR indexing 
 		Aggregate, PartialAggregate,   	   				    //CP/MR aggregation
 		BinUaggChain, UaggOuterChain,  	                    //CP/MR aggregation
 		TernaryAggregate,                                   //CP ternary-binary aggregates
+		FusedCellwise,                                      //CP fused cell-wise (aggregate) chains
 		Grouping, 											//MR grouping
 		Append,                                             //CP/MR append (column append)
 		CombineUnary, CombineBinary, CombineTernary,        //MR combine (stitch together)
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.lops;
+
+import org.apache.sysml.hops.AggBinaryOp.SparkAggType;
+import org.apache.sysml.lops.LopProperties.ExecLocation;
+import org.apache.sysml.lops.LopProperties.ExecType;
+import org.apache.sysml.lops.compile.JobType;
+import org.apache.sysml.parser.Expression.DataType;
+import org.apache.sysml.parser.Expression.ValueType;
+
+
+/**
+ * Lop to perform grid-partitioned (2D/3D) matrix multiplication, where the 
+ * partitioning grid is determined at runtime based on the actual input characteristics.
+ */
+public class MMGrid extends Lop 
+{
+	private SparkAggType _aggtype = SparkAggType.MULTI_BLOCK;
+	
+	/**
+	 * 
+	 * @param input1
+	 * @param input2
+	 * @param dt
+	 * @param vt
+	 * @param aggtype
+	 * @param et
+	 */
+	public MMGrid(Lop input1, Lop input2, DataType dt, ValueType vt, SparkAggType aggtype, ExecType et) 
+	{
+		//handle inputs and outputs
+		super(Lop.Type.MMGrid, dt, vt);		
+		
+		_aggtype = aggtype;
+		
+		addInput(input1);
+		addInput(input2);
+		input1.addOutput(this);
+		input2.addOutput(this);
+		
+		//only applicable for spark
+		boolean breaksAlignment = false;
+		boolean aligner = false;
+		boolean definesMRJob = false;
+		lps.addCompatibility(JobType.INVALID);
+		lps.setProperties( inputs, et, ExecLocation.ControlProgram, breaksAlignment, aligner, definesMRJob );
+	}
+
+	@Override
+	public String toString() {
+	
+		return "Operation = MMGrid";
+	}
+
+	@Override
+	public String getInstructions(String input1, String input2, String output)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append( getExecType() );
+		sb.append( Lop.OPERAND_DELIMITOR );
+		sb.append( "gridmm" );
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( getInputs().get(0).prepInputOperand(input1));
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( getInputs().get(1).prepInputOperand(input2));
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( prepOutputOperand(output));
+		sb.append( OPERAND_DELIMITOR );
+		sb.append( _aggtype );
+		
+		return sb.toString();
+	}
+}
@@ -71,6 +71,13 @@ public class Transform extends Lop
 		init(input, op, dt, vt, et);
 	}
 	
+	public Transform(Lop input, Transform.OperationTypes op, DataType dt, ValueType vt, ExecType et, boolean bSortIndInMem, int k) {
+		super(Lop.Type.Transform, dt, vt);		
+		_bSortIndInMem = bSortIndInMem;
+		_numThreads = k;
+		init(input, op, dt, vt, et);
+	}
+	
 	private void init (Lop input, Transform.OperationTypes op, DataType dt, ValueType vt, ExecType et) 
 	{
 		operation = op;
@@ -179,7 +186,7 @@ public class Transform extends Lop
 	public String getInstructions(String input1, String input2, String input3, String input4, String output) 
 		throws LopsException 
 	{
-		//only used for reshape
+		//only used for reshape and sort
 		
 		StringBuilder sb = new StringBuilder();
 		sb.append( getExecType() );
@@ -205,6 +212,10 @@ public class Transform extends Lop
 			sb.append( OPERAND_DELIMITOR );
 			sb.append( _bSortIndInMem );
 		}
+		else if( getExecType()==ExecType.CP && operation == OperationTypes.Sort ) {
+			sb.append( OPERAND_DELIMITOR );
+			sb.append( _numThreads );
+		}
 		
 		return sb.toString();
 	}
@@ -231,7 +242,7 @@ public class Transform extends Lop
 	public String getInstructions(int input_index1, int input_index2, int input_index3, int input_index4, int output_index) 
 		throws LopsException
 	{
-		//only used for reshape
+		//only used for reshape and sort
 		
 		StringBuilder sb = new StringBuilder();
 		sb.append( getExecType() );
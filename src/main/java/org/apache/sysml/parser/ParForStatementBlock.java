@@ -463,6 +463,47 @@ public class ParForStatementBlock extends ForStatementBlock
 		return dpf;
 	}
 	
+	/**
+	 * Determines the write pattern of the given result variable within the parfor 
+	 * statement block. Row-wise or column-wise is only returned if all writes are 
+	 * left indexing operations of entire rows or columns. Since the dependency analysis
+	 * ensures that different iterations write disjoint index ranges, every written
+	 * row (column) is then exclusively owned by a single worker, which allows result
+	 * merge to copy entire slices instead of comparing individual cells.
+	 * 
+	 * @param var
+	 * @return
+	 */
+	public PDataPartitionFormat determineResultPartitionFormat(String var) 
+	{
+		PDataPartitionFormat dpf = null;
+		List<PDataPartitionFormat> dpfc = new LinkedList<PDataPartitionFormat>();
+		
+		try 
+		{
+			//determine write candidates
+			ParForStatement pfs = (ParForStatement) _statements.get(0);
+			rDetermineResultPartitioningCandidates(var, pfs.getBody(), dpfc);
+			
+			//determine final solution (consensus over all writes)
+			for( PDataPartitionFormat tmp : dpfc ) {
+				if( dpf != null && dpf!=tmp ) //if no consensus
+					dpf = PDataPartitionFormat.NONE;	
+				else
+					dpf = tmp;
+			}
+			if( dpf == null )
+				dpf = PDataPartitionFormat.NONE;
+		}
+		catch (LanguageException e) 
+		{
+			LOG.trace( "Unable to determine result partitioning candidates.", e );
+			dpf = PDataPartitionFormat.NONE;
+		}
+		
+		return dpf;
+	}
+	
 	/**
 	 * This method recursively determines candidates for output,data,anti dependencies. 
 	 * Candidates are defined as writes to non-local variables.
@@ -614,6 +655,47 @@ public class ParForStatementBlock extends ForStatementBlock
 			}
 	}
 	
+	/**
+	 * This method recursively determines partitioning candidates for result variables. 
+	 * Candidates are defined as (index) writes of non-local variables.
+	 * 
+	 * @param var
+	 * @param asb
+	 * @param C
+	 * @throws LanguageException
+	 */
+	private void rDetermineResultPartitioningCandidates(String var, ArrayList<StatementBlock> asb, List<PDataPartitionFormat> C) 
+		throws LanguageException 
+	{
+		for(StatementBlock sb : asb ) // foreach statementblock in parforbody
+			for( Statement s : sb._statements ) // foreach statement in statement block
+			{
+				if( s instanceof ForStatement ) //includes for and parfor
+				{
+					rDetermineResultPartitioningCandidates(var, ((ForStatement)s).getBody(), C);
+				}
+				else if( s instanceof WhileStatement ) 
+				{
+					rDetermineResultPartitioningCandidates(var, ((WhileStatement)s).getBody(), C);
+				}
+				else if( s instanceof IfStatement ) 
+				{
+					rDetermineResultPartitioningCandidates(var, ((IfStatement)s).getIfBody(), C);
+					rDetermineResultPartitioningCandidates(var, ((IfStatement)s).getElseBody(), C);
+				}
+				else if( s instanceof FunctionStatement ) 
+				{
+					rDetermineResultPartitioningCandidates(var, ((FunctionStatement)s).getBody(), C);
+				}
+				else
+				{
+					//reuse access pattern analysis on target identifiers
+					List<DataIdentifier> datsWrite = getDataIdentifiers(s, true);
+					rDeterminePartitioningCandidates(var, datsWrite, C);
+				}
+			}
+	}
+	
 	private PDataPartitionFormat determineAccessPattern( IndexedIdentifier dat )
 	{
 		PDataPartitionFormat dpf = null;
@@ -212,6 +212,7 @@ public class ParForProgramBlock extends ForProgramBlock
 	public static final boolean ALLOW_NESTED_PARALLELISM	= true;    // if not, transparently change parfor to for on program conversions (local,remote)
 	public static       boolean ALLOW_REUSE_MR_JVMS         = true;    // potential benefits: less setup costs per task, NOTE> cannot be used MR4490 in Hadoop 1.0.3, still not fixed in 1.1.1
 	public static       boolean ALLOW_REUSE_MR_PAR_WORKER   = ALLOW_REUSE_MR_JVMS; //potential benefits: less initialization, reuse in-memory objects and result consolidation!
+	public static       boolean ALLOW_REUSE_SPARK_PAR_WORKER = true;   // reuse configured parfor workers across spark tasks of a parfor job (same benefits as above)
 	public static final boolean USE_PARALLEL_RESULT_MERGE   = false;    // if result merge is run in parallel or serial 
 	public static final boolean USE_PARALLEL_RESULT_MERGE_REMOTE = true; // if remote result merge should be run in parallel for multiple result vars
 	public static final boolean ALLOW_DATA_COLOCATION       = true;
@@ -643,8 +644,10 @@ public class ParForProgramBlock extends ForProgramBlock
 		for( String var : _variablesDPOriginal.keySet() )
 		{
 			//cleanup partitioned matrix (if not reused)
-			if( !_variablesDPReuse.keySet().contains(var) )
+			if( !_variablesDPReuse.keySet().contains(var) ) {
+				cleanupPartitionStore( ec.getVariable(var) );
 				VariableCPInstruction.processRemoveVariableInstruction(ec, var); 
+			}
 			//reset to original matrix
 			MatrixObject mo = (MatrixObject) _variablesDPOriginal.get( var );
 			ec.setVariable(var, mo); 
@@ -1161,6 +1164,14 @@ public class ParForProgramBlock extends ForProgramBlock
 						
 						//input data partitioning (reuse if possible)
 						Data dpdatNew = _variablesDPReuse.get(var);
+						if( dpdatNew != null && _execMode != PExecMode.LOCAL 
+							&& ((MatrixObject)dpdatNew).getPartitionStore() != null ) 
+						{
+							//local partition store not accessible by remote workers
+							_variablesDPReuse.remove(var);
+							cleanupPartitionStore(dpdatNew);
+							dpdatNew = null;
+						}
 						if( dpdatNew == null ) //no reuse opportunity
 						{
 							DataPartitioner dp = createDataPartitioner( dpf, _dataPartitioner, ec );
@@ -1231,6 +1242,19 @@ public class ParForProgramBlock extends ForProgramBlock
 		}
 	}
 	
+	/**
+	 * Cleanup of local indexed partition store of a partitioned matrix (if any).
+	 * 
+	 * @param dat
+	 */
+	private void cleanupPartitionStore( Data dat )
+	{
+		if( dat instanceof MatrixObject && ((MatrixObject)dat).getPartitionStore() != null ) {
+			((MatrixObject)dat).getPartitionStore().cleanup();
+			((MatrixObject)dat).setPartitionStore(null);
+		}
+	}
+	
 	/**
 	 * Cleanup result variables of parallel workers after result merge.
 	 * @param in 
@@ -1517,6 +1541,9 @@ public class ParForProgramBlock extends ForProgramBlock
 		{
 			case LOCAL:
 				dp = new DataPartitionerLocal(dpf, -1, _numThreads);
+				//in-memory partitioning if all workers share the local JVM
+				if( _execMode == PExecMode.LOCAL )
+					((DataPartitionerLocal)dp).enableIndexedPartitionStore();
 				break;
 			case REMOTE_MR:
 				dp = new DataPartitionerRemoteMR( dpf, -1, _ID, numRed,
@@ -1537,17 +1564,23 @@ public class ParForProgramBlock extends ForProgramBlock
 	/**
 	 * 
 	 * @param prm
+	 * @param var
 	 * @param out
 	 * @param in
 	 * @param fname
 	 * @return
 	 * @throws DMLRuntimeException
 	 */
-	private ResultMerge createResultMerge( PResultMerge prm, MatrixObject out, MatrixObject[] in, String fname, ExecutionContext ec ) 
+	private ResultMerge createResultMerge( PResultMerge prm, String var, MatrixObject out, MatrixObject[] in, String fname, ExecutionContext ec ) 
 		throws DMLRuntimeException 
 	{
 		ResultMerge rm = null;
 		
+		//determine write pattern of result variable (for local slice merge)
+		ParForStatementBlock sb = (ParForStatementBlock)getStatementBlock();
+		PDataPartitionFormat format = (sb != null) ? 
+			sb.determineResultPartitionFormat(var) : PDataPartitionFormat.NONE;
+		
 		//determine degree of parallelism
 		int numReducers = ConfigurationManager.getNumReducers();
 		int maxMap = InfrastructureAnalyzer.getRemoteParallelMapTasks();
@@ -1564,13 +1597,13 @@ public class ParForProgramBlock extends ForProgramBlock
 		switch( prm )
 		{
 			case LOCAL_MEM:
-				rm = new ResultMergeLocalMemory( out, in, fname );
+				rm = new ResultMergeLocalMemory( out, in, fname, format );
 				break;
 			case LOCAL_FILE:
 				rm = new ResultMergeLocalFile( out, in, fname );
 				break;
 			case LOCAL_AUTOMATIC:
-				rm = new ResultMergeLocalAutomatic( out, in, fname );
+				rm = new ResultMergeLocalAutomatic( out, in, fname, format );
 				break;
 			case REMOTE_MR:
 				rm = new ResultMergeRemoteMR( out, in, fname, _ID, numMap, numRed,
@@ -1781,7 +1814,7 @@ public class ParForProgramBlock extends ForProgramBlock
 					for( int i=0; i< results.length; i++ )
 						in[i] = (MatrixObject) results[i].get( var ); 			
 					String fname = constructResultMergeFileName();
-					ResultMerge rm = createResultMerge(_resultMerge, out, in, fname, ec);
+					ResultMerge rm = createResultMerge(_resultMerge, var, out, in, fname, ec);
 					MatrixObject outNew = null;
 					if( USE_PARALLEL_RESULT_MERGE )
 						outNew = rm.executeParallelMerge( _numThreads );
@@ -2105,7 +2138,7 @@ public class ParForProgramBlock extends ForProgramBlock
 						in[i] = (MatrixObject) _refVars[i].get( varname ); 			
 					String fname = constructResultMergeFileName();
 				
-					ResultMerge rm = createResultMerge(_resultMerge, out, in, fname, _ec);
+					ResultMerge rm = createResultMerge(_resultMerge, varname, out, in, fname, _ec);
 					MatrixObject outNew = null;
 					if( USE_PARALLEL_RESULT_MERGE )
 						outNew = rm.executeParallelMerge( _numThreads );
@@ -37,6 +37,7 @@ import org.apache.sysml.runtime.DMLScriptException;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject.UpdateType;
 import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
+import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
 import org.apache.sysml.runtime.instructions.Instruction;
 import org.apache.sysml.runtime.instructions.cp.BooleanObject;
 import org.apache.sysml.runtime.instructions.cp.ComputationCPInstruction;
@@ -47,6 +48,7 @@ import org.apache.sysml.runtime.instructions.cp.ScalarObject;
 import org.apache.sysml.runtime.instructions.cp.StringObject;
 import org.apache.sysml.runtime.instructions.cp.VariableCPInstruction;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.utils.InstructionProfiler;
 import org.apache.sysml.utils.Statistics;
 import org.apache.sysml.yarn.DMLAppMasterUtils;
 
@@ -222,6 +224,10 @@ public class ProgramBlock
 			//execute instruction
 			ec.updateDebugState(i);
 			executeSingleInstruction(currInst, ec);
+			
+			//asynchronous prefetch of outputs for subsequent consumers
+			if( ec instanceof SparkExecutionContext && SparkExecutionContext.ASYNC_PREFETCH )
+				((SparkExecutionContext)ec).prefetchOutput(inst, i);
 		}
 	}
 	
@@ -297,6 +303,12 @@ public class ProgramBlock
 			// start time measurement for statistics
 			long t0 = (DMLScript.STATISTICS || LOG.isTraceEnabled()) ? 
 					System.nanoTime() : 0;
+			
+			// capture start state for optional instruction profiling
+			// (local variables in order to support nested function calls)
+			long alloc0 = DMLScript.PROFILE ? InstructionProfiler.getAllocatedBytes() : -1;
+			long reads0 = DMLScript.PROFILE ? InstructionProfiler.getCacheReads() : 0;
+			long writes0 = DMLScript.PROFILE ? InstructionProfiler.getCacheWrites() : 0;
 					
 			// pre-process instruction (debug state, inst patching, listeners)
 			Instruction tmp = currInst.preprocessInstruction( ec );
@@ -312,6 +324,12 @@ public class ProgramBlock
 				Statistics.maintainCPHeavyHitters(
 					tmp.getExtendedOpcode(), System.nanoTime()-t0);
 			}
+			
+			// maintain fine-grained instruction profile
+			if( DMLScript.PROFILE ) {
+				InstructionProfiler.maintainInstruction(
+					tmp, ec, t0, alloc0, reads0, writes0);
+			}
 				
 			// optional trace information (instruction and runtime)
 			if( LOG.isTraceEnabled() ) {
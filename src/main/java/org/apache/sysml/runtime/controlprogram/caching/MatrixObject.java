@@ -33,6 +33,7 @@ import org.apache.sysml.parser.Expression.ValueType;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
+import org.apache.sysml.runtime.controlprogram.parfor.util.IndexedPartitionStore;
 import org.apache.sysml.runtime.instructions.gpu.context.GPUContext;
 import org.apache.sysml.runtime.instructions.spark.data.RDDObject;
 import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
@@ -82,6 +83,7 @@ public class MatrixObject extends CacheableData<MatrixBlock>
 	private int _partitionSize = -1; //indicates n for BLOCKWISE_N
 	private String _partitionCacheName = null; //name of cache block
 	private MatrixBlock _partitionInMemory = null;
+	private transient IndexedPartitionStore _partitionStore = null; //local indexed partitions
 
 	/**
 	 * Constructor that takes only the HDFS filename.
@@ -124,6 +126,7 @@ public class MatrixObject extends CacheableData<MatrixBlock>
 		_partitionFormat = mo._partitionFormat;
 		_partitionSize = mo._partitionSize;
 		_partitionCacheName = mo._partitionCacheName;
+		_partitionStore = mo._partitionStore;
 	}
 	
 
@@ -378,6 +381,16 @@ public class MatrixObject extends CacheableData<MatrixBlock>
 		_partitionInMemory = block;
 	}
 	
+	public void setPartitionStore(IndexedPartitionStore store)
+	{
+		_partitionStore = store;
+	}
+	
+	public IndexedPartitionStore getPartitionStore()
+	{
+		return _partitionStore;
+	}
+	
 	/**
 	 * NOTE: for reading matrix partitions, we could cache (in its real sense) the read block
 	 * with soft references (no need for eviction, as partitioning only applied for read-only matrices).
@@ -453,8 +466,10 @@ public class MatrixObject extends CacheableData<MatrixBlock>
 				}
 				
 				
-				//read the 
-				if( MapReduceTool.existsFileOnHDFS(fname) )
+				//read the partition (from local indexed store or hdfs)
+				if( _partitionStore != null )
+					mb = _partitionStore.readPartition( _partitionStore.getPartitionIndex(pred) );
+				else if( MapReduceTool.existsFileOnHDFS(fname) )
 					mb = readBlobFromHDFS( fname, rows, cols );
 				else
 				{
@@ -20,9 +20,16 @@
 package org.apache.sysml.runtime.controlprogram.context;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,6 +52,7 @@ import org.apache.sysml.api.MLContextProxy;
 import org.apache.sysml.conf.ConfigurationManager;
 import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.lops.Checkpoint;
+import org.apache.sysml.lops.MapMult.CacheType;
 import org.apache.sysml.parser.Expression.ValueType;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.Program;
@@ -52,12 +60,22 @@ import org.apache.sysml.runtime.controlprogram.caching.CacheableData;
 import org.apache.sysml.runtime.controlprogram.caching.FrameObject;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
 import org.apache.sysml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
+import org.apache.sysml.runtime.instructions.Instruction;
+import org.apache.sysml.runtime.instructions.cp.ComputationCPInstruction;
+import org.apache.sysml.runtime.instructions.cp.CPOperand;
 import org.apache.sysml.runtime.instructions.cp.Data;
+import org.apache.sysml.runtime.instructions.cp.FunctionCallCPInstruction;
+import org.apache.sysml.runtime.instructions.cp.VariableCPInstruction;
+import org.apache.sysml.runtime.instructions.spark.AppendMSPInstruction;
+import org.apache.sysml.runtime.instructions.spark.BinarySPInstruction;
 import org.apache.sysml.runtime.instructions.spark.CheckpointSPInstruction;
+import org.apache.sysml.runtime.instructions.spark.ComputationSPInstruction;
+import org.apache.sysml.runtime.instructions.spark.MapmmSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.SPInstruction;
 import org.apache.sysml.runtime.instructions.spark.data.BlockPartitioner;
 import org.apache.sysml.runtime.instructions.spark.data.BroadcastObject;
 import org.apache.sysml.runtime.instructions.spark.data.LineageObject;
+import org.apache.sysml.runtime.instructions.spark.data.LocalBroadcast;
 import org.apache.sysml.runtime.instructions.spark.data.PartitionedBlock;
 import org.apache.sysml.runtime.instructions.spark.data.PartitionedBroadcast;
 import org.apache.sysml.runtime.instructions.spark.data.RDDObject;
@@ -66,8 +84,10 @@ import org.apache.sysml.runtime.instructions.spark.functions.CopyBlockPairFuncti
 import org.apache.sysml.runtime.instructions.spark.functions.CopyFrameBlockPairFunction;
 import org.apache.sysml.runtime.instructions.spark.functions.CopyTextInputFunction;
 import org.apache.sysml.runtime.instructions.spark.functions.CreateSparseBlockFunction;
+import org.apache.sysml.runtime.instructions.spark.functions.LocalCollectFunction;
 import org.apache.sysml.runtime.instructions.spark.utils.FrameRDDConverterUtils.LongFrameToLongWritableFrameFunction;
 import org.apache.sysml.runtime.instructions.spark.utils.RDDAggregateUtils;
+import org.apache.sysml.runtime.instructions.spark.utils.SparkKryoRegistrator;
 import org.apache.sysml.runtime.instructions.spark.utils.SparkUtils;
 import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.FrameBlock;
@@ -76,6 +96,7 @@ import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.data.MatrixCell;
 import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
 import org.apache.sysml.runtime.matrix.data.OutputInfo;
+import org.apache.sysml.runtime.matrix.data.Pair;
 import org.apache.sysml.runtime.matrix.data.SparseBlock;
 import org.apache.sysml.runtime.matrix.mapred.MRJobConfiguration;
 import org.apache.sysml.runtime.util.MapReduceTool;
@@ -93,6 +114,26 @@ public class SparkExecutionContext extends ExecutionContext
 	private static boolean ASYNCHRONOUS_VAR_DESTROY = true;
 	private static boolean FAIR_SCHEDULER_MODE = true;
 	
+	//kryo serialization w/ custom serializers for matrix/frame blocks (unless
+	//a custom serializer is configured or the context is passed from outside)
+	public static boolean KRYO_SERIALIZATION = true;
+	
+	//local spark backend (local master, i.e., driver and executors in one jvm) with
+	//broadcasts by object reference and collects without result serialization
+	public static boolean LOCAL_SPARK_REFERENCES = true;
+	
+	//asynchronous prefetch of rdd collects and broadcasts for subsequent consumers
+	public static boolean ASYNC_PREFETCH = true;
+	private static final int PREFETCH_LOOKAHEAD = 16;
+	private static ExecutorService _prefetchPool = null;
+	
+	public enum PrefetchType {
+		NONE,      //no reference to the variable
+		COLLECT,   //local read of the data in CP
+		BROADCAST, //broadcast input of an SP instruction
+		OTHER,     //any other reference (e.g., rdd input, meta data)
+	}
+	
 	//executor memory and relative fractions as obtained from the spark configuration
 	private static SparkClusterConfig _sconf = null;
 	
@@ -100,6 +141,10 @@ public class SparkExecutionContext extends ExecutionContext
 	// This limitation may eventually be removed; see SPARK-2243 for more details.
 	private static JavaSparkContext _spctx = null; 
 	
+	//checkpoint downgrades (serialized output, deserialized input) whose inputs are 
+	//released once the serialized outputs are materialized by their first consumer
+	private LinkedList<Pair<RDDObject,RDDObject>> _pendingDowngrades = new LinkedList<Pair<RDDObject,RDDObject>>();
+	
 	static {
 		// for internal debugging only
 		if( LDEBUG ) {
@@ -160,7 +205,11 @@ public class SparkExecutionContext extends ExecutionContext
 		synchronized( SparkExecutionContext.class ) {
 			if( _spctx != null ) 
 			{
-				//stop the spark context if existing
+				//stop pending prefetch tasks and the spark context if existing
+				if( _prefetchPool != null ) {
+					_prefetchPool.shutdownNow();
+					_prefetchPool = null;
+				}
 				_spctx.stop();
 				
 				//make sure stopped context is never used again
@@ -174,6 +223,26 @@ public class SparkExecutionContext extends ExecutionContext
 		return LAZY_SPARKCTX_CREATION;
 	}
 	
+	/**
+	 * Indicates if the spark context runs with a local master, i.e., 
+	 * the driver and all executors share a single jvm. 
+	 * 
+	 * @return
+	 */
+	public static boolean isLocalMaster() {
+		return getSparkContextStatic().isLocal();
+	}
+	
+	/**
+	 * Indicates if broadcasts and collects pass objects by reference, 
+	 * which is only applicable for local spark backends. 
+	 * 
+	 * @return
+	 */
+	public static boolean isLocalReferences() {
+		return LOCAL_SPARK_REFERENCES && isLocalMaster();
+	}
+	
 	/**
 	 * 
 	 */
@@ -203,6 +272,7 @@ public class SparkExecutionContext extends ExecutionContext
 				// This is discouraged in spark but have added only for those testcase that cannot stop the context properly
 				// conf.set("spark.driver.allowMultipleContexts", "true");
 				conf.set("spark.ui.enabled", "false");
+				setSerializerConfiguration(conf);
 				_spctx = new JavaSparkContext(conf);
 			}
 			else //default cluster setup
@@ -220,6 +290,9 @@ public class SparkExecutionContext extends ExecutionContext
 					conf.set("spark.scheduler.mode", "FAIR");
 				}
 				
+				//use kryo serialization w/ registered systemml data classes
+				setSerializerConfiguration(conf);
+				
 				_spctx = new JavaSparkContext(conf);
 			}
 		}
@@ -235,6 +308,21 @@ public class SparkExecutionContext extends ExecutionContext
 		}
 	}	
 	
+	/**
+	 * Enables kryo serialization with our registrator of custom serializers for 
+	 * matrix indexes, matrix/frame blocks, and partitioned blocks, unless disabled 
+	 * or a different serializer is explicitly configured.
+	 * 
+	 * @param conf
+	 */
+	private static void setSerializerConfiguration(SparkConf conf)
+	{
+		if( KRYO_SERIALIZATION && !conf.contains("spark.serializer") ) {
+			conf.set("spark.serializer", "org.apache.spark.serializer.KryoSerializer");
+			conf.set("spark.kryo.registrator", SparkKryoRegistrator.class.getName());
+		}
+	}
+	
 	/**
 	 * Spark instructions should call this for all matrix inputs except broadcast
 	 * variables.
@@ -472,56 +560,86 @@ public class SparkExecutionContext extends ExecutionContext
 	 * @return
 	 * @throws DMLRuntimeException
 	 */
-	@SuppressWarnings("unchecked")
 	public PartitionedBroadcast<MatrixBlock> getBroadcastForVariable( String varname ) 
 		throws DMLRuntimeException
+	{
+		MatrixObject mo = getMatrixObject(varname);
+		return getBroadcastForMatrixObject(mo, varname);
+	}
+	
+	/**
+	 * Creates a broadcast of the given partitioned block, which is passed by 
+	 * reference for local spark backends.
+	 * 
+	 * @param pb
+	 * @return
+	 */
+	private <T> Broadcast<T> createBroadcast( T pb ) {
+		return isLocalReferences() ? 
+			new LocalBroadcast<T>(pb) : getSparkContext().broadcast(pb);
+	}
+	
+	/**
+	 * Obtains or creates the partitioned broadcast of the given matrix object.
+	 * Broadcast creation is synchronized per matrix object in order to prevent
+	 * redundant broadcasts by concurrent prefetch and consumer threads.
+	 * 
+	 * @param mo
+	 * @param varname
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	@SuppressWarnings("unchecked")
+	private PartitionedBroadcast<MatrixBlock> getBroadcastForMatrixObject( MatrixObject mo, String varname ) 
+		throws DMLRuntimeException
 	{		
 		long t0 = DMLScript.STATISTICS ? System.nanoTime() : 0;
-
-		MatrixObject mo = getMatrixObject(varname);
 		
 		PartitionedBroadcast<MatrixBlock> bret = null;
 		
-		//reuse existing broadcast handle
-		if( mo.getBroadcastHandle()!=null 
-			&& mo.getBroadcastHandle().isValid() ) 
+		synchronized( mo )
 		{
-			bret = mo.getBroadcastHandle().getBroadcast();
-		}
+			//reuse existing broadcast handle
+			if( mo.getBroadcastHandle()!=null 
+				&& mo.getBroadcastHandle().isValid() ) 
+			{
+				bret = mo.getBroadcastHandle().getBroadcast();
+			}
 		
-		//create new broadcast handle (never created, evicted)
-		if( bret == null ) 
-		{
-			//obtain meta data for matrix 
-			int brlen = (int) mo.getNumRowsPerBlock();
-			int bclen = (int) mo.getNumColumnsPerBlock();
+			//create new broadcast handle (never created, evicted)
+			if( bret == null ) 
+			{
+				//obtain meta data for matrix 
+				int brlen = (int) mo.getNumRowsPerBlock();
+				int bclen = (int) mo.getNumColumnsPerBlock();
 			
-			//create partitioned matrix block and release memory consumed by input
-			MatrixBlock mb = mo.acquireRead();
-			PartitionedBlock<MatrixBlock> pmb = new PartitionedBlock<MatrixBlock>(mb, brlen, bclen);
-			mo.release();
+				//create partitioned matrix block and release memory consumed by input
+				MatrixBlock mb = mo.acquireRead();
+				PartitionedBlock<MatrixBlock> pmb = new PartitionedBlock<MatrixBlock>(mb, brlen, bclen);
+				mo.release();
 			
-			//determine coarse-grained partitioning
-			int numPerPart = PartitionedBroadcast.computeBlocksPerPartition(mo.getNumRows(), mo.getNumColumns(), brlen, bclen);
-			int numParts = (int) Math.ceil((double)pmb.getNumRowBlocks()*pmb.getNumColumnBlocks() / numPerPart); 
-			Broadcast<PartitionedBlock<MatrixBlock>>[] ret = new Broadcast[numParts];
+				//determine coarse-grained partitioning
+				int numPerPart = PartitionedBroadcast.computeBlocksPerPartition(mo.getNumRows(), mo.getNumColumns(), brlen, bclen);
+				int numParts = (int) Math.ceil((double)pmb.getNumRowBlocks()*pmb.getNumColumnBlocks() / numPerPart); 
+				Broadcast<PartitionedBlock<MatrixBlock>>[] ret = new Broadcast[numParts];
 					
-			//create coarse-grained partitioned broadcasts
-			if( numParts > 1 ) {
-				for( int i=0; i<numParts; i++ ) {
-					int offset = i * numPerPart;
-					int numBlks = Math.min(numPerPart, pmb.getNumRowBlocks()*pmb.getNumColumnBlocks()-offset);
-					PartitionedBlock<MatrixBlock> tmp = pmb.createPartition(offset, numBlks, new MatrixBlock());
-					ret[i] = getSparkContext().broadcast(tmp);
+				//create coarse-grained partitioned broadcasts
+				if( numParts > 1 ) {
+					for( int i=0; i<numParts; i++ ) {
+						int offset = i * numPerPart;
+						int numBlks = Math.min(numPerPart, pmb.getNumRowBlocks()*pmb.getNumColumnBlocks()-offset);
+						PartitionedBlock<MatrixBlock> tmp = pmb.createPartition(offset, numBlks, new MatrixBlock());
+						ret[i] = createBroadcast(tmp);
+					}
+				}
+				else { //single partition
+					ret[0] = createBroadcast(pmb);
 				}
-			}
-			else { //single partition
-				ret[0] = getSparkContext().broadcast( pmb);
-			}
 		
-			bret = new PartitionedBroadcast<MatrixBlock>(ret);
-			BroadcastObject<MatrixBlock> bchandle = new BroadcastObject<MatrixBlock>(bret, varname);
-			mo.setBroadcastHandle(bchandle);
+				bret = new PartitionedBroadcast<MatrixBlock>(ret);
+				BroadcastObject<MatrixBlock> bchandle = new BroadcastObject<MatrixBlock>(bret, varname);
+				mo.setBroadcastHandle(bchandle);
+			}
 		}
 		
 		if (DMLScript.STATISTICS) {
@@ -533,6 +651,206 @@ public class SparkExecutionContext extends ExecutionContext
 	}
 	
 
+	/**
+	 * Prefetches the output of the given instruction if its first consumer among 
+	 * the subsequent instructions (within a small lookahead window) reads the data 
+	 * locally in CP or as broadcast of an SP instruction, and the output fits into 
+	 * the driver memory budget. The collect or broadcast creation is then started 
+	 * asynchronously, while consumers simply block on the synchronized matrix object 
+	 * until the prefetch completed.
+	 * 
+	 * @param inst instructions of the current program block
+	 * @param pos position of the last executed instruction
+	 */
+	public void prefetchOutput( ArrayList<Instruction> inst, int pos )
+	{
+		//get the output variable of the executed instruction
+		Instruction producer = inst.get(pos);
+		String varname = null;
+		if( producer instanceof ComputationSPInstruction )
+			varname = ((ComputationSPInstruction)producer).getOutputVariableName();
+		else if( producer instanceof ComputationCPInstruction )
+			varname = ((ComputationCPInstruction)producer).getOutputVariableName();
+		Data dat = (varname != null) ? getVariable(varname) : null;
+		if( !(dat instanceof MatrixObject) 
+			|| !isPrefetchApplicable(((MatrixObject)dat).getMatrixCharacteristics()) )
+			return;
+		final MatrixObject mo = (MatrixObject) dat;
+		final String fvarname = varname;
+		
+		//probe the first subsequent consumer
+		for( int i=pos+1; i<Math.min(pos+1+PREFETCH_LOOKAHEAD, inst.size()); i++ )
+		{
+			PrefetchType type = getPrefetchType(inst.get(i), varname);
+			if( type == PrefetchType.NONE )
+				continue;
+			
+			if( type == PrefetchType.COLLECT && producer instanceof SPInstruction
+				&& mo.getRDDHandle() != null && !mo.isCached(true) )
+			{
+				//asynchronous collect into the buffer pool
+				submitPrefetchTask(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						mo.acquireRead();
+						mo.release();
+						return null;
+					}
+				});
+			}
+			else if( type == PrefetchType.BROADCAST
+				&& (mo.getBroadcastHandle() == null || !mo.getBroadcastHandle().isValid()) )
+			{
+				//asynchronous creation of partitioned broadcasts
+				submitPrefetchTask(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						getBroadcastForMatrixObject(mo, fvarname);
+						return null;
+					}
+				});
+			}
+			
+			break; //first consumer only
+		}
+	}
+	
+	/**
+	 * Indicates if a matrix of the given characteristics is eligible for prefetch,
+	 * i.e., has known dimensions and its (worst-case) in-memory size fits into the 
+	 * local memory budget of the driver.
+	 * 
+	 * @param mc
+	 * @return
+	 */
+	public static boolean isPrefetchApplicable( MatrixCharacteristics mc )
+	{
+		if( !mc.dimsKnown() )
+			return false;
+		
+		long size = mc.dimsKnown(true) ? OptimizerUtils.estimateSizeExactSparsity(mc) :
+			OptimizerUtils.estimateSize(mc.getRows(), mc.getCols());
+		return size < OptimizerUtils.getLocalMemBudget();
+	}
+	
+	/**
+	 * Determines how the given instruction references the given variable, based 
+	 * on the parsed input operands. Unknown instruction types are conservatively
+	 * treated as other references, which prevent prefetch.
+	 * 
+	 * @param inst
+	 * @param varname
+	 * @return
+	 */
+	public static PrefetchType getPrefetchType( Instruction inst, String varname )
+	{
+		if( inst instanceof SPInstruction ) 
+		{
+			if( isBroadcastInput((SPInstruction)inst, varname) )
+				return PrefetchType.BROADCAST;
+			if( inst instanceof ComputationSPInstruction ) {
+				ComputationSPInstruction cinst = (ComputationSPInstruction) inst;
+				return isInput(varname, cinst.input1, cinst.input2, cinst.input3) ? 
+					PrefetchType.OTHER : PrefetchType.NONE;
+			}
+		}
+		else if( inst instanceof VariableCPInstruction ) 
+		{
+			//e.g., rmvar, cpvar, mvvar (no data access)
+			VariableCPInstruction vinst = (VariableCPInstruction) inst;
+			return isInput(varname, vinst.getInput1(), vinst.getInput2(), vinst.getInput3()) ? 
+				PrefetchType.OTHER : PrefetchType.NONE;
+		}
+		else if( inst instanceof FunctionCallCPInstruction ) 
+		{
+			//function bodies might only access meta data or use spark instructions
+			FunctionCallCPInstruction finst = (FunctionCallCPInstruction) inst;
+			return finst.getBoundInputParamNames().contains(varname) ? 
+				PrefetchType.OTHER : PrefetchType.NONE;
+		}
+		else if( inst instanceof ComputationCPInstruction ) 
+		{
+			ComputationCPInstruction cinst = (ComputationCPInstruction) inst;
+			if( !isInput(varname, cinst.input1, cinst.input2, cinst.input3) )
+				return PrefetchType.NONE;
+			//meta data operations (no data access)
+			String opcode = inst.getOpcode();
+			return (opcode.equals("nrow") || opcode.equals("ncol") || opcode.equals("length")) ?
+				PrefetchType.OTHER : PrefetchType.COLLECT;
+		}
+		
+		return PrefetchType.OTHER;
+	}
+	
+	/**
+	 * 
+	 * @param varname
+	 * @param inputs
+	 * @return
+	 */
+	private static boolean isInput( String varname, CPOperand... inputs )
+	{
+		for( CPOperand input : inputs )
+			if( input != null && varname.equals(input.getName()) )
+				return true;
+		return false;
+	}
+	
+	/**
+	 * 
+	 * @param task
+	 */
+	private static synchronized void submitPrefetchTask( Callable<Object> task )
+	{
+		if( _prefetchPool == null ) {
+			_prefetchPool = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "SystemML-Prefetch");
+					t.setDaemon(true); //never prevent jvm shutdown
+					return t;
+				}
+			});
+		}
+		
+		//wrap task for error handling (prefetch is only a performance optimization, 
+		//consumers redo failed collects or broadcasts and report errors in order)
+		final Callable<Object> ftask = task;
+		_prefetchPool.submit(new Callable<Object>() {
+			@Override
+			public Object call() {
+				try {
+					return ftask.call();
+				}
+				catch(Exception ex) {
+					LOG.debug("Asynchronous prefetch failed: "+ex.getMessage());
+					return null;
+				}
+			}
+		});
+	}
+	
+	/**
+	 * 
+	 * @param inst
+	 * @param varname
+	 * @return
+	 */
+	private static boolean isBroadcastInput( SPInstruction inst, String varname )
+	{
+		if( inst instanceof MapmmSPInstruction ) {
+			MapmmSPInstruction minst = (MapmmSPInstruction) inst;
+			return varname.equals( (minst.getCacheType()==CacheType.LEFT) ?
+				minst.input1.getName() : minst.input2.getName() );
+		}
+		else if( inst instanceof AppendMSPInstruction 
+			|| (inst instanceof BinarySPInstruction && inst.getOpcode().startsWith("map")
+				&& !(inst instanceof MapmmSPInstruction) && !inst.getOpcode().equals("mapmmchain")) ) {
+			return varname.equals(((BinarySPInstruction)inst).input2.getName());
+		}
+		return false;
+	}
+	
 	/**
 	 *
 	 * @param varname
@@ -580,11 +898,11 @@ public class SparkExecutionContext extends ExecutionContext
 					int offset = i * numPerPart;
 					int numBlks = Math.min(numPerPart, pmb.getNumRowBlocks()*pmb.getNumColumnBlocks()-offset);
 					PartitionedBlock<FrameBlock> tmp = pmb.createPartition(offset, numBlks, new FrameBlock());
-					ret[i] = getSparkContext().broadcast(tmp);
+					ret[i] = createBroadcast(tmp);
 				}
 			}
 			else { //single partition
-				ret[0] = getSparkContext().broadcast( pmb);
+				ret[0] = createBroadcast(pmb);
 			}
 		
 			bret = new PartitionedBroadcast<FrameBlock>(ret);
@@ -771,12 +1089,12 @@ public class SparkExecutionContext extends ExecutionContext
 		if( rlen <= brlen && clen <= bclen ) //SINGLE BLOCK
 		{
 			//special case without copy and nnz maintenance
-			List<Tuple2<MatrixIndexes,MatrixBlock>> list = rdd.collect();
+			List<Tuple2<MatrixIndexes,MatrixBlock>> list = collect(rdd);
 			
 			if( list.size()>1 )
 				throw new DMLRuntimeException("Expecting no more than one result block.");
-			else if( list.size()==1 )
-				out = list.get(0)._2();
+			else if( list.size()==1 ) //copy if potentially shared with rdd
+				out = isLocalReferences() ? new MatrixBlock(list.get(0)._2()) : list.get(0)._2();
 			else //empty (e.g., after ops w/ outputEmpty=false)
 				out = new MatrixBlock(rlen, clen, true);
 		}
@@ -789,7 +1107,7 @@ public class SparkExecutionContext extends ExecutionContext
 			//create output matrix block (w/ lazy allocation)
 			out = new MatrixBlock(rlen, clen, sparse);
 			
-			List<Tuple2<MatrixIndexes,MatrixBlock>> list = rdd.collect();
+			List<Tuple2<MatrixIndexes,MatrixBlock>> list = collect(rdd);
 			
 			//copy blocks one-at-a-time into output matrix block
 			for( Tuple2<MatrixIndexes,MatrixBlock> keyval : list )
@@ -929,6 +1247,19 @@ public class SparkExecutionContext extends ExecutionContext
 		return out;
 	}
 
+	/**
+	 * Collects the given rdd, where local spark backends hand over the
+	 * partitions by reference (collected blocks need to be copied before
+	 * modification).
+	 * 
+	 * @param rdd
+	 * @return
+	 */
+	private static <K,V> List<Tuple2<K,V>> collect(JavaPairRDD<K,V> rdd) {
+		return isLocalReferences() ? 
+			LocalCollectFunction.collect(rdd) : rdd.collect();
+	}
+	
 	/**
 	 * 
 	 * @param rdd
@@ -967,7 +1298,7 @@ public class SparkExecutionContext extends ExecutionContext
 		FrameBlock out = new FrameBlock(schema);
 		out.ensureAllocatedColumns(rlen);
 		
-		List<Tuple2<Long,FrameBlock>> list = rdd.collect();
+		List<Tuple2<Long,FrameBlock>> list = collect(rdd);
 		
 		//copy blocks one-at-a-time into output matrix block
 		for( Tuple2<Long,FrameBlock> keyval : list )
@@ -1302,6 +1633,70 @@ public class SparkExecutionContext extends ExecutionContext
 		return jsc.sc().getPersistentRDDs().contains(rddID);
 	}
 	
+	/**
+	 * Obtains the measured in-memory size of all cached rdds (incl partially 
+	 * cached rdds) across all executors.
+	 * 
+	 * @return
+	 */
+	public long getCachedRDDMemorySize() {
+		JavaSparkContext jsc = getSparkContext();
+		RDDInfo[] infos = jsc.sc().getRDDStorageInfo();
+		
+		//release deserialized inputs of already materialized downgrades
+		HashSet<Integer> released = cleanupPendingDowngrades(infos);
+		
+		long ret = 0;
+		for( RDDInfo info : infos )
+			if( !released.contains(info.id()) )
+				ret += info.memSize();
+		return ret;
+	}
+	
+	/**
+	 * Registers a checkpoint downgrade, where the deserialized input is released 
+	 * as soon as the serialized output has been materialized. 
+	 * 
+	 * @param outro serialized checkpoint rdd
+	 * @param inro deserialized input rdd
+	 */
+	public void addPendingDowngrade( RDDObject outro, RDDObject inro ) {
+		_pendingDowngrades.add(new Pair<RDDObject,RDDObject>(outro, inro));
+	}
+	
+	/**
+	 * Unpersists the deserialized inputs of pending downgrades whose serialized outputs
+	 * are fully cached, if these inputs are still unshared. Downgrades whose outputs 
+	 * are no longer persisted (e.g., after rmvar, which also cleans up the lineage 
+	 * inputs) are removed as well.
+	 * 
+	 * @param infos
+	 * @return ids of released rdds
+	 */
+	private HashSet<Integer> cleanupPendingDowngrades( RDDInfo[] infos )
+	{
+		HashSet<Integer> ret = new HashSet<Integer>();
+		Iterator<Pair<RDDObject,RDDObject>> iter = _pendingDowngrades.iterator();
+		while( iter.hasNext() ) {
+			Pair<RDDObject,RDDObject> p = iter.next();
+			int outID = p.getKey().getRDD().id();
+			if( !isRDDMarkedForCaching(outID) ) {
+				iter.remove(); 
+				continue;
+			}
+			for( RDDInfo info : infos )
+				if( info.id() == outID && info.numCachedPartitions() == info.numPartitions() ) {
+					if( CheckpointSPInstruction.isUnsharedLineageInput(p.getValue()) ) {
+						cleanupRDDVariable(p.getValue().getRDD());
+						ret.add(p.getValue().getRDD().id());
+					}
+					iter.remove();
+					break;
+				}
+		}
+		return ret;
+	}
+	
 	/**
 	 * 
 	 * @param rddID
@@ -1537,6 +1932,7 @@ public class SparkExecutionContext extends ExecutionContext
 		//meta configurations
 		private boolean _legacyVersion = false; //spark version <1.6
 		private boolean _confOnly = false; //infrastructure info based on config
+		private boolean _localMode = false; //local master, single jvm
 		
 		//memory management configurations
 		private long _memExecutor = -1; //mem per executor
@@ -1562,6 +1958,16 @@ public class SparkExecutionContext extends ExecutionContext
 				analyzeSparkConfiguationLegacy(sconf);
 			else
 				analyzeSparkConfiguation(sconf);
+			
+			//local master: driver and executors share a single jvm heap (and executor 
+			//memory configurations are ignored), hence we use the heap excluding the 
+			//local memory budget of the driver as memory of a single executor
+			_localMode = jsc.isLocal();
+			if( _localMode ) {
+				_memExecutor = (long) Math.max(InfrastructureAnalyzer.getLocalMaxMemory() 
+						- OptimizerUtils.getLocalMemBudget(), 0);
+				_numExecutors = 1;
+			}
 	
 			//log debug of created spark cluster config
 			if( LOG.isDebugEnabled() )
@@ -1695,6 +2101,7 @@ public class SparkExecutionContext extends ExecutionContext
 			StringBuilder sb = new StringBuilder("SparkClusterConfig: \n");
 			sb.append("-- legacyVersion    = " + _legacyVersion + " ("+getSparkContextStatic().version()+")\n" );
 			sb.append("-- confOnly         = " + _confOnly + "\n");
+			sb.append("-- localMode        = " + _localMode + "\n");
 			sb.append("-- memExecutor      = " + _memExecutor + "\n");
 			sb.append("-- memDataMinFrac   = " + _memDataMinFrac + "\n");
 			sb.append("-- memDataMaxFrac   = " + _memDataMaxFrac + "\n");
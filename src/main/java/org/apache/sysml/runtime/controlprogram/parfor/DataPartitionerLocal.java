@@ -23,10 +23,15 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -40,13 +45,17 @@ import org.apache.hadoop.mapred.RecordReader;
 import org.apache.hadoop.mapred.Reporter;
 import org.apache.hadoop.mapred.TextInputFormat;
 import org.apache.sysml.conf.ConfigurationManager;
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
+import org.apache.sysml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
 import org.apache.sysml.runtime.controlprogram.parfor.util.Cell;
 import org.apache.sysml.runtime.controlprogram.parfor.util.IDSequence;
+import org.apache.sysml.runtime.controlprogram.parfor.util.IndexedPartitionStore;
 import org.apache.sysml.runtime.controlprogram.parfor.util.StagingFileUtils;
 import org.apache.sysml.runtime.io.MatrixReader;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.IJV;
 import org.apache.sysml.runtime.matrix.data.InputInfo;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
@@ -73,6 +82,10 @@ import org.apache.sysml.runtime.util.LocalFileUtils;
  *       row/col offsets for partitioned read. Currently not done in order to avoid overhead from normal read
  *       and since partitioning only applied if exclusively indexed access.
  *
+ * If enabled (for local parfor execution) and the input matrix fits into the local memory 
+ * budget, we slice the in-memory matrix directly into an indexed partition store, i.e., a 
+ * single local file with offset index, which avoids the staging area and file-per-partition 
+ * writes altogether. The file-based scheme is kept as fallback.
  *
  */
 public class DataPartitionerLocal extends DataPartitioner
@@ -85,6 +98,13 @@ public class DataPartitionerLocal extends DataPartitioner
 	
 	private int _par = -1;
 	
+	//thread pool shared across partitioner instances (lazily created)
+	private static ExecutorService _pool = null;
+	
+	//indexed partition store (only for local parfor execution)
+	private boolean _allowIndexedStore = false;
+	private IndexedPartitionStore _store = null;
+	
 	/**
 	 * 
 	 * @param dpf
@@ -105,10 +125,39 @@ public class DataPartitionerLocal extends DataPartitioner
 		_par = (par > 0) ? par : 1;
 	}
 	
+	/**
+	 * Enables the in-memory partitioning into an indexed partition store. This is
+	 * only valid if all consumers of the partitioned matrix run in the local JVM.
+	 */
+	public void enableIndexedPartitionStore()
+	{
+		_allowIndexedStore = true;
+	}
+	
+	@Override
+	public MatrixObject createPartitionedMatrixObject( MatrixObject in, MatrixObject out, boolean force )
+		throws DMLRuntimeException
+	{
+		MatrixObject ret = super.createPartitionedMatrixObject(in, out, force);
+		
+		//attach indexed partition store to partitioned output
+		if( ret == out && _store != null )
+			out.setPartitionStore(_store);
+		_store = null;
+		
+		return ret;
+	}
+	
 	@Override
 	protected void partitionMatrix(MatrixObject in, String fnameNew, InputInfo ii, OutputInfo oi, long rlen, long clen, int brlen, int bclen)
 			throws DMLRuntimeException 
 	{
+		//in-memory partitioning into indexed partition store (if applicable)
+		if( isIndexedPartitionStoreApplicable(in) ) {
+			partitionInMemory( in, brlen, bclen );
+			return;
+		}
+		
 		//force writing to disk (typically not required since partitioning only applied if dataset exceeds CP size)
 		in.exportData(); //written to disk iff dirty
 		
@@ -133,6 +182,44 @@ public class DataPartitionerLocal extends DataPartitioner
 		LocalFileUtils.cleanupWorkingDirectory(fnameStaging);
 	}
 
+	/**
+	 * 
+	 * @param in
+	 * @return
+	 */
+	private boolean isIndexedPartitionStoreApplicable( MatrixObject in )
+	{
+		MatrixCharacteristics mc = in.getMatrixCharacteristics();
+		return _allowIndexedStore
+			&& IndexedPartitionStore.isSupportedFormat(_format)
+			&& mc.dimsKnown() && mc.getRows() <= Integer.MAX_VALUE && mc.getCols() <= Integer.MAX_VALUE
+			&& OptimizerUtils.estimateSizeExactSparsity(mc) < OptimizerUtils.getLocalMemBudget();
+	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @param brlen
+	 * @param bclen
+	 * @throws DMLRuntimeException
+	 */
+	private void partitionInMemory( MatrixObject in, int brlen, int bclen ) 
+		throws DMLRuntimeException
+	{
+		LocalFileUtils.checkAndCreateStagingDir(LocalFileUtils.getWorkingDir(LocalFileUtils.CATEGORY_PARTITIONING));
+		String fnameStore = LocalFileUtils.getUniqueWorkingDir(LocalFileUtils.CATEGORY_PARTITIONING);
+		
+		//slice pinned input into single indexed partition file
+		MatrixBlock mb = in.acquireRead();
+		try {
+			_store = IndexedPartitionStore.createPartitionStore(
+				fnameStore, mb, _format, brlen, bclen, getThreadPool(), _par);
+		}
+		finally {
+			in.release();
+		}
+	}
+
 
 
 
@@ -207,18 +294,15 @@ public class DataPartitionerLocal extends DataPartitioner
 			if(PARALLEL) 
 			{
 				int len = Math.min(fnamesPartitions.length, _par);
-				Thread[] threads = new Thread[len];
+				ArrayList<DataPartitionerWorker> workers = new ArrayList<DataPartitionerWorker>();
 				for( int i=0;i<len;i++ )
 				{
 					int start = i*(int)Math.ceil(((double)fnamesPartitions.length)/len);
 					int end = (i+1)*(int)Math.ceil(((double)fnamesPartitions.length)/len)-1;
 					end = Math.min(end, fnamesPartitions.length-1);
-					threads[i] = new Thread(new DataPartitionerWorkerTextCell(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
-					threads[i].start();
+					workers.add(new DataPartitionerWorkerTextCell(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
 				}
-				
-				for( Thread t : threads )
-					t.join();
+				executeWorkers(workers);
 			}
 			else
 			{
@@ -306,18 +390,15 @@ public class DataPartitionerLocal extends DataPartitioner
 			if(PARALLEL) 
 			{
 				int len = Math.min(fnamesPartitions.length, _par);
-				Thread[] threads = new Thread[len];
+				ArrayList<DataPartitionerWorker> workers = new ArrayList<DataPartitionerWorker>();
 				for( int i=0;i<len;i++ )
 				{
 					int start = i*(int)Math.ceil(((double)fnamesPartitions.length)/len);
 					int end = (i+1)*(int)Math.ceil(((double)fnamesPartitions.length)/len)-1;
 					end = Math.min(end, fnamesPartitions.length-1);
-					threads[i] = new Thread(new DataPartitionerWorkerBinaryCell(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
-					threads[i].start();
+					workers.add(new DataPartitionerWorkerBinaryCell(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
 				}
-				
-				for( Thread t : threads )
-					t.join();
+				executeWorkers(workers);
 			}
 			else
 			{
@@ -400,18 +481,15 @@ public class DataPartitionerLocal extends DataPartitioner
 			if(PARALLEL) 
 			{
 				int len = Math.min(fnamesPartitions.length, _par);
-				Thread[] threads = new Thread[len];
+				ArrayList<DataPartitionerWorker> workers = new ArrayList<DataPartitionerWorker>();
 				for( int i=0;i<len;i++ )
 				{
 					int start = i*(int)Math.ceil(((double)fnamesPartitions.length)/len);
 					int end = (i+1)*(int)Math.ceil(((double)fnamesPartitions.length)/len)-1;
 					end = Math.min(end, fnamesPartitions.length-1);
-					threads[i] = new Thread(new DataPartitionerWorkerBinaryBlock(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
-					threads[i].start();
+					workers.add(new DataPartitionerWorkerBinaryBlock(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
 				}
-				
-				for( Thread t : threads )
-					t.join();
+				executeWorkers(workers);
 			}
 			else
 			{
@@ -516,18 +594,15 @@ public class DataPartitionerLocal extends DataPartitioner
 			if(PARALLEL) 
 			{
 				int len = Math.min(fnamesPartitions.length, _par);
-				Thread[] threads = new Thread[len];
+				ArrayList<DataPartitionerWorker> workers = new ArrayList<DataPartitionerWorker>();
 				for( int i=0;i<len;i++ )
 				{
 					int start = i*(int)Math.ceil(((double)fnamesPartitions.length)/len);
 					int end = (i+1)*(int)Math.ceil(((double)fnamesPartitions.length)/len)-1;
 					end = Math.min(end, fnamesPartitions.length-1);
-					threads[i] = new Thread(new DataPartitionerWorkerBinaryCell(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
-					threads[i].start();
+					workers.add(new DataPartitionerWorkerBinaryCell(job, fnameNew, fnameStaging, fnamesPartitions, start, end));
 				}
-				
-				for( Thread t : threads )
-					t.join();
+				executeWorkers(workers);
 			}
 			else
 			{
@@ -798,6 +873,51 @@ public class DataPartitionerLocal extends DataPartitioner
 		return Long.parseLong( fname.split("_")[1] );
 	}
 
+	/**
+	 * Executes the given partitioning workers in the shared thread pool and
+	 * propagates any worker errors to the caller.
+	 * 
+	 * @param workers
+	 * @throws Exception
+	 */
+	private void executeWorkers( ArrayList<DataPartitionerWorker> workers ) 
+		throws Exception
+	{
+		if( workers.isEmpty() )
+			return;
+		
+		ExecutorService pool = getThreadPool();
+		ArrayList<Future<?>> rtasks = new ArrayList<Future<?>>();
+		for( DataPartitionerWorker w : workers )
+			rtasks.add( pool.submit(w) );
+		for( Future<?> rtask : rtasks )
+			rtask.get(); //error handling
+	}
+	
+	/**
+	 * Obtains the thread pool that is shared by all local data partitioners,
+	 * which is created on first use with one thread per virtual core. The 
+	 * partitioning workers and tasks are independent of each other and hence
+	 * can be queued if the pool is fully used (e.g., in nested parfor).
+	 * 
+	 * @return
+	 */
+	private static synchronized ExecutorService getThreadPool()
+	{
+		if( _pool == null ) {
+			int k = Math.max(InfrastructureAnalyzer.getLocalParallelism(), 1);
+			_pool = Executors.newFixedThreadPool(k, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "SystemML-DataPartitioner");
+					t.setDaemon(true); //never prevent jvm shutdown
+					return t;
+				}
+			});
+		}
+		return _pool;
+	}
+	
 	private abstract class DataPartitionerWorker implements Runnable
 	{
 		private JobConf _job = null;
@@ -19,35 +19,54 @@
 
 package org.apache.sysml.runtime.controlprogram.parfor;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.Writable;
 import org.apache.spark.Accumulator;
+import org.apache.spark.HashPartitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
 
 import scala.Tuple2;
 
 import org.apache.sysml.api.DMLScript;
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.LocalVariableMap;
 import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
 import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
 import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
+import org.apache.sysml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
+import org.apache.sysml.runtime.controlprogram.parfor.util.PairWritableBlock;
+import org.apache.sysml.runtime.controlprogram.parfor.util.PairWritableCell;
 import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.MatrixDimensionsMetaData;
-import org.apache.sysml.runtime.matrix.data.InputInfo;
+import org.apache.sysml.runtime.matrix.data.IJV;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixCell;
 import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
 import org.apache.sysml.runtime.matrix.data.OutputInfo;
 import org.apache.sysml.utils.Statistics;
 
 /**
+ * Fused data partitioning and parfor execution on Spark. Instead of shuffling and
+ * grouping individual row or column partitions, we key all input blocks (or binary 
+ * cells for very sparse inputs) by their row or column block index (in a single pass
+ * over each input partition) and stream these groups, sorted by group index, to the 
+ * parfor workers. The sort-based shuffle spills to local disk only under memory 
+ * pressure, and each worker holds one group at a time, from which it collects and 
+ * releases the individual partitions one at a time. Hence, we neither materialize 
+ * partitions in HDFS nor all partitions of a task in memory. The number of worker 
+ * tasks is derived from the estimated partition sizes.
+ * 
  * TODO robustness on failures (cleanup files)
  * TODO heavy hitter maintenance
- * TODO data partitioning with binarycell
  *
  */
 public class RemoteDPParForSpark
@@ -83,29 +102,30 @@ public class RemoteDPParForSpark
 		//prepare input parameters
 		MatrixDimensionsMetaData md = (MatrixDimensionsMetaData) input.getMetaData();
 		MatrixCharacteristics mc = md.getMatrixCharacteristics();
-		InputInfo ii = InputInfo.BinaryBlockInputInfo;
+		int numTasks = getNumWorkerTasks(mc, dpf, numReducers);
 				
 		//initialize accumulators for tasks/iterations
 		Accumulator<Integer> aTasks = sc.accumulator(0);
 		Accumulator<Integer> aIters = sc.accumulator(0);
 		
 		JavaPairRDD<MatrixIndexes,MatrixBlock> in = sec.getBinaryBlockRDDHandleForVariable(matrixvar);
-		DataPartitionerRemoteSparkMapper dpfun = new DataPartitionerRemoteSparkMapper(mc, ii, oi, dpf);
+		DataPartitionerBlockFunction dpfun = new DataPartitionerBlockFunction(mc, dpf, oi);
 		RemoteDPParForSparkWorker efun = new RemoteDPParForSparkWorker(program, matrixvar, itervar, 
 				          enableCPCaching, mc, tSparseCol, dpf, oi, aTasks, aIters);
 		List<Tuple2<Long,String>> out = 
-				in.flatMapToPair(dpfun)         //partition the input blocks
-		          .groupByKey(numReducers)      //group partition blocks 		          
+				in.mapPartitionsToPair(dpfun)   //key input blocks/cells by row/column block
+		          .repartitionAndSortWithinPartitions( //stream sorted block groups
+		        		  new HashPartitioner(numTasks))
 		          .mapPartitionsToPair( efun )  //execute parfor tasks, incl cleanup
 		          .collect();                   //get output handles
 		
 		//de-serialize results
 		LocalVariableMap[] results = RemoteParForUtils.getResults(out, LOG);
-		int numTasks = aTasks.value(); //get accumulator value
-		int numIters = aIters.value(); //get accumulator value
+		int numExecTasks = aTasks.value(); //get accumulator value
+		int numExecIters = aIters.value(); //get accumulator value
 		
 		//create output symbol table entries
-		RemoteParForJobReturn ret = new RemoteParForJobReturn(true, numTasks, numIters, results);
+		RemoteParForJobReturn ret = new RemoteParForJobReturn(true, numExecTasks, numExecIters, results);
 		
 		//maintain statistics
 	    Statistics.incrementNoOfCompiledSPInst();
@@ -116,4 +136,110 @@ public class RemoteDPParForSpark
 		
 		return ret;
 	}
+	
+	/**
+	 * Obtains the number of worker tasks such that each task processes partitions of 
+	 * roughly the size of an HDFS block, but at least the requested degree of parallelism 
+	 * and at most one row or column block per task.
+	 * 
+	 * @param mc
+	 * @param dpf
+	 * @param k
+	 * @return
+	 */
+	private static int getNumWorkerTasks( MatrixCharacteristics mc, PDataPartitionFormat dpf, int k )
+	{
+		long numGroups = (dpf == PDataPartitionFormat.ROW_WISE) ? 
+				mc.getNumRowBlocks() : mc.getNumColBlocks();
+		double size = OptimizerUtils.estimatePartitionedSizeExactSparsity(mc);
+		long numTasks = (long)Math.ceil(size / InfrastructureAnalyzer.getHDFSBlockSize());
+		return (int)Math.max(Math.min(Math.max(numTasks, k), numGroups), 1);
+	}
+	
+	/**
+	 * Keys all input blocks (or their non-zero binary cells) by their row or column 
+	 * block index, which represents the group of row or column partitions the block 
+	 * contributes to. For binary cells, we additionally emit a marker cell per block,
+	 * which ensures that groups with empty partitions are processed as well.
+	 * 
+	 */
+	private static class DataPartitionerBlockFunction implements PairFlatMapFunction<Iterator<Tuple2<MatrixIndexes,MatrixBlock>>, Long, Writable> 
+	{
+		private static final long serialVersionUID = -8173287461095093618L;
+		
+		private PDataPartitionFormat _dpf = null;
+		private OutputInfo _oi = null;
+		private int _brlen = -1;
+		private int _bclen = -1;
+		
+		public DataPartitionerBlockFunction(MatrixCharacteristics mc, PDataPartitionFormat dpf, OutputInfo oi) {
+			_dpf = dpf;
+			_oi = oi;
+			_brlen = mc.getRowsPerBlock();
+			_bclen = mc.getColsPerBlock();
+		}
+		
+		@Override
+		public Iterable<Tuple2<Long, Writable>> call(Iterator<Tuple2<MatrixIndexes, MatrixBlock>> arg0) 
+			throws Exception 
+		{
+			ArrayList<Tuple2<Long, Writable>> ret = new ArrayList<Tuple2<Long, Writable>>();
+			
+			//check via equals because oinfo deserialized instance
+			boolean cells = !_oi.equals(OutputInfo.BinaryBlockOutputInfo);
+			
+			while( arg0.hasNext() ) {
+				Tuple2<MatrixIndexes,MatrixBlock> arg = arg0.next();
+				MatrixIndexes ix = arg._1();
+				MatrixBlock blk = arg._2();
+				Long key = (_dpf == PDataPartitionFormat.ROW_WISE) ? 
+						ix.getRowIndex() : ix.getColumnIndex();
+				
+				if( cells ) { //BINARY CELL
+					long row_offset = (ix.getRowIndex()-1)*_brlen;
+					long col_offset = (ix.getColumnIndex()-1)*_bclen;
+					ret.add(new Tuple2<Long,Writable>(key, createCell(-1, -1, 0)));
+					if( blk.isInSparseFormat() ) {
+						Iterator<IJV> iter = blk.getSparseBlockIterator();
+						while( iter.hasNext() ) {
+							IJV cell = iter.next();
+							ret.add(new Tuple2<Long,Writable>(key, createCell(
+								row_offset+cell.getI()+1, col_offset+cell.getJ()+1, cell.getV())));
+						}
+					}
+					else {
+						for( int i=0; i<blk.getNumRows(); i++ )
+							for( int j=0; j<blk.getNumColumns(); j++ ) {
+								double val = blk.quickGetValue(i, j);
+								if( val != 0 )
+									ret.add(new Tuple2<Long,Writable>(key, 
+										createCell(row_offset+i+1, col_offset+j+1, val)));
+							}
+					}
+				}
+				else { //BINARY BLOCK
+					PairWritableBlock tmp = new PairWritableBlock();
+					tmp.indexes = ix;
+					tmp.block = blk;
+					ret.add(new Tuple2<Long,Writable>(key, tmp));
+				}
+			}
+			
+			return ret;
+		}
+		
+		/**
+		 * 
+		 * @param rix
+		 * @param cix
+		 * @param val
+		 * @return
+		 */
+		private static PairWritableCell createCell(long rix, long cix, double val) {
+			PairWritableCell tmp = new PairWritableCell();
+			tmp.indexes = new MatrixIndexes(rix, cix);
+			tmp.cell = new MatrixCell(val);
+			return tmp;
+		}
+	}
 }
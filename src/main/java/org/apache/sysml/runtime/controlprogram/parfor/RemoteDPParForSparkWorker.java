@@ -21,7 +21,10 @@ package org.apache.sysml.runtime.controlprogram.parfor;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.hadoop.io.Writable;
 import org.apache.spark.Accumulator;
@@ -45,9 +48,15 @@ import org.apache.sysml.runtime.util.LocalFileUtils;
 import scala.Tuple2;
 
 /**
+ * Spark worker of fused data partitioning and parfor execution. The input is a
+ * stream of row- or column-block groups (i.e., all blocks or binary cells of a row 
+ * or column block), sorted by group index, which allows us to process one group at 
+ * a time without materializing all partitions of a task in memory. The row or column
+ * partitions of a group are collected and released one at a time, and processed as 
+ * individual parfor tasks.
  * 
  */
-public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapFunction<Iterator<Tuple2<Long, Iterable<Writable>>>, Long, String> 
+public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapFunction<Iterator<Tuple2<Long, Writable>>, Long, String> 
 {
 	private static final long serialVersionUID = 30223759283155139L;
 	
@@ -89,46 +98,90 @@ public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapF
 		_bclen = mc.getColsPerBlock();
 		_tSparseCol = tSparseCol;
 		_dpf = dpf;
-		switch( _dpf ) { //create matrix partition for reuse
-			case ROW_WISE:    _rlen = 1; break;
-			case COLUMN_WISE: _clen = 1; break;
-			default:  throw new RuntimeException("Partition format not yet supported in fused partition-execute: "+dpf);
-		}
+		if( _dpf != PDataPartitionFormat.ROW_WISE && _dpf != PDataPartitionFormat.COLUMN_WISE )
+			throw new DMLRuntimeException("Partition format not yet supported in fused partition-execute: "+dpf);
 	}
 	
 	@Override 
-	public Iterable<Tuple2<Long, String>> call(Iterator<Tuple2<Long, Iterable<Writable>>> arg0)
+	public Iterable<Tuple2<Long, String>> call(Iterator<Tuple2<Long, Writable>> arg0)
 		throws Exception 
 	{
 		ArrayList<Tuple2<Long,String>> ret = new ArrayList<Tuple2<Long,String>>();
 		
 		//lazy parworker initialization
 		configureWorker( TaskContext.get().taskAttemptId() ); //requires Spark 1.3
-	
-		//process all matrix partitions of this data partition
+		
+		//stream over sorted input blocks/cells and process one group at a time
+		ArrayList<Writable> group = new ArrayList<Writable>();
+		long groupIx = -1;
 		while( arg0.hasNext() )
 		{
-			Tuple2<Long,Iterable<Writable>> larg = arg0.next();
-			
-			//collect input partition (check via equals because oinfo deserialized instance)
+			Tuple2<Long,Writable> larg = arg0.next();
+			if( larg._1() != groupIx && !group.isEmpty() ) {
+				processGroup( groupIx, group, ret );
+				group.clear();
+			}
+			groupIx = larg._1();
+			group.add( larg._2() );
+		}
+		if( !group.isEmpty() )
+			processGroup( groupIx, group, ret );
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param groupIx
+	 * @param group
+	 * @param ret
+	 * @throws DMLRuntimeException
+	 * @throws IOException
+	 */
+	private void processGroup( long groupIx, List<Writable> group, List<Tuple2<Long,String>> ret ) 
+		throws DMLRuntimeException, IOException
+	{
+		boolean rowwise = (_dpf == PDataPartitionFormat.ROW_WISE);
+		int blen = rowwise ? _brlen : _bclen;
+		int len = Math.min(blen, (rowwise ? _rlen : _clen) - (int)(groupIx-1)*blen);
+		long offset = (groupIx-1) * blen;
+		
+		//order binary cells by partition, and skip markers of empty partitions
+		//(check via equals because oinfo deserialized instance)
+		boolean cells = !_oinfo.equals(OutputInfo.BinaryBlockOutputInfo);
+		int pos = 0;
+		if( cells ) {
+			Collections.sort(group, new CellPartitionComparator(rowwise));
+			while( pos < group.size() && getPartitionIndex(group.get(pos), rowwise) < 0 )
+				pos++;
+		}
+		
+		for( int i=0; i<len; i++ )
+		{
+			//collect a single row or column partition 
 			MatrixBlock partition = null;
-			if( _oinfo.equals(OutputInfo.BinaryBlockOutputInfo) )
-				partition = collectBinaryBlock( larg._2() );
+			if( cells ) {
+				int end = pos;
+				while( end < group.size() && getPartitionIndex(group.get(end), rowwise) == offset+1+i )
+					end++;
+				partition = collectBinaryCellInput( group.subList(pos, end) );
+				pos = end;
+			}
 			else
-				partition = collectBinaryCellInput( larg._2() );
+				partition = collectBinaryBlock( group, i );
 			
 			//update in-memory matrix partition
 			MatrixObject mo = _ec.getMatrixObject( _inputVar );
 			mo.setInMemoryPartition( partition );
-					
+			
 			//create tasks for input data
 			Task lTask = new Task(TaskType.SET);
-			lTask.addIteration( new IntObject(_iterVar, larg._1()) );
-						
+			lTask.addIteration( new IntObject(_iterVar, offset+1+i) );
+			
 			//execute program
 			long numIter = getExecutedIterations();
 			super.executeTask( lTask );
-					
+			
 			//maintain accumulators
 			_aTasks.add( 1 );
 			_aIters.add( (int)(getExecutedIterations()-numIter) );
@@ -138,9 +191,7 @@ public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapF
 			ArrayList<String> tmp = RemoteParForUtils.exportResultVariables( _workerID, _ec.getVariables(), _resultVars );
 			for( String val : tmp )
 				ret.add(new Tuple2<Long,String>(_workerID, val));
-		}	
-		
-		return ret;
+		}
 	}
 	
 	/**
@@ -181,47 +232,53 @@ public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapF
 	}
 	
 	/**
-	 * Collects a matrixblock partition from a given input iterator over 
-	 * binary blocks.
-	 * 
-	 * Note it reuses the instance attribute _partition - multiple calls
-	 * will overwrite the result.
+	 * Collects the i-th row or column partition of a group from the given
+	 * input blocks, where column partitions are represented as transposed 
+	 * sparse rows if configured.
 	 * 
-	 * @param valueList
+	 * @param group
+	 * @param i
 	 * @return
 	 * @throws IOException 
 	 */
-	private MatrixBlock collectBinaryBlock( Iterable<Writable> valueList ) 
+	private MatrixBlock collectBinaryBlock( List<Writable> group, int i ) 
 		throws IOException 
 	{
+		boolean rowwise = (_dpf == PDataPartitionFormat.ROW_WISE);
 		MatrixBlock partition = null;
 		
 		try
 		{
-			//reset reuse block, keep configured representation
+			//create partition block, keep configured representation
 			if( _tSparseCol )
-				partition = new MatrixBlock(_clen, _rlen, true);
+				partition = new MatrixBlock(1, _rlen, true);
 			else
-				partition = new MatrixBlock(_rlen, _clen, false);
-
-			for( Writable val : valueList )
+				partition = rowwise ? new MatrixBlock(1, _clen, false) : new MatrixBlock(_rlen, 1, false);
+			
+			for( Writable val : group )
 			{
 				PairWritableBlock pairValue = (PairWritableBlock) val;
-				int row_offset = (int)(pairValue.indexes.getRowIndex()-1)*_brlen;
-				int col_offset = (int)(pairValue.indexes.getColumnIndex()-1)*_bclen;
+				int row_offset = rowwise ? 0 : (int)(pairValue.indexes.getRowIndex()-1)*_brlen;
+				int col_offset = rowwise ? (int)(pairValue.indexes.getColumnIndex()-1)*_bclen : 0;
 				MatrixBlock block = pairValue.block;
-				if( !partition.isInSparseFormat() ) //DENSE
+				if( _tSparseCol ) //SPARSE (transposed column)
 				{
-					partition.copy( row_offset, row_offset+block.getNumRows()-1, 
-							   col_offset, col_offset+block.getNumColumns()-1,
-							   pairValue.block, false ); 
+					for( int r=0; r<block.getNumRows(); r++ ) {
+						double value = block.quickGetValue(r, i);
+						if( value != 0 )
+							partition.appendValue(0, row_offset+r, value);
+					}
 				}
-				else //SPARSE 
+				else //DENSE
 				{
-					partition.appendToSparse(pairValue.block, row_offset, col_offset);
+					MatrixBlock slice = rowwise ? 
+						block.sliceOperations(i, i, 0, block.getNumColumns()-1, new MatrixBlock()) :
+						block.sliceOperations(0, block.getNumRows()-1, i, i, new MatrixBlock());
+					partition.copy( row_offset, row_offset+slice.getNumRows()-1, 
+							   col_offset, col_offset+slice.getNumColumns()-1, slice, false ); 
 				}
 			}
-
+			
 			//final partition cleanup
 			cleanupCollectedMatrixPartition( partition, partition.isInSparseFormat() );
 		}
@@ -233,46 +290,37 @@ public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapF
 		return partition;
 	}
 	
-	
 	/**
-	 * Collects a matrixblock partition from a given input iterator over 
-	 * binary cells.
-	 * 
-	 * Note it reuses the instance attribute _partition - multiple calls
-	 * will overwrite the result.
+	 * Collects a matrixblock partition from the given binary cells.
 	 * 
 	 * @param valueList
 	 * @return
 	 * @throws IOException 
 	 */
-	private MatrixBlock collectBinaryCellInput( Iterable<Writable> valueList ) 
+	private MatrixBlock collectBinaryCellInput( List<Writable> valueList ) 
 		throws IOException 
 	{
 		MatrixBlock partition = null;
-
-		//reset reuse block, keep configured representation
+		
+		//create partition block, keep configured representation
 		if( _tSparseCol )
-			partition = new MatrixBlock(_clen, _rlen, true);
+			partition = new MatrixBlock(1, _rlen, true);
+		else if( _dpf == PDataPartitionFormat.ROW_WISE )
+			partition = new MatrixBlock(1, _clen, false);
 		else
-			partition = new MatrixBlock(_rlen, _clen, false);
+			partition = new MatrixBlock(_rlen, 1, false);
 		
 		switch( _dpf )
 		{
 			case ROW_WISE:
-				while( valueList.iterator().hasNext() )
-				{
-					PairWritableCell pairValue = (PairWritableCell)valueList.iterator().next();
-					if( pairValue.indexes.getColumnIndex()<0 )
-						continue; //cells used to ensure empty partitions
+				for( Writable val : valueList ) {
+					PairWritableCell pairValue = (PairWritableCell)val;
 					partition.quickSetValue(0, (int)pairValue.indexes.getColumnIndex()-1, pairValue.cell.getValue());
 				}
 				break;
 			case COLUMN_WISE:
-				while( valueList.iterator().hasNext() )
-				{
-					PairWritableCell pairValue = (PairWritableCell)valueList.iterator().next();
-					if( pairValue.indexes.getRowIndex()<0 )
-						continue; //cells used to ensure empty partitions
+				for( Writable val : valueList ) {
+					PairWritableCell pairValue = (PairWritableCell)val;
 					if( _tSparseCol )
 						partition.appendValue(0,(int)pairValue.indexes.getRowIndex()-1, pairValue.cell.getValue());
 					else
@@ -289,6 +337,20 @@ public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapF
 		return partition;
 	}
 	
+	/**
+	 * Obtains the 1-based partition index of a binary cell, which is negative
+	 * for markers of (potentially) empty groups.
+	 * 
+	 * @param val
+	 * @param rowwise
+	 * @return
+	 */
+	private static long getPartitionIndex( Writable val, boolean rowwise )
+	{
+		PairWritableCell pairValue = (PairWritableCell)val;
+		return rowwise ? pairValue.indexes.getRowIndex() : pairValue.indexes.getColumnIndex();
+	}
+	
 	/**
 	 * 
 	 * @param sort
@@ -313,4 +375,22 @@ public class RemoteDPParForSparkWorker extends ParWorker implements PairFlatMapF
 			throw new IOException(ex);
 		}
 	}
+	
+	/**
+	 * Orders binary cells by their row or column partition index.
+	 */
+	private static class CellPartitionComparator implements Comparator<Writable>
+	{
+		private boolean _rowwise = true;
+		
+		public CellPartitionComparator(boolean rowwise) {
+			_rowwise = rowwise;
+		}
+		
+		@Override
+		public int compare(Writable o1, Writable o2) {
+			return Long.valueOf(getPartitionIndex(o1, _rowwise))
+				.compareTo(getPartitionIndex(o2, _rowwise));
+		}
+	}
 }
@@ -20,6 +20,7 @@
 package org.apache.sysml.runtime.controlprogram.parfor;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +32,7 @@ import scala.Tuple2;
 import org.apache.sysml.api.DMLScript;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.LocalVariableMap;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock;
 import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
 import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
 import org.apache.sysml.utils.Statistics;
@@ -53,6 +55,9 @@ public class RemoteParForSpark
 	
 	protected static final Log LOG = LogFactory.getLog(RemoteParForSpark.class.getName());
 	
+	//sequence for unique parfor job ids (for worker reuse across tasks)
+	private static final AtomicLong _jobID = new AtomicLong(0);
+	
 	/**
 	 * 
 	 * @param pfid
@@ -80,12 +85,17 @@ public class RemoteParForSpark
 		
 		//run remote_spark parfor job 
 		//(w/o lazy evaluation to fit existing parfor framework, e.g., result merge)
-		RemoteParForSparkWorker func = new RemoteParForSparkWorker(program, cpCaching, aTasks, aIters);
+		String jobID = pfid + "_" + _jobID.incrementAndGet();
+		RemoteParForSparkWorker func = new RemoteParForSparkWorker(jobID, program, cpCaching, aTasks, aIters);
 		List<Tuple2<Long,String>> out = 
 				sc.parallelize( tasks, numMappers )  //create rdd of parfor tasks
-		          .flatMapToPair( func )             //execute parfor tasks 
+		          .mapPartitionsToPair( func )       //execute parfor tasks 
 		          .collect();                        //get output handles
 		
+		//invalidate cached workers of this job in driver and executors
+		if( ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER )
+			RemoteParForSparkWorker.cleanupCachedWorkers(sc, jobID);
+		
 		//de-serialize results
 		LocalVariableMap[] results = RemoteParForUtils.getResults(out, LOG);
 		int numTasks = aTasks.value(); //get accumulator value
@@ -21,40 +21,67 @@ package org.apache.sysml.runtime.controlprogram.parfor;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.apache.spark.Accumulator;
 import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.api.java.function.VoidFunction;
 
 import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.LocalVariableMap;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock;
 import org.apache.sysml.runtime.controlprogram.caching.CacheableData;
+import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
+import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
 import org.apache.sysml.runtime.controlprogram.parfor.util.IDHandler;
+import org.apache.sysml.runtime.instructions.cp.Data;
 import org.apache.sysml.runtime.util.LocalFileUtils;
 
 import scala.Tuple2;
 
 /**
+ * Spark worker of remote parfor, which processes all parfor tasks of a spark task.
  * 
+ * In order to reduce the setup costs for many small tasks, configured workers (parsed 
+ * parfor body, symbol table incl read-only inputs, and result filenames) are cached in 
+ * an executor-level pool, keyed by parfor job. Every spark task exclusively checks out
+ * a cached worker (or configures a new one) and returns it on successful completion. 
+ * Similar to jvm reuse in remote_mr parfor, reused workers export their results of all
+ * tasks consistently into the same files (pre-aggregation). At the end of a parfor job, 
+ * the invalidation of its cached workers is broadcast to all executors via a lightweight
+ * cleanup job. Since spark does not guarantee that this job reaches every executor, any
+ * remaining workers are invalidated by the first task of a subsequent parfor job.
  * 
  */
-public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFunction<Task, Long, String> 
+public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFunction<Iterator<Task>, Long, String> 
 {
 	
 	private static final long serialVersionUID = -3254950138084272296L;
 
-	private boolean _initialized = false;
+	//executor-level pool of configured workers, keyed by parfor job
+	private static HashMap<String, LinkedList<RemoteParForSparkWorker>> _sCache = 
+			new HashMap<String, LinkedList<RemoteParForSparkWorker>>();
+	private static long _sNumReused = 0; //for testing
+	
+	private String  _jobID = null;
 	private String  _prog = null;
 	private boolean _caching = true;
+	private HashMap<String, String> _rvarFnames = null;
 	
 	private Accumulator<Integer> _aTasks = null;
 	private Accumulator<Integer> _aIters = null;
 	
-	public RemoteParForSparkWorker(String program, boolean cpCaching, Accumulator<Integer> atasks, Accumulator<Integer> aiters) 
+	public RemoteParForSparkWorker(String jobID, String program, boolean cpCaching, Accumulator<Integer> atasks, Accumulator<Integer> aiters) 
 		throws DMLRuntimeException
 	{
 		//keep inputs (unfortunately, spark does not expose task ids and it would be implementation-dependent
 		//when this constructor is actually called; hence, we do lazy initialization on task execution)
-		_initialized = false;
+		_jobID = jobID;
 		_prog = program;
 		_caching = cpCaching;
 		
@@ -64,31 +91,87 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 	}
 	
 	@Override 
-	public Iterable<Tuple2<Long, String>> call(Task arg0)
+	public Iterable<Tuple2<Long, String>> call(Iterator<Task> arg0)
 		throws Exception 
 	{
-		//lazy parworker initialization
-		if( !_initialized )
+		//lazy parworker initialization (reuse of cached worker if possible)
+		if( !reuseCachedWorker() )
 			configureWorker( TaskContext.get().taskAttemptId() ); //requires Spark 1.3
 		
-		//execute a single task
-		long numIter = getExecutedIterations();
-		super.executeTask( arg0 );
-		
-		//maintain accumulators
-		_aTasks.add( 1 );
-		_aIters.add( (int)(getExecutedIterations()-numIter) );
+		//execute all tasks of this partition
+		while( arg0.hasNext() )
+		{
+			long numIter = getExecutedIterations();
+			super.executeTask( arg0.next() );
+			
+			//maintain accumulators
+			_aTasks.add( 1 );
+			_aIters.add( (int)(getExecutedIterations()-numIter) );
+		}
 		
 		//write output if required (matrix indexed write) 
 		//note: this copy is necessary for environments without spark libraries
 		ArrayList<Tuple2<Long,String>> ret = new ArrayList<Tuple2<Long,String>>();
-		ArrayList<String> tmp = RemoteParForUtils.exportResultVariables( _workerID, _ec.getVariables(), _resultVars );
+		ArrayList<String> tmp = RemoteParForUtils.exportResultVariables( _workerID, _ec.getVariables(), _resultVars, _rvarFnames );
 		for( String val : tmp )
 			ret.add(new Tuple2<Long,String>(_workerID, val));
+		
+		//return worker to pool (only on success, failed tasks might leave an inconsistent state)
+		if( ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER ) {
+			synchronized( _sCache ) {
+				if( !_sCache.containsKey(_jobID) )
+					_sCache.put(_jobID, new LinkedList<RemoteParForSparkWorker>());
+				_sCache.get(_jobID).add(this);
+			}
+		}
 			
 		return ret;
 	}
 	
+	/**
+	 * Probes the executor-level pool for a configured worker of the same parfor job,
+	 * and if available, takes over its state. Cached workers of other parfor jobs
+	 * are invalidated because these jobs are already completed.
+	 * 
+	 * @return true if a cached worker has been reused
+	 */
+	private boolean reuseCachedWorker()
+	{
+		if( !ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER )
+			return false;
+		
+		RemoteParForSparkWorker tmp = null;
+		synchronized( _sCache ) {
+			//invalidate workers of other (completed) parfor jobs
+			if( _sCache.size() > 1 || (_sCache.size()==1 && !_sCache.containsKey(_jobID)) ) {
+				LinkedList<RemoteParForSparkWorker> current = _sCache.remove(_jobID);
+				cleanupCachedWorkers(null);
+				if( current != null )
+					_sCache.put(_jobID, current);
+			}
+			
+			//check out cached worker of same parfor job
+			LinkedList<RemoteParForSparkWorker> list = _sCache.get(_jobID);
+			if( list != null && !list.isEmpty() ) {
+				tmp = list.removeFirst();
+				_sNumReused++;
+			}
+		}
+		
+		if( tmp == null )
+			return false;
+		
+		_workerID    = tmp._workerID;
+		_childBlocks = tmp._childBlocks;
+		_resultVars  = tmp._resultVars;
+		_ec          = tmp._ec;
+		_numTasks    = tmp._numTasks;
+		_numIters    = tmp._numIters;
+		_rvarFnames  = tmp._rvarFnames;
+		
+		return true;
+	}
+	
 	/**
 	 * 
 	 * @param ID
@@ -107,6 +190,10 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 		_resultVars  = body.getResultVarNames();
 		_numTasks    = 0;
 		_numIters    = 0;
+		
+		//consistent result filenames if reused across tasks 
+		if( ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER )
+			_rvarFnames = new HashMap<String, String>();
 
 		//init local cache manager 
 		if( !CacheableData.isCachingActive() ) {
@@ -124,8 +211,125 @@ public class RemoteParForSparkWorker extends ParWorker implements PairFlatMapFun
 		//enable/disable caching (if required)
 		if( !_caching )
 			CacheableData.disableCaching();
+	}
+	
+	/**
+	 * Removes all cached workers of the given parfor job (or all jobs if null),
+	 * and releases the in-memory objects of their symbol tables.
+	 * 
+	 * @param jobID
+	 */
+	public static void cleanupCachedWorkers( String jobID )
+	{
+		synchronized( _sCache ) 
+		{
+			ArrayList<LinkedList<RemoteParForSparkWorker>> lists = new ArrayList<LinkedList<RemoteParForSparkWorker>>();
+			if( jobID != null ) {
+				if( _sCache.containsKey(jobID) )
+					lists.add(_sCache.remove(jobID));
+			}
+			else {
+				lists.addAll(_sCache.values());
+				_sCache.clear();
+			}
+			
+			//make matrix objects empty (see remote_mr jvm reuse)
+			for( LinkedList<RemoteParForSparkWorker> list : lists )
+				for( RemoteParForSparkWorker pw : list ) {
+					LocalVariableMap vars = pw._ec.getVariables();
+					for( String varName : vars.keySet() ) {
+						Data dat = vars.get(varName);
+						if( dat instanceof MatrixObject )
+							((MatrixObject)dat).setEmptyStatus();
+					}
+				}
+		}
+	}
+	
+	/**
+	 * Invalidates the cached workers of the given parfor job in the driver and
+	 * broadcasts this invalidation to the executors by running a cleanup task 
+	 * per available core (best effort, see class comment).
+	 * 
+	 * @param sc
+	 * @param jobID
+	 */
+	public static void cleanupCachedWorkers( JavaSparkContext sc, String jobID )
+	{
+		//local cleanup (executors share the driver jvm in local mode)
+		cleanupCachedWorkers(jobID);
 		
-		//make as lazily intialized
-		_initialized = true;
+		//remote cleanup on all executors
+		if( !SparkExecutionContext.isLocalMaster() ) {
+			int numTasks = SparkExecutionContext.getDefaultParallelism(false);
+			List<Integer> dummy = new ArrayList<Integer>();
+			for( int i=0; i<numTasks; i++ )
+				dummy.add(i);
+			sc.parallelize(dummy, numTasks)
+			  .foreachPartition(new CleanupCachedWorkersFunction(jobID));
+		}
+	}
+	
+	/**
+	 * Returns the number of cached workers of the given parfor job (or all jobs 
+	 * if null) in this jvm. This method is primarily used for testing.
+	 * 
+	 * @param jobID
+	 * @return
+	 */
+	public static int getNumCachedWorkers( String jobID )
+	{
+		synchronized( _sCache ) {
+			if( jobID != null )
+				return _sCache.containsKey(jobID) ? _sCache.get(jobID).size() : 0;
+			int ret = 0;
+			for( LinkedList<RemoteParForSparkWorker> list : _sCache.values() )
+				ret += list.size();
+			return ret;
+		}
+	}
+	
+	/**
+	 * Returns the number of worker reuses in this jvm since the last reset. 
+	 * This method is primarily used for testing.
+	 * 
+	 * @return
+	 */
+	public static long getNumReusedWorkers()
+	{
+		synchronized( _sCache ) {
+			return _sNumReused;
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	public static void resetNumReusedWorkers()
+	{
+		synchronized( _sCache ) {
+			_sNumReused = 0;
+		}
+	}
+	
+	/**
+	 * Cleanup function for the broadcast invalidation of cached workers on executors.
+	 */
+	private static class CleanupCachedWorkersFunction implements VoidFunction<Iterator<Integer>> 
+	{
+		private static final long serialVersionUID = 2918427540462715380L;
+		
+		private String _jobID = null;
+		
+		public CleanupCachedWorkersFunction( String jobID ) {
+			_jobID = jobID;
+		}
+		
+		@Override
+		public void call( Iterator<Integer> arg0 ) 
+			throws Exception 
+		{
+			cleanupCachedWorkers(_jobID);
+		}
 	}
 }
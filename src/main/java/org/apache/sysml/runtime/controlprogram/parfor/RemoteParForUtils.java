@@ -172,12 +172,31 @@ public class RemoteParForUtils
 	 * @param workerID
 	 * @param vars
 	 * @param resultVars
-	 * @param rvarFnames
+	 * @return
 	 * @throws DMLRuntimeException
 	 * @throws IOException
 	 */
 	public static ArrayList<String> exportResultVariables( long workerID, LocalVariableMap vars, ArrayList<String> resultVars) 
 		throws DMLRuntimeException, IOException
+	{
+		return exportResultVariables(workerID, vars, resultVars, (HashMap<String,String>)null);
+	}
+	
+	/**
+	 * For remote Spark parfor workers. If result variable filenames are given (for
+	 * workers that are reused across tasks), we export the results of all tasks of 
+	 * a worker consistently into the same files (pre-aggregation).
+	 * 
+	 * @param workerID
+	 * @param vars
+	 * @param resultVars
+	 * @param rvarFnames
+	 * @return
+	 * @throws DMLRuntimeException
+	 * @throws IOException
+	 */
+	public static ArrayList<String> exportResultVariables( long workerID, LocalVariableMap vars, ArrayList<String> resultVars, HashMap<String,String> rvarFnames ) 
+		throws DMLRuntimeException, IOException
 	{
 		ArrayList<String> ret = new ArrayList<String>();
 		
@@ -192,9 +211,14 @@ public class RemoteParForUtils
 				MatrixObject mo = (MatrixObject) dat;
 				if( mo.isDirty() )
 				{
+					//keep consistent result filenames across tasks
+					if( rvarFnames != null && rvarFnames.containsKey(rvar) )
+						mo.setFileName( rvarFnames.get(rvar) );
+					
 					//export result var (iff actually modified in parfor)
 					mo.exportData(); 
-					
+					if( rvarFnames != null )
+						rvarFnames.put(rvar, mo.getFileName());
 					
 					//pass output vars (scalars by value, matrix by ref) to result
 					//(only if actually exported, hence in check for dirty, otherwise potential problems in result merge)
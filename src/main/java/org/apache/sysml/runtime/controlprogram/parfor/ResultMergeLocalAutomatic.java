@@ -22,6 +22,7 @@ package org.apache.sysml.runtime.controlprogram.parfor;
 
 import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
 import org.apache.sysml.runtime.controlprogram.parfor.opt.OptimizerRuleBased;
 import org.apache.sysml.runtime.controlprogram.parfor.stat.Timing;
@@ -34,11 +35,18 @@ public class ResultMergeLocalAutomatic extends ResultMerge
 {
 	
 	private ResultMerge _rm = null;
+	private PDataPartitionFormat _format = PDataPartitionFormat.NONE;
 	
 	public ResultMergeLocalAutomatic( MatrixObject out, MatrixObject[] in, String outputFilename )
 	{
 		super( out, in, outputFilename );
 	}
+	
+	public ResultMergeLocalAutomatic( MatrixObject out, MatrixObject[] in, String outputFilename, PDataPartitionFormat format )
+	{
+		super( out, in, outputFilename );
+		_format = format;
+	}
 
 	@Override
 	public MatrixObject executeSerialMerge() 
@@ -51,7 +59,7 @@ public class ResultMergeLocalAutomatic extends ResultMerge
 		long cols = mc.getCols();
 		
 		if( OptimizerRuleBased.isInMemoryResultMerge(rows, cols, OptimizerUtils.getLocalMemBudget()) )
-			_rm = new ResultMergeLocalMemory( _output, _inputs, _outputFName );
+			_rm = new ResultMergeLocalMemory( _output, _inputs, _outputFName, _format );
 		else
 			_rm = new ResultMergeLocalFile( _output, _inputs, _outputFName );
 		
@@ -71,7 +79,7 @@ public class ResultMergeLocalAutomatic extends ResultMerge
 		long cols = mc.getCols();
 		
 		if( OptimizerRuleBased.isInMemoryResultMerge(par * rows, cols, OptimizerUtils.getLocalMemBudget()) )
-			_rm = new ResultMergeLocalMemory( _output, _inputs, _outputFName );
+			_rm = new ResultMergeLocalMemory( _output, _inputs, _outputFName, _format );
 		else
 			_rm = new ResultMergeLocalFile( _output, _inputs, _outputFName );
 		
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import org.apache.sysml.parser.Expression.DataType;
 import org.apache.sysml.parser.Expression.ValueType;
 import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
 import org.apache.sysml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
 import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
@@ -38,6 +39,10 @@ import org.apache.sysml.runtime.util.DataConverter;
  * small enough to fit into the JVM memory, this class can be used for efficient 
  * serial or multi-threaded merge.
  * 
+ * If the parfor dependency analysis determined that all writes to the result 
+ * variable are row-wise or column-wise left indexing operations, we use a slice 
+ * merge: every modified row (column) is exclusively owned by one worker and hence
+ * copied as a whole, which avoids the dense compare matrix altogether.
  * 
  */
 public class ResultMergeLocalMemory extends ResultMerge
@@ -46,11 +51,21 @@ public class ResultMergeLocalMemory extends ResultMerge
 	//internal comparison matrix
 	private double[][]        _compare     = null;
 	
+	//write pattern of result variable and original output for slice merge
+	private PDataPartitionFormat _format   = PDataPartitionFormat.NONE;
+	private MatrixBlock       _orig        = null;
+	
 	public ResultMergeLocalMemory( MatrixObject out, MatrixObject[] in, String outputFilename )
 	{
 		super( out, in, outputFilename );
 	}
 	
+	public ResultMergeLocalMemory( MatrixObject out, MatrixObject[] in, String outputFilename, PDataPartitionFormat format )
+	{
+		super( out, in, outputFilename );
+		_format = (format != null) ? format : PDataPartitionFormat.NONE;
+	}
+	
 	@Override
 	public MatrixObject executeSerialMerge() 
 		throws DMLRuntimeException
@@ -71,9 +86,17 @@ public class ResultMergeLocalMemory extends ResultMerge
 			boolean appendOnly = outMBNew.isInSparseFormat();
 			
 			//create compare matrix if required (existing data in result)
-			_compare = createCompareMatrix(outMB);
-			if( _compare != null )
+			//(slice merge compares directly against the pinned original output)
+			if( isSliceMerge(outMB) ) {
+				_orig = outMB;
 				outMBNew.copy(outMB);
+				appendOnly = false;
+			}
+			else {
+				_compare = createCompareMatrix(outMB);
+				if( _compare != null )
+					outMBNew.copy(outMB);
+			}
 			
 			//serial merge all inputs
 			boolean flagMerged = false;
@@ -110,6 +133,10 @@ public class ResultMergeLocalMemory extends ResultMerge
 			if( appendOnly )
 				outMBNew.sortSparseRows();
 			
+			//maintain nnz after unsynchronized slice copies
+			if( _orig != null )
+				outMBNew.recomputeNonZeros();
+			
 			//change sparsity if required after 
 			outMBNew.examSparsity(); 
 			
@@ -173,9 +200,16 @@ public class ResultMergeLocalMemory extends ResultMerge
 				outMBNew.allocateDenseBlockUnsafe((int)rows, (int)cols);
 				
 				//create compare matrix if required (existing data in result)
-				_compare = createCompareMatrix(outMB);
-				if( _compare != null )
-					outMBNew.copy(outMB);
+				//(slice merge compares directly against the pinned original output)
+				if( isSliceMerge(outMB) ) {
+					_orig = outMB;
+					outMBNew.copy(outMB, false); //dense for parallel slice copies
+				}
+				else {
+					_compare = createCompareMatrix(outMB);
+					if( _compare != null )
+						outMBNew.copy(outMB);
+				}
 				
 				//parallel merge of all inputs
 
@@ -199,6 +233,10 @@ public class ResultMergeLocalMemory extends ResultMerge
 					}
 				}
 				
+				//maintain nnz after unsynchronized slice copies
+				if( _orig != null )
+					outMBNew.recomputeNonZeros();
+				
 				//create new output matrix 
 				//(e.g., to prevent potential export<->read file access conflict in specific cases of 
 				// local-remote nested parfor))
@@ -223,6 +261,20 @@ public class ResultMergeLocalMemory extends ResultMerge
 		return moNew;		
 	}
 
+	/**
+	 * Indicates if slice merge is applicable, i.e., if the output contains
+	 * existing data and all writes are known to be row- or column-wise.
+	 * 
+	 * @param output
+	 * @return
+	 */
+	private boolean isSliceMerge( MatrixBlock output )
+	{
+		return output.getNonZeros() > 0
+			&& (_format == PDataPartitionFormat.ROW_WISE 
+			|| _format == PDataPartitionFormat.COLUMN_WISE);
+	}
+	
 	/**
 	 * 
 	 * @param output
@@ -296,12 +348,96 @@ public class ResultMergeLocalMemory extends ResultMerge
 	private void merge( MatrixBlock out, MatrixBlock in, boolean appendOnly ) 
 		throws DMLRuntimeException
 	{
-		if( _compare == null )
+		if( _orig != null )
+			mergeSlices(out, in, _orig, _format==PDataPartitionFormat.ROW_WISE);
+		else if( _compare == null )
 			mergeWithoutComp(out, in, appendOnly);
 		else
 			mergeWithComp(out, in, _compare);
 	}
 	
+	/**
+	 * Merges <code>in</code> into <code>out</code> by copying all rows (columns) of 
+	 * <code>in</code> that differ from the original output. Since the dependency analysis
+	 * ensured disjoint writes of entire rows (columns), these slices are exclusively owned 
+	 * by the given input and hence can be copied without cell-wise comparison. 
+	 * 
+	 * NOTE: dense outputs are updated without nnz maintenance in order to allow for
+	 * parallel unsynchronized access; the caller is responsible for recomputing the nnz.
+	 * 
+	 * @param out
+	 * @param in
+	 * @param orig
+	 * @param rowwise
+	 */
+	private void mergeSlices( MatrixBlock out, MatrixBlock in, MatrixBlock orig, boolean rowwise ) 
+	{
+		int rows = in.getNumRows();
+		int cols = in.getNumColumns();
+		boolean dense = !in.isInSparseFormat() && !orig.isInSparseFormat()
+			&& !out.isInSparseFormat() && in.getDenseBlock() != null 
+			&& orig.getDenseBlock() != null && out.getDenseBlock() != null;
+		
+		if( dense ) //DENSE <- DENSE, DENSE
+		{
+			double[] a = in.getDenseBlock();
+			double[] b = orig.getDenseBlock();
+			double[] c = out.getDenseBlock();
+			if( rowwise ) {
+				for( int i=0, ix=0; i<rows; i++, ix+=cols )
+					for( int j=0; j<cols; j++ )
+						if( isModified(a[ix+j], b[ix+j]) ) {
+							System.arraycopy(a, ix, c, ix, cols);
+							break;
+						}
+			}
+			else {
+				for( int j=0; j<cols; j++ )
+					for( int i=0, ix=j; i<rows; i++, ix+=cols )
+						if( isModified(a[ix], b[ix]) ) {
+							for( int i2=0, ix2=j; i2<rows; i2++, ix2+=cols )
+								c[ix2] = a[ix2];
+							break;
+						}
+			}
+		}
+		else //GENERAL CASE (sparse outputs only in serial merge)
+		{
+			double[] c = out.isInSparseFormat() ? null : out.getDenseBlock();
+			int slen = rowwise ? rows : cols;
+			int clen = rowwise ? cols : rows;
+			for( int s=0; s<slen; s++ )
+				for( int t=0; t<clen; t++ ) {
+					int i = rowwise ? s : t;
+					int j = rowwise ? t : s;
+					if( isModified(in.quickGetValue(i, j), orig.quickGetValue(i, j)) ) {
+						for( int t2=0; t2<clen; t2++ ) {
+							int i2 = rowwise ? i : t2;
+							int j2 = rowwise ? t2 : j;
+							if( c != null )
+								c[i2*cols+j2] = in.quickGetValue(i2, j2);
+							else
+								out.quickSetValue(i2, j2, in.quickGetValue(i2, j2));
+						}
+						break;
+					}
+				}
+		}
+	}
+	
+	/**
+	 * NaN-aware comparison of a result value with its original value.
+	 * 
+	 * @param value
+	 * @param compare
+	 * @return
+	 */
+	private static boolean isModified( double value, double compare )
+	{
+		return (value != compare && !Double.isNaN(value))     //for new values only (div)
+			|| Double.isNaN(value) != Double.isNaN(compare);  //NaN awareness
+	}
+	
 	
 	/**
 	 * NOTE: only used if matrix in dense
@@ -20,6 +20,7 @@
 package org.apache.sysml.runtime.controlprogram.parfor.opt;
 
 
+import org.apache.sysml.hops.cost.CostModelProfile;
 import org.apache.sysml.lops.Lop;
 import org.apache.sysml.lops.LopProperties.ExecType;
 import org.apache.sysml.runtime.DMLRuntimeException;
@@ -161,6 +162,9 @@ public class CostEstimatorRuntime extends CostEstimator
 		
 		if( df == null || sf == null )
 		{
+			//fallback to calibrated cost profile (if available)
+			if( measure == TestMeasure.EXEC_TIME && CostModelProfile.isCalibrated() )
+				return getCalibratedTimeEstimate(instName, dim1, dim2, dim3, sparsity);
 			return getDefaultEstimate( measure );
 		}
 		
@@ -219,6 +223,33 @@ public class CostEstimatorRuntime extends CostEstimator
 		return ret;
 	}
 
+	/**
+	 * Estimates the execution time in ms from the operation class throughput of
+	 * the calibrated cost profile, in case there is no trained cost function.
+	 * 
+	 * @param instName
+	 * @param dim1
+	 * @param dim2
+	 * @param dim3
+	 * @param sparsity
+	 * @return
+	 */
+	private double getCalibratedTimeEstimate( String instName, double dim1, double dim2, double dim3, double sparsity )
+	{
+		String opcode = instName.substring(instName.lastIndexOf(Lop.OPERAND_DELIMITOR)+1);
+		
+		//flop counts as of the static cost model (for common operations)
+		double nflop = -1;
+		if( opcode.equals("ba+*") )
+			nflop = dim1 * dim2 * dim3 * sparsity;
+		else if( opcode.equals("uak+") || opcode.equals("uark+") || opcode.equals("uack+") )
+			nflop = 4 * dim1 * dim2;
+		else
+			nflop = dim1 * dim2;
+		
+		return Math.max(nflop / CostModelProfile.getFlopRate(opcode) * 1000, 0);
+	}
+	
 	/**
 	 * 
 	 * @param f1
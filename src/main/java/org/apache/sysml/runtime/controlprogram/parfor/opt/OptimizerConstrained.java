@@ -236,8 +236,19 @@ public class OptimizerConstrained extends OptimizerRuleBased
 		if( !n.getParam(ParamType.DATA_PARTITIONER).equals(PDataPartitioner.UNSPECIFIED.toString()) )
 		{
 			Object[] o = OptTreeConverter.getAbstractPlanMapping().getMappedProg(n.getID());
+			ParForStatementBlock pfsb = (ParForStatementBlock) o[0];
 			ParForProgramBlock pfpb = (ParForProgramBlock) o[1];
-			pfpb.setDataPartitioner(PDataPartitioner.valueOf(n.getParam(ParamType.DATA_PARTITIONER)));
+			PDataPartitioner pdp = PDataPartitioner.valueOf(n.getParam(ParamType.DATA_PARTITIONER));
+			pfpb.setDataPartitioner(pdp);
+			
+			//keep track of partitioned matrices (for subsequent rewrites such as fused partitioning)
+			if( pdp != PDataPartitioner.NONE ) {
+				for( String c : pfsb.getReadOnlyParentVars() ) {
+					PDataPartitionFormat dpf = pfsb.determineDataPartitionFormat( c );
+					if( dpf != PDataPartitionFormat.NONE && dpf != PDataPartitionFormat.BLOCK_WISE_M_N )
+						partitionedMatrices.put( c, dpf );
+				}
+			}
 			LOG.debug(getOptMode()+" OPT: forced 'set data partitioner' - result="+n.getParam(ParamType.DATA_PARTITIONER) );
 		}	
 		else
@@ -269,7 +280,8 @@ public class OptimizerConstrained extends OptimizerRuleBased
 		{
 			ParForProgramBlock pfpb = (ParForProgramBlock) OptTreeConverter
                     .getAbstractPlanMapping().getMappedProg(n.getID())[1];
-			PExecMode mode = (n.getExecType()==ExecType.CP)? PExecMode.LOCAL : PExecMode.REMOTE_MR;
+			PExecMode mode = (n.getExecType()==ExecType.CP)? PExecMode.LOCAL : 
+				(n.getExecType()==ExecType.SPARK)? PExecMode.REMOTE_SPARK : PExecMode.REMOTE_MR;
 			pfpb.setExecMode( mode );	
 			LOG.debug(getOptMode()+" OPT: forced 'set execution strategy' - result="+mode );	
 		}
@@ -389,7 +401,7 @@ public class OptimizerConstrained extends OptimizerRuleBased
 	protected void rewriteSetFusedDataPartitioningExecution(OptNode pn, double M, boolean flagLIX, HashMap<String, PDataPartitionFormat> partitionedMatrices, LocalVariableMap vars, PExecMode emode) 
 		throws DMLRuntimeException
 	{
-		if( emode == PExecMode.REMOTE_MR_DP )
+		if( emode == PExecMode.REMOTE_MR_DP || emode == PExecMode.REMOTE_SPARK_DP )
 		{
 			ParForProgramBlock pfpb = (ParForProgramBlock) OptTreeConverter
 	                  .getAbstractPlanMapping().getMappedProg(pn.getID())[1];
@@ -414,10 +426,11 @@ public class OptimizerConstrained extends OptimizerRuleBased
 			{
 				int k = (int)Math.min(_N,_rk2);
 				
-				pn.addParam(ParamType.DATA_PARTITIONER, "REMOTE_MR(fused)");
+				pn.addParam(ParamType.DATA_PARTITIONER, 
+					(emode==PExecMode.REMOTE_MR_DP) ? "REMOTE_MR(fused)" : "REMOTE_SPARK(fused)");
 				pn.setK( k );
 				
-				pfpb.setExecMode(PExecMode.REMOTE_MR_DP); //set fused exec type	
+				pfpb.setExecMode(emode); //set fused exec type	
 				pfpb.setDataPartitioner(PDataPartitioner.NONE);
 				pfpb.enableColocatedPartitionedMatrix( moVarname ); 
 				pfpb.setDegreeOfParallelism(k);
@@ -1710,9 +1710,15 @@ public class OptimizerRuleBased extends Optimizer
 			//check if access via iteration variable and sizes match
 			String iterVarname = pfpb.getIterablePredicateVars()[0];
 			
+			//memory of the row or column block group held by spark workers
+			//(in addition to the current partition, see RemoteDPParForSparkWorker)
+			double G = (REMOTE_DPE==PExecMode.REMOTE_SPARK_DP) ? 
+					getFusedBlockGroupSize(mo, moDpf) : 0;
+			
 			if( rIsAccessByIterationVariable(pn, moVarname, iterVarname) &&
 			   ((moDpf==PDataPartitionFormat.ROW_WISE && mo.getNumRows()==_N ) ||
-				(moDpf==PDataPartitionFormat.COLUMN_WISE && mo.getNumColumns()==_N)) )
+				(moDpf==PDataPartitionFormat.COLUMN_WISE && mo.getNumColumns()==_N)) 
+			   && M + G < _rm2 )
 			{
 				int k = (int)Math.min(_N,_rk2);
 				
@@ -1731,6 +1737,25 @@ public class OptimizerRuleBased extends Optimizer
 		LOG.debug(getOptMode()+" OPT: rewrite 'set fused data partitioning and execution' - result="+apply );
 	}
 	
+	/**
+	 * Estimates the size of a row or column block of the given matrix, i.e., the
+	 * group of input blocks a fused spark worker holds while processing its row
+	 * or column partitions.
+	 * 
+	 * @param mo
+	 * @param dpf
+	 * @return
+	 */
+	protected static double getFusedBlockGroupSize( MatrixObject mo, PDataPartitionFormat dpf )
+	{
+		long rows = (dpf==PDataPartitionFormat.ROW_WISE) ? 
+				Math.min(mo.getNumRows(), mo.getNumRowsPerBlock()) : mo.getNumRows();
+		long cols = (dpf==PDataPartitionFormat.ROW_WISE) ? 
+				mo.getNumColumns() : Math.min(mo.getNumColumns(), mo.getNumColumnsPerBlock());
+		double sp = (mo.getNnz() >= 0) ? mo.getSparsity() : 1.0;
+		return OptimizerUtils.estimateSizeExactSparsity(rows, cols, sp);
+	}
+	
 	/**
 	 * 
 	 * @param n
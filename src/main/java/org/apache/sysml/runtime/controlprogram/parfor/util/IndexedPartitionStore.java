@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.controlprogram.parfor.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
+import org.apache.sysml.runtime.controlprogram.caching.CacheDataInput;
+import org.apache.sysml.runtime.controlprogram.caching.CacheDataOutput;
+import org.apache.sysml.runtime.io.IOUtilFunctions;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.IndexRange;
+import org.apache.sysml.runtime.util.LocalFileUtils;
+
+/**
+ * Indexed partition store for local data partitioning. All row or column partitions
+ * of an in-memory matrix are serialized into a single local file, and an in-memory
+ * offset index allows to read individual partitions by index. If the file does not
+ * exceed 2GB, it is memory-mapped once and partitions are read without any file
+ * system operations; otherwise, we fall back to positional reads on the open channel.
+ *
+ * Compared to the file-per-partition scheme of the local data partitioner, this
+ * avoids millions of tiny files and the related metadata I/O for row- or column-wise
+ * partitioning of large matrices.
+ *
+ */
+public class IndexedPartitionStore
+{
+	private final String _fname;
+	private final PDataPartitionFormat _format;
+	private final int _brlen;
+	private final int _bclen;
+
+	//offset index of serialized partitions
+	private final long[] _offsets;
+	private final int[] _lengths;
+
+	//open file handles (mapped if possible)
+	private RandomAccessFile _file = null;
+	private FileChannel _channel = null;
+	private MappedByteBuffer _map = null;
+
+	private IndexedPartitionStore( String fname, PDataPartitionFormat dpf, int brlen, int bclen, int numPartitions )
+	{
+		_fname = fname;
+		_format = dpf;
+		_brlen = brlen;
+		_bclen = bclen;
+		_offsets = new long[numPartitions];
+		_lengths = new int[numPartitions];
+	}
+
+	/**
+	 *
+	 * @param dpf
+	 * @return
+	 */
+	public static boolean isSupportedFormat( PDataPartitionFormat dpf )
+	{
+		return ( dpf == PDataPartitionFormat.ROW_WISE
+			|| dpf == PDataPartitionFormat.ROW_BLOCK_WISE
+			|| dpf == PDataPartitionFormat.COLUMN_WISE
+			|| dpf == PDataPartitionFormat.COLUMN_BLOCK_WISE );
+	}
+
+	/**
+	 * Creates a new indexed partition store by slicing the given in-memory matrix
+	 * according to the partition format and writing all partitions into a single
+	 * local file. Partitions are serialized by <code>k</code> tasks of the given (shared)
+	 * thread pool with positional writes, i.e., the physical order of partitions in the
+	 * file is arbitrary. Without thread pool, all partitions are written sequentially.
+	 * The thread pool is owned by the caller and not shut down.
+	 *
+	 * @param fname
+	 * @param in
+	 * @param dpf
+	 * @param brlen
+	 * @param bclen
+	 * @param pool thread pool, or null for sequential writes
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static IndexedPartitionStore createPartitionStore( String fname, MatrixBlock in, PDataPartitionFormat dpf, int brlen, int bclen, ExecutorService pool, int k )
+		throws DMLRuntimeException
+	{
+		if( !isSupportedFormat(dpf) )
+			throw new DMLRuntimeException("Unsupported partition format for indexed partition store: "+dpf);
+
+		int numPartitions = getNumPartitions(in.getNumRows(), in.getNumColumns(), dpf, brlen, bclen);
+		IndexedPartitionStore ret = new IndexedPartitionStore(fname, dpf, brlen, bclen, numPartitions);
+
+		RandomAccessFile file = null;
+		try
+		{
+			LocalFileUtils.deleteFileIfExists(fname);
+			file = new RandomAccessFile(fname, "rw");
+			FileChannel channel = file.getChannel();
+			AtomicLong pos = new AtomicLong(0);
+
+			//serialize and write partitions (serial or multi-threaded)
+			int lk = Math.max(Math.min(k, numPartitions), 1);
+			if( lk == 1 || pool == null ) {
+				new PartitionWriteTask(ret, in, channel, pos, 0, numPartitions).call();
+			}
+			else {
+				ArrayList<PartitionWriteTask> tasks = new ArrayList<PartitionWriteTask>();
+				int blklen = (int)(Math.ceil((double)numPartitions/lk));
+				for( int i=0; i<lk & i*blklen<numPartitions; i++ )
+					tasks.add(new PartitionWriteTask(ret, in, channel, pos, i*blklen, Math.min((i+1)*blklen, numPartitions)));
+				ArrayList<Future<Object>> rtasks = new ArrayList<Future<Object>>(pool.invokeAll(tasks));
+				for( Future<Object> rtask : rtasks )
+					rtask.get(); //error handling
+			}
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException("Failed to create indexed partition store: "+fname, ex);
+		}
+		finally {
+			IOUtilFunctions.closeSilently(file);
+		}
+
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param rlen
+	 * @param clen
+	 * @param dpf
+	 * @param brlen
+	 * @param bclen
+	 * @return
+	 */
+	public static int getNumPartitions( long rlen, long clen, PDataPartitionFormat dpf, int brlen, int bclen )
+	{
+		switch( dpf ) {
+			case ROW_WISE:          return (int) rlen;
+			case ROW_BLOCK_WISE:    return (int) Math.ceil((double)rlen/brlen);
+			case COLUMN_WISE:       return (int) clen;
+			case COLUMN_BLOCK_WISE: return (int) Math.ceil((double)clen/bclen);
+			default:                return -1;
+		}
+	}
+
+	/**
+	 * Obtains the 0-based partition index for a given (1-based) index range.
+	 *
+	 * @param pred
+	 * @return
+	 */
+	public int getPartitionIndex( IndexRange pred )
+	{
+		switch( _format ) {
+			case ROW_WISE:          return (int)(pred.rowStart-1);
+			case ROW_BLOCK_WISE:    return (int)((pred.rowStart-1)/_brlen);
+			case COLUMN_WISE:       return (int)(pred.colStart-1);
+			case COLUMN_BLOCK_WISE: return (int)((pred.colStart-1)/_bclen);
+			default:                return -1;
+		}
+	}
+
+	public String getFileName() {
+		return _fname;
+	}
+
+	public int getNumPartitions() {
+		return _offsets.length;
+	}
+
+	/**
+	 * Reads the partition of the given partition index. This method is thread-safe
+	 * and can be used by concurrent parfor workers.
+	 *
+	 * @param pix 0-based partition index
+	 * @return
+	 * @throws IOException
+	 */
+	public MatrixBlock readPartition( int pix )
+		throws IOException
+	{
+		if( pix < 0 || pix >= _offsets.length )
+			throw new IOException("Partition index "+pix+" out of range [0,"+_offsets.length+").");
+
+		//lazy open of partition file
+		open();
+
+		//read serialized partition
+		byte[] buff = new byte[_lengths[pix]];
+		if( _map != null ) {
+			ByteBuffer tmp = _map.duplicate(); //independent position
+			tmp.position((int)_offsets[pix]);
+			tmp.get(buff);
+		}
+		else {
+			ByteBuffer tmp = ByteBuffer.wrap(buff);
+			long off = _offsets[pix];
+			while( tmp.hasRemaining() ) {
+				int len = _channel.read(tmp, off + tmp.position());
+				if( len < 0 )
+					throw new IOException("Unexpected end of partition file: "+_fname);
+			}
+		}
+
+		//deserialize partition
+		MatrixBlock ret = new MatrixBlock();
+		ret.readFields(new CacheDataInput(buff));
+		return ret;
+	}
+
+	/**
+	 * Closes all open file handles and deletes the partition file.
+	 */
+	public synchronized void cleanup()
+	{
+		_map = null;
+		IOUtilFunctions.closeSilently(_channel);
+		IOUtilFunctions.closeSilently(_file);
+		_channel = null;
+		_file = null;
+		LocalFileUtils.deleteFileIfExists(_fname);
+	}
+
+	/**
+	 *
+	 * @throws IOException
+	 */
+	private synchronized void open()
+		throws IOException
+	{
+		if( _channel != null )
+			return;
+
+		_file = new RandomAccessFile(_fname, "r");
+		_channel = _file.getChannel();
+		long size = _channel.size();
+		if( size <= Integer.MAX_VALUE )
+			_map = _channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+	}
+
+	/**
+	 * Obtains the index range of a given partition as 0-based, inclusive
+	 * (rl, ru, cl, cu) bounds.
+	 *
+	 * @param in
+	 * @param pix
+	 * @return
+	 */
+	private int[] getPartitionBounds( MatrixBlock in, int pix )
+	{
+		int rlen = in.getNumRows();
+		int clen = in.getNumColumns();
+		switch( _format ) {
+			case ROW_WISE:          return new int[]{pix, pix, 0, clen-1};
+			case ROW_BLOCK_WISE:    return new int[]{pix*_brlen, Math.min((pix+1)*_brlen, rlen)-1, 0, clen-1};
+			case COLUMN_WISE:       return new int[]{0, rlen-1, pix, pix};
+			case COLUMN_BLOCK_WISE: return new int[]{0, rlen-1, pix*_bclen, Math.min((pix+1)*_bclen, clen)-1};
+			default:                return null;
+		}
+	}
+
+	/**
+	 * Task for slicing, serializing, and writing a range of partitions.
+	 */
+	private static class PartitionWriteTask implements Callable<Object>
+	{
+		private final IndexedPartitionStore _store;
+		private final MatrixBlock _in;
+		private final FileChannel _channel;
+		private final AtomicLong _pos;
+		private final int _pl;
+		private final int _pu;
+
+		protected PartitionWriteTask( IndexedPartitionStore store, MatrixBlock in, FileChannel channel, AtomicLong pos, int pl, int pu ) {
+			_store = store;
+			_in = in;
+			_channel = channel;
+			_pos = pos;
+			_pl = pl;
+			_pu = pu;
+		}
+
+		@Override
+		public Object call()
+			throws Exception
+		{
+			MatrixBlock tmp = new MatrixBlock();
+			for( int pix=_pl; pix<_pu; pix++ )
+			{
+				//slice partition (reuse output block)
+				int[] ix = _store.getPartitionBounds(_in, pix);
+				_in.sliceOperations(ix[0], ix[1], ix[2], ix[3], tmp);
+
+				//serialize partition into byte buffer
+				int len = (int) tmp.getExactSizeOnDisk();
+				byte[] buff = new byte[len];
+				tmp.write(new CacheDataOutput(buff));
+
+				//positional write at reserved file offset
+				long off = _pos.getAndAdd(len);
+				ByteBuffer bbuff = ByteBuffer.wrap(buff);
+				while( bbuff.hasRemaining() )
+					_channel.write(bbuff, off + bbuff.position());
+
+				//maintain offset index (disjoint entries per task)
+				_store._offsets[pix] = off;
+				_store._lengths[pix] = len;
+			}
+			return null;
+		}
+	}
+}
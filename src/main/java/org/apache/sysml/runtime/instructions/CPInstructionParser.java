@@ -43,6 +43,7 @@ import org.apache.sysml.runtime.instructions.cp.DataGenCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.DataPartitionCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.FileCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.FunctionCallCPInstruction;
+import org.apache.sysml.runtime.instructions.cp.FusedCellwiseCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.IndexingCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.MMChainCPInstruction;
 import org.apache.sysml.runtime.instructions.cp.MMTSJCPInstruction;
@@ -75,6 +76,7 @@ public class CPInstructionParser extends InstructionParser
 
 		String2CPInstructionType.put( "ba+*"   	, CPINSTRUCTION_TYPE.AggregateBinary);
 		String2CPInstructionType.put( "tak+*"   	, CPINSTRUCTION_TYPE.AggregateTernary);
+		String2CPInstructionType.put( "fcell"   	, CPINSTRUCTION_TYPE.FusedCellwise);
 		
 		String2CPInstructionType.put( "uak+"   	, CPINSTRUCTION_TYPE.AggregateUnary);
 		String2CPInstructionType.put( "uark+"   , CPINSTRUCTION_TYPE.AggregateUnary);
@@ -220,6 +222,9 @@ public class CPInstructionParser extends InstructionParser
 		String2CPInstructionType.put( "col2im"      , CPINSTRUCTION_TYPE.Convolution);
 		String2CPInstructionType.put( "maxpooling"      , CPINSTRUCTION_TYPE.Convolution);
 		String2CPInstructionType.put( "maxpooling_backward"      , CPINSTRUCTION_TYPE.Convolution);
+		String2CPInstructionType.put( "conv2d"      , CPINSTRUCTION_TYPE.Convolution);
+		String2CPInstructionType.put( "conv2d_backward_filter"      , CPINSTRUCTION_TYPE.Convolution);
+		String2CPInstructionType.put( "conv2d_backward_data"      , CPINSTRUCTION_TYPE.Convolution);
 
 		// Quaternary instruction opcodes
 		String2CPInstructionType.put( "wsloss"  , CPINSTRUCTION_TYPE.Quaternary);
@@ -302,6 +307,9 @@ public class CPInstructionParser extends InstructionParser
 	
 			case AggregateTernary:
 				return AggregateTernaryCPInstruction.parseInstruction(str);
+			
+			case FusedCellwise:
+				return FusedCellwiseCPInstruction.parseInstruction(str);
 				
 			case ArithmeticBinary:
 				return ArithmeticBinaryCPInstruction.parseInstruction(str);
@@ -52,6 +52,7 @@ import org.apache.sysml.runtime.instructions.spark.CovarianceSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.CpmmSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.CumulativeAggregateSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.CumulativeOffsetSPInstruction;
+import org.apache.sysml.runtime.instructions.spark.GridmmSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.IndexingSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.MapmmChainSPInstruction;
 import org.apache.sysml.runtime.instructions.spark.MapmmSPInstruction;
@@ -120,6 +121,7 @@ public class SPInstructionParser extends InstructionParser
 		String2SPInstructionType.put( "pmm"        , SPINSTRUCTION_TYPE.PMM);
 		String2SPInstructionType.put( "zipmm"      , SPINSTRUCTION_TYPE.ZIPMM);
 		String2SPInstructionType.put( "pmapmm"     , SPINSTRUCTION_TYPE.PMAPMM);
+		String2SPInstructionType.put( "gridmm"     , SPINSTRUCTION_TYPE.GRIDMM);
 		
 		
 		String2SPInstructionType.put( "uaggouterchain", SPINSTRUCTION_TYPE.UaggOuterChain);
@@ -308,6 +310,8 @@ public class SPInstructionParser extends InstructionParser
 				return ZipmmSPInstruction.parseInstruction(str);
 			case PMAPMM:
 				return PMapmmSPInstruction.parseInstruction(str);
+			case GRIDMM:
+				return GridmmSPInstruction.parseInstruction(str);
 				
 				
 			case UaggOuterChain:
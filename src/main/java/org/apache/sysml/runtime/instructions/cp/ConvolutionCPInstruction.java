@@ -116,9 +116,12 @@ public class ConvolutionCPInstruction extends UnaryCPInstruction {
 					padding, input_shape, filter_shape, k);
 		} 
 		else if (opcode.equalsIgnoreCase("pooling_backward_reshape")
-				|| opcode.equalsIgnoreCase("maxpooling_backward")) {
+				|| opcode.equalsIgnoreCase("maxpooling_backward")
+				|| opcode.equalsIgnoreCase("conv2d")
+				|| opcode.equalsIgnoreCase("conv2d_backward_filter")
+				|| opcode.equalsIgnoreCase("conv2d_backward_data")) {
 			InstructionUtils.checkNumFields(parts, 16);
-			// dout, stride1, stride2, padding1, padding2
+			// dout (or filter), stride1, stride2, padding1, padding2
 			// input_shape1, input_shape2, input_shape3, input_shape4,
 			// filter_shape1, filter_shape2, filter_shape3, filter_shape4, k
 			in.split(parts[1]);
@@ -232,7 +235,35 @@ public class ConvolutionCPInstruction extends UnaryCPInstruction {
 			// without somewhat expensive HashMap checks
 			outputBlock = getDenseOutputBlock(ec, N, C*H*W, false);
 			params.setReuseNonZeroedOutput(_reuseNonZeroedOutput);
-			LibMatrixDNN.maxpooling_backward(matBlock, dout, outputBlock, params); // No efficient nnz computation, so setting it to -1
+			LibMatrixDNN.maxpooling_backward(matBlock, dout, outputBlock, params);
+			outputBlock.setNonZeros(params.outputNNZ.get());
+			ec.releaseMatrixInput(_in2.getName());
+		}
+		else if (instOpcode.equalsIgnoreCase("conv2d")) {
+			MatrixBlock filter = ec.getMatrixInput(_in2.getName());
+			checkHeightWidth(ec, params);
+			// needs to be zeroed-out (direct conv2d w/o im2col)
+			outputBlock = getDenseOutputBlock(ec, N, K*P*Q, false);
+			LibMatrixDNN.conv2d(matBlock, filter, outputBlock, params);
+			outputBlock.setNonZeros(params.outputNNZ.get());
+			ec.releaseMatrixInput(_in2.getName());
+		}
+		else if (instOpcode.equalsIgnoreCase("conv2d_backward_filter")) {
+			MatrixBlock dout = ec.getMatrixInput(_in2.getName());
+			checkHeightWidth(ec, params);
+			// needs to be zeroed-out (direct conv2d_backward_filter w/o im2col)
+			outputBlock = getDenseOutputBlock(ec, K, C*R*S, false);
+			LibMatrixDNN.conv2d_backward_filter(matBlock, dout, outputBlock, params);
+			outputBlock.setNonZeros(params.outputNNZ.get());
+			ec.releaseMatrixInput(_in2.getName());
+		}
+		else if (instOpcode.equalsIgnoreCase("conv2d_backward_data")) {
+			MatrixBlock dout = ec.getMatrixInput(_in2.getName());
+			checkHeightWidth(ec, params);
+			// needs to be zeroed-out (direct conv2d_backward_data w/o col2im)
+			outputBlock = getDenseOutputBlock(ec, N, C*H*W, false);
+			LibMatrixDNN.conv2d_backward_data(matBlock, dout, outputBlock, params);
+			outputBlock.setNonZeros(params.outputNNZ.get());
 			ec.releaseMatrixInput(_in2.getName());
 		}
 		else {
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.instructions.cp;
+
+import org.apache.sysml.lops.FusedCellwise;
+import org.apache.sysml.lops.FusedCellwise.AggType;
+import org.apache.sysml.parser.Expression.DataType;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
+import org.apache.sysml.runtime.instructions.InstructionUtils;
+import org.apache.sysml.runtime.matrix.data.LibMatrixFusedCellwise;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+
+/**
+ * CP instruction for fused cell-wise operations with optional sum, rowSums, or
+ * colSums aggregation over an arbitrary number of matrix and scalar inputs.
+ *
+ */
+public class FusedCellwiseCPInstruction extends CPInstruction
+{
+	private AggType _aggtype = null;
+	private String _program = null;
+	private int _numThreads = -1;
+	private CPOperand[] _inputs = null;
+	private CPOperand _output = null;
+
+	public FusedCellwiseCPInstruction(AggType aggtype, String program, int k, CPOperand[] inputs, CPOperand out, String opcode, String istr)
+	{
+		super(opcode, istr);
+		_cptype = CPINSTRUCTION_TYPE.FusedCellwise;
+		_aggtype = aggtype;
+		_program = program;
+		_numThreads = k;
+		_inputs = inputs;
+		_output = out;
+	}
+
+	public CPOperand[] getInputs() {
+		return _inputs;
+	}
+
+	public CPOperand getOutput() {
+		return _output;
+	}
+
+	/**
+	 * Obtains the number of fused cell-wise operations (without inputs).
+	 *
+	 * @return
+	 */
+	public int getNumOperations() {
+		int ret = 0;
+		for( String tok : _program.split(FusedCellwise.PROGRAM_DELIM) )
+			ret += tok.startsWith(FusedCellwise.INPUT_PREFIX) ? 0 : 1;
+		return ret;
+	}
+
+	public AggType getAggType() {
+		return _aggtype;
+	}
+
+	/**
+	 *
+	 * @param str
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static FusedCellwiseCPInstruction parseInstruction( String str )
+		throws DMLRuntimeException
+	{
+		String[] parts = InstructionUtils.getInstructionPartsWithValueType(str);
+		String opcode = parts[0];
+
+		if( !opcode.equalsIgnoreCase(FusedCellwise.OPCODE) )
+			throw new DMLRuntimeException("FusedCellwiseCPInstruction.parseInstruction():: Unknown opcode " + opcode);
+		if( parts.length < 6 )
+			throw new DMLRuntimeException("Invalid number of operands in instruction: " + str);
+
+		AggType aggtype = AggType.valueOf(parts[1]);
+		String program = parts[2];
+		int k = Integer.parseInt(parts[3]);
+		CPOperand[] inputs = new CPOperand[parts.length-5];
+		for( int i=0; i<inputs.length; i++ )
+			inputs[i] = new CPOperand(parts[4+i]);
+		CPOperand out = new CPOperand(parts[parts.length-1]);
+
+		return new FusedCellwiseCPInstruction(aggtype, program, k, inputs, out, opcode, str);
+	}
+
+	@Override
+	public void processInstruction(ExecutionContext ec)
+		throws DMLRuntimeException
+	{
+		//get matrix and scalar inputs
+		MatrixBlock[] inputs = new MatrixBlock[_inputs.length];
+		double[] scalars = new double[_inputs.length];
+		for( int i=0; i<_inputs.length; i++ ) {
+			CPOperand in = _inputs[i];
+			if( in.getDataType() == DataType.MATRIX )
+				inputs[i] = ec.getMatrixInput(in.getName());
+			else
+				scalars[i] = ec.getScalarInput(in.getName(), in.getValueType(), in.isLiteral()).getDoubleValue();
+		}
+
+		//core fused execution
+		MatrixBlock ret = LibMatrixFusedCellwise.execute(inputs, scalars, _program, _aggtype, _numThreads);
+
+		//release inputs and set output
+		for( CPOperand in : _inputs )
+			if( in.getDataType() == DataType.MATRIX )
+				ec.releaseMatrixInput(in.getName());
+
+		if( _output.getDataType() == DataType.SCALAR )
+			ec.setScalarOutput(_output.getName(), new DoubleObject(ret.quickGetValue(0, 0)));
+		else
+			ec.setMatrixOutput(_output.getName(), ret);
+	}
+}
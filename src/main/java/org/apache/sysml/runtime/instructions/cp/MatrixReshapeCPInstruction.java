@@ -19,6 +19,7 @@
 
 package org.apache.sysml.runtime.instructions.cp;
 
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.parser.Expression.ValueType;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
@@ -85,7 +86,8 @@ public class MatrixReshapeCPInstruction extends UnaryCPInstruction
 
 		//execute operations 
 		MatrixBlock out = new MatrixBlock();
-		out = LibMatrixReorg.reshape(in, out, rows, cols, byRow.getBooleanValue());
+		int k = OptimizerUtils.getConstrainedNumThreads(-1);
+		out = LibMatrixReorg.reshape(in, out, rows, cols, byRow.getBooleanValue(), k);
 		
 		//set output and release inputs
 		ec.setMatrixOutput(output.getName(), out);
@@ -21,6 +21,7 @@ package org.apache.sysml.runtime.instructions.cp;
 
 import java.util.HashMap;
 
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.lops.Lop;
 import org.apache.sysml.parser.ParameterizedBuiltinFunctionExpression;
 import org.apache.sysml.parser.Statement;
@@ -213,11 +214,12 @@ public class ParameterizedBuiltinCPInstruction extends ComputationCPInstruction
 			
 			// compute the result
 			String margin = params.get("margin");
+			int k = OptimizerUtils.getConstrainedNumThreads(-1);
 			MatrixBlock soresBlock = null;
 			if( margin.equals("rows") )
-				soresBlock = target.removeEmptyOperations(new MatrixBlock(), true, select);
+				soresBlock = target.removeEmptyOperations(new MatrixBlock(), true, select, k);
 			else if( margin.equals("cols") ) 
-				soresBlock = target.removeEmptyOperations(new MatrixBlock(), false, select);
+				soresBlock = target.removeEmptyOperations(new MatrixBlock(), false, select, k);
 			else
 				throw new DMLRuntimeException("Unspupported margin identifier '"+margin+"'.");
 			
@@ -234,7 +236,8 @@ public class ParameterizedBuiltinCPInstruction extends ComputationCPInstruction
 			// compute the result
 			double pattern = Double.parseDouble( params.get("pattern") );
 			double replacement = Double.parseDouble( params.get("replacement") );
-			MatrixBlock ret = (MatrixBlock) target.replaceOperations(new MatrixBlock(), pattern, replacement);
+			int k = OptimizerUtils.getConstrainedNumThreads(-1);
+			MatrixBlock ret = (MatrixBlock) target.replaceOperations(new MatrixBlock(), pattern, replacement, k);
 			
 			//release locks
 			ec.setMatrixOutput(output.getName(), ret);
@@ -249,7 +252,8 @@ public class ParameterizedBuiltinCPInstruction extends ComputationCPInstruction
 			boolean dirVal = params.get("dir").equals("rows");
 			boolean cast = Boolean.parseBoolean(params.get("cast"));
 			boolean ignore = Boolean.parseBoolean(params.get("ignore"));
-			MatrixBlock ret = (MatrixBlock) target.rexpandOperations(new MatrixBlock(), maxVal, dirVal, cast, ignore);
+			int k = OptimizerUtils.getConstrainedNumThreads(-1);
+			MatrixBlock ret = (MatrixBlock) target.rexpandOperations(new MatrixBlock(), maxVal, dirVal, cast, ignore, k);
 			
 			//release locks
 			ec.setMatrixOutput(output.getName(), ret);
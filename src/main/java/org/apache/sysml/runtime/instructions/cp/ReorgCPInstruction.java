@@ -98,13 +98,14 @@ public class ReorgCPInstruction extends UnaryCPInstruction
 			return new ReorgCPInstruction(new ReorgOperator(DiagIndex.getDiagIndexFnObject()), in, out, opcode, str);
 		} 
 		else if ( opcode.equalsIgnoreCase("rsort") ) {
-			InstructionUtils.checkNumFields(parts, 5);
+			InstructionUtils.checkNumFields(parts, 5, 6);
 			in.split(parts[1]);
 			out.split(parts[5]);
 			CPOperand col = new CPOperand(parts[2]);
 			CPOperand desc = new CPOperand(parts[3]);
 			CPOperand ixret = new CPOperand(parts[4]);
-			return new ReorgCPInstruction(new ReorgOperator(SortIndex.getSortIndexFnObject(1,false,false)), 
+			int k = (parts.length > 6) ? Integer.parseInt(parts[6]) : 1;
+			return new ReorgCPInstruction(new ReorgOperator(SortIndex.getSortIndexFnObject(1,false,false), k), 
 					                      in, col, desc, ixret, out, opcode, str);
 		}
 		else {
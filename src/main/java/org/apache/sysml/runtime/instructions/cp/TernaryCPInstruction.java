@@ -19,6 +19,7 @@
 
 package org.apache.sysml.runtime.instructions.cp;
 
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.lops.Ternary;
 import org.apache.sysml.parser.Expression.DataType;
 import org.apache.sysml.parser.Expression.ValueType;
@@ -26,11 +27,10 @@ import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
 import org.apache.sysml.runtime.instructions.Instruction;
 import org.apache.sysml.runtime.instructions.InstructionUtils;
-import org.apache.sysml.runtime.matrix.data.CTableMap;
+import org.apache.sysml.runtime.matrix.data.LibMatrixCTable;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.operators.Operator;
 import org.apache.sysml.runtime.matrix.operators.SimpleOperator;
-import org.apache.sysml.runtime.util.DataConverter;
 
 
 public class TernaryCPInstruction extends ComputationCPInstruction
@@ -98,62 +98,53 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 		throws DMLRuntimeException {
 		
 		MatrixBlock matBlock1 = ec.getMatrixInput(input1.getName());
-		MatrixBlock matBlock2=null, wtBlock=null;
+		MatrixBlock matBlock2=null, wtBlock=null, resultBlock=null;
 		double cst1, cst2;
 		
-		CTableMap resultMap = new CTableMap();
-		MatrixBlock resultBlock = null;
 		Ternary.OperationTypes ctableOp = findCtableOperation();
 		ctableOp = _isExpand ? Ternary.OperationTypes.CTABLE_EXPAND_SCALAR_WEIGHT : ctableOp;
 		
 		long outputDim1 = (_dim1Literal ? (long) Double.parseDouble(_outDim1) : (ec.getScalarInput(_outDim1, ValueType.DOUBLE, false)).getLongValue());
 		long outputDim2 = (_dim2Literal ? (long) Double.parseDouble(_outDim2) : (ec.getScalarInput(_outDim2, ValueType.DOUBLE, false)).getLongValue());
 		
-		boolean outputDimsKnown = (outputDim1 != -1 && outputDim2 != -1);
-		if ( outputDimsKnown ) {
-			int inputRows = matBlock1.getNumRows();
-			int inputCols = matBlock1.getNumColumns();
-			boolean sparse = MatrixBlock.evalSparseFormatInMemory(outputDim1, outputDim2, inputRows*inputCols);
-			//only create result block if dense; it is important not to aggregate on sparse result
-			//blocks because it would implicitly turn the O(N) algorithm into O(N log N). 
-			if( !sparse )
-				resultBlock = new MatrixBlock((int)outputDim1, (int)outputDim2, false); 
-		}
-		if( _isExpand ){
-			resultBlock = new MatrixBlock( matBlock1.getNumRows(), Integer.MAX_VALUE, true );
-		}
+		//note: the ctable library decides on dense or hash-based aggregation (it is important
+		//not to aggregate on sparse result blocks because it would implicitly turn the O(N) 
+		//algorithm into O(N log N)), and respects potentially specified output dimensions
+		int k = OptimizerUtils.getConstrainedNumThreads(-1);
 		
 		switch(ctableOp) {
 		case CTABLE_TRANSFORM: //(VECTOR)
 			// F=ctable(A,B,W)
 			matBlock2 = ec.getMatrixInput(input2.getName());
 			wtBlock = ec.getMatrixInput(input3.getName());
-			matBlock1.ternaryOperations((SimpleOperator)_optr, matBlock2, wtBlock, resultMap, resultBlock);
+			resultBlock = LibMatrixCTable.ctable(matBlock1, matBlock2, 0, wtBlock, 0, false, outputDim1, outputDim2, k);
 			break;
 		case CTABLE_TRANSFORM_SCALAR_WEIGHT: //(VECTOR/MATRIX)
 			// F = ctable(A,B) or F = ctable(A,B,1)
 			matBlock2 = ec.getMatrixInput(input2.getName());
 			cst1 = ec.getScalarInput(input3.getName(), input3.getValueType(), input3.isLiteral()).getDoubleValue();
-			matBlock1.ternaryOperations((SimpleOperator)_optr, matBlock2, cst1, _ignoreZeros, resultMap, resultBlock);
+			resultBlock = LibMatrixCTable.ctable(matBlock1, matBlock2, 0, null, cst1, _ignoreZeros, outputDim1, outputDim2, k);
 			break;
 		case CTABLE_EXPAND_SCALAR_WEIGHT: //(VECTOR)
 			// F = ctable(seq,A) or F = ctable(seq,B,1)
 			matBlock2 = ec.getMatrixInput(input2.getName());
 			cst1 = ec.getScalarInput(input3.getName(), input3.getValueType(), input3.isLiteral()).getDoubleValue();
 			// only resultBlock.rlen known, resultBlock.clen set in operation
+			resultBlock = new MatrixBlock( matBlock1.getNumRows(), Integer.MAX_VALUE, true );
 			matBlock1.ternaryOperations((SimpleOperator)_optr, matBlock2, cst1, resultBlock);
+			resultBlock.examSparsity();
 			break;
 		case CTABLE_TRANSFORM_HISTOGRAM: //(VECTOR)
 			// F=ctable(A,1) or F = ctable(A,1,1)
 			cst1 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral()).getDoubleValue();
 			cst2 = ec.getScalarInput(input3.getName(), input3.getValueType(), input3.isLiteral()).getDoubleValue();
-			matBlock1.ternaryOperations((SimpleOperator)_optr, cst1, cst2, resultMap, resultBlock);
+			resultBlock = LibMatrixCTable.ctable(matBlock1, null, cst1, null, cst2, false, outputDim1, outputDim2, k);
 			break;
 		case CTABLE_TRANSFORM_WEIGHTED_HISTOGRAM: //(VECTOR)
 			// F=ctable(A,1,W)
 			wtBlock = ec.getMatrixInput(input3.getName());
 			cst1 = ec.getScalarInput(input2.getName(), input2.getValueType(), input2.isLiteral()).getDoubleValue();
-			matBlock1.ternaryOperations((SimpleOperator)_optr, cst1, wtBlock, resultMap, resultBlock);
+			resultBlock = LibMatrixCTable.ctable(matBlock1, null, cst1, wtBlock, 0, false, outputDim1, outputDim2, k);
 			break;
 		
 		default:
@@ -167,17 +158,6 @@ public class TernaryCPInstruction extends ComputationCPInstruction
 		if(input3.getDataType() == DataType.MATRIX)
 			ec.releaseMatrixInput(input3.getName());
 		
-		if ( resultBlock == null ){
-			//we need to respect potentially specified output dimensions here, because we might have 
-			//decided for hash-aggregation just to prevent inefficiency in case of sparse outputs.  
-			if( outputDimsKnown )
-				resultBlock = DataConverter.convertToMatrixBlock( resultMap, (int)outputDim1, (int)outputDim2 );
-			else
-				resultBlock = DataConverter.convertToMatrixBlock( resultMap );
-		}
-		else
-			resultBlock.examSparsity();
-		
 		ec.setMatrixOutput(output.getName(), resultBlock);
 	}	
 }
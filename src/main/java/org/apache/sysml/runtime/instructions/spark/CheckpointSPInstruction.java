@@ -22,6 +22,7 @@ package org.apache.sysml.runtime.instructions.spark;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.storage.StorageLevel;
 import org.apache.sysml.hops.OptimizerUtils;
+import org.apache.sysml.lops.Checkpoint;
 import org.apache.sysml.parser.Expression.DataType;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.caching.CacheableData;
@@ -31,10 +32,12 @@ import org.apache.sysml.runtime.controlprogram.parfor.stat.InfrastructureAnalyze
 import org.apache.sysml.runtime.instructions.InstructionUtils;
 import org.apache.sysml.runtime.instructions.cp.BooleanObject;
 import org.apache.sysml.runtime.instructions.cp.CPOperand;
+import org.apache.sysml.runtime.instructions.spark.data.BlockPartitioner;
 import org.apache.sysml.runtime.instructions.spark.data.RDDObject;
 import org.apache.sysml.runtime.instructions.spark.functions.CopyBlockFunction;
 import org.apache.sysml.runtime.instructions.spark.functions.CopyFrameBlockFunction;
 import org.apache.sysml.runtime.instructions.spark.functions.CreateSparseBlockFunction;
+import org.apache.sysml.runtime.instructions.spark.utils.SparkUtils;
 import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.InputInfo;
 import org.apache.sysml.runtime.matrix.data.FrameBlock;
@@ -42,6 +45,7 @@ import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
 import org.apache.sysml.runtime.matrix.data.SparseBlock;
 import org.apache.sysml.runtime.matrix.operators.Operator;
+import org.apache.sysml.utils.Statistics;
 
 
 public class CheckpointSPInstruction extends UnarySPInstruction
@@ -49,25 +53,34 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 	//default storage level
 	private StorageLevel _level = null;
 	
+	//block partitioning of matrices with co-partitioned consumers
+	private boolean _partition = false;
+	
 	public CheckpointSPInstruction(Operator op, CPOperand in, CPOperand out, StorageLevel level, String opcode, String istr) {
+		this(op, in, out, level, false, opcode, istr);
+	}
+	
+	public CheckpointSPInstruction(Operator op, CPOperand in, CPOperand out, StorageLevel level, boolean partition, String opcode, String istr) {
 		super(op, in, out, opcode, istr);
 		_sptype = SPINSTRUCTION_TYPE.Checkpoint;
 		
 		_level = level;
+		_partition = partition;
 	}
 	
 	public static CheckpointSPInstruction parseInstruction ( String str ) 
 		throws DMLRuntimeException 
 	{
 		String[] parts = InstructionUtils.getInstructionPartsWithValueType(str);
-		InstructionUtils.checkNumFields(parts, 3);
+		InstructionUtils.checkNumFields(parts, 3, 4);
 		
 		String opcode = parts[0];
 		CPOperand in = new CPOperand(parts[1]);
 		CPOperand out = new CPOperand(parts[2]);
 		StorageLevel level = StorageLevel.fromString(parts[3]);
+		boolean partition = (parts.length > 4) ? Boolean.parseBoolean(parts[4]) : false;
 
-		return new CheckpointSPInstruction(null, in, out, level, opcode, str);
+		return new CheckpointSPInstruction(null, in, out, level, partition, opcode, str);
 	}
 	
 	@Override
@@ -98,15 +111,36 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 		// Note that persist is an transformation which will be triggered on-demand with the next rdd operations
 		// This prevents unnecessary overhead if the dataset is only consumed by cp operations.
 
+		//determine storage level at runtime based on the current data memory budget
+		StorageLevel level = (input1.getDataType() == DataType.MATRIX) ?
+				getAdaptiveStorageLevel(sec, mcIn, _level) : _level;
+		
+		//pass-through if already persisted in the requested storage level, or in its
+		//serialized counterpart (to prevent repeated upgrade and downgrade in loops)
+		boolean hit = in.getStorageLevel().equals( level ) 
+				|| in.getStorageLevel().equals( getSerializedStorageLevel(level) );
+		boolean downgrade = !hit && isDowngrade(in.getStorageLevel(), level);
+		Statistics.incSparkCheckpointCount(hit, !level.deserialized(), downgrade);
+		
 		JavaPairRDD<?,?> out = null;
-		if( !in.getStorageLevel().equals( _level ) ) 
+		if( !hit ) 
 		{
 			//investigate issue of unnecessarily large number of partitions
 			int numPartitions = getNumCoalescePartitions(mcIn, in);
 			boolean coalesce = ( numPartitions < in.partitions().size() );
 			
 			//checkpoint pre-processing rdd operations
-			if( coalesce ) {
+			if( _partition && input1.getDataType() == DataType.MATRIX 
+				&& mcIn.dimsKnown() && !SparkUtils.isPartitioned(in) ) 
+			{
+				//block partitioning (with reduced number of partitions if required), which 
+				//makes subsequent joins with this input or co-partitioned intermediates 
+				//(e.g., element-wise updates in loops) narrow transformations w/o shuffle
+				int numParts = coalesce ? numPartitions : in.partitions().size();
+				out = ((JavaPairRDD<MatrixIndexes,MatrixBlock>)in)
+					.partitionBy(new BlockPartitioner(mcIn, numParts));
+			}
+			else if( coalesce ) {
 				//merge partitions without shuffle if too many partitions
 				out = in.coalesce( numPartitions );
 			}
@@ -122,7 +156,8 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 			}
 		
 			//convert mcsr into memory-efficient csr if potentially sparse
-			if( input1.getDataType()==DataType.MATRIX 
+			//(not required for serialized storage, which is always compact)
+			if( input1.getDataType()==DataType.MATRIX && level.deserialized() 
 				&& OptimizerUtils.checkSparseBlockCSRConversion(mcIn) ) 
 			{				
 				out = ((JavaPairRDD<MatrixIndexes,MatrixBlock>)out)
@@ -130,7 +165,7 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 			}
 			
 			//actual checkpoint into given storage level
-			out = out.persist( _level );
+			out = out.persist( level );
 		}
 		else {
 			out = in; //pass-through
@@ -152,10 +187,80 @@ public class CheckpointSPInstruction extends UnarySPInstruction
 			outro.setCheckpointRDD(true);         //mark as checkpointed
 			outro.addLineageChild(inro);          //keep lineage to prevent cycles on cleanup
 			cd.setRDDHandle(outro);
+			
+			//downgrade of deserialized input: the serialized rdd is materialized lazily
+			//from the cached input by its first consumer, and only afterwards the memory 
+			//of the deserialized input is released (if not shared with other rdds) 
+			if( downgrade && isUnsharedLineageInput(inro) )
+				sec.addPendingDowngrade(outro, inro);
 		}
 		sec.setVariable( output.getName(), cd);
 	}
 	
+	/**
+	 * Obtains the storage level for checkpointing a matrix of the given characteristics,
+	 * based on the compiled storage level, the estimated in-memory size, and the remaining
+	 * data memory budget (i.e., the current aggregate budget minus the measured size of 
+	 * all cached rdds). Sparse matrices that exceed the remaining budget are persisted in 
+	 * serialized form, which reduces their size and garbage collection overhead.
+	 * 
+	 * @param sec
+	 * @param mc
+	 * @param level
+	 * @return
+	 */
+	public static StorageLevel getAdaptiveStorageLevel(SparkExecutionContext sec, MatrixCharacteristics mc, StorageLevel level)
+	{
+		//keep compiled storage level if already serialized or unknown size
+		if( !Checkpoint.CHECKPOINT_ADAPTIVE_STORAGE || !level.useMemory() 
+			|| !level.deserialized() || !mc.dimsKnown(true) )
+			return level;
+		
+		boolean sparse = MatrixBlock.evalSparseFormatInMemory(mc.getRows(), mc.getCols(), mc.getNonZeros());
+		double size = OptimizerUtils.estimatePartitionedSizeExactSparsity(mc);
+		double budget = SparkExecutionContext.getDataMemoryBudget(true, true) //refresh num executors
+				- sec.getCachedRDDMemorySize();
+		
+		return (sparse && size > budget) ? getSerializedStorageLevel(level) : level;
+	}
+	
+	/**
+	 * Indicates if checkpointing an rdd that is currently persisted in the given
+	 * storage level into the new storage level downgrades a deserialized in-memory
+	 * rdd to its serialized representation.
+	 * 
+	 * @param current
+	 * @param level
+	 * @return
+	 */
+	public static boolean isDowngrade(StorageLevel current, StorageLevel level) {
+		return current.useMemory() && current.deserialized() && !level.deserialized();
+	}
+	
+	/**
+	 * Indicates if the given input of an in-place checkpoint is provably unshared,
+	 * i.e., it is not referenced by any matrix/frame object and its only lineage
+	 * parent is the checkpoint rdd itself. Only such inputs can be unpersisted 
+	 * without affecting other variables or pending rdd operations.
+	 * 
+	 * @param inro
+	 * @return
+	 */
+	public static boolean isUnsharedLineageInput(RDDObject inro) {
+		return !inro.hasBackReference() && inro.getNumReferences() == 1;
+	}
+	
+	/**
+	 * Obtains the serialized counterpart of the given storage level.
+	 * 
+	 * @param level
+	 * @return
+	 */
+	public static StorageLevel getSerializedStorageLevel(StorageLevel level) {
+		return StorageLevel.apply(level.useDisk(), level.useMemory(), 
+				level.useOffHeap(), false, level.replication());
+	}
+	
 	/**
 	 * 
 	 * @param mc
@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.instructions.spark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map.Entry;
+
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+
+import scala.Tuple2;
+
+import org.apache.sysml.hops.AggBinaryOp.SparkAggType;
+import org.apache.sysml.hops.OptimizerUtils;
+import org.apache.sysml.lops.PartialAggregate.CorrectionLocationType;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
+import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
+import org.apache.sysml.runtime.functionobjects.KahanPlus;
+import org.apache.sysml.runtime.functionobjects.Multiply;
+import org.apache.sysml.runtime.functionobjects.Plus;
+import org.apache.sysml.runtime.instructions.InstructionUtils;
+import org.apache.sysml.runtime.instructions.cp.CPOperand;
+import org.apache.sysml.runtime.instructions.spark.data.CorrMatrixBlock;
+import org.apache.sysml.runtime.instructions.spark.utils.RDDAggregateUtils;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
+import org.apache.sysml.runtime.matrix.data.OperationsOnMatrixValues;
+import org.apache.sysml.runtime.matrix.mapred.IndexedMatrixValue;
+import org.apache.sysml.runtime.matrix.operators.AggregateBinaryOperator;
+import org.apache.sysml.runtime.matrix.operators.AggregateOperator;
+import org.apache.sysml.runtime.matrix.operators.Operator;
+
+/**
+ * Gridmm: grid-partitioned matrix multiplication, which generalizes cpmm and rmm. 
+ * The i/j/k block iteration space of A %*% B is partitioned into a grid of Pi x Pj x Pk 
+ * cells, where the left input is replicated Pj times, the right input is replicated 
+ * Pi times, and each cell computes and locally aggregates all its block products. 
+ * A 2D grid (Pk=1) produces final output blocks without any aggregation, while 
+ * a 3D grid (Pk>1) requires a subsequent aggregation of Pk partial results. The grid
+ * is chosen by a simple cost model over the actual input sizes and sparsity.
+ * 
+ */
+public class GridmmSPInstruction extends BinarySPInstruction 
+{
+	//forced partitioning grid [Pi, Pj, Pk] (for testing only)
+	public static int[] FORCED_GRID = null;
+	
+	private SparkAggType _aggtype;
+	
+	public GridmmSPInstruction(Operator op, CPOperand in1, CPOperand in2, CPOperand out, SparkAggType aggtype, String opcode, String istr )
+	{
+		super(op, in1, in2, out, opcode, istr);
+		_sptype = SPINSTRUCTION_TYPE.GRIDMM;
+		_aggtype = aggtype;
+	}
+
+	/**
+	 * 
+	 * @param str
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static GridmmSPInstruction parseInstruction( String str ) 
+		throws DMLRuntimeException 
+	{
+		String[] parts = InstructionUtils.getInstructionPartsWithValueType(str);
+		String opcode = parts[0];
+
+		if ( opcode.equalsIgnoreCase("gridmm")) {
+			CPOperand in1 = new CPOperand(parts[1]);
+			CPOperand in2 = new CPOperand(parts[2]);
+			CPOperand out = new CPOperand(parts[3]);
+			AggregateOperator agg = new AggregateOperator(0, Plus.getPlusFnObject());
+			AggregateBinaryOperator aggbin = new AggregateBinaryOperator(Multiply.getMultiplyFnObject(), agg);
+			SparkAggType aggtype = SparkAggType.valueOf(parts[4]);
+			
+			return new GridmmSPInstruction(aggbin, in1, in2, out, aggtype, opcode, str);
+		} 
+		else {
+			throw new DMLRuntimeException("GridmmSPInstruction.parseInstruction():: Unknown opcode " + opcode);
+		}
+	}
+	
+	@Override
+	public void processInstruction(ExecutionContext ec) 
+		throws DMLRuntimeException
+	{	
+		SparkExecutionContext sec = (SparkExecutionContext)ec;
+		
+		//get rdd inputs and characteristics
+		MatrixCharacteristics mc1 = sec.getMatrixCharacteristics( input1.getName() );
+		MatrixCharacteristics mc2 = sec.getMatrixCharacteristics( input2.getName() );
+		JavaPairRDD<MatrixIndexes,MatrixBlock> in1 = sec.getBinaryBlockRDDHandleForVariable( input1.getName() );
+		JavaPairRDD<MatrixIndexes,MatrixBlock> in2 = sec.getBinaryBlockRDDHandleForVariable( input2.getName() );
+		
+		//determine partitioning grid (Pi, Pj, Pk) from actual input characteristics
+		int[] grid = (FORCED_GRID != null) ? FORCED_GRID : 
+			getOptimalGrid(mc1, mc2, SparkExecutionContext.getDefaultParallelism(true), 
+				SparkExecutionContext.getBroadcastMemoryBudget());
+		GridPartitioning gp = new GridPartitioning(mc1, mc2, grid);
+		
+		//process core gridmm matrix multiply 
+		//step 1: replicate blocks to grid cells (left: Pj times, right: Pi times)
+		JavaPairRDD<Long, IndexedMatrixValue> tmp1 = in1.flatMapToPair(new GridReplicateFunction(gp, true));
+		JavaPairRDD<Long, IndexedMatrixValue> tmp2 = in2.flatMapToPair(new GridReplicateFunction(gp, false));
+		
+		//step 2: co-group blocks per grid cell (one partition per cell), multiply and aggregate locally
+		JavaPairRDD<MatrixIndexes,MatrixBlock> out = tmp1
+				.cogroup(tmp2, gp.getNumCells())
+				.flatMapToPair(new GridMultiplyFunction());
+		
+		//process gridmm aggregation and handle outputs				
+		if( _aggtype == SparkAggType.SINGLE_BLOCK )
+		{
+			MatrixBlock out2 = RDDAggregateUtils.sumStable(out, (int)mc1.getRows(), (int)mc2.getCols());
+			
+			//put output block into symbol table (no lineage because single block)
+			//this also includes implicit maintenance of matrix characteristics
+			sec.setMatrixOutput(output.getName(), out2);	
+		}
+		else //DEFAULT: MULTI_BLOCK
+		{
+			//aggregation of partial results only required for 3D grids
+			if( gp.getPk() > 1 )
+				out = RDDAggregateUtils.sumByKeyStable(out); 
+			
+			//put output RDD handle into symbol table
+			sec.setRDDHandleForVariable(output.getName(), out);
+			sec.addLineageRDD(output.getName(), input1.getName());
+			sec.addLineageRDD(output.getName(), input2.getName());		
+			
+			//update output statistics if not inferred
+			updateBinaryMMOutputMatrixCharacteristics(sec, true);
+		}
+	}
+	
+	/**
+	 * Determines the partitioning grid [Pi, Pj, Pk] of minimal estimated costs 
+	 * (see getGridCostEstimate) subject to the constraint that the sparsity-aware 
+	 * sizes of inputs and outputs of a single grid cell fit into the given task 
+	 * memory budget. If no grid satisfies this constraint, the grid with minimal 
+	 * memory requirements is returned.
+	 * 
+	 * @param mc1 characteristics of left input
+	 * @param mc2 characteristics of right input
+	 * @param par degree of parallelism
+	 * @param memBudget task memory budget in bytes
+	 * @return
+	 */
+	public static int[] getOptimalGrid( MatrixCharacteristics mc1, MatrixCharacteristics mc2, int par, double memBudget )
+	{
+		long nI = mc1.getNumRowBlocks();
+		long nK = mc1.getNumColBlocks();
+		long nJ = mc2.getNumColBlocks();
+		
+		//sparsity-aware size estimates of inputs and output
+		double sp1 = OptimizerUtils.getSparsity(mc1.getRows(), mc1.getCols(), mc1.getNonZeros());
+		double sp2 = OptimizerUtils.getSparsity(mc2.getRows(), mc2.getCols(), mc2.getNonZeros());
+		double spOut = OptimizerUtils.getMatMultSparsity(sp1, sp2, mc1.getRows(), mc1.getCols(), mc2.getCols(), true);
+		double size1 = OptimizerUtils.estimateSizeExactSparsity(mc1.getRows(), mc1.getCols(), sp1);
+		double size2 = OptimizerUtils.estimateSizeExactSparsity(mc2.getRows(), mc2.getCols(), sp2);
+		double sizeOut = OptimizerUtils.estimateSizeExactSparsity(mc1.getRows(), mc2.getCols(), spOut);
+		
+		int[] ret = null, retMinMem = null;
+		double minCost = Double.MAX_VALUE, minMem = Double.MAX_VALUE;
+		for( int pi : getGridCandidates(nI) )
+			for( int pj : getGridCandidates(nJ) )
+				for( int pk : getGridCandidates(nK) ) {
+					int[] grid = new int[]{pi, pj, pk};
+					double mem = size1/((long)pi*pk) + size2/((long)pk*pj) + sizeOut/((long)pi*pj);
+					double cost = getGridCostEstimate(mc1, mc2, grid, par);
+					if( mem < memBudget && cost < minCost ) {
+						ret = grid;
+						minCost = cost;
+					}
+					if( mem < minMem ) {
+						retMinMem = grid;
+						minMem = mem;
+					}
+				}
+		
+		return (ret != null) ? ret : retMinMem;
+	}
+	
+	/**
+	 * Estimates the costs of grid-partitioned matrix multiplication for the given grid,
+	 * i.e., the shuffle of replicated inputs and partial outputs (if the common dimension
+	 * is partitioned) plus io, weighted by the exploited parallelism. The costs are given
+	 * in number of cells, which makes them comparable to the cpmm and rmm cost estimates.
+	 * 
+	 * @param mc1 characteristics of left input
+	 * @param mc2 characteristics of right input
+	 * @param grid partitioning grid [Pi, Pj, Pk]
+	 * @param par degree of parallelism
+	 * @return
+	 */
+	public static double getGridCostEstimate( MatrixCharacteristics mc1, MatrixCharacteristics mc2, int[] grid, int par )
+	{
+		double size1 = (double)mc1.getRows() * mc1.getCols();
+		double size2 = (double)mc2.getRows() * mc2.getCols();
+		double sizeOut = (double)mc1.getRows() * mc2.getCols();
+		
+		double shuffle = size1 * grid[1] + size2 * grid[0] 
+				+ ((grid[2] > 1) ? 2 * grid[2] * sizeOut : 0);
+		double io = size1 + size2 + sizeOut;
+		double npar = Math.min( (double)grid[0] * grid[1] * grid[2], //max used tasks 
+				                Math.max(par, 1));                   //available parallelism
+		
+		return (shuffle + io) / npar;
+	}
+	
+	/**
+	 * Obtains the candidate grid sizes for a dimension of n blocks, 
+	 * i.e., all powers of two less than n and n itself.
+	 * 
+	 * @param n
+	 * @return
+	 */
+	private static ArrayList<Integer> getGridCandidates( long n )
+	{
+		ArrayList<Integer> ret = new ArrayList<Integer>();
+		int max = (int)Math.min(Math.max(n, 1), Integer.MAX_VALUE);
+		for( int p=1; p<max; p*=2 )
+			ret.add(p);
+		ret.add(max);
+		return ret;
+	}
+	
+	/**
+	 * Meta data of a grid partitioning, i.e., the number of grid cells per dimension
+	 * and the number of blocks per grid cell, used for mapping blocks to grid cells.
+	 */
+	private static class GridPartitioning implements Serializable
+	{
+		private static final long serialVersionUID = -6480125735393712475L;
+		
+		private int _pi, _pj, _pk;
+		private long _bi, _bj, _bk;
+		
+		public GridPartitioning(MatrixCharacteristics mc1, MatrixCharacteristics mc2, int[] grid) {
+			_pi = grid[0]; _pj = grid[1]; _pk = grid[2];
+			_bi = (long)Math.ceil((double)mc1.getNumRowBlocks()/_pi);
+			_bj = (long)Math.ceil((double)mc2.getNumColBlocks()/_pj);
+			_bk = (long)Math.ceil((double)mc1.getNumColBlocks()/_pk);
+		}
+		
+		public int getPk() {
+			return _pk;
+		}
+		
+		public int getNumCells() {
+			//compute in long and clamp to max int (number of output partitions)
+			long ncells = (long)_pi * _pj * _pk;
+			return (int)Math.min(ncells, Integer.MAX_VALUE);
+		}
+		
+		public long getCellID(long gi, long gj, long gk) {
+			return (gi * _pj + gj) * _pk + gk;
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	private static class GridReplicateFunction implements PairFlatMapFunction<Tuple2<MatrixIndexes, MatrixBlock>, Long, IndexedMatrixValue> 
+	{
+		private static final long serialVersionUID = 2372583126453617429L;
+		
+		private GridPartitioning _gp = null;
+		private boolean _left = false;
+		
+		public GridReplicateFunction(GridPartitioning gp, boolean left) {
+			_gp = gp;
+			_left = left;
+		}
+		
+		@Override
+		public Iterable<Tuple2<Long, IndexedMatrixValue>> call( Tuple2<MatrixIndexes, MatrixBlock> arg0 ) 
+			throws Exception 
+		{
+			LinkedList<Tuple2<Long, IndexedMatrixValue>> ret = new LinkedList<Tuple2<Long, IndexedMatrixValue>>();
+			MatrixIndexes ixIn = arg0._1();
+			
+			//shared value (read-only, serialized per replica on shuffle)
+			IndexedMatrixValue value = new IndexedMatrixValue(ixIn, arg0._2());
+			
+			if( _left ) { //LHS MATRIX (i,k): replicate wrt # grid columns
+				long gi = (ixIn.getRowIndex()-1) / _gp._bi;
+				long gk = (ixIn.getColumnIndex()-1) / _gp._bk;
+				for( long gj=0; gj<_gp._pj; gj++ )
+					ret.add( new Tuple2<Long, IndexedMatrixValue>(_gp.getCellID(gi, gj, gk), value) );
+			}
+			else { //RHS MATRIX (k,j): replicate wrt # grid rows
+				long gk = (ixIn.getRowIndex()-1) / _gp._bk;
+				long gj = (ixIn.getColumnIndex()-1) / _gp._bj;
+				for( long gi=0; gi<_gp._pi; gi++ )
+					ret.add( new Tuple2<Long, IndexedMatrixValue>(_gp.getCellID(gi, gj, gk), value) );
+			}
+			
+			return ret;
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	private static class GridMultiplyFunction implements PairFlatMapFunction<Tuple2<Long, Tuple2<Iterable<IndexedMatrixValue>,Iterable<IndexedMatrixValue>>>, MatrixIndexes, MatrixBlock> 
+	{
+		private static final long serialVersionUID = -1420476587539416520L;
+		
+		private AggregateBinaryOperator _op = null;
+		private AggregateOperator _aggop = null;
+		
+		public GridMultiplyFunction()
+		{
+			AggregateOperator agg = new AggregateOperator(0, Plus.getPlusFnObject());
+			_op = new AggregateBinaryOperator(Multiply.getMultiplyFnObject(), agg);
+			_aggop = new AggregateOperator(0, KahanPlus.getKahanPlusFnObject(), true, CorrectionLocationType.NONE);
+		}
+
+		@Override
+		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call( Tuple2<Long, Tuple2<Iterable<IndexedMatrixValue>,Iterable<IndexedMatrixValue>>> arg0 ) 
+			throws Exception 
+		{
+			//index right blocks by their row block index k
+			HashMap<Long, ArrayList<IndexedMatrixValue>> rblks = new HashMap<Long, ArrayList<IndexedMatrixValue>>();
+			for( IndexedMatrixValue rblk : arg0._2()._2() ) {
+				Long k = rblk.getIndexes().getRowIndex();
+				if( !rblks.containsKey(k) )
+					rblks.put(k, new ArrayList<IndexedMatrixValue>());
+				rblks.get(k).add(rblk);
+			}
+			
+			//compute all block products of this grid cell and aggregate partial
+			//results of the cell's k range in place (w/ kahan corrections)
+			HashMap<MatrixIndexes, CorrMatrixBlock> out = new HashMap<MatrixIndexes, CorrMatrixBlock>();
+			for( IndexedMatrixValue lblk : arg0._2()._1() ) {
+				ArrayList<IndexedMatrixValue> rlist = rblks.get(lblk.getIndexes().getColumnIndex());
+				if( rlist == null )
+					continue;
+				MatrixBlock blkIn1 = (MatrixBlock)lblk.getValue();
+				for( IndexedMatrixValue rblk : rlist ) {
+					MatrixBlock blkIn2 = (MatrixBlock)rblk.getValue();
+					MatrixIndexes ixOut = new MatrixIndexes(lblk.getIndexes().getRowIndex(), 
+							rblk.getIndexes().getColumnIndex());
+					MatrixBlock blkOut = new MatrixBlock();
+					blkIn1.aggregateBinaryOperations(blkIn1, blkIn2, blkOut, _op);
+					
+					CorrMatrixBlock agg = out.get(ixOut);
+					if( agg == null ) {
+						out.put(ixOut, new CorrMatrixBlock(blkOut));
+					}
+					else {
+						//correction block allocation on demand
+						MatrixBlock value = agg.getValue();
+						MatrixBlock corr = agg.getCorrection();
+						if( corr == null )
+							corr = new MatrixBlock(value.getNumRows(), value.getNumColumns(), false);
+						OperationsOnMatrixValues.incrementalAggregation(value, corr, blkOut, _aggop, false);
+						agg.set(value, corr);
+					}
+				}
+			}
+			
+			//output list of (partial) result blocks
+			LinkedList<Tuple2<MatrixIndexes, MatrixBlock>> ret = new LinkedList<Tuple2<MatrixIndexes, MatrixBlock>>();
+			for( Entry<MatrixIndexes, CorrMatrixBlock> e : out.entrySet() )
+				ret.add(new Tuple2<MatrixIndexes, MatrixBlock>(e.getKey(), e.getValue().getValue()));
+			return ret;
+		}
+	}
+}
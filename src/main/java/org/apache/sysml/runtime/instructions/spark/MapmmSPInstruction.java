@@ -72,6 +72,10 @@ public class MapmmSPInstruction extends BinarySPInstruction
 		_outputEmpty = outputEmpty;
 		_aggtype = aggtype;
 	}
+	
+	public CacheType getCacheType() {
+		return _type;
+	}
 
 	/**
 	 * 
@@ -139,7 +143,10 @@ public class MapmmSPInstruction extends BinarySPInstruction
 		//perform aggregation if necessary and put output into symbol table
 		if( _aggtype == SparkAggType.SINGLE_BLOCK )
 		{
-			MatrixBlock out2 = RDDAggregateUtils.sumStable(out);
+			//(empty output block if all blocks filtered out)
+			int rlen = (int)((_type==CacheType.LEFT) ? mcBc.getRows() : mcRdd.getRows());
+			int clen = (int)((_type==CacheType.LEFT) ? mcRdd.getCols() : mcBc.getCols());
+			MatrixBlock out2 = RDDAggregateUtils.sumStable(out, rlen, clen);
 			
 			//put output block into symbol table (no lineage because single block)
 			//this also includes implicit maintenance of matrix characteristics
@@ -24,7 +24,6 @@ import java.util.Iterator;
 
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
-import org.apache.spark.api.java.function.PairFunction;
 
 import scala.Tuple2;
 
@@ -153,12 +152,18 @@ public class MatrixIndexingSPInstruction  extends IndexingSPInstruction
 						new LeftIndexPartitionFunction(broadcastIn2, ixrange, mcOut), true);
 			}
 			else { //general case
-				// zero-out lhs
-				in1 = in1.mapToPair(new ZeroOutLHS(false, ixrange, mcLeft));
+				// zero-out lhs (partitioning-preserving, no key changes)
+				in1 = in1.mapPartitionsToPair(
+						new ZeroOutLHSPartitionFunction(false, ixrange, mcLeft), true);
 				
 				// slice rhs, shift and merge with lhs
 				in2 = sec.getBinaryBlockRDDHandleForVariable( input2.getName() )
 					    .flatMapToPair(new SliceRHSForLeftIndexing(ixrange, mcLeft));
+				
+				// repartition the (typically small) rhs according to a partitioned lhs, 
+				// which makes the union and merge narrow and keeps the lhs partitioning
+				if( SparkUtils.isPartitioned(in1) )
+					in2 = in2.partitionBy(in1.rdd().partitioner().get());
 				out = RDDAggregateUtils.mergeByKey(in1.union(in2));
 			}
 			
@@ -235,7 +240,7 @@ public class MatrixIndexingSPInstruction  extends IndexingSPInstruction
 	/**
 	 * 
 	 */
-	private static class ZeroOutLHS implements PairFunction<Tuple2<MatrixIndexes,MatrixBlock>, MatrixIndexes,MatrixBlock> 
+	private static class ZeroOutLHSPartitionFunction implements PairFlatMapFunction<Iterator<Tuple2<MatrixIndexes,MatrixBlock>>, MatrixIndexes, MatrixBlock> 
 	{
 		private static final long serialVersionUID = -3581795160948484261L;
 		
@@ -244,7 +249,7 @@ public class MatrixIndexingSPInstruction  extends IndexingSPInstruction
 		private int _brlen = -1;
 		private int _bclen = -1;
 		
-		public ZeroOutLHS(boolean complement, IndexRange range, MatrixCharacteristics mcLeft) {
+		public ZeroOutLHSPartitionFunction(boolean complement, IndexRange range, MatrixCharacteristics mcLeft) {
 			_complement = complement;
 			_ixrange = range;
 			_brlen = mcLeft.getRowsPerBlock();
@@ -252,20 +257,34 @@ public class MatrixIndexingSPInstruction  extends IndexingSPInstruction
 		}
 		
 		@Override
-		public Tuple2<MatrixIndexes, MatrixBlock> call(Tuple2<MatrixIndexes, MatrixBlock> kv) 
+		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<MatrixIndexes, MatrixBlock>> arg0)
 			throws Exception 
 		{
-			if( !UtilFunctions.isInBlockRange(kv._1(), _brlen, _bclen, _ixrange) ) {
-				return kv;
+			return new ZeroOutLHSPartitionIterator(arg0);
+		}
+		
+		private class ZeroOutLHSPartitionIterator extends LazyIterableIterator<Tuple2<MatrixIndexes, MatrixBlock>>
+		{
+			public ZeroOutLHSPartitionIterator(Iterator<Tuple2<MatrixIndexes, MatrixBlock>> in) {
+				super(in);
 			}
-			
-			IndexRange range = UtilFunctions.getSelectedRangeForZeroOut(new IndexedMatrixValue(kv._1, kv._2), _brlen, _bclen, _ixrange);
-			if(range.rowStart == -1 && range.rowEnd == -1 && range.colStart == -1 && range.colEnd == -1) {
-				throw new Exception("Error while getting range for zero-out");
+
+			@Override
+			protected Tuple2<MatrixIndexes, MatrixBlock> computeNext(Tuple2<MatrixIndexes, MatrixBlock> kv)
+				throws Exception
+			{
+				if( !UtilFunctions.isInBlockRange(kv._1(), _brlen, _bclen, _ixrange) ) {
+					return kv;
+				}
+				
+				IndexRange range = UtilFunctions.getSelectedRangeForZeroOut(new IndexedMatrixValue(kv._1, kv._2), _brlen, _bclen, _ixrange);
+				if(range.rowStart == -1 && range.rowEnd == -1 && range.colStart == -1 && range.colEnd == -1) {
+					throw new Exception("Error while getting range for zero-out");
+				}
+				
+				MatrixBlock zeroBlk = (MatrixBlock) kv._2.zeroOutOperations(new MatrixBlock(), range, _complement);
+				return new Tuple2<MatrixIndexes, MatrixBlock>(kv._1, zeroBlk);
 			}
-			
-			MatrixBlock zeroBlk = (MatrixBlock) kv._2.zeroOutOperations(new MatrixBlock(), range, _complement);
-			return new Tuple2<MatrixIndexes, MatrixBlock>(kv._1, zeroBlk);
 		}
 	}
 	
@@ -101,10 +101,13 @@ public class PMapmmSPInstruction extends BinarySPInstruction
 		JavaPairRDD<MatrixIndexes,MatrixBlock> in1 = sec.getBinaryBlockRDDHandleForVariable( input1.getName() );
 		JavaPairRDD<MatrixIndexes,MatrixBlock> in2 = sec.getBinaryBlockRDDHandleForVariable( input2.getName() ); 
 		MatrixCharacteristics mc1 = sec.getMatrixCharacteristics(input1.getName());		
+		MatrixCharacteristics mc2 = sec.getMatrixCharacteristics(input2.getName());
+		MatrixCharacteristics mcOut = sec.getMatrixCharacteristics(output.getName());
 		
 		//cache right hand side because accessed many times
 		in2 = in2.repartition(sec.getSparkContext().defaultParallelism())
-				 .persist(StorageLevel.MEMORY_AND_DISK());
+				 .persist(CheckpointSPInstruction.getAdaptiveStorageLevel(
+						 sec, mc2, StorageLevel.MEMORY_AND_DISK()));
 		
 		JavaPairRDD<MatrixIndexes,MatrixBlock> out = null;
 		for( int i=0; i<mc1.getRows(); i+=NUM_ROWBLOCKS*mc1.getRowsPerBlock() ) 
@@ -122,7 +125,8 @@ public class PMapmmSPInstruction extends BinarySPInstruction
 			JavaPairRDD<MatrixIndexes,MatrixBlock> rdd2 = in2
 					.flatMapToPair(new PMapMMFunction(bpmb, i/mc1.getRowsPerBlock()));
 			rdd2 = RDDAggregateUtils.sumByKeyStable(rdd2);
-			rdd2.persist(StorageLevel.MEMORY_ONLY())
+			rdd2.persist(CheckpointSPInstruction.getAdaptiveStorageLevel(
+					sec, mcOut, StorageLevel.MEMORY_ONLY()))
 			    .count();
 			bpmb.unpersist(false);
 			
@@ -133,7 +137,8 @@ public class PMapmmSPInstruction extends BinarySPInstruction
 		}
 		
 		//cache final result
-		out = out.persist(StorageLevel.MEMORY_AND_DISK());
+		out = out.persist(CheckpointSPInstruction.getAdaptiveStorageLevel(
+				sec, mcOut, StorageLevel.MEMORY_AND_DISK()));
 		out.count();
 		
 		//put output RDD handle into symbol table
@@ -152,7 +152,7 @@ public class QuantilePickSPInstruction extends BinarySPInstruction
 				JavaPairRDD<MatrixIndexes,MatrixBlock> out = in
 						.filter(new FilterFunction(key25+1,key75,mc.getRowsPerBlock()))
 						.mapToPair(new ExtractAndSumFunction(key25+1, key75, mc.getRowsPerBlock()));
-				MatrixBlock mb = RDDAggregateUtils.sumStable(out);					
+				MatrixBlock mb = RDDAggregateUtils.sumStable(out, 1, 1);					
 				double val = (mb.getValue(0, 0) 
 				             + (key25-0.25*sum_wt)*val25
 				             - (key75-0.75*sum_wt)*val75)
@@ -192,7 +192,7 @@ public class QuantilePickSPInstruction extends BinarySPInstruction
 	{
 		JavaPairRDD<MatrixIndexes,MatrixBlock> tmp = in
 				.mapValues(new ExtractAndSumWeightsFunction());
-		MatrixBlock val = RDDAggregateUtils.sumStable(tmp);
+		MatrixBlock val = RDDAggregateUtils.sumStable(tmp, 1, 1);
 		
 		return val.quickGetValue(0, 0);
 	}
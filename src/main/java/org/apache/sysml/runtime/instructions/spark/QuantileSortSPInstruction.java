@@ -101,7 +101,11 @@ public class QuantileSortSPInstruction extends UnarySPInstruction
 		
 		JavaPairRDD<MatrixIndexes,MatrixBlock> out = null;
 		long clen = -1;
-		if( !weighted ) { //W/O WEIGHTS (default)
+		if( RDDSortUtils.isMemSortApplicable(mc.getRows(), weighted ? 2 : 1) ) { //IN DRIVER
+			out = RDDSortUtils.sortByValMemSort(in, inW, mc.getRows(), mc.getRowsPerBlock(), mc.getColsPerBlock(), sec);
+			clen = weighted ? 2 : 1;
+		}
+		else if( !weighted ) { //W/O WEIGHTS (default)
 			out = RDDSortUtils.sortByVal(in, mc.getRows(), mc.getRowsPerBlock());
 			clen = 1;
 		}
@@ -305,7 +305,8 @@ public class QuaternarySPInstruction extends ComputationSPInstruction
 		if( qop.wtype1 != null || qop.wtype4 != null ) //map/redwsloss, map/redwcemm
 		{
 			//full aggregate and cast to scalar
-			MatrixBlock tmp = RDDAggregateUtils.sumStable(out);
+			//(empty output block if all blocks filtered out)
+			MatrixBlock tmp = RDDAggregateUtils.sumStable(out, 1, 1);
 			DoubleObject ret = new DoubleObject(tmp.getValue(0, 0));
 			sec.setVariable(output.getName(), ret);
 		}
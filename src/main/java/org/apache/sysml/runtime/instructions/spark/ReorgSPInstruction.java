@@ -22,8 +22,8 @@ package org.apache.sysml.runtime.instructions.spark;
 import java.util.ArrayList;
 
 import org.apache.spark.api.java.JavaPairRDD;
-import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.api.java.function.PairFunction;
 
 import scala.Tuple2;
 
@@ -165,11 +165,16 @@ public class ReorgSPInstruction extends UnarySPInstruction
 			out = in1;
 			if( !singleCol ){
 				out = out.filter(new IsBlockInRange(1, mcIn.getRows(), col, col, mcIn))
-						 .mapValues(new ExtractColumn((int)UtilFunctions.computeCellInBlock(col, mcIn.getColsPerBlock())));
+						 .mapToPair(new ExtractColumn((int)UtilFunctions.computeCellInBlock(col, mcIn.getColsPerBlock())));
 			}
 			
 			//actual index/data sort operation
-			if( ixret ) { //sort indexes 
+			if( (ixret || singleCol) && RDDSortUtils.isMemSortApplicable(mcIn.getRows(), 1) ) { 
+				//sort indexes or single-column matrix in driver
+				out = RDDSortUtils.sortByValMemSort(out, !desc, ixret, mcIn.getRows(), 
+						mcIn.getRowsPerBlock(), mcIn.getColsPerBlock(), sec);
+			}
+			else if( ixret ) { //sort indexes 
 				out = RDDSortUtils.sortIndexesByVal(out, !desc, mcIn.getRows(), mcIn.getRowsPerBlock());
 			}	
 			else if( singleCol && !desc) { //sort single-column matrix
@@ -308,9 +313,10 @@ public class ReorgSPInstruction extends UnarySPInstruction
 	}
 
 	/**
-	 *
+	 * Extracts the given column of a block and re-keys it to column block 1, 
+	 * i.e., the output is a valid blocked column vector (e.g., for collect).
 	 */
-	private static class ExtractColumn implements Function<MatrixBlock, MatrixBlock>  
+	private static class ExtractColumn implements PairFunction<Tuple2<MatrixIndexes, MatrixBlock>, MatrixIndexes, MatrixBlock>  
 	{
 		private static final long serialVersionUID = -1472164797288449559L;
 		
@@ -321,10 +327,12 @@ public class ReorgSPInstruction extends UnarySPInstruction
 		}
 		
 		@Override
-		public MatrixBlock call(MatrixBlock arg0) 
+		public Tuple2<MatrixIndexes, MatrixBlock> call(Tuple2<MatrixIndexes, MatrixBlock> arg0) 
 			throws Exception 
 		{
-			return arg0.sliceOperations(0, arg0.getNumRows()-1, _col, _col, new MatrixBlock());
+			MatrixIndexes ix = new MatrixIndexes(arg0._1().getRowIndex(), 1);
+			MatrixBlock out = arg0._2().sliceOperations(0, arg0._2().getNumRows()-1, _col, _col, new MatrixBlock());
+			return new Tuple2<MatrixIndexes, MatrixBlock>(ix, out);
 		}
 	}
 }
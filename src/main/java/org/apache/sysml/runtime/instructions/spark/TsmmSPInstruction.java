@@ -30,6 +30,7 @@ import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
 import org.apache.sysml.runtime.instructions.InstructionUtils;
 import org.apache.sysml.runtime.instructions.cp.CPOperand;
 import org.apache.sysml.runtime.instructions.spark.utils.RDDAggregateUtils;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
 import org.apache.sysml.runtime.matrix.operators.Operator;
@@ -86,7 +87,9 @@ public class TsmmSPInstruction extends UnarySPInstruction
 		//(this formulation with values() requires --conf spark.driver.maxResultSize=0)
 		RDDTSMMFunction ftsmm = new RDDTSMMFunction(_type);		
 		JavaPairRDD<MatrixIndexes,MatrixBlock> tmp = in.mapValues(ftsmm);
-		MatrixBlock out = RDDAggregateUtils.sumStable(tmp);
+		MatrixCharacteristics mc = sec.getMatrixCharacteristics( input1.getName() );
+		int dim = (int)(_type.isLeft() ? mc.getCols() : mc.getRows());
+		MatrixBlock out = RDDAggregateUtils.sumStable(tmp, dim, dim);
 		      
 		//put output block into symbol table (no lineage because single block)
 		//this also includes implicit maintenance of matrix characteristics
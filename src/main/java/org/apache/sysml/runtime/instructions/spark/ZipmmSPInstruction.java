@@ -33,6 +33,7 @@ import org.apache.sysml.runtime.functionobjects.SwapIndex;
 import org.apache.sysml.runtime.instructions.InstructionUtils;
 import org.apache.sysml.runtime.instructions.cp.CPOperand;
 import org.apache.sysml.runtime.instructions.spark.utils.RDDAggregateUtils;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
 import org.apache.sysml.runtime.matrix.operators.AggregateBinaryOperator;
@@ -99,7 +100,11 @@ public class ZipmmSPInstruction extends BinarySPInstruction
 				   .mapValues(new ZipMultiplyFunction(_tRewrite));  // compute block multiplications, incl t(y)
 				   
 		//single-block aggregation (guaranteed by zipmm blocksize constraint)
-		MatrixBlock out2 = RDDAggregateUtils.sumStable(out);
+		MatrixCharacteristics mc1 = sec.getMatrixCharacteristics( input1.getName() );
+		MatrixCharacteristics mc2 = sec.getMatrixCharacteristics( input2.getName() );
+		int rlen = (int)(_tRewrite ? mc2.getCols() : mc1.getCols());
+		int clen = (int)(_tRewrite ? mc1.getCols() : mc2.getCols());
+		MatrixBlock out2 = RDDAggregateUtils.sumStable(out, rlen, clen);
 		
 		//final transpose of result (for t(t(y)%*%X))), if transpose rewrite
 		if( _tRewrite ) {
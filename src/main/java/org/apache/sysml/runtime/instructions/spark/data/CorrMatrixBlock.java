@@ -64,6 +64,22 @@ public class CorrMatrixBlock implements Externalizable
 		return _corr;
 	}
 	
+	public void set( MatrixBlock value, MatrixBlock corr ) {
+		//shallow copy of passed value and corr
+		_value = value;
+		_corr = corr;
+	}
+	
+	/**
+	 * Indicates if this is an empty aggregation buffer, i.e., the zero
+	 * value of an aggregate that has not seen any input yet.
+	 * 
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return (_value == null);
+	}
+	
 	/**
 	 * Redirects the default java serialization via externalizable to our default 
 	 * hadoop writable serialization for efficient deserialization. 
@@ -116,8 +132,9 @@ public class CorrMatrixBlock implements Externalizable
 	private void writeHeaderAndPayload(DataOutput dos) 
 		throws IOException 
 	{
-		dos.writeByte((_corr!=null)?1:0);
-		_value.write(dos);
+		dos.writeByte(((_corr!=null)?1:0) | ((_value==null)?2:0));
+		if( _value!=null )
+			_value.write(dos);
 		if( _corr!=null )
 			_corr.write(dos);
 	}
@@ -130,9 +147,13 @@ public class CorrMatrixBlock implements Externalizable
 	private void readHeaderAndPayload(DataInput dis) 
 		throws IOException 
 	{
-		boolean corrExists = (dis.readByte() != 0) ? true : false;
-		_value = new MatrixBlock();
-		_value.readFields(dis);
+		byte header = dis.readByte();
+		boolean corrExists = (header & 1) != 0;
+		boolean valueExists = (header & 2) == 0;
+		if( valueExists ) {
+			_value = new MatrixBlock();
+			_value.readFields(dis);
+		}
 		if( corrExists ) {
 			_corr = new MatrixBlock();
 			_corr.readFields(dis);	
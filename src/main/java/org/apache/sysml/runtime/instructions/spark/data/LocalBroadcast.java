@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.instructions.spark.data;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.spark.broadcast.Broadcast;
+
+import scala.reflect.ClassTag;
+import scala.reflect.ClassTag$;
+
+/**
+ * Broadcast for local spark backends (local master, i.e., driver and executors in a 
+ * single jvm), which passes the broadcast object by reference. In contrast to torrent 
+ * broadcasts, this avoids the serialization into and deserialization from the block 
+ * manager. On task serialization, only the broadcast id is serialized and the object 
+ * is obtained from a jvm-wide registry. The registry holds weak references only, i.e., 
+ * the object is kept alive by the driver-side broadcast handle (referenced by pending 
+ * rdd operations and the broadcast object of the matrix object) and can be garbage 
+ * collected once this handle is unreachable, even if the variable is never destroyed.
+ * 
+ */
+public class LocalBroadcast<T> extends Broadcast<T>
+{
+	private static final long serialVersionUID = -3404316424938573925L;
+	
+	//jvm-wide registry of broadcast objects (negative ids to prevent conflicts with spark broadcasts)
+	private static final ConcurrentHashMap<Long, BroadcastReference> _objects = new ConcurrentHashMap<Long, BroadcastReference>();
+	private static final ReferenceQueue<Object> _queue = new ReferenceQueue<Object>();
+	private static final AtomicLong _seqID = new AtomicLong(0);
+	
+	//strong reference of driver-side handle (not serialized)
+	private transient T _value = null;
+	
+	@SuppressWarnings("unchecked")
+	public LocalBroadcast(T value) 
+	{
+		super(-_seqID.incrementAndGet(), (ClassTag<T>) ClassTag$.MODULE$.apply(Object.class));
+		_value = value;
+		purgeCollectedObjects();
+		_objects.put(id(), new BroadcastReference(id(), value, _queue));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getValue() {
+		//lazy lookup for deserialized handles (e.g., in tasks)
+		if( _value == null ) {
+			BroadcastReference ref = _objects.get(id());
+			_value = (ref != null) ? (T) ref.get() : null;
+			if( _value == null )
+				throw new RuntimeException("Local broadcast "+id()+" is not available anymore.");
+		}
+		return _value;
+	}
+
+	@Override
+	public void doUnpersist(boolean blocking) {
+		//do nothing (no executor-side copies)
+	}
+
+	@Override
+	public void doDestroy(boolean blocking) {
+		_objects.remove(id());
+		_value = null;
+	}
+	
+	/**
+	 * Returns the number of registered broadcast objects, incl already
+	 * garbage-collected objects whose entries have not been purged yet.
+	 * 
+	 * @return
+	 */
+	public static int getNumRegisteredObjects() {
+		purgeCollectedObjects();
+		return _objects.size();
+	}
+	
+	/**
+	 * Removes the registry entries of all garbage-collected broadcast objects.
+	 */
+	private static void purgeCollectedObjects() {
+		BroadcastReference ref = null;
+		while( (ref = (BroadcastReference)_queue.poll()) != null )
+			_objects.remove(ref._id, ref);
+	}
+	
+	/**
+	 * Weak reference to a broadcast object, which keeps the broadcast id 
+	 * for removing the registry entry once the object has been collected.
+	 */
+	private static class BroadcastReference extends WeakReference<Object>
+	{
+		private final long _id;
+		
+		public BroadcastReference(long id, Object value, ReferenceQueue<Object> queue) {
+			super(value, queue);
+			_id = id;
+		}
+	}
+}
@@ -33,6 +33,8 @@ import java.util.ArrayList;
 
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.caching.CacheBlock;
+import org.apache.sysml.runtime.matrix.data.FrameBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.data.Pair;
 import org.apache.sysml.runtime.util.FastBufferedDataInputStream;
 import org.apache.sysml.runtime.util.FastBufferedDataOutputStream;
@@ -47,6 +49,9 @@ import org.apache.sysml.runtime.util.IndexRange;
  */
 public class PartitionedBlock<T extends CacheBlock> implements Externalizable
 {
+	//block type tags of serialized partitioned blocks
+	private static final byte BLOCK_TYPE_MATRIX = 0;
+	private static final byte BLOCK_TYPE_FRAME = 1;
 
 	protected T[] _partBlocks = null; 
 	protected long _rlen = -1;
@@ -348,11 +353,13 @@ public class PartitionedBlock<T extends CacheBlock> implements Externalizable
 	}
 	
 	/**
+	 * Writes the header (incl block type tag) and all partition blocks, which is 
+	 * also used by custom serializers (e.g., kryo) of partitioned blocks.
 	 * 
 	 * @param dos
 	 * @throws IOException 
 	 */
-	private void writeHeaderAndPayload(DataOutput dos) 
+	public void writeHeaderAndPayload(DataOutput dos) 
 		throws IOException
 	{
 		dos.writeLong(_rlen);
@@ -361,6 +368,7 @@ public class PartitionedBlock<T extends CacheBlock> implements Externalizable
 		dos.writeInt(_bclen);
 		dos.writeInt(_offset);
 		dos.writeInt(_partBlocks.length);
+		dos.writeByte(getBlockType(_partBlocks.getClass().getComponentType()));
 		
 		for( T block : _partBlocks )
 			block.write(dos);
@@ -368,32 +376,69 @@ public class PartitionedBlock<T extends CacheBlock> implements Externalizable
 
 	/**
 	 * 
-	 * @param din
+	 * @param dis
 	 * @throws IOException 
 	 */
 	@SuppressWarnings("unchecked")
-	private void readHeaderAndPayload(DataInput dis) 
+	public void readHeaderAndPayload(DataInput dis) 
 		throws IOException
 	{
-		_rlen = dis.readInt();
-		_clen = dis.readInt();
+		_rlen = dis.readLong();
+		_clen = dis.readLong();
 		_brlen = dis.readInt();
 		_bclen = dis.readInt();
 		_offset = dis.readInt();
 		
 		int len = dis.readInt();
+		Class<?> blockClass = getBlockClass(dis.readByte());
 		
 		try
 		{
-			_partBlocks = (T[])Array.newInstance(getClass(), len);
+			_partBlocks = (T[])Array.newInstance(blockClass, len);
 			for( int i=0; i<len; i++ ) {
+				_partBlocks[i] = (T) blockClass.newInstance();
 				_partBlocks[i].readFields(dis);
 			}
 		}
+		catch(IOException ex) {
+			throw ex;
+		}
 		catch(Exception ex) {
-			throw new RuntimeException("Failed partitioning of broadcast variable input.", ex);
+			throw new IOException("Failed deserialization of partitioned block.", ex);
 		}
+	}
+	
+	/**
+	 * 
+	 * @param blockClass
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte getBlockType(Class<?> blockClass) 
+		throws IOException
+	{
+		if( blockClass == MatrixBlock.class )
+			return BLOCK_TYPE_MATRIX;
+		else if( blockClass == FrameBlock.class )
+			return BLOCK_TYPE_FRAME;
 		
+		throw new IOException("Unsupported partitioned block type: "+blockClass.getName());
 	}
 	
+	/**
+	 * 
+	 * @param type
+	 * @return
+	 * @throws IOException
+	 */
+	private static Class<?> getBlockClass(byte type) 
+		throws IOException
+	{
+		switch( type ) {
+			case BLOCK_TYPE_MATRIX: return MatrixBlock.class;
+			case BLOCK_TYPE_FRAME:  return FrameBlock.class;
+			default:
+				throw new IOException("Unsupported partitioned block type tag: "+type);
+		}
+	}
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.instructions.spark.functions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.function.VoidFunction;
+
+import scala.Tuple2;
+
+/**
+ * Collect for local spark backends (local master, i.e., driver and executors in a
+ * single jvm), which hands over the partitions by reference via a jvm-wide registry
+ * instead of serialized task results. Callers are responsible for copying collected 
+ * blocks before modification because they might be shared with cached rdds.
+ * 
+ */
+public class LocalCollectFunction<K,V> implements VoidFunction<Iterator<Tuple2<K,V>>> 
+{
+	private static final long serialVersionUID = 4781206315484389302L;
+	
+	//jvm-wide registry of collected partitions per collect
+	private static final ConcurrentHashMap<Long, ConcurrentHashMap<Integer, List<?>>> _results = 
+			new ConcurrentHashMap<Long, ConcurrentHashMap<Integer, List<?>>>();
+	private static final AtomicLong _seqID = new AtomicLong(0);
+	
+	private long _id = -1;
+	
+	private LocalCollectFunction(long id) {
+		_id = id;
+	}
+	
+	/**
+	 * 
+	 * @param rdd
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K,V> List<Tuple2<K,V>> collect(JavaPairRDD<K,V> rdd)
+	{
+		long id = _seqID.incrementAndGet();
+		ConcurrentHashMap<Integer, List<?>> parts = new ConcurrentHashMap<Integer, List<?>>();
+		_results.put(id, parts);
+		
+		try {
+			rdd.foreachPartition(new LocalCollectFunction<K,V>(id));
+			
+			//concatenate partition results in order of partitions
+			ArrayList<Tuple2<K,V>> ret = new ArrayList<Tuple2<K,V>>();
+			int numParts = rdd.partitions().size();
+			for( int i=0; i<numParts; i++ )
+				if( parts.containsKey(i) )
+					ret.addAll((List<Tuple2<K,V>>)parts.get(i));
+			return ret;
+		}
+		finally {
+			_results.remove(id);
+		}
+	}
+	
+	@Override
+	public void call(Iterator<Tuple2<K,V>> arg0) 
+		throws Exception 
+	{
+		ArrayList<Tuple2<K,V>> tmp = new ArrayList<Tuple2<K,V>>();
+		while( arg0.hasNext() )
+			tmp.add(arg0.next());
+		
+		//note: put by partition id overwrites results of failed task attempts
+		_results.get(_id).put(TaskContext.get().partitionId(), tmp);
+	}
+}
@@ -20,6 +20,7 @@
 package org.apache.sysml.runtime.instructions.spark.utils;
 
 import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.sysml.lops.PartialAggregate.CorrectionLocationType;
@@ -44,26 +45,82 @@ import org.apache.sysml.runtime.matrix.operators.AggregateOperator;
 public class RDDAggregateUtils 
 {
 	
-	//internal configuration to use tree aggregation (treeReduce w/ depth=2),
-	//this is currently disabled because it was 2x slower than a simple
-	//single-block reduce due to additional overhead for shuffling 
-	private static final boolean TREE_AGGREGATION = false; 
+	//internal configuration of tree aggregation for reduce-all operations, which is
+	//automatically applied if the number of partitions exceeds the given threshold;
+	//since all partitions are pre-aggregated into a single accumulator (with correction)
+	//only the partition aggregates are shuffled over depth-1 intermediate levels
+	public static final int TREE_AGGREGATION_DEPTH = 2;
+	public static final int TREE_AGGREGATION_MIN_PARTITIONS = 256;
 	
 	/**
 	 * 
 	 * @param in
 	 * @return
+	 * @throws DMLRuntimeException 
 	 */
-	public static MatrixBlock sumStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in )
+	public static MatrixBlock sumStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in ) 
+		throws DMLRuntimeException
 	{
-		//stable sum of all blocks with correction block per function instance
-		if( TREE_AGGREGATION ) {
-			return in.values().treeReduce( 
-					new SumSingleBlockFunction() );	
+		JavaRDD<MatrixBlock> blocks = in.values();
+		CorrMatrixBlock ret = sumStable(blocks, isTreeAggregation(blocks));
+		
+		//explicit handling of empty inputs (unknown output dimensions)
+		if( ret.isEmpty() )
+			throw new DMLRuntimeException("Failed stable sum of empty rdd without output dimensions.");
+		
+		//strip-off correction block
+		return ret.getValue();
+	}
+	
+	/**
+	 * Stable sum of all blocks, where an empty input rdd (e.g., after filtering
+	 * empty blocks) yields an empty output block of the given dimensions.
+	 * 
+	 * @param in
+	 * @param rlen
+	 * @param clen
+	 * @return
+	 */
+	public static MatrixBlock sumStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in, int rlen, int clen )
+	{
+		return sumStable(in, rlen, clen, isTreeAggregation(in.values()));
+	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @param rlen
+	 * @param clen
+	 * @param treeAgg
+	 * @return
+	 */
+	public static MatrixBlock sumStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in, int rlen, int clen, boolean treeAgg )
+	{
+		CorrMatrixBlock ret = sumStable(in.values(), treeAgg);
+		
+		//strip-off correction block (or empty output for empty inputs)
+		return ret.isEmpty() ? new MatrixBlock(rlen, clen, true) : ret.getValue();
+	}
+	
+	/**
+	 * 
+	 * @param blocks
+	 * @param treeAgg
+	 * @return
+	 */
+	private static CorrMatrixBlock sumStable( JavaRDD<MatrixBlock> blocks, boolean treeAgg )
+	{
+		//stable sum of all blocks with in-place accumulator and correction block per partition
+		if( treeAgg ) {
+			return blocks.treeAggregate( new CorrMatrixBlock(), 
+					new MergeSumBlockValueFunction(), 
+					new MergeSumBlockCombinerFunction(), 
+					TREE_AGGREGATION_DEPTH );
 		}
 		else { //DEFAULT
-			return in.values().reduce( 
-					new SumSingleBlockFunction() );
+			return blocks.aggregate( new CorrMatrixBlock(), 
+					new MergeSumBlockValueFunction(), 
+					new MergeSumBlockCombinerFunction() );
 		}
 	}
 	
@@ -100,7 +157,7 @@ public class RDDAggregateUtils
 	{
 		//stable sum of blocks per key, by passing correction blocks along with aggregates 		
 		JavaPairRDD<MatrixIndexes, CorrMatrixBlock> tmp = 
-				in.combineByKey( new CreateBlockCombinerFunction(), 
+				in.combineByKey( new CreateBlockCombinerFunction(true), 
 							     new MergeSumBlockValueFunction(), 
 							     new MergeSumBlockCombinerFunction() );
 		
@@ -121,7 +178,7 @@ public class RDDAggregateUtils
 //	{
 //		//stable sum of blocks per key, by passing correction blocks along with aggregates 		
 //		JavaPairRDD<MatrixIndexes, CorrMatrixBlock> tmp = 
-//				in.combineByKey( new CreateBlockCombinerFunction(), 
+//				in.combineByKey( new CreateBlockCombinerFunction(true), 
 //							     new MergeSumBlockValueFunction(), 
 //							     new MergeSumBlockCombinerFunction(),
 //							     new BlockPartitioner(mc, in.partitions().size()));
@@ -160,12 +217,46 @@ public class RDDAggregateUtils
 	 * @param in
 	 * @param aop
 	 * @return
+	 * @throws DMLRuntimeException 
+	 */
+	public static MatrixBlock aggStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in, AggregateOperator aop ) 
+		throws DMLRuntimeException
+	{
+		return aggStable(in, aop, isTreeAggregation(in.values()));
+	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @param aop
+	 * @param treeAgg
+	 * @return
+	 * @throws DMLRuntimeException 
 	 */
-	public static MatrixBlock aggStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in, AggregateOperator aop )
+	public static MatrixBlock aggStable( JavaPairRDD<MatrixIndexes, MatrixBlock> in, AggregateOperator aop, boolean treeAgg ) 
+		throws DMLRuntimeException
 	{
-		//stable aggregate of all blocks with correction block per function instance
-		return in.values().reduce( 
-				new AggregateSingleBlockFunction(aop) );
+		//stable aggregate of all blocks with in-place accumulator and correction block per partition
+		JavaRDD<MatrixBlock> blocks = in.values();
+		CorrMatrixBlock ret = null;
+		if( treeAgg ) {
+			ret = blocks.treeAggregate( new CorrMatrixBlock(), 
+					new MergeAggBlockValueFunction(aop), 
+					new MergeAggBlockCombinerFunction(aop), 
+					TREE_AGGREGATION_DEPTH );
+		}
+		else { //DEFAULT
+			ret = blocks.aggregate( new CorrMatrixBlock(), 
+					new MergeAggBlockValueFunction(aop), 
+					new MergeAggBlockCombinerFunction(aop) );
+		}
+		
+		//explicit handling of empty inputs (no neutral output for general aggregates)
+		if( ret.isEmpty() )
+			throw new DMLRuntimeException("Failed stable aggregate of empty rdd.");
+		
+		//strip-off correction block
+		return ret.getValue();
 	}
 	
 	/**
@@ -191,7 +282,7 @@ public class RDDAggregateUtils
 	{
 		//stable sum of blocks per key, by passing correction blocks along with aggregates 		
 		JavaPairRDD<MatrixIndexes, CorrMatrixBlock> tmp = 
-				in.combineByKey( new CreateBlockCombinerFunction(), 
+				in.combineByKey( new CreateBlockCombinerFunction(true), 
 							     new MergeAggBlockValueFunction(aop), 
 							     new MergeAggBlockCombinerFunction(aop) );
 		
@@ -214,7 +305,7 @@ public class RDDAggregateUtils
 //	{
 //		//stable sum of blocks per key, by passing correction blocks along with aggregates 		
 //		JavaPairRDD<MatrixIndexes, CorrMatrixBlock> tmp = 
-//				in.combineByKey( new CreateBlockCombinerFunction(), 
+//				in.combineByKey( new CreateBlockCombinerFunction(true), 
 //							     new MergeAggBlockValueFunction(aop), 
 //							     new MergeAggBlockCombinerFunction(aop),
 //							     new BlockPartitioner(mc, in.partitions().size()));
@@ -273,16 +364,34 @@ public class RDDAggregateUtils
 	
 	/**
 	 * 
+	 * @param in
+	 * @return
+	 */
+	private static boolean isTreeAggregation( JavaRDD<MatrixBlock> in )
+	{
+		return in.partitions().size() >= TREE_AGGREGATION_MIN_PARTITIONS;
+	}
+	
+	/**
+	 * Creates the combiner (accumulator) of a key, which is updated in place
+	 * by all subsequent merges. Since the input block might be part of a cached
+	 * rdd, a deep copy is required unless the input is a temporary block.
 	 */
 	private static class CreateBlockCombinerFunction implements Function<MatrixBlock, CorrMatrixBlock> 
 	{
 		private static final long serialVersionUID = -3666451526776017343L;
 
+		private boolean _deep = false;
+		
+		public CreateBlockCombinerFunction(boolean deep) {
+			_deep = deep;
+		}
+		
 		@Override
 		public CorrMatrixBlock call(MatrixBlock arg0) 
 			throws Exception 
 		{
-			return new CorrMatrixBlock(arg0);
+			return new CorrMatrixBlock(_deep ? new MatrixBlock(arg0) : arg0);
 		}	
 	}
 	
@@ -299,6 +408,12 @@ public class RDDAggregateUtils
 		public CorrMatrixBlock call(CorrMatrixBlock arg0, MatrixBlock arg1) 
 			throws Exception 
 		{
+			//initialize empty accumulator w/ copy of first input
+			if( arg0.isEmpty() ) {
+				arg0.set(new MatrixBlock(arg1), null);
+				return arg0;
+			}
+			
 			//get current block and correction
 			MatrixBlock value = arg0.getValue();
 			MatrixBlock corr = arg0.getCorrection();
@@ -311,7 +426,8 @@ public class RDDAggregateUtils
 			//aggregate other input and maintain corrections 
 			//(existing value and corr are used in place)
 			OperationsOnMatrixValues.incrementalAggregation(value, corr, arg1, _op, false);
-			return new CorrMatrixBlock(value, corr);
+			arg0.set(value, corr);
+			return arg0;
 		}	
 	}
 	
@@ -328,6 +444,10 @@ public class RDDAggregateUtils
 		public CorrMatrixBlock call(CorrMatrixBlock arg0, CorrMatrixBlock arg1) 
 			throws Exception 
 		{
+			//pass-through of non-empty accumulator
+			if( arg0.isEmpty() || arg1.isEmpty() )
+				return arg0.isEmpty() ? arg1 : arg0;
+			
 			//get current block and correction
 			MatrixBlock value1 = arg0.getValue();
 			MatrixBlock value2 = arg1.getValue();
@@ -342,7 +462,8 @@ public class RDDAggregateUtils
 			//aggregate other input and maintain corrections
 			//(existing value and corr are used in place)
 			OperationsOnMatrixValues.incrementalAggregation(value1, corr, value2, _op, false);
-			return new CorrMatrixBlock(value1, corr);
+			arg0.set(value1, corr);
+			return arg0;
 		}	
 	}
 
@@ -484,6 +605,12 @@ public class RDDAggregateUtils
 		public CorrMatrixBlock call(CorrMatrixBlock arg0, MatrixBlock arg1) 
 			throws Exception 
 		{
+			//initialize empty accumulator w/ copy of first input
+			if( arg0.isEmpty() ) {
+				arg0.set(new MatrixBlock(arg1), null);
+				return arg0;
+			}
+			
 			//get current block and correction
 			MatrixBlock value = arg0.getValue();
 			MatrixBlock corr = arg0.getCorrection();
@@ -499,7 +626,8 @@ public class RDDAggregateUtils
 				OperationsOnMatrixValues.incrementalAggregation(value, corr, arg1, _op, true);
 			else
 				OperationsOnMatrixValues.incrementalAggregation(value, null, arg1, _op, true);
-			return new CorrMatrixBlock(value, corr);
+			arg0.set(value, corr);
+			return arg0;
 		}	
 	}
 	
@@ -521,6 +649,10 @@ public class RDDAggregateUtils
 		public CorrMatrixBlock call(CorrMatrixBlock arg0, CorrMatrixBlock arg1) 
 			throws Exception 
 		{
+			//pass-through of non-empty accumulator
+			if( arg0.isEmpty() || arg1.isEmpty() )
+				return arg0.isEmpty() ? arg1 : arg0;
+			
 			//get current block and correction
 			MatrixBlock value1 = arg0.getValue();
 			MatrixBlock value2 = arg1.getValue();
@@ -538,7 +670,8 @@ public class RDDAggregateUtils
 				OperationsOnMatrixValues.incrementalAggregation(value1, corr, value2, _op, true);
 			else
 				OperationsOnMatrixValues.incrementalAggregation(value1, null, value2, _op, true);
-			return new CorrMatrixBlock(value1, corr);
+			arg0.set(value1, corr);
+			return arg0;
 		}	
 	}
 	
@@ -573,44 +706,6 @@ public class RDDAggregateUtils
 		}	
 	}
 
-	/**
-	 * This aggregate function uses kahan+ with corrections to aggregate input blocks; it is meant for 
-	 * reduce all operations where we can reuse the same correction block independent of the input
-	 * block indexes. Note that this aggregation function does not apply to embedded corrections.
-	 * 
-	 */
-	private static class SumSingleBlockFunction implements Function2<MatrixBlock, MatrixBlock, MatrixBlock> 
-	{
-		private static final long serialVersionUID = 1737038715965862222L;
-		
-		private AggregateOperator _op = null;
-		private MatrixBlock _corr = null;
-		
-		public SumSingleBlockFunction()
-		{
-			_op = new AggregateOperator(0, KahanPlus.getKahanPlusFnObject(), true, CorrectionLocationType.NONE);	
-			_corr = null;
-		}
-		
-		@Override
-		public MatrixBlock call(MatrixBlock arg0, MatrixBlock arg1)
-			throws Exception 
-		{
-			//create correction block (on demand)
-			if( _corr == null ){
-				_corr = new MatrixBlock(arg0.getNumRows(), arg0.getNumColumns(), false);
-			}
-			
-			//copy one input to output
-			MatrixBlock out = new MatrixBlock(arg0);
-			
-			//aggregate other input
-			OperationsOnMatrixValues.incrementalAggregation(out, _corr, arg1, _op, false);
-			
-			return out;
-		}
-	}
-	
 	/**
 	 * This aggregate function uses kahan+ with corrections to aggregate input blocks; it is meant for 
 	 * reducebykey operations where we CANNOT reuse the same correction block independent of the input
@@ -646,50 +741,6 @@ public class RDDAggregateUtils
 	}
 	
 
-	/**
-	 * Note: currently we always include the correction and use a subsequent maptopair to
-	 * drop them at the end because during aggregation we dont know if we produce an
-	 * intermediate or the final aggregate. 
-	 */
-	private static class AggregateSingleBlockFunction implements Function2<MatrixBlock, MatrixBlock, MatrixBlock> 
-	{
-		private static final long serialVersionUID = -3672377410407066396L;
-
-		private AggregateOperator _op = null;
-		private MatrixBlock _corr = null;
-		
-		public AggregateSingleBlockFunction( AggregateOperator op )
-		{
-			_op = op;	
-			_corr = null;
-		}
-		
-		@Override
-		public MatrixBlock call(MatrixBlock arg0, MatrixBlock arg1)
-			throws Exception 
-		{
-			//copy one first input
-			MatrixBlock out = new MatrixBlock(arg0); 
-			
-			//create correction block (on demand)
-			if( _corr == null ){
-				_corr = new MatrixBlock(arg0.getNumRows(), arg0.getNumColumns(), false);
-			}
-			
-			//aggregate second input
-			if(_op.correctionExists) {
-				OperationsOnMatrixValues.incrementalAggregation(
-						out, _corr, arg1, _op, true);
-			}
-			else {
-				OperationsOnMatrixValues.incrementalAggregation(
-						out, null, arg1, _op, true);
-			}
-			
-			return out;
-		}
-	}
-	
 	/**
 	 * Note: currently we always include the correction and use a subsequent maptopair to
 	 * drop them at the end because during aggregation we dont know if we produce an
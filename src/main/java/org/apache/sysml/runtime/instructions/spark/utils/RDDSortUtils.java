@@ -21,19 +21,26 @@ package org.apache.sysml.runtime.instructions.spark.utils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
+import org.apache.spark.HashPartitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.apache.spark.api.java.function.PairFunction;
 import org.apache.spark.broadcast.Broadcast;
 
 import scala.Tuple2;
 
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
 import org.apache.sysml.runtime.controlprogram.parfor.stat.InfrastructureAnalyzer;
@@ -45,6 +52,7 @@ import org.apache.sysml.runtime.matrix.data.MatrixBlock;
 import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
 import org.apache.sysml.runtime.matrix.operators.ReorgOperator;
 import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.runtime.util.SortUtils;
 import org.apache.sysml.runtime.util.UtilFunctions;
 
 /**
@@ -52,6 +60,11 @@ import org.apache.sysml.runtime.util.UtilFunctions;
  */
 public class RDDSortUtils 
 {
+	//sample size per range partition of sample-based sort
+	private static final int SAMPLE_SIZE_PER_PARTITION = 1000;
+	
+	//forced distributed sort w/ one range partition per row block (for testing only)
+	public static boolean FORCED_DIST_SORT = false;
 	
 	/**
 	 * 
@@ -62,23 +75,19 @@ public class RDDSortUtils
 	 */
 	public static JavaPairRDD<MatrixIndexes, MatrixBlock> sortByVal( JavaPairRDD<MatrixIndexes, MatrixBlock> in, long rlen, int brlen )
 	{
-		//create value-index rdd from inputs
-		JavaRDD<Double> dvals = in.values()
-				.flatMap(new ExtractDoubleValuesFunction());
-	
-		//sort (creates sorted range per partition)
-		long hdfsBlocksize = InfrastructureAnalyzer.getHDFSBlockSize();
-		int numPartitions = (int)Math.ceil(((double)rlen*8)/hdfsBlocksize);
-		JavaRDD<Double> sdvals = dvals
-				.sortBy(new CreateDoubleKeyFunction(), true, numPartitions);
+		//compute range partitioning boundaries from sample and partition offsets
+		int numPartitions = getNumRangePartitions(rlen, brlen, 8);
+		double[] splits = computeRangeSplits(in, true, rlen, numPartitions);
+		long[] offsets = computeRangeOffsets(in, true, splits);
 		
-		//create binary block output
-		JavaPairRDD<MatrixIndexes, MatrixBlock> ret = sdvals
-				.zipWithIndex()
-		        .mapPartitionsToPair(new ConvertToBinaryBlockFunction(rlen, brlen));
-		ret = RDDAggregateUtils.mergeByKey(ret);	
+		//range partitioning of primitive value arrays and local sort per partition
+		JavaPairRDD<MatrixIndexes, MatrixBlock> ret = in
+				.flatMapToPair(new ExtractRangePartitionsFunction(splits, true, false, brlen))
+				.partitionBy(new HashPartitioner(splits.length+2))
+				.mapPartitionsToPair(new SortRangePartitionFunction(offsets, false, rlen, brlen));
 		
-		return ret;
+		//merge partial blocks at partition boundaries
+		return RDDAggregateUtils.mergeByKey(ret);
 	}
 	
 	/**
@@ -97,8 +106,7 @@ public class RDDSortUtils
 				.flatMap(new ExtractDoubleValuesFunction2());
 	
 		//sort (creates sorted range per partition)
-		long hdfsBlocksize = InfrastructureAnalyzer.getHDFSBlockSize();
-		int numPartitions = (int)Math.ceil(((double)rlen*8)/hdfsBlocksize);
+		int numPartitions = getNumRangePartitions(rlen, brlen, 8);
 		JavaRDD<DoublePair> sdvals = dvals
 				.sortBy(new CreateDoubleKeyFunction2(), true, numPartitions);
 
@@ -121,24 +129,19 @@ public class RDDSortUtils
 	public static JavaPairRDD<MatrixIndexes, MatrixBlock> sortIndexesByVal( JavaPairRDD<MatrixIndexes, MatrixBlock> val, 
 			boolean asc, long rlen, int brlen )
 	{
-		//create value-index rdd from inputs
-		JavaPairRDD<ValueIndexPair, Double> dvals = val
-				.flatMapToPair(new ExtractDoubleValuesWithIndexFunction(brlen));
-	
-		//sort (creates sorted range per partition)
-		long hdfsBlocksize = InfrastructureAnalyzer.getHDFSBlockSize();
-		int numPartitions = (int)Math.ceil(((double)rlen*16)/hdfsBlocksize);
-		JavaRDD<ValueIndexPair> sdvals = dvals
-				.sortByKey(new IndexComparator(asc), true, numPartitions)
-				.keys(); //workaround for index comparator
-	 
-		//create binary block output
-		JavaPairRDD<MatrixIndexes, MatrixBlock> ret = sdvals
-				.zipWithIndex()
-		        .mapPartitionsToPair(new ConvertToBinaryBlockFunction3(rlen, brlen));
-		ret = RDDAggregateUtils.mergeByKey(ret);		
+		//compute range partitioning boundaries from sample and partition offsets
+		int numPartitions = getNumRangePartitions(rlen, brlen, 16);
+		double[] splits = computeRangeSplits(val, asc, rlen, numPartitions);
+		long[] offsets = computeRangeOffsets(val, asc, splits);
 		
-		return ret;	
+		//range partitioning of primitive value/index arrays and local stable sort per partition
+		JavaPairRDD<MatrixIndexes, MatrixBlock> ret = val
+				.flatMapToPair(new ExtractRangePartitionsFunction(splits, asc, true, brlen))
+				.partitionBy(new HashPartitioner(splits.length+2))
+				.mapPartitionsToPair(new SortRangePartitionFunction(offsets, true, rlen, brlen));
+		
+		//merge partial blocks at partition boundaries
+		return RDDAggregateUtils.mergeByKey(ret);
 	}
 	
 	/**
@@ -158,8 +161,7 @@ public class RDDSortUtils
 				.flatMapToPair(new ExtractDoubleValuesWithIndexFunction(brlen));
 	
 		//sort (creates sorted range per partition)
-		long hdfsBlocksize = InfrastructureAnalyzer.getHDFSBlockSize();
-		int numPartitions = (int)Math.ceil(((double)rlen*16)/hdfsBlocksize);
+		int numPartitions = getNumRangePartitions(rlen, brlen, 16);
 		JavaRDD<ValueIndexPair> sdvals = dvals
 				.sortByKey(new IndexComparator(asc), true, numPartitions)
 				.keys(); //workaround for index comparator
@@ -228,20 +230,241 @@ public class RDDSortUtils
 	}
 	
 	/**
+	 * This function collects and sorts a column vector in the driver and parallelizes 
+	 * the sorted values or indexes, which avoids the distributed sort if the vector
+	 * fits into the local memory budget (see isMemSortApplicable).
 	 * 
+	 * @param val
+	 * @param asc
+	 * @param ixret
+	 * @param rlen
+	 * @param brlen
+	 * @param bclen
+	 * @param sec
+	 * @return
+	 * @throws DMLRuntimeException
 	 */
-	private static class ExtractDoubleValuesFunction implements FlatMapFunction<MatrixBlock,Double> 
+	public static JavaPairRDD<MatrixIndexes, MatrixBlock> sortByValMemSort( JavaPairRDD<MatrixIndexes, MatrixBlock> val, 
+			boolean asc, boolean ixret, long rlen, int brlen, int bclen, SparkExecutionContext sec ) 
+		throws DMLRuntimeException
 	{
-		private static final long serialVersionUID = 6888003502286282876L;
-
-		@Override
-		public Iterable<Double> call(MatrixBlock arg0) 
-			throws Exception 
-		{
-			return DataConverter.convertToDoubleList(arg0);
-		}		
+		//collect column vector for in-memory sorting
+		double[] vals = DataConverter.convertToDoubleVector(SparkExecutionContext
+				.toMatrixBlock(val, (int)rlen, 1, brlen, bclen, -1));
+		
+		//in-memory stable sort (w/ NaN handling of the distributed sort)
+		int[] perm = sortByValueStable(vals, asc);
+		if( ixret )
+			for( int i=0; i<perm.length; i++ )
+				vals[i] = perm[i] + 1;
+		MatrixBlock out = DataConverter.convertToMatrixBlock(vals, true);
+		
+		return SparkExecutionContext.toMatrixJavaPairRDD(sec.getSparkContext(), out, brlen, bclen);
 	}
-
+	
+	/**
+	 * This function collects and sorts a column vector (and optional weights) in the driver
+	 * and parallelizes the sorted values in the output format of sortByVal.
+	 * 
+	 * @param in
+	 * @param in2
+	 * @param rlen
+	 * @param brlen
+	 * @param bclen
+	 * @param sec
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static JavaPairRDD<MatrixIndexes, MatrixBlock> sortByValMemSort( JavaPairRDD<MatrixIndexes, MatrixBlock> in, 
+			JavaPairRDD<MatrixIndexes, MatrixBlock> in2, long rlen, int brlen, int bclen, SparkExecutionContext sec ) 
+		throws DMLRuntimeException
+	{
+		//collect value column (and weights) for in-memory sorting
+		double[] vals = DataConverter.convertToDoubleVector(SparkExecutionContext
+				.toMatrixBlock(in, (int)rlen, 1, brlen, bclen, -1));
+		
+		MatrixBlock out = null;
+		if( in2 == null ) { //w/o weights
+			Arrays.sort(vals);
+			out = DataConverter.convertToMatrixBlock(vals, true);
+		}
+		else { //w/ weights
+			double[] wts = DataConverter.convertToDoubleVector(SparkExecutionContext
+					.toMatrixBlock(in2, (int)rlen, 1, brlen, bclen, -1));
+			int[] perm = sortByValueStable(vals, true);
+			out = new MatrixBlock(vals.length, 2, false);
+			for( int i=0; i<vals.length; i++ ) {
+				out.quickSetValue(i, 0, vals[i]);
+				out.quickSetValue(i, 1, wts[perm[i]]);
+			}
+		}
+		
+		return SparkExecutionContext.toMatrixJavaPairRDD(sec.getSparkContext(), out, brlen, bclen);
+	}
+	
+	/**
+	 * Stable in-place sort of the given values, which returns the permutation of
+	 * 0-based source positions in target order. NaNs are placed last for ascending
+	 * and first for descending order, consistent with IndexComparator.
+	 * 
+	 * @param vals
+	 * @param asc
+	 * @return
+	 */
+	private static int[] sortByValueStable( double[] vals, boolean asc )
+	{
+		//split sort keys and NaNs (in order of positions)
+		int n = vals.length;
+		int len = 0;
+		for( int i=0; i<n; i++ )
+			len += Double.isNaN(vals[i]) ? 0 : 1;
+		int[] perm = new int[n];
+		double[] keys = new double[len];
+		int[] kperm = new int[len];
+		int nanpos = asc ? len : 0;
+		for( int i=0, pos=0; i<n; i++ ) {
+			if( Double.isNaN(vals[i]) )
+				perm[nanpos++] = i;
+			else {
+				keys[pos] = getSortKey(vals[i], asc);
+				kperm[pos++] = i;
+			}
+		}
+		
+		//stable sort of non-NaN keys
+		SortUtils.sortByValueStable(0, len, keys, kperm);
+		System.arraycopy(kperm, 0, perm, asc ? 0 : n-len, len);
+		
+		//reorder values
+		double[] tmp = vals.clone();
+		for( int i=0; i<n; i++ )
+			vals[i] = tmp[perm[i]];
+		return perm;
+	}
+	
+	/**
+	 * Indicates if the in-memory sort of a column vector (incl input, output, and 
+	 * sort buffers) fits into the local memory budget of the driver.
+	 * 
+	 * @param rlen
+	 * @param clen
+	 * @return
+	 */
+	public static boolean isMemSortApplicable( long rlen, long clen )
+	{
+		return !FORCED_DIST_SORT && rlen > 0 && rlen < Integer.MAX_VALUE
+			&& 3 * OptimizerUtils.estimateSize(rlen, clen) < OptimizerUtils.getLocalMemBudget();
+	}
+	
+	/**
+	 * Obtains the number of range partitions of the distributed sort, i.e., the number
+	 * of hdfs blocks of the sort keys with the given size per row.
+	 * 
+	 * @param rlen
+	 * @param brlen
+	 * @param bytesPerRow
+	 * @return
+	 */
+	private static int getNumRangePartitions( long rlen, int brlen, int bytesPerRow )
+	{
+		if( FORCED_DIST_SORT )
+			return (int)Math.ceil((double)rlen/brlen);
+		
+		long hdfsBlocksize = InfrastructureAnalyzer.getHDFSBlockSize();
+		return (int)Math.ceil(((double)rlen*bytesPerRow)/hdfsBlocksize);
+	}
+	
+	/**
+	 * Computes the boundaries of the range partitions of the sort keys, based on a
+	 * sample of the input values. Keys are the values for ascending and the negated
+	 * values for descending order.
+	 * 
+	 * @param in
+	 * @param asc
+	 * @param rlen
+	 * @param numPartitions
+	 * @return
+	 */
+	private static double[] computeRangeSplits( JavaPairRDD<MatrixIndexes, MatrixBlock> in, boolean asc, long rlen, int numPartitions )
+	{
+		if( numPartitions <= 1 )
+			return new double[0];
+		
+		//collect sample of sort keys
+		double frac = Math.min((double)numPartitions * SAMPLE_SIZE_PER_PARTITION / rlen, 1);
+		List<double[]> samples = in
+				.map(new SampleSortKeysFunction(frac, asc))
+				.collect();
+		int len = 0;
+		for( double[] sample : samples )
+			len += sample.length;
+		if( len == 0 )
+			return new double[0];
+		double[] keys = new double[len];
+		int pos = 0;
+		for( double[] sample : samples ) {
+			System.arraycopy(sample, 0, keys, pos, sample.length);
+			pos += sample.length;
+		}
+		Arrays.sort(keys);
+		
+		//equi-depth boundaries w.r.t. the sample
+		double[] splits = new double[numPartitions-1];
+		for( int i=1; i<numPartitions; i++ )
+			splits[i-1] = keys[(int)((long)i*len/numPartitions)];
+		return splits;
+	}
+	
+	/**
+	 * Computes the global start offsets of all range partitions.
+	 * 
+	 * @param in
+	 * @param asc
+	 * @param splits
+	 * @return
+	 */
+	private static long[] computeRangeOffsets( JavaPairRDD<MatrixIndexes, MatrixBlock> in, boolean asc, double[] splits )
+	{
+		long[] counts = in
+				.map(new CountRangePartitionsFunction(splits, asc))
+				.fold(new long[splits.length+2], new SumCountsFunction());
+		
+		long[] offsets = new long[counts.length];
+		for( int i=1; i<counts.length; i++ )
+			offsets[i] = offsets[i-1] + counts[i-1];
+		return offsets;
+	}
+	
+	/**
+	 * Determines the range partition of a sort key, where NaNs are assigned to a
+	 * dedicated first (descending) or last (ascending) partition, consistent with 
+	 * the NaN handling of IndexComparator.
+	 * 
+	 * @param splits
+	 * @param key
+	 * @param asc
+	 * @return
+	 */
+	private static int getRangePartition( double[] splits, double key, boolean asc )
+	{
+		if( Double.isNaN(key) )
+			return asc ? splits.length+1 : 0;
+		int pos = Arrays.binarySearch(splits, key);
+		return (asc ? 0 : 1) + ((pos >= 0) ? pos : -pos-1);
+	}
+	
+	/**
+	 * 
+	 * @param val
+	 * @param asc
+	 * @return
+	 */
+	private static double getSortKey( double val, boolean asc )
+	{
+		//note: +0 normalizes -0 to 0 for consistent partitioning of equal keys
+		return (asc ? val : -val) + 0.0;
+	}
+	
 	/**
 	 * 
 	 */
@@ -297,21 +520,6 @@ public class RDDSortUtils
 		}		
 	}
 	
-	/**
-	 * 
-	 */
-	private static class CreateDoubleKeyFunction implements Function<Double,Double> 
-	{
-		private static final long serialVersionUID = 2021786334763247835L;
-
-		@Override
-		public Double call(Double arg0) 
-			throws Exception 
-		{
-			return arg0;
-		}		
-	}
-	
 	/**
 	 * 
 	 */
@@ -346,21 +554,21 @@ public class RDDSortUtils
 	/**
 	 * 
 	 */
-	private static class ConvertToBinaryBlockFunction implements PairFlatMapFunction<Iterator<Tuple2<Double,Long>>,MatrixIndexes,MatrixBlock> 
+	private static class ConvertToBinaryBlockFunction2 implements PairFlatMapFunction<Iterator<Tuple2<DoublePair,Long>>,MatrixIndexes,MatrixBlock> 
 	{
-		private static final long serialVersionUID = 5000298196472931653L;
+		private static final long serialVersionUID = -8638434373377180192L;
 		
 		private long _rlen = -1;
 		private int _brlen = -1;
 		
-		public ConvertToBinaryBlockFunction(long rlen, int brlen)
+		public ConvertToBinaryBlockFunction2(long rlen, int brlen)
 		{
 			_rlen = rlen;
 			_brlen = brlen;
 		}
 		
-		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<Double,Long>> arg0) 
-			throws Exception 
+		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<DoublePair,Long>> arg0) 
+			throws Exception
 		{
 			ArrayList<Tuple2<MatrixIndexes,MatrixBlock>> ret = new ArrayList<Tuple2<MatrixIndexes,MatrixBlock>>();
 			
@@ -369,7 +577,7 @@ public class RDDSortUtils
 			
 			while( arg0.hasNext() ) 
 			{
-				Tuple2<Double,Long> val = arg0.next();
+				Tuple2<DoublePair,Long> val = arg0.next();
 				long valix = val._2 + 1;
 				long rix = UtilFunctions.computeBlockIndex(valix, _brlen);
 				int pos = UtilFunctions.computeCellInBlock(valix, _brlen);
@@ -380,10 +588,11 @@ public class RDDSortUtils
 						ret.add(new Tuple2<MatrixIndexes,MatrixBlock>(ix,mb));
 					long len = UtilFunctions.computeBlockSize(_rlen, rix, _brlen);
 					ix = new MatrixIndexes(rix,1);
-					mb = new MatrixBlock((int)len, 1, false);	
+					mb = new MatrixBlock((int)len, 2, false);	
 				}
 				
-				mb.quickSetValue(pos, 0, val._1);
+				mb.quickSetValue(pos, 0, val._1.val1);
+				mb.quickSetValue(pos, 1, val._1.val2);
 			}
 			
 			//flush last block
@@ -393,24 +602,24 @@ public class RDDSortUtils
 			return ret;
 		}
 	}
-
+	
 	/**
 	 * 
 	 */
-	private static class ConvertToBinaryBlockFunction2 implements PairFlatMapFunction<Iterator<Tuple2<DoublePair,Long>>,MatrixIndexes,MatrixBlock> 
-	{
-		private static final long serialVersionUID = -8638434373377180192L;
+	private static class ConvertToBinaryBlockFunction4 implements PairFlatMapFunction<Iterator<Tuple2<Long,Long>>,MatrixIndexes,MatrixBlock> 
+	{	
+		private static final long serialVersionUID = 9113122668214965797L;
 		
 		private long _rlen = -1;
 		private int _brlen = -1;
 		
-		public ConvertToBinaryBlockFunction2(long rlen, int brlen)
+		public ConvertToBinaryBlockFunction4(long rlen, int brlen)
 		{
 			_rlen = rlen;
 			_brlen = brlen;
 		}
 		
-		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<DoublePair,Long>> arg0) 
+		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<Long,Long>> arg0) 
 			throws Exception
 		{
 			ArrayList<Tuple2<MatrixIndexes,MatrixBlock>> ret = new ArrayList<Tuple2<MatrixIndexes,MatrixBlock>>();
@@ -420,8 +629,8 @@ public class RDDSortUtils
 			
 			while( arg0.hasNext() ) 
 			{
-				Tuple2<DoublePair,Long> val = arg0.next();
-				long valix = val._2 + 1;
+				Tuple2<Long,Long> val = arg0.next();
+				long valix = val._1;
 				long rix = UtilFunctions.computeBlockIndex(valix, _brlen);
 				int pos = UtilFunctions.computeCellInBlock(valix, _brlen);
 				
@@ -431,11 +640,10 @@ public class RDDSortUtils
 						ret.add(new Tuple2<MatrixIndexes,MatrixBlock>(ix,mb));
 					long len = UtilFunctions.computeBlockSize(_rlen, rix, _brlen);
 					ix = new MatrixIndexes(rix,1);
-					mb = new MatrixBlock((int)len, 2, false);	
+					mb = new MatrixBlock((int)len, 1, false);	
 				}
 				
-				mb.quickSetValue(pos, 0, val._1.val1);
-				mb.quickSetValue(pos, 1, val._1.val2);
+				mb.quickSetValue(pos, 0, val._2+1);
 			}
 			
 			//flush last block
@@ -449,99 +657,224 @@ public class RDDSortUtils
 	/**
 	 * 
 	 */
-	private static class ConvertToBinaryBlockFunction3 implements PairFlatMapFunction<Iterator<Tuple2<ValueIndexPair,Long>>,MatrixIndexes,MatrixBlock> 
-	{		
-		private static final long serialVersionUID = 9113122668214965797L;
+	private static class SampleSortKeysFunction implements Function<Tuple2<MatrixIndexes,MatrixBlock>,double[]> 
+	{
+		private static final long serialVersionUID = -1529870396632291658L;
 		
-		private long _rlen = -1;
-		private int _brlen = -1;
+		private double _frac = -1;
+		private boolean _asc = true;
 		
-		public ConvertToBinaryBlockFunction3(long rlen, int brlen)
+		public SampleSortKeysFunction(double frac, boolean asc) {
+			_frac = frac;
+			_asc = asc;
+		}
+		
+		@Override
+		public double[] call(Tuple2<MatrixIndexes,MatrixBlock> arg0) 
+			throws Exception 
 		{
-			_rlen = rlen;
+			MatrixBlock mb = arg0._2();
+			Random rand = new Random(arg0._1().getRowIndex()); //deterministic
+			
+			double[] tmp = new double[mb.getNumRows()];
+			int len = 0;
+			for( int i=0; i<mb.getNumRows(); i++ ) {
+				double key = getSortKey(mb.quickGetValue(i, 0), _asc);
+				if( rand.nextDouble() < _frac && !Double.isNaN(key) )
+					tmp[len++] = key;
+			}
+			
+			return Arrays.copyOf(tmp, len);
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	private static class CountRangePartitionsFunction implements Function<Tuple2<MatrixIndexes,MatrixBlock>,long[]> 
+	{
+		private static final long serialVersionUID = 4497937591725296716L;
+		
+		private double[] _splits = null;
+		private boolean _asc = true;
+		
+		public CountRangePartitionsFunction(double[] splits, boolean asc) {
+			_splits = splits;
+			_asc = asc;
+		}
+		
+		@Override
+		public long[] call(Tuple2<MatrixIndexes,MatrixBlock> arg0) 
+			throws Exception 
+		{
+			MatrixBlock mb = arg0._2();
+			long[] ret = new long[_splits.length+2];
+			for( int i=0; i<mb.getNumRows(); i++ )
+				ret[getRangePartition(_splits, getSortKey(mb.quickGetValue(i, 0), _asc), _asc)]++;
+			return ret;
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	private static class SumCountsFunction implements Function2<long[],long[],long[]> 
+	{
+		private static final long serialVersionUID = -6306003424604582018L;
+
+		@Override
+		public long[] call(long[] arg0, long[] arg1) 
+			throws Exception 
+		{
+			//in-place aggregation into first argument
+			for( int i=0; i<arg0.length; i++ )
+				arg0[i] += arg1[i];
+			return arg0;
+		}
+	}
+	
+	/**
+	 * Splits the values of a column block into primitive key (and index) arrays per
+	 * range partition, which avoids the creation of objects per cell.
+	 */
+	private static class ExtractRangePartitionsFunction implements PairFlatMapFunction<Tuple2<MatrixIndexes,MatrixBlock>,Integer,SortChunk> 
+	{
+		private static final long serialVersionUID = 3457906285743624467L;
+		
+		private double[] _splits = null;
+		private boolean _asc = true;
+		private boolean _ixret = false;
+		private int _brlen = -1;
+		
+		public ExtractRangePartitionsFunction(double[] splits, boolean asc, boolean ixret, int brlen) {
+			_splits = splits;
+			_asc = asc;
+			_ixret = ixret;
 			_brlen = brlen;
 		}
 		
-		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<ValueIndexPair,Long>> arg0) 
-			throws Exception
+		@Override
+		public Iterable<Tuple2<Integer,SortChunk>> call(Tuple2<MatrixIndexes,MatrixBlock> arg0) 
+			throws Exception 
 		{
-			ArrayList<Tuple2<MatrixIndexes,MatrixBlock>> ret = new ArrayList<Tuple2<MatrixIndexes,MatrixBlock>>();
+			MatrixBlock mb = arg0._2();
+			int rlen = mb.getNumRows();
+			long ixoffset = (arg0._1().getRowIndex()-1)*_brlen;
 			
-			MatrixIndexes ix = null;
-			MatrixBlock mb = null;
+			//compute sort keys, range partitions, and partition sizes
+			double[] keys = new double[rlen];
+			int[] parts = new int[rlen];
+			int[] cnt = new int[_splits.length+2];
+			for( int i=0; i<rlen; i++ ) {
+				keys[i] = getSortKey(mb.quickGetValue(i, 0), _asc);
+				parts[i] = getRangePartition(_splits, keys[i], _asc);
+				cnt[parts[i]]++;
+			}
 			
-			while( arg0.hasNext() ) 
-			{
-				Tuple2<ValueIndexPair,Long> val = arg0.next();
-				long valix = val._2 + 1;
-				long rix = UtilFunctions.computeBlockIndex(valix, _brlen);
-				int pos = UtilFunctions.computeCellInBlock(valix, _brlen);
-				
-				if( ix == null || ix.getRowIndex() != rix )
-				{
-					if( ix !=null )
-						ret.add(new Tuple2<MatrixIndexes,MatrixBlock>(ix,mb));
-					long len = UtilFunctions.computeBlockSize(_rlen, rix, _brlen);
-					ix = new MatrixIndexes(rix,1);
-					mb = new MatrixBlock((int)len, 1, false);	
-				}
-				
-				mb.quickSetValue(pos, 0, val._1.ix);
+			//scatter keys (and 1-based row indexes) into chunks
+			SortChunk[] chunks = new SortChunk[cnt.length];
+			for( int i=0; i<rlen; i++ ) {
+				int p = parts[i];
+				if( chunks[p] == null )
+					chunks[p] = new SortChunk(cnt[p], _ixret);
+				chunks[p].append(keys[i], ixoffset+i+1);
 			}
 			
-			//flush last block
-			if( mb!=null && mb.getNonZeros() != 0 )
-				ret.add(new Tuple2<MatrixIndexes,MatrixBlock>(ix,mb));
+			ArrayList<Tuple2<Integer,SortChunk>> ret = new ArrayList<Tuple2<Integer,SortChunk>>();
+			for( int p=0; p<chunks.length; p++ )
+				if( chunks[p] != null )
+					ret.add(new Tuple2<Integer,SortChunk>(p, chunks[p]));
 			
 			return ret;
 		}
 	}
 	
 	/**
-	 * 
+	 * Sorts the primitive key arrays of a range partition and creates the output 
+	 * blocks of sorted values or indexes, starting at the partition's global offset.
 	 */
-	private static class ConvertToBinaryBlockFunction4 implements PairFlatMapFunction<Iterator<Tuple2<Long,Long>>,MatrixIndexes,MatrixBlock> 
-	{	
-		private static final long serialVersionUID = 9113122668214965797L;
+	private static class SortRangePartitionFunction implements PairFlatMapFunction<Iterator<Tuple2<Integer,SortChunk>>,MatrixIndexes,MatrixBlock> 
+	{
+		private static final long serialVersionUID = -2716325468745016453L;
 		
+		private long[] _offsets = null;
+		private boolean _ixret = false;
 		private long _rlen = -1;
 		private int _brlen = -1;
 		
-		public ConvertToBinaryBlockFunction4(long rlen, int brlen)
-		{
+		public SortRangePartitionFunction(long[] offsets, boolean ixret, long rlen, int brlen) {
+			_offsets = offsets;
+			_ixret = ixret;
 			_rlen = rlen;
 			_brlen = brlen;
 		}
 		
-		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<Long,Long>> arg0) 
-			throws Exception
+		@Override
+		public Iterable<Tuple2<MatrixIndexes, MatrixBlock>> call(Iterator<Tuple2<Integer,SortChunk>> arg0) 
+			throws Exception 
 		{
 			ArrayList<Tuple2<MatrixIndexes,MatrixBlock>> ret = new ArrayList<Tuple2<MatrixIndexes,MatrixBlock>>();
 			
+			//collect chunks of range partition (single partition per key)
+			ArrayList<SortChunk> chunks = new ArrayList<SortChunk>();
+			int part = -1, len = 0;
+			while( arg0.hasNext() ) {
+				Tuple2<Integer,SortChunk> tmp = arg0.next();
+				part = tmp._1();
+				chunks.add(tmp._2());
+				len += tmp._2().len;
+			}
+			if( chunks.isEmpty() )
+				return ret;
+			
+			//concatenate chunks (in order of row indexes for stable index sort)
+			if( _ixret )
+				Collections.sort(chunks, new SortChunkComparator());
+			double[] keys = new double[len];
+			long[] ixs = _ixret ? new long[len] : null;
+			int pos = 0;
+			for( SortChunk chunk : chunks ) {
+				System.arraycopy(chunk.keys, 0, keys, pos, chunk.len);
+				if( _ixret )
+					System.arraycopy(chunk.ixs, 0, ixs, pos, chunk.len);
+				pos += chunk.len;
+			}
+			
+			//local sort of primitive arrays (NaN partitions already in index order)
+			int[] perm = null;
+			if( _ixret ) {
+				perm = new int[len];
+				for( int i=0; i<len; i++ )
+					perm[i] = i;
+				if( !Double.isNaN(keys[0]) )
+					SortUtils.sortByValueStable(0, len, keys, perm);
+			}
+			else
+				Arrays.sort(keys);
+			
+			//create output blocks
 			MatrixIndexes ix = null;
 			MatrixBlock mb = null;
-			
-			while( arg0.hasNext() ) 
+			for( int i=0; i<len; i++ ) 
 			{
-				Tuple2<Long,Long> val = arg0.next();
-				long valix = val._1;
+				long valix = _offsets[part] + i + 1;
 				long rix = UtilFunctions.computeBlockIndex(valix, _brlen);
-				int pos = UtilFunctions.computeCellInBlock(valix, _brlen);
+				int rpos = UtilFunctions.computeCellInBlock(valix, _brlen);
 				
 				if( ix == null || ix.getRowIndex() != rix )
 				{
 					if( ix !=null )
 						ret.add(new Tuple2<MatrixIndexes,MatrixBlock>(ix,mb));
-					long len = UtilFunctions.computeBlockSize(_rlen, rix, _brlen);
+					long blen = UtilFunctions.computeBlockSize(_rlen, rix, _brlen);
 					ix = new MatrixIndexes(rix,1);
-					mb = new MatrixBlock((int)len, 1, false);	
+					mb = new MatrixBlock((int)blen, 1, false);	
 				}
 				
-				mb.quickSetValue(pos, 0, val._2+1);
+				mb.quickSetValue(rpos, 0, _ixret ? ixs[perm[i]] : keys[i]);
 			}
 			
 			//flush last block
-			if( mb!=null && mb.getNonZeros() != 0 )
+			if( mb!=null )
 				ret.add(new Tuple2<MatrixIndexes,MatrixBlock>(ix,mb));
 			
 			return ret;
@@ -740,6 +1073,42 @@ public class RDDSortUtils
 		}
 	}
 	
+	/**
+	 * Primitive arrays of sort keys and (optional) row indexes of a range partition.
+	 */
+	private static class SortChunk implements Serializable
+	{
+		private static final long serialVersionUID = -5294731698227683216L;
+		
+		public double[] keys = null;
+		public long[] ixs = null;
+		public int len = 0;
+		
+		public SortChunk(int size, boolean ixret) {
+			keys = new double[size];
+			ixs = ixret ? new long[size] : null;
+		}
+		
+		public void append(double key, long ix) {
+			keys[len] = key;
+			if( ixs != null )
+				ixs[len] = ix;
+			len++;
+		}
+	}
+	
+	/**
+	 * 
+	 */
+	private static class SortChunkComparator implements Comparator<SortChunk>
+	{
+		@Override
+		public int compare(SortChunk o1, SortChunk o2) {
+			//note: chunks are non-empty with disjoint index ranges
+			return Long.valueOf(o1.ixs[0]).compareTo(o2.ixs[0]);
+		}
+	}
+	
 	/**
 	 * 
 	 */
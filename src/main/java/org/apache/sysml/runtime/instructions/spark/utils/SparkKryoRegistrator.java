@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.instructions.spark.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.spark.serializer.KryoRegistrator;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import org.apache.sysml.runtime.controlprogram.caching.CacheDataInput;
+import org.apache.sysml.runtime.controlprogram.caching.CacheDataOutput;
+import org.apache.sysml.runtime.instructions.cp.KahanObject;
+import org.apache.sysml.runtime.instructions.spark.data.CorrMatrixBlock;
+import org.apache.sysml.runtime.instructions.spark.data.PartitionedBlock;
+import org.apache.sysml.runtime.instructions.spark.data.RowMatrixBlock;
+import org.apache.sysml.runtime.matrix.data.FrameBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixCell;
+import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
+import org.apache.sysml.runtime.matrix.data.SparseBlockCOO;
+import org.apache.sysml.runtime.matrix.data.SparseBlockCSR;
+import org.apache.sysml.runtime.matrix.data.SparseBlockMCSR;
+import org.apache.sysml.runtime.matrix.data.SparseRow;
+
+/**
+ * Kryo registrator for all data classes that are shuffled, broadcast, collected,
+ * or cached in serialized form by the spark backend. Matrix and frame blocks use
+ * custom serializers that redirect to our compact binary block formats (incl the
+ * sparse-aware encoding and fast serialization of dense/sparse blocks), which
+ * avoids the per-record overhead of generic java or field serialization.
+ *
+ * Enabled via spark.kryo.registrator (set by default in the SparkExecutionContext
+ * unless a custom spark.serializer is configured).
+ *
+ */
+public class SparkKryoRegistrator implements KryoRegistrator
+{
+	@Override
+	public void registerClasses(Kryo kryo)
+	{
+		//core data classes w/ custom serializers
+		kryo.register(MatrixIndexes.class, new MatrixIndexesSerializer());
+		kryo.register(MatrixBlock.class, new MatrixBlockSerializer());
+		kryo.register(FrameBlock.class, new FrameBlockSerializer());
+		kryo.register(PartitionedBlock.class, new PartitionedBlockSerializer());
+
+		//composite and auxiliary data classes (default field serializers)
+		kryo.register(MatrixCell.class);
+		kryo.register(CorrMatrixBlock.class);
+		kryo.register(RowMatrixBlock.class);
+		kryo.register(KahanObject.class);
+		kryo.register(SparseBlockMCSR.class);
+		kryo.register(SparseBlockCSR.class);
+		kryo.register(SparseBlockCOO.class);
+		kryo.register(SparseRow.class);
+		kryo.register(SparseRow[].class);
+		kryo.register(MatrixBlock[].class);
+		kryo.register(MatrixIndexes[].class);
+		kryo.register(double[].class);
+		kryo.register(int[].class);
+		kryo.register(long[].class);
+	}
+
+	/**
+	 * Serializer for matrix indexes via variable-length encoded longs.
+	 */
+	public static class MatrixIndexesSerializer extends Serializer<MatrixIndexes>
+	{
+		@Override
+		public void write(Kryo kryo, Output output, MatrixIndexes ix) {
+			output.writeLong(ix.getRowIndex(), true);
+			output.writeLong(ix.getColumnIndex(), true);
+		}
+
+		@Override
+		public MatrixIndexes read(Kryo kryo, Input input, Class<MatrixIndexes> type) {
+			long rix = input.readLong(true);
+			long cix = input.readLong(true);
+			return new MatrixIndexes(rix, cix);
+		}
+	}
+
+	/**
+	 * Serializer for matrix blocks, which reuses the binary block format via
+	 * exactly sized buffers and the fast block serialization of the buffer pool.
+	 */
+	public static class MatrixBlockSerializer extends Serializer<MatrixBlock>
+	{
+		@Override
+		public void write(Kryo kryo, Output output, MatrixBlock mb) {
+			try {
+				byte[] buff = new byte[(int)mb.getExactSizeOnDisk()];
+				mb.write(new CacheDataOutput(buff));
+				output.writeInt(buff.length, true);
+				output.writeBytes(buff);
+			}
+			catch(IOException ex) {
+				throw new KryoException("Failed to serialize matrix block.", ex);
+			}
+		}
+
+		@Override
+		public MatrixBlock read(Kryo kryo, Input input, Class<MatrixBlock> type) {
+			try {
+				byte[] buff = input.readBytes(input.readInt(true));
+				MatrixBlock ret = new MatrixBlock();
+				ret.readFields(new CacheDataInput(buff));
+				return ret;
+			}
+			catch(IOException ex) {
+				throw new KryoException("Failed to deserialize matrix block.", ex);
+			}
+		}
+	}
+
+	/**
+	 * Serializer for frame blocks, which reuses the writable frame format.
+	 */
+	public static class FrameBlockSerializer extends Serializer<FrameBlock>
+	{
+		@Override
+		public void write(Kryo kryo, Output output, FrameBlock fb) {
+			try {
+				DataOutputStream dos = new DataOutputStream(output);
+				fb.write(dos);
+				dos.flush();
+			}
+			catch(IOException ex) {
+				throw new KryoException("Failed to serialize frame block.", ex);
+			}
+		}
+
+		@Override
+		public FrameBlock read(Kryo kryo, Input input, Class<FrameBlock> type) {
+			try {
+				FrameBlock ret = new FrameBlock();
+				ret.readFields(new DataInputStream(input));
+				return ret;
+			}
+			catch(IOException ex) {
+				throw new KryoException("Failed to deserialize frame block.", ex);
+			}
+		}
+	}
+
+	/**
+	 * Serializer for partitioned blocks (e.g., of partitioned broadcasts), which
+	 * reuses the header and payload format of the partitioned block.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static class PartitionedBlockSerializer extends Serializer<PartitionedBlock>
+	{
+		@Override
+		public void write(Kryo kryo, Output output, PartitionedBlock pb) {
+			try {
+				DataOutputStream dos = new DataOutputStream(output);
+				pb.writeHeaderAndPayload(dos);
+				dos.flush();
+			}
+			catch(IOException ex) {
+				throw new KryoException("Failed to serialize partitioned block.", ex);
+			}
+		}
+
+		@Override
+		public PartitionedBlock read(Kryo kryo, Input input, Class<PartitionedBlock> type) {
+			try {
+				PartitionedBlock ret = new PartitionedBlock();
+				ret.readHeaderAndPayload(new DataInputStream(input));
+				return ret;
+			}
+			catch(IOException ex) {
+				throw new KryoException("Failed to deserialize partitioned block.", ex);
+			}
+		}
+	}
+}
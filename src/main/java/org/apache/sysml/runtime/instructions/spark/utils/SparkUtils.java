@@ -381,6 +381,18 @@ public class SparkUtils
 		return ret;
 	}
 	
+	/**
+	 * Indicates if the given rdd has a known partitioner (e.g., after partitionBy, 
+	 * reduceByKey, or partitioning-preserving operations thereof), in which case joins 
+	 * with equally partitioned inputs are narrow transformations without shuffle.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	public static boolean isPartitioned(JavaPairRDD<?,?> in) {
+		return in.rdd().partitioner().isDefined();
+	}
+	
 	/**
 	 * Utility to compute dimensions and non-zeros in a given RDD of binary cells.
 	 * 
@@ -20,9 +20,11 @@
 package org.apache.sysml.runtime.matrix.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.sysml.runtime.util.LongLongDoubleHashMap;
 import org.apache.sysml.runtime.util.LongLongDoubleHashMap.LLDoubleEntry;
+import org.apache.sysml.runtime.util.SortUtils;
 
 /**
  * Ctable map is an abstraction for the hashmap used for ctable's hash group-by
@@ -95,6 +97,23 @@ public class CTableMap
 	}
 	
 	/**
+	 * Merges the given (partial) ctable map into this map, incl 
+	 * the maintenance of internal summaries.
+	 * 
+	 * @param that
+	 */
+	public void merge(CTableMap that)
+	{
+		_map.addAll(that._map);
+		_maxRow = Math.max(_maxRow, that._maxRow);
+		_maxCol = Math.max(_maxCol, that._maxCol);
+	}
+	
+	/**
+	 * Converts the ctable map into a matrix block of the given dimensions,
+	 * where cells outside these dimensions are ignored. Sparse outputs are
+	 * directly constructed in CSR format (via counting sort by row and a 
+	 * sort of column indexes per row), i.e., w/o incremental appends.
 	 * 
 	 * @param rlen
 	 * @param clen
@@ -102,39 +121,61 @@ public class CTableMap
 	 */
 	public MatrixBlock toMatrixBlock(int rlen, int clen)
 	{
+		//extract entries into primitive arrays
+		int size = _map.size();
+		long[] rix = new long[size];
+		long[] cix = new long[size];
+		double[] vals = new double[size];
+		_map.extractValues(rix, cix, vals);
+		
+		//count non-zeros per row within the output dimensions
+		int[] rptr = new int[Math.max(rlen,0)+1];
+		int nnz = 0;
+		for( int i=0; i<size; i++ )
+			if( vals[i] != 0 && rix[i]<=rlen && cix[i]<=clen ) {
+				rptr[(int)rix[i]]++;
+				nnz++;
+			}
+		
 		//allocate new matrix block
-		int nnz = _map.size();
 		boolean sparse = MatrixBlock.evalSparseFormatInMemory(rlen, clen, nnz); 		
-		MatrixBlock mb = new MatrixBlock(rlen, clen, sparse, nnz);
+		MatrixBlock mb = new MatrixBlock(rlen, clen, sparse);
+		if( nnz == 0 )
+			return mb;
 		
 		// copy map values into new matrix block
 		if( sparse ) //SPARSE <- cells
 		{
-			//append cells to sparse target (prevent shifting)
-			for( LLDoubleEntry e : _map.extractValues() ) 
-			{
-				double value = e.value;
-				int rix = (int)e.key1;
-				int cix = (int)e.key2;
-				if( value != 0 && rix<=rlen && cix<=clen )
-					mb.appendValue( rix-1, cix-1, value );
-			}
+			//compute row pointers and scatter cells into rows
+			for( int i=1; i<=rlen; i++ )
+				rptr[i] += rptr[i-1];
+			int[] pos = Arrays.copyOf(rptr, rlen);
+			int[] indexes = new int[nnz];
+			double[] values = new double[nnz];
+			for( int i=0; i<size; i++ )
+				if( vals[i] != 0 && rix[i]<=rlen && cix[i]<=clen ) {
+					int p = pos[(int)rix[i]-1]++;
+					indexes[p] = (int)cix[i]-1;
+					values[p] = vals[i];
+				}
+			
+			//sort column indexes per row
+			for( int i=0; i<rlen; i++ )
+				if( rptr[i+1]-rptr[i] > 1 )
+					SortUtils.sortByIndex(rptr[i], rptr[i+1], indexes, values);
 			
-			//sort sparse target representation
-			mb.sortSparseRows();
+			mb.sparseBlock = new SparseBlockCSR(rptr, indexes, values, nnz);
 		}
 		else  //DENSE <- cells
 		{
 			//directly insert cells into dense target 
-			for( LLDoubleEntry e : _map.extractValues() ) 
-			{
-				double value = e.value;
-				int rix = (int)e.key1;
-				int cix = (int)e.key2;
-				if( value != 0 && rix<=rlen && cix<=clen )
-					mb.quickSetValue( rix-1, cix-1, value );
-			}
+			mb.allocateDenseBlock();
+			double[] c = mb.getDenseBlock();
+			for( int i=0; i<size; i++ )
+				if( vals[i] != 0 && rix[i]<=rlen && cix[i]<=clen )
+					c[(int)(rix[i]-1)*clen + (int)cix[i]-1] = vals[i];
 		}
+		mb.setNonZeros(nnz);
 		
 		return mb;
 	}
@@ -20,22 +20,22 @@
 package org.apache.sysml.runtime.matrix.data;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.CholeskyDecomposition;
-import org.apache.commons.math3.linear.DecompositionSolver;
 import org.apache.commons.math3.linear.EigenDecomposition;
-import org.apache.commons.math3.linear.LUDecomposition;
-import org.apache.commons.math3.linear.QRDecomposition;
 import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.sysml.hops.OptimizerUtils;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
 import org.apache.sysml.runtime.util.DataConverter;
 
 /**
- * Library for matrix operations that need invocation of 
+ * Library for matrix operations that originally required the invocation of 
  * Apache Commons Math library. 
  * 
  * This library currently supports following operations:
- * matrix inverse, matrix decompositions (QR, LU, Eigen), solve 
+ * matrix inverse, matrix decompositions (QR, LU, Eigen, Cholesky), solve.
+ * All operations are delegated to the multi-threaded dense kernels of 
+ * LibMatrixLinAlg, except eigen decompositions of non-symmetric matrices, 
+ * which are still computed via Apache Commons Math.
  */
 public class LibCommonsMath 
 {	
@@ -58,131 +58,73 @@ public class LibCommonsMath
 	public static MatrixBlock unaryOperations(MatrixObject inj, String opcode) 
 		throws DMLRuntimeException 
 	{
-		Array2DRowRealMatrix matrixInput = DataConverter.convertToArray2DRowRealMatrix(inj);
-		if(opcode.equals("inverse"))
-			return computeMatrixInverse(matrixInput);
-		else if (opcode.equals("cholesky"))
-			return computeCholesky(matrixInput);		
-		return null;
+		int k = OptimizerUtils.getConstrainedNumThreads(-1);
+		MatrixBlock in = inj.acquireRead();
+		try {
+			if(opcode.equals("inverse"))
+				return LibMatrixLinAlg.inverse(in, k);
+			else if (opcode.equals("cholesky"))
+				return LibMatrixLinAlg.cholesky(in, k);
+			return null;
+		}
+		finally {
+			inj.release();
+		}
 	}
 	
 	public static MatrixBlock[] multiReturnOperations(MatrixObject in, String opcode) 
 		throws DMLRuntimeException 
 	{
-		if(opcode.equals("qr"))
-			return computeQR(in);
-		else if (opcode.equals("lu"))
-			return computeLU(in);
-		else if (opcode.equals("eigen"))
-			return computeEigen(in);
-		return null;
+		int k = OptimizerUtils.getConstrainedNumThreads(-1);
+		MatrixBlock mb = in.acquireRead();
+		try {
+			if(opcode.equals("qr"))
+				return LibMatrixLinAlg.qr(mb, k);
+			else if (opcode.equals("lu"))
+				return LibMatrixLinAlg.lu(mb, k);
+			else if (opcode.equals("eigen"))
+				return LibMatrixLinAlg.isSymmetric(mb) ? 
+					LibMatrixLinAlg.eigen(mb, k) : computeEigen(mb);
+			return null;
+		}
+		finally {
+			in.release();
+		}
 	}
 	
 	public static MatrixBlock matrixMatrixOperations(MatrixObject in1, MatrixObject in2, String opcode) 
 		throws DMLRuntimeException 
 	{
-		if(opcode.equals("solve"))
-			return computeSolve(in1, in2);
-		return null;
-	}
-	
-	/**
-	 * Function to solve a given system of equations.
-	 * 
-	 * @param in1
-	 * @param in2
-	 * @return
-	 * @throws DMLRuntimeException
-	 */
-	private static MatrixBlock computeSolve(MatrixObject in1, MatrixObject in2) 
-		throws DMLRuntimeException 
-	{
-		Array2DRowRealMatrix matrixInput = DataConverter.convertToArray2DRowRealMatrix(in1);
-		Array2DRowRealMatrix vectorInput = DataConverter.convertToArray2DRowRealMatrix(in2);
-		
-		/*LUDecompositionImpl ludecompose = new LUDecompositionImpl(matrixInput);
-		DecompositionSolver lusolver = ludecompose.getSolver();
-		RealMatrix solutionMatrix = lusolver.solve(vectorInput);*/
-		
-		// Setup a solver based on QR Decomposition
-		QRDecomposition qrdecompose = new QRDecomposition(matrixInput);
-		DecompositionSolver solver = qrdecompose.getSolver();
-		// Invoke solve
-		RealMatrix solutionMatrix = solver.solve(vectorInput);
-		
-		return DataConverter.convertToMatrixBlock(solutionMatrix.getData());
-	}
-	
-	/**
-	 * Function to perform QR decomposition on a given matrix.
-	 * 
-	 * @param in
-	 * @return
-	 * @throws DMLRuntimeException
-	 */
-	private static MatrixBlock[] computeQR(MatrixObject in) 
-		throws DMLRuntimeException 
-	{
-		Array2DRowRealMatrix matrixInput = DataConverter.convertToArray2DRowRealMatrix(in);
-		
-		// Perform QR decomposition
-		QRDecomposition qrdecompose = new QRDecomposition(matrixInput);
-		RealMatrix H = qrdecompose.getH();
-		RealMatrix R = qrdecompose.getR();
-		
-		// Read the results into native format
-		MatrixBlock mbH = DataConverter.convertToMatrixBlock(H.getData());
-		MatrixBlock mbR = DataConverter.convertToMatrixBlock(R.getData());
-
-		return new MatrixBlock[] { mbH, mbR };
-	}
-	
-	/**
-	 * Function to perform LU decomposition on a given matrix.
-	 * 
-	 * @param in
-	 * @return
-	 * @throws DMLRuntimeException
-	 */
-	private static MatrixBlock[] computeLU(MatrixObject in) 
-		throws DMLRuntimeException 
-	{
-		if ( in.getNumRows() != in.getNumColumns() ) {
-			throw new DMLRuntimeException("LU Decomposition can only be done on a square matrix. Input matrix is rectangular (rows=" + in.getNumRows() + ", cols="+ in.getNumColumns() +")");
+		int k = OptimizerUtils.getConstrainedNumThreads(-1);
+		MatrixBlock mb1 = in1.acquireRead();
+		MatrixBlock mb2 = in2.acquireRead();
+		try {
+			if(opcode.equals("solve"))
+				return LibMatrixLinAlg.solve(mb1, mb2, k);
+			return null;
+		}
+		finally {
+			in1.release();
+			in2.release();
 		}
-		
-		Array2DRowRealMatrix matrixInput = DataConverter.convertToArray2DRowRealMatrix(in);
-		
-		// Perform LUP decomposition
-		LUDecomposition ludecompose = new LUDecomposition(matrixInput);
-		RealMatrix P = ludecompose.getP();
-		RealMatrix L = ludecompose.getL();
-		RealMatrix U = ludecompose.getU();
-		
-		// Read the results into native format
-		MatrixBlock mbP = DataConverter.convertToMatrixBlock(P.getData());
-		MatrixBlock mbL = DataConverter.convertToMatrixBlock(L.getData());
-		MatrixBlock mbU = DataConverter.convertToMatrixBlock(U.getData());
-
-		return new MatrixBlock[] { mbP, mbL, mbU };
 	}
 	
 	/**
-	 * Function to perform Eigen decomposition on a given matrix.
-	 * Input must be a symmetric matrix.
+	 * Function to perform Eigen decomposition on a given non-symmetric matrix
+	 * (symmetric matrices are handled by LibMatrixLinAlg).
 	 * 
 	 * @param in
 	 * @return
 	 * @throws DMLRuntimeException
 	 */
-	private static MatrixBlock[] computeEigen(MatrixObject in)
+	private static MatrixBlock[] computeEigen(MatrixBlock in)
 		throws DMLRuntimeException 
 	{
 		if ( in.getNumRows() != in.getNumColumns() ) {
 			throw new DMLRuntimeException("Eigen Decomposition can only be done on a square matrix. Input matrix is rectangular (rows=" + in.getNumRows() + ", cols="+ in.getNumColumns() +")");
 		}
 		
-		Array2DRowRealMatrix matrixInput = DataConverter.convertToArray2DRowRealMatrix(in);
+		Array2DRowRealMatrix matrixInput = new Array2DRowRealMatrix(DataConverter.convertToDoubleMatrix(in), false);
 		
 		EigenDecomposition eigendecompose = new EigenDecomposition(matrixInput);
 		RealMatrix eVectorsMatrix = eigendecompose.getV();
@@ -216,44 +158,4 @@ public class LibCommonsMath
 
 		return new MatrixBlock[] { mbValues, mbVectors };
 	}
-	
-	/**
-	 * Function to compute matrix inverse via matrix decomposition.
-	 * 
-	 * @param in
-	 * @return
-	 * @throws DMLRuntimeException
-	 */
-	private static MatrixBlock computeMatrixInverse(Array2DRowRealMatrix in) 
-		throws DMLRuntimeException 
-	{	
-		if ( !in.isSquare() )
-			throw new DMLRuntimeException("Input to inv() must be square matrix -- given: a " + in.getRowDimension() + "x" + in.getColumnDimension() + " matrix.");
-		
-		QRDecomposition qrdecompose = new QRDecomposition(in);
-		DecompositionSolver solver = qrdecompose.getSolver();
-		RealMatrix inverseMatrix = solver.getInverse();
-
-		return DataConverter.convertToMatrixBlock(inverseMatrix.getData());
-	}
-
-	/**
-	 * Function to compute Cholesky decomposition of the given input matrix. 
-	 * The input must be a real symmetric positive-definite matrix.
-	 * 
-	 * @param in
-	 * @return
-	 * @throws DMLRuntimeException
-	 */
-	private static MatrixBlock computeCholesky(Array2DRowRealMatrix in) 
-		throws DMLRuntimeException 
-	{	
-		if ( !in.isSquare() )
-			throw new DMLRuntimeException("Input to cholesky() must be square matrix -- given: a " + in.getRowDimension() + "x" + in.getColumnDimension() + " matrix.");
-
-		CholeskyDecomposition cholesky = new CholeskyDecomposition(in);
-		RealMatrix rmL = cholesky.getL();
-		
-		return DataConverter.convertToMatrixBlock(rmL.getData());
-	}
 }
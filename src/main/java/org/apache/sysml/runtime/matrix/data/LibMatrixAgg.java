@@ -27,6 +27,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import org.apache.sysml.hops.cost.CostModelProfile;
+import org.apache.sysml.hops.cost.CostModelProfile.CostParam;
 import org.apache.sysml.lops.PartialAggregate.CorrectionLocationType;
 import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.caching.MatrixObject.UpdateType;
@@ -200,6 +202,8 @@ public class LibMatrixAgg
 		}	
 		
 		//Timing time = new Timing(true);
+		boolean observe = CostModelProfile.isCalibrated() && !in.sparse && aggtype==AggType.KAHAN_SUM;
+		long t0 = observe ? System.nanoTime() : 0;
 		
 		//allocate output arrays (if required)
 		out.reset(m2, n2, false); //always dense
@@ -214,6 +218,10 @@ public class LibMatrixAgg
 		out.recomputeNonZeros();
 		out.examSparsity();
 		
+		//online refinement of cost model (dense sum, 4 flops per cell as of cost model)
+		if( observe )
+			CostModelProfile.maintainObservation(CostParam.FLOPS_AGG, 4d*m*in.clen, System.nanoTime()-t0, 1);
+		
 		//System.out.println("uagg ("+in.rlen+","+in.clen+","+in.sparse+") in "+time.stop()+"ms.");
 	}
 	
@@ -514,6 +522,9 @@ public class LibMatrixAgg
 				//special case for vector counts
 				groupedAggregateVecCount(groups, result, numGroups);
 			}
+			else if( target.clen==1 ) { //column vectors
+				groupedAggregateVector(groups, target, weights, result, numGroups, op, 1);
+			}
 			else { //general case
 				groupedAggregateCM(groups, target, weights, result, numGroups, cmOp, 0, target.clen);
 			}
@@ -522,7 +533,10 @@ public class LibMatrixAgg
 		//note: support for row/column vectors and dense/sparse
 		else if( op instanceof AggregateOperator ) {
 			AggregateOperator aggop = (AggregateOperator) op;
-			groupedAggregateKahanPlus(groups, target, weights, result, numGroups, aggop, 0, target.clen);
+			if( target.clen==1 && isGroupedSum(aggop) ) //column vectors
+				groupedAggregateVector(groups, target, weights, result, numGroups, op, 1);
+			else
+				groupedAggregateKahanPlus(groups, target, weights, result, numGroups, aggop, 0, target.clen);
 		}		
 	}
 	
@@ -540,9 +554,19 @@ public class LibMatrixAgg
 	public static void groupedAggregate(MatrixBlock groups, MatrixBlock target, MatrixBlock weights, MatrixBlock result, int numGroups, Operator op, int k) 
 		throws DMLRuntimeException
 	{
+		//multi-threaded grouped aggregate of column vectors over row partitions
+		boolean colVector = (target.getNumColumns()==1);
+		if( k > 1 && colVector && target.rlen >= PAR_NUMCELL_THRESHOLD 
+			&& (op instanceof CMOperator || (op instanceof AggregateOperator 
+			&& isGroupedSum((AggregateOperator)op))) ) 
+		{
+			groupedAggregateVector(groups, target, weights, result, numGroups, op, k);
+			return;
+		}
+		
 		//fall back to sequential version if necessary
 		boolean rowVector = (target.getNumRows()==1 && target.getNumColumns()>1);
-		if( k <= 1 || (long)target.rlen*target.clen < PAR_NUMCELL_THRESHOLD || rowVector || target.clen==1 ) {
+		if( k <= 1 || (long)target.rlen*target.clen < PAR_NUMCELL_THRESHOLD || rowVector || colVector ) {
 			groupedAggregate(groups, target, weights, result, numGroups, op);
 			return;
 		}
@@ -978,23 +1002,21 @@ public class LibMatrixAgg
 				int g = (int) groups.quickGetValue(i, 0);		
 				if ( g > numGroups )
 					continue;
+				if ( weights != null )
+					w = weights.quickGetValue(i, 0);
 				
-				if( !a.isEmpty(i) )
-				{
-					int pos = a.pos(i);
-					int len = a.size(i);
-					int[] aix = a.indexes(i);
-					double[] avals = a.values(i);	
-					int j = (cl==0) ? pos : a.posFIndexGTE(i,cl);
-					j = (j>=0) ? j : pos+len;
-					
-					for( ; j<pos+len && aix[j]<cu; j++ ) //for each nnz
-					{
-						if ( weights != null )
-							w = weights.quickGetValue(i, 0);
-						cmFn.execute(cmValues[g-1][aix[j]-cl], avals[j], w);						
-					}
-					//TODO sparse unsafe correction
+				//sparse unsafe: all cells incl zeros (same as dense)
+				boolean empty = a.isEmpty(i);
+				int pos = empty ? 0 : a.pos(i);
+				int len = empty ? 0 : a.size(i);
+				int[] aix = empty ? null : a.indexes(i);
+				double[] avals = empty ? null : a.values(i);	
+				int k = (empty || cl==0) ? pos : a.posFIndexGTE(i,cl);
+				k = (k>=0) ? k : pos+len;
+				
+				for( int j=cl; j<cu; j++ ) {
+					double d = (k<pos+len && aix[k]==j) ? avals[k++] : 0;
+					cmFn.execute(cmValues[g-1][j-cl], d, w);
 				}
 			}
 		}
@@ -1022,7 +1044,7 @@ public class LibMatrixAgg
 		for( int i=0; i < numGroups; i++ ) 
 			for( int j=0; j < numCols2; j++ ) {
 				// result is 0-indexed, so is cmValues
-				result.appendValue(i, j, cmValues[i][j+cl].getRequiredResult(cmOp));
+				result.appendValue(i, j+cl, cmValues[i][j].getRequiredResult(cmOp));
 			}			
 	}
 	
@@ -1058,6 +1080,110 @@ public class LibMatrixAgg
 		}
 	}
 	
+	/**
+	 * Grouped aggregate (sum, count, mean, variance, and central moments) of a column 
+	 * vector target into primitive per-group buffers. The multi-threaded computation 
+	 * aggregates disjoint row partitions into partial buffers, which are merged via the 
+	 * pairwise combiners of the respective moments. Partial buffers are dense arrays 
+	 * over all groups if their total size does not exceed the input size, and hash-based 
+	 * over the groups that actually appear in a partition otherwise.
+	 * 
+	 * @param groups
+	 * @param target
+	 * @param weights
+	 * @param result
+	 * @param numGroups
+	 * @param op
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void groupedAggregateVector( MatrixBlock groups, MatrixBlock target, MatrixBlock weights, MatrixBlock result, int numGroups, Operator op, int k ) 
+		throws DMLRuntimeException
+	{
+		AggregateOperationTypes type = (op instanceof CMOperator) ? 
+				((CMOperator)op).getAggOpType() : AggregateOperationTypes.SUM;
+		int m = target.rlen;
+		
+		GrpAggBuffer ret = null;
+		if( k <= 1 ) {
+			ret = new GrpAggBuffer(type, numGroups, false);
+			groupedAggregateVector(groups, target, weights, ret, numGroups, 0, m);
+		}
+		else {
+			boolean hashPartials = ((long)numGroups * k > m);
+			try {
+				ExecutorService pool = Executors.newFixedThreadPool( k );
+				ArrayList<GrpAggVectorTask> tasks = new ArrayList<GrpAggVectorTask>();
+				int blklen = (int)(Math.ceil((double)m/k));
+				for( int i=0; i<k & i*blklen<m; i++ )
+					tasks.add( new GrpAggVectorTask(groups, target, weights, type, numGroups, hashPartials, i*blklen, Math.min((i+1)*blklen, m)) );
+				List<Future<Object>> taskret = pool.invokeAll(tasks);	
+				pool.shutdown();
+				for( Future<Object> task : taskret )
+					task.get(); //error handling
+				
+				//merge partial buffers in order of row partitions
+				ret = tasks.get(0).getResult();
+				for( int i=1; i<tasks.size(); i++ )
+					ret.merge(tasks.get(i).getResult());
+			}
+			catch(Exception ex) {
+				throw new DMLRuntimeException(ex);
+			}
+		}
+		
+		//extract the results from group buffers
+		ret.extractResults(result, numGroups);
+	}
+	
+	/**
+	 * 
+	 * @param groups
+	 * @param target
+	 * @param weights
+	 * @param buff
+	 * @param numGroups
+	 * @param rl
+	 * @param ru
+	 * @throws DMLRuntimeException
+	 */
+	private static void groupedAggregateVector( MatrixBlock groups, MatrixBlock target, MatrixBlock weights, GrpAggBuffer buff, int numGroups, int rl, int ru ) 
+		throws DMLRuntimeException
+	{
+		//note: groups are typically dense because 0 invalid
+		double[] g = groups.isInSparseFormat() ? null : groups.denseBlock;
+		double[] a = target.isInSparseFormat() ? null : target.denseBlock;
+		double[] w = (weights==null || weights.isInSparseFormat()) ? null : weights.denseBlock;
+		boolean sum = (buff.getType() == AggregateOperationTypes.SUM);
+		boolean emptyTarget = target.isEmptyBlock(false);
+		
+		for( int i=rl; i<ru; i++ ) 
+		{
+			double gval = (g!=null) ? g[i] : groups.quickGetValue(i, 0);
+			double val = emptyTarget ? 0 : (a!=null) ? a[i] : target.quickGetValue(i, 0);
+			if( sum && val == 0 ) //sparse-safe sum
+				continue;
+			
+			int gix = (int) gval;
+			if( gix > numGroups )
+				continue;
+			if( gix <= 0 )
+				throw new DMLRuntimeException("Invalid value (" + gval + ") encountered in 'groups' while computing groupedAggregate.");
+			
+			double wval = (weights==null) ? 1 : (w!=null) ? w[i] : weights.quickGetValue(i, 0);
+			buff.add(buff.getSlot(gix), val, wval);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param aggop
+	 * @return
+	 */
+	private static boolean isGroupedSum( AggregateOperator aggop ) {
+		return (aggop.increOp.fn instanceof KahanPlus && aggop.initialValue == 0);
+	}
+	
 	/**
 	 * 
 	 * @param in
@@ -3059,11 +3185,14 @@ public class LibMatrixAgg
 	
 	/**
 	 * Summation using the Kahan summation algorithm with the
-	 * KahanPlus function.
+	 * KahanPlus function. Finite sums are computed with independent
+	 * compensated accumulators over the primitive array; only for
+	 * non-finite results we fall back to KahanPlus per value.
 	 */
 	private static void sum(double[] a, int ai, final int len, KahanObject kbuff, KahanPlus kplus)
 	{
-		sumWithFn(a, ai, len, kbuff, kplus);
+		if( !LibMatrixPrimitives.kahanSum(a, ai, len, false, kbuff) )
+			sumWithFn(a, ai, len, kbuff, kplus);
 	}
 
 	/**
@@ -3088,12 +3217,13 @@ public class LibMatrixAgg
 
 	/**
 	 * Summation of squared values using the Kahan summation algorithm
-	 * with the KahanPlusSq function.
+	 * with the KahanPlusSq function (see sum for the fallback).
 	 */
 	private static void sumSq(double[] a, int ai, final int len,
 	                          KahanObject kbuff, KahanPlusSq kplusSq)
 	{
-		sumWithFn(a, ai, len, kbuff, kplusSq);
+		if( !LibMatrixPrimitives.kahanSum(a, ai, len, true, kbuff) )
+			sumWithFn(a, ai, len, kbuff, kplusSq);
 	}
 
 	/**
@@ -3755,4 +3885,372 @@ public class LibMatrixAgg
 			return null;
 		}
 	}
+	
+	private static class GrpAggVectorTask extends AggTask 
+	{
+		private MatrixBlock _groups  = null;
+		private MatrixBlock _target  = null;
+		private MatrixBlock _weights  = null;
+		private int _numGroups = -1;
+		private int _rl = -1;
+		private int _ru = -1;
+		private GrpAggBuffer _ret = null;
+
+		protected GrpAggVectorTask( MatrixBlock groups, MatrixBlock target, MatrixBlock weights, AggregateOperationTypes type, int numGroups, boolean hash, int rl, int ru ) 
+			throws DMLRuntimeException
+		{
+			_groups = groups;
+			_target = target;
+			_weights = weights;
+			_numGroups = numGroups;
+			_rl = rl;
+			_ru = ru;
+			_ret = new GrpAggBuffer(type, numGroups, hash);
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			groupedAggregateVector(_groups, _target, _weights, _ret, _numGroups, _rl, _ru);
+			return null;
+		}
+		
+		public GrpAggBuffer getResult() {
+			return _ret;
+		}
+	}
+	
+	/**
+	 * Group buffer of primitive per-group accumulators (kahan sum and correction, or 
+	 * weight, mean, and 2nd-4th central moments, each with kahan correction). Dense 
+	 * buffers use the group index as buffer slot, while hash-based buffers map groups 
+	 * to slots via open addressing. The incremental updates and the pairwise merge of 
+	 * partial buffers use the same combiners and kahan additions as the CM function 
+	 * object (but without per-group objects).
+	 */
+	private static class GrpAggBuffer
+	{
+		private static final int INIT_CAPACITY = 1024;
+		
+		private final AggregateOperationTypes _type;
+		private final boolean _hash;
+		private int _size = 0; //number of slots
+		
+		//group-to-slot mapping (hash-based buffers only)
+		private int[] _groups = null;
+		private int[] _table = null;
+		
+		//per-slot accumulators (w/ kahan corrections)
+		private double[] _sum = null;
+		private double[] _corr = null;
+		private double[] _w = null;
+		private double[] _mean = null;
+		private double[] _cmean = null;
+		private double[] _m2 = null;
+		private double[] _cm2 = null;
+		private double[] _m3 = null;
+		private double[] _cm3 = null;
+		private double[] _m4 = null;
+		private double[] _cm4 = null;
+		
+		public GrpAggBuffer( AggregateOperationTypes type, int numGroups, boolean hash ) 
+			throws DMLRuntimeException
+		{
+			_type = type;
+			_hash = hash;
+			
+			int len = hash ? INIT_CAPACITY : numGroups;
+			switch( type ) {
+				case SUM:
+					_sum = new double[len];
+					_corr = new double[len];
+					break;
+				case CM4:
+					_m4 = new double[len];
+					_cm4 = new double[len];
+				case CM3:
+					_m3 = new double[len];
+					_cm3 = new double[len];
+				case CM2:
+				case VARIANCE:
+					_m2 = new double[len];
+					_cm2 = new double[len];
+				case MEAN:
+				case COUNT:
+					_w = new double[len];
+					_mean = new double[len];
+					_cmean = new double[len];
+					break;
+				default:
+					throw new DMLRuntimeException("Unsupported grouped aggregate type: "+type);
+			}
+			
+			if( hash ) {
+				_groups = new int[len];
+				_table = new int[2*len];
+			}
+			else
+				_size = numGroups;
+		}
+		
+		public AggregateOperationTypes getType() {
+			return _type;
+		}
+		
+		/**
+		 * Obtains the buffer slot of the given group (1-based), and
+		 * allocates a new slot for unseen groups of hash-based buffers.
+		 * 
+		 * @param group
+		 * @return
+		 */
+		public int getSlot( int group )
+		{
+			if( !_hash )
+				return group-1;
+			
+			//probe for existing slot (table entries are slot+1, 0 for empty)
+			int mask = _table.length-1;
+			int ix = hash(group) & mask;
+			while( _table[ix] != 0 ) {
+				if( _groups[_table[ix]-1] == group )
+					return _table[ix]-1;
+				ix = (ix+1) & mask;
+			}
+			
+			//allocate new slot, incl resize w/ load factor 0.5 
+			int slot = _size++;
+			if( slot >= _groups.length )
+				grow();
+			_groups[slot] = group;
+			_table[ix] = slot+1;
+			if( 2*_size > _table.length ) 
+				rehash();
+			return slot;
+		}
+		
+		/**
+		 * Adds the given value with the given weight to the accumulators of the given slot.
+		 * 
+		 * @param s
+		 * @param v
+		 * @param w2
+		 */
+		public void add( int s, double v, double w2 )
+		{
+			if( _type == AggregateOperationTypes.SUM ) {
+				kahanAdd(_sum, _corr, s, v*w2, 0);
+				return;
+			}
+			
+			//first value of the group
+			if( isEmpty(s) ) {
+				_w[s] = w2;
+				_mean[s] = v;
+				return;
+			}
+			
+			double w1 = _w[s];
+			if( _type == AggregateOperationTypes.COUNT ) {
+				_w[s] = Math.round(w1 + w2);
+				return;
+			}
+			
+			double w = w1 + w2;
+			double d = v - _mean[s];
+			kahanAdd(_mean, _cmean, s, w2*d/w, 0);
+			if( _m2 != null ) {
+				double m2 = _m2[s];
+				double t1 = w1*w2/w*d;
+				kahanAdd(_m2, _cm2, s, t1*d, 0);
+				if( _m3 != null ) {
+					double m3 = _m3[s];
+					double t2 = -1/w1;
+					double f2 = w2/w;
+					kahanAdd(_m3, _cm3, s, t1*t1*t1*(1/(w2*w2)-t2*t2) - 3*m2*f2*d, 0);
+					if( _m4 != null )
+						kahanAdd(_m4, _cm4, s, 6*m2*(f2*d)*(f2*d) + t1*t1*t1*t1*(1/(w2*w2*w2)-t2*t2*t2) - 4*m3*f2*d, 0);
+				}
+			}
+			_w[s] = w;
+		}
+		
+		/**
+		 * Merges the given partial buffer into this buffer.
+		 * 
+		 * @param that
+		 */
+		public void merge( GrpAggBuffer that )
+		{
+			for( int s=0; s<that._size; s++ ) {
+				if( that.isEmpty(s) )
+					continue;
+				int group = that._hash ? that._groups[s] : s+1;
+				merge(getSlot(group), that, s);
+			}
+		}
+		
+		/**
+		 * Appends the results of all groups to the given result block. 
+		 * 
+		 * @param result
+		 * @param numGroups
+		 * @throws DMLRuntimeException 
+		 */
+		public void extractResults( MatrixBlock result, int numGroups ) 
+			throws DMLRuntimeException
+		{
+			if( !_hash ) {
+				for( int i=0; i<numGroups; i++ )
+					result.appendValue(i, 0, getResult(i));
+				return;
+			}
+			
+			//sort slots by group index, and fill groups w/o values
+			long[] tmp = new long[_size];
+			for( int s=0; s<_size; s++ )
+				tmp[s] = ((long)_groups[s] << 32) | s;
+			Arrays.sort(tmp);
+			double empty = getResult(_type, 0, 0, 0, 0, 0, 0);
+			for( int i=0, pos=0; i<numGroups; i++ ) {
+				if( pos < _size && (int)(tmp[pos] >>> 32) == i+1 )
+					result.appendValue(i, 0, getResult((int)tmp[pos++]));
+				else
+					result.appendValue(i, 0, empty);
+			}
+		}
+		
+		private void merge( int t, GrpAggBuffer that, int s )
+		{
+			if( _type == AggregateOperationTypes.SUM ) {
+				kahanAdd(_sum, _corr, t, that._sum[s], that._corr[s]);
+				return;
+			}
+			
+			//copy partial stats into empty slot
+			if( isEmpty(t) ) {
+				_w[t] = that._w[s];
+				_mean[t] = that._mean[s];
+				_cmean[t] = that._cmean[s];
+				if( _m2 != null ) { _m2[t] = that._m2[s]; _cm2[t] = that._cm2[s]; }
+				if( _m3 != null ) { _m3[t] = that._m3[s]; _cm3[t] = that._cm3[s]; }
+				if( _m4 != null ) { _m4[t] = that._m4[s]; _cm4[t] = that._cm4[s]; }
+				return;
+			}
+			
+			double w1 = _w[t], w2 = that._w[s];
+			if( _type == AggregateOperationTypes.COUNT ) {
+				_w[t] = Math.round(w1 + w2);
+				return;
+			}
+			
+			double w = w1 + w2;
+			double d = that._mean[s] - _mean[t];
+			kahanAdd(_mean, _cmean, t, w2*d/w, 0);
+			if( _m2 != null ) {
+				double m2a = _m2[t], m2b = that._m2[s];
+				double t1 = w1*w2/w*d;
+				kahanAdd(_m2, _cm2, t, m2b, that._cm2[s]);
+				kahanAdd(_m2, _cm2, t, t1*d, 0);
+				if( _m3 != null ) {
+					double m3a = _m3[t], m3b = that._m3[s];
+					double t2 = -1/w1;
+					double f1 = w1/w, f2 = w2/w;
+					kahanAdd(_m3, _cm3, t, m3b, that._cm3[s]);
+					kahanAdd(_m3, _cm3, t, 3*(-f2*m2a+f1*m2b)*d + t1*t1*t1*(1/(w2*w2)-t2*t2), 0);
+					if( _m4 != null ) {
+						kahanAdd(_m4, _cm4, t, that._m4[s], that._cm4[s]);
+						kahanAdd(_m4, _cm4, t, 4*(-f2*m3a+f1*m3b)*d 
+							+ 6*(f2*f2*m2a+f1*f1*m2b)*d*d + t1*t1*t1*t1*(1/(w2*w2*w2)-t2*t2*t2), 0);
+					}
+				}
+			}
+			_w[t] = w;
+		}
+		
+		private static void kahanAdd( double[] sums, double[] corrs, int s, double in, double corr )
+		{
+			//fast path for INF/-INF in order to ensure result correctness (see KahanPlus)
+			if( Double.isInfinite(sums[s]) || Double.isInfinite(in) ) {
+				sums[s] = Double.isInfinite(in) ? in : sums[s];
+				corrs[s] = 0;
+				return;
+			}
+			double correction = in + (corrs[s] + corr);
+			double sum = sums[s] + correction;
+			corrs[s] = correction - (sum - sums[s]);
+			sums[s] = sum;
+		}
+		
+		private boolean isEmpty( int s ) {
+			if( _type == AggregateOperationTypes.SUM )
+				return isZero(_sum, _corr, s);
+			return _w[s]==0 && isZero(_mean, _cmean, s) && isZero(_m2, _cm2, s)
+				&& isZero(_m3, _cm3, s) && isZero(_m4, _cm4, s);
+		}
+		
+		private static boolean isZero( double[] sums, double[] corrs, int s ) {
+			return sums==null || (sums[s]==0 && corrs[s]==0);
+		}
+		
+		private double getResult( int s ) 
+			throws DMLRuntimeException
+		{
+			if( _type == AggregateOperationTypes.SUM )
+				return _sum[s];
+			return getResult(_type, _w[s], _mean[s], (_m2!=null)?_m2[s]:0, 
+					(_m3!=null)?_m3[s]:0, (_m4!=null)?_m4[s]:0, 0);
+		}
+		
+		private static double getResult( AggregateOperationTypes type, double w, double mean, double m2, double m3, double m4, double sum ) 
+			throws DMLRuntimeException
+		{
+			//see CM_COV_Object.getRequiredResult
+			switch( type ) {
+				case SUM:      return sum;
+				case COUNT:    return w;
+				case MEAN:     return mean;
+				case CM2:      return m2/w;
+				case CM3:      return m3/w;
+				case CM4:      return m4/w;
+				case VARIANCE: return (w==1.0) ? 0 : m2/(w-1);
+				default:
+					throw new DMLRuntimeException("Unsupported grouped aggregate type: "+type);
+			}
+		}
+		
+		private void grow()
+		{
+			int len = 2*_groups.length;
+			_groups = Arrays.copyOf(_groups, len);
+			_sum = (_sum!=null) ? Arrays.copyOf(_sum, len) : null;
+			_corr = (_corr!=null) ? Arrays.copyOf(_corr, len) : null;
+			_w = (_w!=null) ? Arrays.copyOf(_w, len) : null;
+			_mean = (_mean!=null) ? Arrays.copyOf(_mean, len) : null;
+			_cmean = (_cmean!=null) ? Arrays.copyOf(_cmean, len) : null;
+			_m2 = (_m2!=null) ? Arrays.copyOf(_m2, len) : null;
+			_cm2 = (_cm2!=null) ? Arrays.copyOf(_cm2, len) : null;
+			_m3 = (_m3!=null) ? Arrays.copyOf(_m3, len) : null;
+			_cm3 = (_cm3!=null) ? Arrays.copyOf(_cm3, len) : null;
+			_m4 = (_m4!=null) ? Arrays.copyOf(_m4, len) : null;
+			_cm4 = (_cm4!=null) ? Arrays.copyOf(_cm4, len) : null;
+		}
+		
+		private void rehash()
+		{
+			_table = new int[2*_table.length];
+			int mask = _table.length-1;
+			for( int s=0; s<_size; s++ ) {
+				int ix = hash(_groups[s]) & mask;
+				while( _table[ix] != 0 )
+					ix = (ix+1) & mask;
+				_table[ix] = s+1;
+			}
+		}
+		
+		private static int hash( int group ) {
+			int h = group * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
 }
@@ -937,7 +937,11 @@ public class LibMatrixBincell
 		
 		boolean copyOnes = (op.fn instanceof NotEquals && op.getConstant()==0);
 		
-		if( m1.sparse ) //SPARSE <- SPARSE
+		if( m1.isInSparseCSRFormat() ) //CSR <- CSR
+		{
+			safeBinaryScalarCSR(m1, ret, op);
+		}
+		else if( m1.sparse ) //SPARSE <- SPARSE
 		{	
 			//allocate sparse row structure
 			ret.allocateSparseRowsBlock();
@@ -1000,6 +1004,45 @@ public class LibMatrixBincell
 		
 	}
 	
+	/**
+	 * Sparse-safe binary scalar operation over a CSR input, which directly
+	 * constructs the CSR output in a single pass over the contiguous arrays
+	 * (with the input nnz as upper bound) instead of per-row allocations.
+	 * 
+	 * @param m1
+	 * @param ret
+	 * @param op
+	 * @throws DMLRuntimeException
+	 */
+	private static void safeBinaryScalarCSR(MatrixBlock m1, MatrixBlock ret, ScalarOperator op)
+		throws DMLRuntimeException
+	{
+		final int m = m1.rlen;
+		SparseBlock a = m1.sparseBlock;
+		int[] aix = a.indexes(0);
+		double[] avals = a.values(0);
+		
+		int[] rptr = new int[m+1];
+		int[] cix = new int[(int)a.size()];
+		double[] cvals = new double[(int)a.size()];
+		int pos = 0;
+		for( int i=0; i<m; i++ ) {
+			int apos = a.pos(i);
+			int alen = a.size(i);
+			for( int j=apos; j<apos+alen; j++ ) {
+				double val = op.executeScalar(avals[j]);
+				if( val != 0 ) {
+					cix[pos] = aix[j];
+					cvals[pos] = val;
+					pos++;
+				}
+			}
+			rptr[i+1] = pos;
+		}
+		ret.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, pos);
+		ret.nonZeros = pos;
+	}
+	
 	/**
 	 * Since this operation is sparse-unsafe, ret should always be passed in dense representation.
 	 * 
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.matrix.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.functionobjects.CTable;
+import org.apache.sysml.runtime.util.UtilFunctions;
+
+/**
+ * Library for contingency table (ctable) computation of ctable(A,B,W), where B and W
+ * can be matrices or scalars. Depending on the output dimensions, the ctable is either
+ * aggregated into a dense array (if the dimensions are known or obtained via a cheap
+ * pre-scan of the inputs, and the output is dense) or into a hash map with primitive
+ * keys, which is then directly converted into a CSR or dense output block.
+ *
+ * The computation is multi-threaded over disjoint row ranges of the inputs, where
+ * every thread aggregates into its own partial ctable, and the partial results are
+ * merged at the end. For dense outputs, the number of threads is constrained such
+ * that the partial arrays do not exceed the size of the inputs.
+ *
+ */
+public class LibMatrixCTable
+{
+	private static final long PAR_NUMCELL_THRESHOLD = 1024*1024;   //Min 1M elements
+
+	private LibMatrixCTable() {
+		//prevent instantiation via private constructor
+	}
+
+	/**
+	 * Computes the ctable F = ctable(A,B,W) with A=in1, B=in2 or v2 (if in2 is null), and
+	 * W=w or sw (if w is null). Cells outside the given output dimensions are ignored;
+	 * if the output dimensions are unknown (-1), they are determined by the maximum
+	 * row and column index.
+	 *
+	 * @param in1
+	 * @param in2
+	 * @param v2
+	 * @param w
+	 * @param sw
+	 * @param ignoreZeros
+	 * @param dim1
+	 * @param dim2
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock ctable(MatrixBlock in1, MatrixBlock in2, double v2, MatrixBlock w, double sw,
+			boolean ignoreZeros, long dim1, long dim2, int k)
+		throws DMLRuntimeException
+	{
+		int m = in1.getNumRows();
+		long ncells = (long)m * in1.getNumColumns();
+		boolean dimsKnown = (dim1 != -1 && dim2 != -1);
+
+		//determine output dimensions of dense aggregation (w/ pre-scan if necessary)
+		long rows = dim1, cols = dim2;
+		if( !dimsKnown ) {
+			long[] max = computeMaxIndexes(in1, in2, v2, w, sw);
+			rows = max[0];
+			cols = max[1];
+		}
+		boolean dense = rows >= 1 && cols >= 1 && rows*cols <= Integer.MAX_VALUE
+			&& !MatrixBlock.evalSparseFormatInMemory(rows, cols, ncells);
+
+		//determine degree of parallelism (dense partial results limited by input size)
+		int numThreads = (k > 1 && ncells >= PAR_NUMCELL_THRESHOLD) ? Math.min(k, m) : 1;
+		if( dense )
+			numThreads = (int) Math.min(numThreads, Math.max(1, ncells/(rows*cols)));
+
+		//core ctable computation (serial or multi-threaded)
+		ArrayList<CTableTask> tasks = new ArrayList<CTableTask>();
+		if( numThreads <= 1 ) {
+			CTableTask task = new CTableTask(in1, in2, v2, w, sw, ignoreZeros,
+					dense, (int)rows, (int)cols, 0, m);
+			task.call();
+			tasks.add(task);
+		}
+		else {
+			try {
+				ExecutorService pool = Executors.newFixedThreadPool( numThreads );
+				int blklen = (int)(Math.ceil((double)m/numThreads));
+				for( int i=0; i<numThreads & i*blklen<m; i++ )
+					tasks.add(new CTableTask(in1, in2, v2, w, sw, ignoreZeros,
+						dense, (int)rows, (int)cols, i*blklen, Math.min((i+1)*blklen, m)));
+				List<Future<Object>> taskret = pool.invokeAll(tasks);
+				pool.shutdown();
+				for( Future<Object> task : taskret )
+					task.get(); //error handling
+			}
+			catch(Exception ex) {
+				throw new DMLRuntimeException(ex);
+			}
+		}
+
+		//merge partial results and create output
+		if( dense ) {
+			MatrixBlock out = new MatrixBlock((int)rows, (int)cols, false);
+			double[] c = tasks.get(0).getDenseResult();
+			for( int i=1; i<tasks.size(); i++ ) {
+				double[] tmp = tasks.get(i).getDenseResult();
+				for( int j=0; j<c.length; j++ )
+					c[j] += tmp[j];
+			}
+			out.denseBlock = c; //w/o copy
+			out.recomputeNonZeros();
+			out.examSparsity();
+			return out;
+		}
+		else {
+			CTableMap map = tasks.get(0).getMapResult();
+			for( int i=1; i<tasks.size(); i++ )
+				map.merge(tasks.get(i).getMapResult());
+			return dimsKnown ? map.toMatrixBlock((int)dim1, (int)dim2) :
+				map.toMatrixBlock((int)map.getMaxRow(), (int)map.getMaxColumn());
+		}
+	}
+
+	/**
+	 * Determines the maximum row and column indexes of all valid ctable tuples,
+	 * i.e., the output dimensions of the hash-based ctable computation.
+	 *
+	 * @param in1
+	 * @param in2
+	 * @param v2
+	 * @param w
+	 * @param sw
+	 * @return
+	 */
+	private static long[] computeMaxIndexes(MatrixBlock in1, MatrixBlock in2, double v2, MatrixBlock w, double sw)
+	{
+		int m = in1.getNumRows();
+		int n = in1.getNumColumns();
+		double[] a = getDenseValues(in1);
+		double[] b = getDenseValues(in2);
+		double[] c = getDenseValues(w);
+
+		long maxRow = -1, maxCol = -1;
+		for( int i=0, ix=0; i<m; i++ )
+			for( int j=0; j<n; j++, ix++ ) {
+				double val1 = getValue(in1, a, 0, ix, i, j);
+				double val2 = getValue(in2, b, v2, ix, i, j);
+				double wt = getValue(w, c, sw, ix, i, j);
+				if( Double.isNaN(val1) || Double.isNaN(val2) || Double.isNaN(wt) )
+					continue;
+				maxRow = Math.max(maxRow, UtilFunctions.toLong(val1));
+				maxCol = Math.max(maxCol, UtilFunctions.toLong(val2));
+			}
+
+		return new long[]{maxRow, maxCol};
+	}
+
+	/**
+	 * Aggregates a single ctable tuple into a dense row-major array, with the
+	 * same semantics as the ctable function object.
+	 *
+	 * @param v1
+	 * @param v2
+	 * @param w
+	 * @param ignoreZeros
+	 * @param c
+	 * @param m
+	 * @param n
+	 * @throws DMLRuntimeException
+	 */
+	private static void aggregate(double v1, double v2, double w, boolean ignoreZeros, double[] c, int m, int n)
+		throws DMLRuntimeException
+	{
+		//skip tuples w/ missing values
+		if( Double.isNaN(v1) || Double.isNaN(v2) || Double.isNaN(w) )
+			return;
+
+		long row = UtilFunctions.toLong( v1 );
+		long col = UtilFunctions.toLong( v2 );
+		if( ignoreZeros && row == 0 && col == 0 )
+			return;
+		if( row <= 0 || col <= 0 )
+			throw new DMLRuntimeException("Erroneous input while computing the contingency table (one of the value <= zero): "+v1+" "+v2);
+
+		//skip tuples outside the output dimensions
+		if( row > m || col > n )
+			return;
+
+		c[(int)(row-1)*n + (int)(col-1)] += w;
+	}
+
+	/**
+	 *
+	 * @param mb
+	 * @return
+	 */
+	private static double[] getDenseValues(MatrixBlock mb) {
+		return (mb != null && !mb.isInSparseFormat()) ? mb.getDenseBlock() : null;
+	}
+
+	/**
+	 *
+	 * @param mb
+	 * @param a
+	 * @param scalar
+	 * @param ix
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	private static double getValue(MatrixBlock mb, double[] a, double scalar, int ix, int i, int j) {
+		if( mb == null )
+			return scalar;
+		return (a != null) ? a[ix] : mb.quickGetValue(i, j);
+	}
+
+	/**
+	 * Task for computing a partial ctable over a row range of the inputs.
+	 */
+	private static class CTableTask implements Callable<Object>
+	{
+		private MatrixBlock _in1 = null;
+		private MatrixBlock _in2 = null;
+		private double _v2 = -1;
+		private MatrixBlock _w = null;
+		private double _sw = -1;
+		private boolean _ignoreZeros = false;
+		private int _m = -1;
+		private int _n = -1;
+		private int _rl = -1;
+		private int _ru = -1;
+
+		//partial results (dense or hash-based)
+		private double[] _c = null;
+		private CTableMap _map = null;
+
+		protected CTableTask(MatrixBlock in1, MatrixBlock in2, double v2, MatrixBlock w, double sw,
+				boolean ignoreZeros, boolean dense, int m, int n, int rl, int ru)
+		{
+			_in1 = in1;
+			_in2 = in2;
+			_v2 = v2;
+			_w = w;
+			_sw = sw;
+			_ignoreZeros = ignoreZeros;
+			_m = m;
+			_n = n;
+			_rl = rl;
+			_ru = ru;
+			if( dense )
+				_c = new double[m*n];
+			else
+				_map = new CTableMap();
+		}
+
+		public double[] getDenseResult() {
+			return _c;
+		}
+
+		public CTableMap getMapResult() {
+			return _map;
+		}
+
+		@Override
+		public Object call()
+			throws DMLRuntimeException
+		{
+			CTable ctable = CTable.getCTableFnObject();
+			int n = _in1.getNumColumns();
+
+			if( _ignoreZeros && _in2 != null && _w == null //SPARSE-SAFE & SPARSE INPUTS
+				&& _in1.isInSparseFormat() && _in2.isInSparseFormat()
+				&& _in1.getSparseBlock() != null && _in2.getSparseBlock() != null )
+			{
+				//note: only used if both inputs have aligned zeros, which
+				//allows us to infer that the nnz both inputs are equivalent
+				SparseBlock a = _in1.getSparseBlock();
+				SparseBlock b = _in2.getSparseBlock();
+				for( int i=_rl; i<_ru; i++ ) {
+					if( a.isEmpty(i) )
+						continue;
+					int alen = a.size(i);
+					int apos = a.pos(i);
+					double[] avals = a.values(i);
+					int bpos = b.pos(i);
+					double[] bvals = b.values(i);
+					if( _c != null ) {
+						for( int j=0; j<alen; j++ )
+							aggregate(avals[apos+j], bvals[bpos+j], _sw, true, _c, _m, _n);
+					}
+					else {
+						for( int j=0; j<alen; j++ )
+							ctable.execute(avals[apos+j], bvals[bpos+j], _sw, true, _map);
+					}
+				}
+			}
+			else //SPARSE-UNSAFE | GENERIC INPUTS
+			{
+				//sparse-unsafe ctable execution
+				//(because input values of 0 are invalid and have to result in errors)
+				double[] a = getDenseValues(_in1);
+				double[] b = getDenseValues(_in2);
+				double[] c = getDenseValues(_w);
+				for( int i=_rl, ix=_rl*n; i<_ru; i++ )
+					for( int j=0; j<n; j++, ix++ ) {
+						double v1 = getValue(_in1, a, 0, ix, i, j);
+						double v2 = getValue(_in2, b, _v2, ix, i, j);
+						double w = getValue(_w, c, _sw, ix, i, j);
+						if( _c != null )
+							aggregate(v1, v2, w, _ignoreZeros, _c, _m, _n);
+						else
+							ctable.execute(v1, v2, w, _ignoreZeros, _map);
+					}
+			}
+
+			return null;
+		}
+	}
+}
@@ -20,10 +20,13 @@ package org.apache.sysml.runtime.matrix.data;
 
 import java.lang.ref.SoftReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.sysml.hops.OptimizerUtils;
@@ -56,9 +59,12 @@ public class LibMatrixDNN {
 	}
 	
 	enum TaskType {
-		ReshapeCol, Rotate180, Im2Col, Col2Im, MaxPooling_Forward, MaxPooling_Backward
+		ReshapeCol, Rotate180, Im2Col, Col2Im, MaxPooling_Forward, MaxPooling_Backward,
+		Conv2d, Conv2d_Backward_Filter, Conv2d_Backward_Data
 	}
 	public static final int TASK_SIZE = 64; // to take care of extremely small tasks
+	// Output tile size (in cells) per block of filters in direct conv2d (256KB)
+	private static final int DIRECT_CONV_BLOCKSIZE = 32 * 1024;
 	
 	public static class ConvolutionParameters {
 		public int N; public int C; public int H; public int W;
@@ -138,6 +144,98 @@ public class LibMatrixDNN {
 		}
 	}
 	
+	/**
+	 * Computes the 2D convolution of the input images (N x CHW, in NCHW format) with the 
+	 * filters (K x CRS) directly, i.e., without materializing the im2col matrix (CRS x NPQ).
+	 * The output (N x KPQ) is expected to be an allocated and zeroed dense block. 
+	 * 
+	 * @param input
+	 * @param filter
+	 * @param outputBlock
+	 * @param params
+	 * @throws DMLRuntimeException
+	 */
+	public static void conv2d(MatrixBlock input, MatrixBlock filter, MatrixBlock outputBlock, ConvolutionParameters params) throws DMLRuntimeException {
+		params.input1 = input;
+		params.input2 = filter;
+		params.output = outputBlock;
+		
+		if(input.getNumRows() != params.N || input.getNumColumns() != params.C*params.H*params.W) {
+			throw new DMLRuntimeException("Incorrect input dimensions in conv2d:" + input.getNumRows() + " " + input.getNumColumns() + " " + params.N + " " + params.C*params.H*params.W);
+		}
+		if(filter.getNumRows() != params.K || filter.getNumColumns() != params.C*params.R*params.S) {
+			throw new DMLRuntimeException("Incorrect filter dimensions in conv2d:" + filter.getNumRows() + " " + filter.getNumColumns() + " " + params.K + " " + params.C*params.R*params.S);
+		}
+		
+		params.outputNNZ.set(0);
+		if( input.isEmptyBlock(false) || filter.isEmptyBlock(false) )
+			return; //zeroed output
+		
+		runParallelDirectConvTask(TaskType.Conv2d, getDenseValues(filter), params);
+	}
+	
+	/**
+	 * Computes the gradient of the 2D convolution w.r.t. the filters (K x CRS) directly from the
+	 * input images (N x CHW) and the output gradient (N x KPQ), i.e., without materializing the
+	 * im2col matrix and the rotated output gradient. The output is expected to be an allocated
+	 * and zeroed dense block. 
+	 * 
+	 * @param input
+	 * @param dout
+	 * @param outputBlock
+	 * @param params
+	 * @throws DMLRuntimeException
+	 */
+	public static void conv2d_backward_filter(MatrixBlock input, MatrixBlock dout, MatrixBlock outputBlock, ConvolutionParameters params) throws DMLRuntimeException {
+		params.input1 = input;
+		params.input2 = dout;
+		params.output = outputBlock;
+		
+		if(input.getNumRows() != params.N || input.getNumColumns() != params.C*params.H*params.W) {
+			throw new DMLRuntimeException("Incorrect input dimensions in conv2d_backward_filter:" + input.getNumRows() + " " + input.getNumColumns() + " " + params.N + " " + params.C*params.H*params.W);
+		}
+		if(dout.getNumRows() != params.N || dout.getNumColumns() != params.K*params.P*params.Q) {
+			throw new DMLRuntimeException("Incorrect dout dimensions in conv2d_backward_filter:" + dout.getNumRows() + " " + dout.getNumColumns() + " " + params.N + " " + params.K*params.P*params.Q);
+		}
+		
+		params.outputNNZ.set(0);
+		if( input.isEmptyBlock(false) || dout.isEmptyBlock(false) )
+			return; //zeroed output
+		
+		runParallelDirectConvTask(TaskType.Conv2d_Backward_Filter, null, params);
+	}
+	
+	/**
+	 * Computes the gradient of the 2D convolution w.r.t. the input images (N x CHW) directly
+	 * from the filters (K x CRS) and the output gradient (N x KPQ), i.e., without materializing 
+	 * the (CRS x NPQ) matrix for col2im. The output is expected to be an allocated and zeroed 
+	 * dense block. 
+	 * 
+	 * @param filter
+	 * @param dout
+	 * @param outputBlock
+	 * @param params
+	 * @throws DMLRuntimeException
+	 */
+	public static void conv2d_backward_data(MatrixBlock filter, MatrixBlock dout, MatrixBlock outputBlock, ConvolutionParameters params) throws DMLRuntimeException {
+		params.input1 = filter;
+		params.input2 = dout;
+		params.output = outputBlock;
+		
+		if(filter.getNumRows() != params.K || filter.getNumColumns() != params.C*params.R*params.S) {
+			throw new DMLRuntimeException("Incorrect filter dimensions in conv2d_backward_data:" + filter.getNumRows() + " " + filter.getNumColumns() + " " + params.K + " " + params.C*params.R*params.S);
+		}
+		if(dout.getNumRows() != params.N || dout.getNumColumns() != params.K*params.P*params.Q) {
+			throw new DMLRuntimeException("Incorrect dout dimensions in conv2d_backward_data:" + dout.getNumRows() + " " + dout.getNumColumns() + " " + params.N + " " + params.K*params.P*params.Q);
+		}
+		
+		params.outputNNZ.set(0);
+		if( filter.isEmptyBlock(false) || dout.isEmptyBlock(false) )
+			return; //zeroed output
+		
+		runParallelDirectConvTask(TaskType.Conv2d_Backward_Data, getDenseValues(filter), params);
+	}
+	
 	public static void maxpooling_backward(MatrixBlock input, MatrixBlock dout, MatrixBlock outputBlock, ConvolutionParameters params) throws DMLRuntimeException {
 		params.input1 = input;
 		params.input2 = dout;
@@ -149,128 +247,496 @@ public class LibMatrixDNN {
 		if(dout.getNumColumns() != params.C*params.P*params.Q || dout.getNumRows() != params.N) {
 			throw new DMLRuntimeException("Incorrect dout dimensions in maxpooling_backward:" + input.getNumRows() + " " + input.getNumColumns() + " " + params.N + " " + params.K*params.P*params.Q);
 		}
-
+		
+		params.outputNNZ.set(0);
+		if( dout.isEmptyBlock(false) )
+			return; //zeroed output
+		
+		runParallelDirectConvTask(TaskType.MaxPooling_Backward, null, params);
+	}
+	
+	public static void maxpooling(MatrixBlock input, MatrixBlock outputBlock, ConvolutionParameters params) throws DMLRuntimeException {
+		params.input1 = input;
+		params.output = outputBlock;
+		
+		if(input.getNumColumns() != params.C*params.H*params.W || input.getNumRows() != params.N) {
+			throw new DMLRuntimeException("Incorrect input dimensions in maxpooling:" + input.getNumRows() + " " + input.getNumColumns() + " " + params.N + " " + params.K*params.P*params.Q);
+		}
+		
+		params.outputNNZ.set(0);
+		runParallelDirectConvTask(TaskType.MaxPooling_Forward, null, params);
+	}
+	
+	/**
+	 * Runs the given direct convolution or pooling operation over disjoint ranges of images,
+	 * where all tasks write to disjoint rows of the output except for conv2d_backward_filter, 
+	 * which aggregates into partial filter gradients that are merged at the end. Pooling 
+	 * operations are independent per image and channel, and hence additionally split the 
+	 * channels if there are fewer images than threads (e.g., for N=1).
+	 * 
+	 * @param type
+	 * @param filter
+	 * @param params
+	 * @throws DMLRuntimeException
+	 */
+	private static void runParallelDirectConvTask(TaskType type, double[] filter, ConvolutionParameters params) throws DMLRuntimeException {
 		int constrainedNumThreads = OptimizerUtils.getConstrainedNumThreads(params.numThreads);
-		if(!ALLOW_MULTI_THREADED_OPS || constrainedNumThreads <= 1) {
-			for (int n = 0; n < params.N; n++) {
-				for (int c = 0; c < params.C; c++) {
-					doPoolingBackward(n, c, params);
-				}
+		int k = ALLOW_MULTI_THREADED_OPS ? constrainedNumThreads : 1;
+		boolean pooling = (type == TaskType.MaxPooling_Forward || type == TaskType.MaxPooling_Backward);
+		double[] out = params.output.getDenseBlock();
+		
+		//create tasks over disjoint ranges of images (and channels for pooling)
+		int nblklen = (int)(Math.ceil((double)params.N/k));
+		int cblklen = (pooling && params.N < k) ? 
+			(int)(Math.ceil((double)params.C/Math.ceil((double)k/params.N))) : params.C;
+		ArrayList<DirectConvTask> tasks = new ArrayList<DirectConvTask>();
+		for( int n=0; n<params.N; n+=nblklen )
+			for( int c=0; c<params.C; c+=cblklen ) {
+				//partial filter gradients for all but the first task
+				double[] ret = (type != TaskType.Conv2d_Backward_Filter || tasks.isEmpty()) ? 
+					out : new double[out.length];
+				tasks.add(new DirectConvTask(n, Math.min(n+nblklen, params.N), 
+					c, Math.min(c+cblklen, params.C), type, filter, ret, params));
 			}
+		
+		long nnz = 0;
+		if( tasks.size() <= 1 ) {
+			for( DirectConvTask task : tasks )
+				nnz += task.call();
 		}
 		else {
-			runParallelConvTask(constrainedNumThreads, params.C, TaskType.MaxPooling_Backward, params);
+			try {
+				ExecutorService pool = Executors.newFixedThreadPool( Math.min(k, tasks.size()) );
+				List<Future<Long>> taskret = pool.invokeAll(tasks);
+				pool.shutdown();
+				for( Future<Long> task : taskret )
+					nnz += task.get();
+			}
+			catch(Exception ex) {
+				throw new DMLRuntimeException("Error while executing multi-threaded " + type.name(), ex);
+			}
+		}
+		
+		//merge partial filter gradients
+		if( type == TaskType.Conv2d_Backward_Filter ) {
+			for( int i=1; i<tasks.size(); i++ ) {
+				double[] tmp = tasks.get(i).getOutput();
+				for( int j=0; j<out.length; j++ )
+					out[j] += tmp[j];
+			}
+			nnz = countNonZeros(out, 0, out.length);
 		}
+		
+		params.outputNNZ.set(nnz);
 	}
 	
-	private static void doPoolingBackward(int n, int c, ConvolutionParameters params) {
-		double [] inputArray = null;
-		if (!params.input1.isInSparseFormat())
-			inputArray = params.input1.getDenseBlock();
-		double [] doutArray = null;
-		if (!params.input2.isInSparseFormat())
-			doutArray = params.input2.getDenseBlock();
-		double [] outputArray = null;
-		if (!params.output.isInSparseFormat())
-			outputArray = params.output.getDenseBlock();
+	/**
+	 * Task for direct convolution and pooling operations over a range of images, 
+	 * where pooling tasks are further restricted to a range of channels.
+	 */
+	private static class DirectConvTask implements Callable<Long> 
+	{
+		private int _n1; 
+		private int _n2;
+		private int _c1;
+		private int _c2;
+		private TaskType _type;
+		private double[] _filter;
+		private double[] _out;
+		private ConvolutionParameters _params;
 		
-		for (int p = 0; p < params.P; p++) {
-			for (int q = 0; q < params.Q; q++) {
-				int start_index_h = p * params.stride_h - params.pad_h;
-				int start_index_w = q * params.stride_w - params.pad_w;
-				int end_index_h = Math.min(start_index_h + params.R, params.H);
-				int end_index_w = Math.min(start_index_w + params.S, params.W);
-				start_index_h = Math.max(start_index_h, 0);
-				start_index_w = Math.max(start_index_w, 0);
-				int maxIndex = n*params.C*params.H*params.W + c*params.H*params.W +  start_index_h*params.W + start_index_w; 
-				double maxVal = -Double.MAX_VALUE; 
-
-
-				double currDoutVal = -1;
-				for (int h = start_index_h; h < end_index_h; h++) {
-					for (int w = start_index_w; w < end_index_w; w++) {
-						if(inputArray != null)
-							currDoutVal = inputArray[n*params.C*params.H*params.W + c*params.H*params.W +  h*params.W + w];
-						else
-							currDoutVal = params.input1.quickGetValue(n, c*params.H*params.W + h*params.W + w);
-
-						if(maxVal < currDoutVal) {
-							maxIndex = n*params.C*params.H*params.W + c*params.H*params.W +  h*params.W + w;
-							maxVal = currDoutVal;
+		public DirectConvTask(int n1, int n2, int c1, int c2, TaskType type, double[] filter, double[] out, ConvolutionParameters params) {
+			_n1 = n1;
+			_n2 = n2;
+			_c1 = c1;
+			_c2 = c2;
+			_type = type;
+			_filter = filter;
+			_out = out;
+			_params = params;
+		}
+		
+		public double[] getOutput() {
+			return _out;
+		}
+		
+		@Override
+		public Long call() throws DMLRuntimeException {
+			switch(_type) {
+				case Conv2d:
+					return doConv2d(_n1, _n2, _filter, _out, _params);
+				case Conv2d_Backward_Filter:
+					doConv2dBackwardFilter(_n1, _n2, _out, _params);
+					return 0L; //nnz after merge
+				case Conv2d_Backward_Data:
+					return doConv2dBackwardData(_n1, _n2, _filter, _out, _params);
+				case MaxPooling_Forward:
+					return doPooling(_n1, _n2, _c1, _c2, _out, _params);
+				case MaxPooling_Backward:
+					return doPoolingBackward(_n1, _n2, _c1, _c2, _out, _params);
+				default:
+					throw new DMLRuntimeException("Unsupported DirectConvTask:" + _type.name());
+			}
+		}
+	}
+	
+	private static long doConv2d(int n1, int n2, double[] filter, double[] out, ConvolutionParameters params) {
+		final int C = params.C, H = params.H, W = params.W, K = params.K, R = params.R, S = params.S;
+		final int P = params.P, Q = params.Q, stride_h = params.stride_h, stride_w = params.stride_w;
+		final int HW = H*W, RS = R*S, CRS = C*RS, PQ = P*Q, KPQ = K*PQ;
+		final int[] plb = new int[R], pub = new int[R], qlb = new int[S], qub = new int[S];
+		computeBounds(params, plb, pub, qlb, qub);
+		
+		MatrixBlock input = params.input1;
+		long nnz = 0;
+		if( input.isInSparseFormat() ) 
+		{
+			//scatter every non-zero input cell to the output cells it contributes to
+			SparseBlock a = input.getSparseBlock();
+			for( int n=n1; n<n2; n++ ) {
+				if( a != null && !a.isEmpty(n) ) {
+					int apos = a.pos(n);
+					int alen = a.size(n);
+					int[] aix = a.indexes(n);
+					double[] avals = a.values(n);
+					for( int j=apos; j<apos+alen; j++ ) {
+						int c = aix[j] / HW, h = (aix[j] % HW) / W, w = aix[j] % W;
+						for( int r=0; r<R; r++ ) {
+							int p = getOutputIndex(h, r, params.pad_h, stride_h, P);
+							if( p < 0 ) continue;
+							for( int s=0; s<S; s++ ) {
+								int q = getOutputIndex(w, s, params.pad_w, stride_w, Q);
+								if( q < 0 ) continue;
+								int fix = c*RS + r*S + s;
+								for( int k=0, oix=n*KPQ+p*Q+q; k<K; k++, oix+=PQ )
+									out[oix] += avals[j] * filter[k*CRS + fix];
+							}
 						}
 					}
 				}
-
-				double inVal = -1;
-				if(doutArray != null)
-					inVal = doutArray[n*params.C*params.P*params.Q + c*params.P*params.Q +  p * params.Q + q];
-				else
-					inVal = params.input2.quickGetValue(n, c*params.P*params.Q +  p * params.Q + q);
-
-				// synchronized(this) {
-					outputArray[maxIndex] += inVal;
-				// }
+				nnz += countNonZeros(out, n*KPQ, KPQ);
 			}
 		}
+		else 
+		{
+			//blocking over filters to keep the output tile in cache
+			//while streaming the input channels per filter block
+			double[] a = input.getDenseBlock();
+			int blksizeK = Math.max(1, Math.min(K, DIRECT_CONV_BLOCKSIZE / PQ));
+			for( int n=n1; n<n2; n++ ) {
+				for( int bk=0; bk<K; bk+=blksizeK ) {
+					int bkmin = Math.min(K, bk+blksizeK);
+					for( int c=0; c<C; c++ )
+						for( int r=0; r<R; r++ )
+							for( int s=0; s<S; s++ ) {
+								int fix = c*RS + r*S + s;
+								int aoff = n*C*HW + c*HW + r*W + s - params.pad_h*W - params.pad_w;
+								for( int k=bk; k<bkmin; k++ ) {
+									double fval = filter[k*CRS + fix];
+									if( fval == 0 ) continue;
+									for( int p=plb[r], oix=n*KPQ+k*PQ+p*Q; p<pub[r]; p++, oix+=Q ) {
+										int aix = aoff + p*stride_h*W;
+										for( int q=qlb[s]; q<qub[s]; q++ )
+											out[oix+q] += fval * a[aix + q*stride_w];
+									}
+								}
+							}
+				}
+				nnz += countNonZeros(out, n*KPQ, KPQ);
+			}
+		}
+		
+		return nnz;
 	}
-
-	public static void maxpooling(MatrixBlock input, MatrixBlock outputBlock, ConvolutionParameters params) throws DMLRuntimeException {
-		params.input1 = input;
-		params.output = outputBlock;
+	
+	private static void doConv2dBackwardFilter(int n1, int n2, double[] out, ConvolutionParameters params) {
+		final int C = params.C, H = params.H, W = params.W, K = params.K, R = params.R, S = params.S;
+		final int P = params.P, Q = params.Q, stride_h = params.stride_h, stride_w = params.stride_w;
+		final int HW = H*W, RS = R*S, CRS = C*RS, PQ = P*Q, KPQ = K*PQ;
+		final int[] plb = new int[R], pub = new int[R], qlb = new int[S], qub = new int[S];
+		computeBounds(params, plb, pub, qlb, qub);
 		
-		if(input.getNumColumns() != params.C*params.H*params.W || input.getNumRows() != params.N) {
-			throw new DMLRuntimeException("Incorrect input dimensions in maxpooling:" + input.getNumRows() + " " + input.getNumColumns() + " " + params.N + " " + params.K*params.P*params.Q);
+		MatrixBlock input = params.input1;
+		double[] dbuff = params.input2.isInSparseFormat() ? new double[KPQ] : null;
+		for( int n=n1; n<n2; n++ ) {
+			double[] d = getRowValues(params.input2, n, dbuff);
+			int doff = (d == dbuff) ? 0 : n*KPQ;
+			if( input.isInSparseFormat() ) {
+				//scatter every non-zero input cell into the filter cells it contributes to
+				SparseBlock a = input.getSparseBlock();
+				if( a == null || a.isEmpty(n) )
+					continue;
+				int apos = a.pos(n);
+				int alen = a.size(n);
+				int[] aix = a.indexes(n);
+				double[] avals = a.values(n);
+				for( int j=apos; j<apos+alen; j++ ) {
+					int c = aix[j] / HW, h = (aix[j] % HW) / W, w = aix[j] % W;
+					for( int r=0; r<R; r++ ) {
+						int p = getOutputIndex(h, r, params.pad_h, stride_h, P);
+						if( p < 0 ) continue;
+						for( int s=0; s<S; s++ ) {
+							int q = getOutputIndex(w, s, params.pad_w, stride_w, Q);
+							if( q < 0 ) continue;
+							int fix = c*RS + r*S + s;
+							for( int k=0, dix=doff+p*Q+q; k<K; k++, dix+=PQ )
+								out[k*CRS + fix] += avals[j] * d[dix];
+						}
+					}
+				}
+			}
+			else {
+				//dot products of output gradient channels and shifted input channels
+				double[] a = input.getDenseBlock();
+				for( int k=0; k<K; k++ )
+					for( int c=0; c<C; c++ )
+						for( int r=0; r<R; r++ )
+							for( int s=0; s<S; s++ ) {
+								int aoff = n*C*HW + c*HW + r*W + s - params.pad_h*W - params.pad_w;
+								double sum = 0;
+								for( int p=plb[r], dix=doff+k*PQ+p*Q; p<pub[r]; p++, dix+=Q ) {
+									int aix = aoff + p*stride_h*W;
+									for( int q=qlb[s]; q<qub[s]; q++ )
+										sum += d[dix+q] * a[aix + q*stride_w];
+								}
+								out[k*CRS + c*RS + r*S + s] += sum;
+							}
+			}
 		}
+	}
+	
+	private static long doConv2dBackwardData(int n1, int n2, double[] filter, double[] out, ConvolutionParameters params) {
+		final int C = params.C, H = params.H, W = params.W, K = params.K, R = params.R, S = params.S;
+		final int P = params.P, Q = params.Q, stride_h = params.stride_h, stride_w = params.stride_w;
+		final int HW = H*W, CHW = C*HW, RS = R*S, CRS = C*RS, PQ = P*Q, KPQ = K*PQ;
+		final int[] plb = new int[R], pub = new int[R], qlb = new int[S], qub = new int[S];
+		computeBounds(params, plb, pub, qlb, qub);
 		
-		params.outputNNZ.set(0);
+		MatrixBlock dout = params.input2;
+		long nnz = 0;
+		for( int n=n1; n<n2; n++ ) {
+			if( dout.isInSparseFormat() ) {
+				//scatter every non-zero output gradient to the input cells of its receptive field
+				SparseBlock d = dout.getSparseBlock();
+				if( d != null && !d.isEmpty(n) ) {
+					int dpos = d.pos(n);
+					int dlen = d.size(n);
+					int[] dix = d.indexes(n);
+					double[] dvals = d.values(n);
+					for( int j=dpos; j<dpos+dlen; j++ ) {
+						int k = dix[j] / PQ, p = (dix[j] % PQ) / Q, q = dix[j] % Q;
+						for( int c=0; c<C; c++ )
+							for( int r=0; r<R; r++ ) {
+								int h = p*stride_h - params.pad_h + r;
+								if( h < 0 || h >= H ) continue;
+								for( int s=0; s<S; s++ ) {
+									int w = q*stride_w - params.pad_w + s;
+									if( w < 0 || w >= W ) continue;
+									out[n*CHW + c*HW + h*W + w] += dvals[j] * filter[k*CRS + c*RS + r*S + s];
+								}
+							}
+					}
+				}
+			}
+			else {
+				//scaled accumulation of output gradient channels into shifted input channels
+				double[] d = dout.getDenseBlock();
+				for( int k=0; k<K; k++ )
+					for( int c=0; c<C; c++ )
+						for( int r=0; r<R; r++ )
+							for( int s=0; s<S; s++ ) {
+								double fval = filter[k*CRS + c*RS + r*S + s];
+								if( fval == 0 ) continue;
+								int ooff = n*CHW + c*HW + r*W + s - params.pad_h*W - params.pad_w;
+								for( int p=plb[r], dix=n*KPQ+k*PQ+p*Q; p<pub[r]; p++, dix+=Q ) {
+									int oix = ooff + p*stride_h*W;
+									for( int q=qlb[s]; q<qub[s]; q++ )
+										out[oix + q*stride_w] += fval * d[dix+q];
+								}
+							}
+			}
+			nnz += countNonZeros(out, n*CHW, CHW);
+		}
 		
-		int constrainedNumThreads = OptimizerUtils.getConstrainedNumThreads(params.numThreads);
-		if(!ALLOW_MULTI_THREADED_OPS || constrainedNumThreads <= 1) {
-			for (int n = 0; n < params.N; n++) {
-				for (int c = 0; c < params.C; c++) {
-					doPooling(n, c, params);
+		return nnz;
+	}
+	
+	private static long doPoolingBackward(int n1, int n2, int c1, int c2, double[] out, ConvolutionParameters params) {
+		final int C = params.C, H = params.H, W = params.W, P = params.P, Q = params.Q;
+		final int HW = H*W, CHW = C*HW, PQ = P*Q, CPQ = C*PQ;
+		double[] abuff = (params.input1.isInSparseFormat() || params.input1.getDenseBlock() == null) ? new double[CHW] : null;
+		double[] dbuff = params.input2.isInSparseFormat() ? new double[CPQ] : null;
+		
+		long nnz = 0;
+		for (int n = n1; n < n2; n++) {
+			double[] a = getRowValues(params.input1, n, abuff);
+			double[] d = getRowValues(params.input2, n, dbuff);
+			int aoff = (a == abuff) ? 0 : n*CHW;
+			int doff = (d == dbuff) ? 0 : n*CPQ;
+			for (int c = c1; c < c2; c++) {
+				for (int p = 0; p < P; p++) {
+					int start_index_h = p * params.stride_h - params.pad_h;
+					int end_index_h = Math.min(start_index_h + params.R, H);
+					start_index_h = Math.max(start_index_h, 0);
+					for (int q = 0; q < Q; q++) {
+						int start_index_w = q * params.stride_w - params.pad_w;
+						int end_index_w = Math.min(start_index_w + params.S, W);
+						start_index_w = Math.max(start_index_w, 0);
+						int maxIndex = c*HW + start_index_h*W + start_index_w; 
+						double maxVal = -Double.MAX_VALUE; 
+						for (int h = start_index_h; h < end_index_h; h++) {
+							for (int w = start_index_w; w < end_index_w; w++) {
+								double currVal = a[aoff + c*HW + h*W + w];
+								if(maxVal < currVal) {
+									maxIndex = c*HW + h*W + w;
+									maxVal = currVal;
+								}
+							}
+						}
+						out[n*CHW + maxIndex] += d[doff + c*PQ + p*Q + q];
+					}
 				}
 			}
+			nnz += countNonZeros(out, n*CHW + c1*HW, (c2-c1)*HW);
 		}
-		else {
-			runParallelConvTask(constrainedNumThreads, params.C, TaskType.MaxPooling_Forward, params);
-		}	
+		
+		return nnz;
 	}
-
-	private static void doPooling(int n, int c, ConvolutionParameters params) {
-		double [] inputArray = null;
-		if (!params.input1.isInSparseFormat())
-			inputArray = params.input1.getDenseBlock();
-		double [] outputArray = null;
-		if (!params.output.isInSparseFormat())
-			outputArray = params.output.getDenseBlock();
+	
+	private static long doPooling(int n1, int n2, int c1, int c2, double[] out, ConvolutionParameters params) {
+		final int C = params.C, H = params.H, W = params.W, P = params.P, Q = params.Q;
+		final int HW = H*W, CHW = C*HW, PQ = P*Q, CPQ = C*PQ;
+		double[] abuff = (params.input1.isInSparseFormat() || params.input1.getDenseBlock() == null) ? new double[CHW] : null;
 		
-		long tmpNNZ = 0;
-		for (int p = 0; p < params.P; p++) {
-			for (int q = 0; q < params.Q; q++) {
-				int start_index_h = p * params.stride_h - params.pad_h;
-				int start_index_w = q * params.stride_w - params.pad_w;
-				int end_index_h = Math.min(start_index_h + params.R, params.H);
-				int end_index_w = Math.min(start_index_w + params.S, params.W);
-				start_index_h = Math.max(start_index_h, 0);
-				start_index_w = Math.max(start_index_w, 0);
-				int out_index = n*params.C*params.P*params.Q + c*params.P*params.Q +  p * params.Q + q;
-				outputArray[out_index] = -Double.MAX_VALUE;
-				for (int h = start_index_h; h < end_index_h; h++) {
-					for (int w = start_index_w; w < end_index_w; w++) {
-						double inVal = -1;
-						if(inputArray != null)
-							inVal = inputArray[n*params.C*params.H*params.W + c*params.H*params.W +  h*params.W + w];
-						else
-							inVal = params.input1.quickGetValue(n, c*params.H*params.W +  h*params.W + w);
-						outputArray[out_index] = Math.max(outputArray[out_index], inVal);
-						if(outputArray[out_index] != 0)
-							tmpNNZ++;
+		long nnz = 0;
+		for (int n = n1; n < n2; n++) {
+			double[] a = getRowValues(params.input1, n, abuff);
+			int aoff = (a == abuff) ? 0 : n*CHW;
+			for (int c = c1, out_index = n*CPQ + c1*PQ; c < c2; c++) {
+				for (int p = 0; p < P; p++) {
+					int start_index_h = p * params.stride_h - params.pad_h;
+					int end_index_h = Math.min(start_index_h + params.R, H);
+					start_index_h = Math.max(start_index_h, 0);
+					for (int q = 0; q < Q; q++, out_index++) {
+						int start_index_w = q * params.stride_w - params.pad_w;
+						int end_index_w = Math.min(start_index_w + params.S, W);
+						start_index_w = Math.max(start_index_w, 0);
+						double maxVal = -Double.MAX_VALUE;
+						for (int h = start_index_h; h < end_index_h; h++) {
+							int aix = aoff + c*HW + h*W;
+							for (int w = start_index_w; w < end_index_w; w++)
+								maxVal = Math.max(maxVal, a[aix + w]);
+						}
+						out[out_index] = maxVal;
+						nnz += (maxVal != 0) ? 1 : 0;
 					}
 				}
 			}
 		}
-		params.outputNNZ.addAndGet(tmpNNZ);
+		
+		return nnz;
+	}
+	
+	/**
+	 * Computes the valid ranges [plb[r], pub[r]) and [qlb[s], qub[s]) of output rows and 
+	 * columns per filter row r and column s, i.e., the output cells whose receptive field
+	 * covers the input cell at offset (r, s) within the bounds of the (unpadded) input. 
+	 * 
+	 * @param params
+	 * @param plb
+	 * @param pub
+	 * @param qlb
+	 * @param qub
+	 */
+	private static void computeBounds(ConvolutionParameters params, int[] plb, int[] pub, int[] qlb, int[] qub) {
+		for( int r=0; r<params.R; r++ ) {
+			plb[r] = getLowerBound(r, params.pad_h, params.stride_h);
+			pub[r] = Math.max(plb[r], getUpperBound(r, params.pad_h, params.stride_h, params.H, params.P));
+		}
+		for( int s=0; s<params.S; s++ ) {
+			qlb[s] = getLowerBound(s, params.pad_w, params.stride_w);
+			qub[s] = Math.max(qlb[s], getUpperBound(s, params.pad_w, params.stride_w, params.W, params.Q));
+		}
+	}
+	
+	private static int getLowerBound(int r, int pad, int stride) {
+		//smallest p with p*stride - pad + r >= 0
+		return (pad > r) ? (pad - r + stride - 1) / stride : 0;
+	}
+	
+	private static int getUpperBound(int r, int pad, int stride, int len, int P) {
+		//largest p+1 with p*stride - pad + r <= len-1
+		int tmp = len - 1 + pad - r;
+		return (tmp < 0) ? 0 : Math.min(P, tmp / stride + 1);
+	}
+	
+	/**
+	 * Returns the output row (or column) p whose receptive field contains the input row
+	 * (or column) h at filter offset r, or -1 if there is no such output row.
+	 * 
+	 * @param h
+	 * @param r
+	 * @param pad
+	 * @param stride
+	 * @param P
+	 * @return
+	 */
+	private static int getOutputIndex(int h, int r, int pad, int stride, int P) {
+		int tmp = h + pad - r;
+		if( tmp < 0 || tmp % stride != 0 || tmp / stride >= P )
+			return -1;
+		return tmp / stride;
+	}
+	
+	/**
+	 * Returns the dense block of the given matrix, or the values of row r copied into 
+	 * the given buffer (of size clen) if the matrix is sparse or has no dense block.
+	 * 
+	 * @param mb
+	 * @param r
+	 * @param buff
+	 * @return
+	 */
+	private static double[] getRowValues(MatrixBlock mb, int r, double[] buff) {
+		if( !mb.isInSparseFormat() && mb.getDenseBlock() != null )
+			return mb.getDenseBlock();
+		Arrays.fill(buff, 0);
+		SparseBlock a = mb.getSparseBlock();
+		if( mb.isInSparseFormat() && a != null && !a.isEmpty(r) ) {
+			int apos = a.pos(r);
+			int alen = a.size(r);
+			int[] aix = a.indexes(r);
+			double[] avals = a.values(r);
+			for( int j=apos; j<apos+alen; j++ )
+				buff[aix[j]] = avals[j];
+		}
+		return buff;
+	}
+	
+	/**
+	 * Returns the dense values of the given (small) matrix, e.g., the filters, which 
+	 * are copied into a new array if the matrix is in sparse format.
+	 * 
+	 * @param mb
+	 * @return
+	 */
+	private static double[] getDenseValues(MatrixBlock mb) {
+		if( !mb.isInSparseFormat() && mb.getDenseBlock() != null )
+			return mb.getDenseBlock();
+		int n = mb.getNumColumns();
+		double[] ret = new double[mb.getNumRows()*n];
+		for( int i=0; i<mb.getNumRows(); i++ ) {
+			double[] tmp = getRowValues(mb, i, new double[n]);
+			System.arraycopy(tmp, 0, ret, i*n, n);
+		}
+		return ret;
+	}
+	
+	private static long countNonZeros(double[] a, int ai, int len) {
+		long nnz = 0;
+		for( int i=ai; i<ai+len; i++ )
+			nnz += (a[i] != 0) ? 1 : 0;
+		return nnz;
 	}
 		
 	// Reshape a 4D tensor of dimension (N, K, P, Q) to matrix of dimension (K, NPQ)
@@ -395,20 +861,6 @@ public class LibMatrixDNN {
 						}
 					}
 					break;
-				case MaxPooling_Forward:
-					for (int n = n1; n < n2; n++) {
-						for (int z = z1; z < z2; z++) {
-							LibMatrixDNN.doPooling(n, z, params);
-						}
-					}
-					break;
-				case MaxPooling_Backward:
-					for (int n = n1; n < n2; n++) {
-						for (int z = z1; z < z2; z++) {
-							LibMatrixDNN.doPoolingBackward(n, z, params);
-						}
-					}
-					break;
 				default:
 					throw new RuntimeException("Unsupported ConvTask:" + type.name());
 			}
@@ -0,0 +1,488 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.matrix.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.sysml.lops.FusedCellwise;
+import org.apache.sysml.lops.FusedCellwise.AggType;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.functionobjects.Builtin;
+import org.apache.sysml.runtime.functionobjects.KahanPlus;
+import org.apache.sysml.runtime.functionobjects.ValueFunction;
+import org.apache.sysml.runtime.instructions.InstructionUtils;
+import org.apache.sysml.runtime.instructions.cp.KahanObject;
+import org.apache.sysml.runtime.util.DataConverter;
+
+/**
+ * Library for fused cell-wise operations with optional sum, rowSums, or colSums
+ * aggregation. A fused program is given in postfix notation over the inputs (see
+ * FusedCellwise lop) and compiled once into a compact operation sequence, which is
+ * then evaluated per cell in a single pass over all inputs without materializing
+ * any intermediates. Matrix inputs can be full matrices, row or column vectors
+ * (broadcast over the region), or scalars.
+ *
+ * The evaluation is multi-threaded over disjoint row ranges for sufficiently
+ * large regions. Sum aggregates use Kahan summation to obtain results equivalent
+ * to the unfused uak+, uark+, and uack+ operations.
+ *
+ */
+public class LibMatrixFusedCellwise
+{
+	private static final long PAR_NUMCELL_THRESHOLD = 1024*1024;   //Min 1M elements
+
+	//compiled operation types (fast paths for basic arithmetic)
+	private static final byte OP_INPUT  = 0;
+	private static final byte OP_PLUS   = 1;
+	private static final byte OP_MINUS  = 2;
+	private static final byte OP_MULT   = 3;
+	private static final byte OP_DIV    = 4;
+	private static final byte OP_BINARY = 5;
+	private static final byte OP_UNARY  = 6;
+
+	private LibMatrixFusedCellwise() {
+		//prevent instantiation via private constructor
+	}
+
+	/**
+	 * Executes the fused program over the given inputs. Matrix inputs are given as
+	 * matrix blocks, while scalar inputs are given as null entries with their values
+	 * in the scalars array. For AggType.SUM, the output is a 1x1 matrix block.
+	 *
+	 * @param inputs
+	 * @param scalars
+	 * @param program
+	 * @param aggtype
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock execute( MatrixBlock[] inputs, double[] scalars, String program, AggType aggtype, int k )
+		throws DMLRuntimeException
+	{
+		//compile program and obtain region dimensions
+		FusedProgram prog = compileProgram(program, inputs.length);
+		int m = 1, n = 1;
+		for( MatrixBlock in : inputs )
+			if( in != null ) {
+				m = Math.max(m, in.getNumRows());
+				n = Math.max(n, in.getNumColumns());
+			}
+
+		//prepare inputs and output
+		InputData data = prepareInputs(inputs, scalars, m, n);
+		MatrixBlock out = null;
+		switch( aggtype ) {
+			case NONE:    out = new MatrixBlock(m, n, false); break;
+			case SUM:     out = new MatrixBlock(1, 1, false); break;
+			case ROW_SUM: out = new MatrixBlock(m, 1, false); break;
+			case COL_SUM: out = new MatrixBlock(1, n, false); break;
+		}
+		out.allocateDenseBlock();
+
+		//core fused execution (serial or multi-threaded)
+		if( k <= 1 || (long)m*n < PAR_NUMCELL_THRESHOLD || m <= k )
+		{
+			FusedCellwiseTask task = new FusedCellwiseTask(prog, data, out, aggtype, n, 0, m);
+			task.call();
+			finalizeOutput(out, aggtype, Arrays.asList(task));
+		}
+		else
+		{
+			try {
+				ExecutorService pool = Executors.newFixedThreadPool( k );
+				ArrayList<FusedCellwiseTask> tasks = new ArrayList<FusedCellwiseTask>();
+				int blklen = (int)(Math.ceil((double)m/k));
+				for( int i=0; i<k & i*blklen<m; i++ )
+					tasks.add(new FusedCellwiseTask(prog, data, out, aggtype, n, i*blklen, Math.min((i+1)*blklen, m)));
+				List<Future<Object>> taskret = pool.invokeAll(tasks);
+				pool.shutdown();
+				for( Future<Object> task : taskret )
+					task.get(); //error handling
+				finalizeOutput(out, aggtype, tasks);
+			}
+			catch(Exception ex) {
+				throw new DMLRuntimeException(ex);
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Compiles the postfix program into typed operations, incl a validation of
+	 * input references and the maximum stack depth.
+	 *
+	 * @param program
+	 * @param numInputs
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static FusedProgram compileProgram( String program, int numInputs )
+		throws DMLRuntimeException
+	{
+		String[] tokens = program.split(FusedCellwise.PROGRAM_DELIM);
+		FusedProgram ret = new FusedProgram(tokens.length);
+
+		int depth = 0;
+		for( int i=0; i<tokens.length; i++ )
+		{
+			String tok = tokens[i];
+			if( tok.startsWith(FusedCellwise.INPUT_PREFIX) ) {
+				int pos = Integer.parseInt(tok.substring(FusedCellwise.INPUT_PREFIX.length()));
+				if( pos < 0 || pos >= numInputs )
+					throw new DMLRuntimeException("Invalid input reference '"+tok+"' in fused program: "+program);
+				ret.types[i] = OP_INPUT;
+				ret.args[i] = pos;
+				depth++;
+			}
+			else if( tok.startsWith(FusedCellwise.BINARY_PREFIX) ) {
+				String opcode = tok.substring(FusedCellwise.BINARY_PREFIX.length());
+				if( opcode.equals("+") )      ret.types[i] = OP_PLUS;
+				else if( opcode.equals("-") ) ret.types[i] = OP_MINUS;
+				else if( opcode.equals("*") ) ret.types[i] = OP_MULT;
+				else if( opcode.equals("/") ) ret.types[i] = OP_DIV;
+				else {
+					ret.types[i] = OP_BINARY;
+					ret.fns[i] = InstructionUtils.parseBinaryOperator(opcode).fn;
+				}
+				depth--;
+			}
+			else if( tok.startsWith(FusedCellwise.UNARY_PREFIX) ) {
+				String opcode = tok.substring(FusedCellwise.UNARY_PREFIX.length());
+				ret.types[i] = OP_UNARY;
+				ret.fns[i] = Builtin.getBuiltinFnObject(opcode);
+				if( ret.fns[i] == null )
+					throw new DMLRuntimeException("Unsupported unary opcode '"+opcode+"' in fused program: "+program);
+			}
+			else {
+				throw new DMLRuntimeException("Invalid token '"+tok+"' in fused program: "+program);
+			}
+
+			if( depth < 1 )
+				throw new DMLRuntimeException("Invalid fused program (stack underflow): "+program);
+			ret.stackSize = Math.max(ret.stackSize, depth);
+		}
+
+		if( depth != 1 )
+			throw new DMLRuntimeException("Invalid fused program (unbalanced stack): "+program);
+
+		return ret;
+	}
+
+	/**
+	 * Prepares uniform input accessors, where each cell value is obtained via
+	 * data[rowOffset + j*step]. Dense matrices are accessed directly, sparse or
+	 * empty matrices via a per-task row buffer, and vectors and scalars via small
+	 * dense arrays (step 0 for column vectors and scalars). Since 1x1 matrices are
+	 * valid row or column vectors for any region, they are treated as scalars.
+	 *
+	 * @param inputs
+	 * @param scalars
+	 * @param m
+	 * @param n
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static InputData prepareInputs( MatrixBlock[] inputs, double[] scalars, int m, int n )
+		throws DMLRuntimeException
+	{
+		InputData ret = new InputData(inputs.length);
+
+		for( int i=0; i<inputs.length; i++ )
+		{
+			MatrixBlock in = inputs[i];
+			if( in == null ) { //scalar
+				ret.data[i] = new double[]{scalars[i]};
+				ret.kinds[i] = InputData.SCALAR;
+			}
+			else if( in.getNumRows()==1 && in.getNumColumns()==1 ) { //1x1 matrix (as scalar)
+				ret.data[i] = new double[]{in.quickGetValue(0, 0)};
+				ret.kinds[i] = InputData.SCALAR;
+			}
+			else if( in.getNumRows()==m && in.getNumColumns()==n && m>1 && n>1 ) { //matrix
+				ret.blocks[i] = in;
+				if( !in.isInSparseFormat() && !in.isEmptyBlock(false) ) {
+					ret.data[i] = in.getDenseBlock();
+					ret.kinds[i] = InputData.DENSE;
+				}
+				else {
+					ret.kinds[i] = InputData.ROWBUFF;
+				}
+			}
+			else if( in.getNumRows()==m && in.getNumColumns()==1 && m>1 ) { //column vector
+				ret.data[i] = DataConverter.convertToDoubleVector(in);
+				ret.kinds[i] = InputData.COLVECT;
+			}
+			else if( in.getNumRows()==1 && in.getNumColumns()==n ) { //row vector
+				ret.data[i] = DataConverter.convertToDoubleVector(in);
+				ret.kinds[i] = InputData.ROWVECT;
+			}
+			else {
+				throw new DMLRuntimeException("Incompatible dimensions of fused input "+i+": "
+						+ in.getNumRows()+"x"+in.getNumColumns()+" vs "+m+"x"+n+".");
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 *
+	 * @param out
+	 * @param aggtype
+	 * @param tasks
+	 * @throws DMLRuntimeException
+	 */
+	private static void finalizeOutput( MatrixBlock out, AggType aggtype, List<FusedCellwiseTask> tasks )
+		throws DMLRuntimeException
+	{
+		double[] c = out.getDenseBlock();
+		KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
+
+		//merge partial aggregates of all tasks
+		if( aggtype == AggType.SUM ) {
+			KahanObject kbuff = new KahanObject(0, 0);
+			for( FusedCellwiseTask task : tasks )
+				kplus.execute(kbuff, task._partial[0], task._corr[0]);
+			c[0] = kbuff._sum;
+		}
+		else if( aggtype == AggType.COL_SUM ) {
+			KahanObject kbuff = new KahanObject(0, 0);
+			for( int j=0; j<c.length; j++ ) {
+				kbuff.set(0, 0);
+				for( FusedCellwiseTask task : tasks )
+					kplus.execute(kbuff, task._partial[j], task._corr[j]);
+				c[j] = kbuff._sum;
+			}
+		}
+
+		//post-processing (nnz maintenance and format change)
+		if( aggtype == AggType.NONE ) {
+			long nnz = 0;
+			for( FusedCellwiseTask task : tasks )
+				nnz += task._nnz;
+			out.setNonZeros(nnz);
+		}
+		else {
+			out.recomputeNonZeros();
+		}
+		out.examSparsity();
+	}
+
+	/**
+	 * Compiled fused program of operation types, input references, and
+	 * function objects for generic binary and unary operations.
+	 */
+	private static class FusedProgram
+	{
+		private final byte[] types;
+		private final int[] args;
+		private final ValueFunction[] fns;
+		private int stackSize = 0;
+
+		private FusedProgram(int len) {
+			types = new byte[len];
+			args = new int[len];
+			fns = new ValueFunction[len];
+		}
+	}
+
+	/**
+	 * Shared (read-only) input data of a fused operation.
+	 */
+	private static class InputData
+	{
+		private static final byte SCALAR  = 0;
+		private static final byte DENSE   = 1;
+		private static final byte ROWBUFF = 2;
+		private static final byte COLVECT = 3;
+		private static final byte ROWVECT = 4;
+
+		private final MatrixBlock[] blocks;
+		private final double[][] data;
+		private final byte[] kinds;
+
+		private InputData(int len) {
+			blocks = new MatrixBlock[len];
+			data = new double[len][];
+			kinds = new byte[len];
+		}
+	}
+
+	/**
+	 * Task for evaluating the fused program over a range of rows [rl, ru).
+	 */
+	private static class FusedCellwiseTask implements Callable<Object>
+	{
+		private final FusedProgram _prog;
+		private final InputData _data;
+		private final MatrixBlock _out;
+		private final AggType _aggtype;
+		private final int _n;
+		private final int _rl;
+		private final int _ru;
+
+		//task-local partial results
+		private double[] _partial = null;
+		private double[] _corr = null;
+		private long _nnz = 0;
+
+		protected FusedCellwiseTask( FusedProgram prog, InputData data, MatrixBlock out, AggType aggtype, int n, int rl, int ru ) {
+			_prog = prog;
+			_data = data;
+			_out = out;
+			_aggtype = aggtype;
+			_n = n;
+			_rl = rl;
+			_ru = ru;
+		}
+
+		@Override
+		public Object call()
+			throws DMLRuntimeException
+		{
+			final int n = _n;
+			final int len = _data.kinds.length;
+			final byte[] types = _prog.types;
+			final int[] args = _prog.args;
+			final ValueFunction[] fns = _prog.fns;
+			final double[] stack = new double[_prog.stackSize];
+			final double[] c = _out.getDenseBlock();
+
+			//task-local input accessors (data[off + j*step])
+			double[][] a = new double[len][];
+			int[] off = new int[len];
+			int[] step = new int[len];
+			for( int in=0; in<len; in++ ) {
+				byte kind = _data.kinds[in];
+				a[in] = (kind==InputData.ROWBUFF) ? new double[n] : _data.data[in];
+				step[in] = (kind==InputData.SCALAR || kind==InputData.COLVECT) ? 0 : 1;
+			}
+
+			//task-local aggregation buffers
+			KahanPlus kplus = KahanPlus.getKahanPlusFnObject();
+			KahanObject kbuff = new KahanObject(0, 0);
+			if( _aggtype == AggType.COL_SUM ) {
+				_partial = new double[n];
+				_corr = new double[n];
+			}
+
+			for( int i=_rl; i<_ru; i++ )
+			{
+				//prepare row accessors
+				for( int in=0; in<len; in++ ) {
+					switch( _data.kinds[in] ) {
+						case InputData.DENSE:   off[in] = i*n; break;
+						case InputData.COLVECT: off[in] = i; break;
+						case InputData.ROWBUFF: fillRowBuffer(_data.blocks[in], i, a[in]); break;
+						default: //scalar, row vector, row buffer
+					}
+				}
+				if( _aggtype == AggType.ROW_SUM )
+					kbuff.set(0, 0);
+
+				for( int j=0; j<n; j++ )
+				{
+					//evaluate fused program for cell (i,j)
+					int sp = 0;
+					for( int p=0; p<types.length; p++ ) {
+						switch( types[p] ) {
+							case OP_INPUT: {
+								int in = args[p];
+								stack[sp++] = a[in][off[in] + j*step[in]];
+								break;
+							}
+							case OP_PLUS:  sp--; stack[sp-1] = stack[sp-1] + stack[sp]; break;
+							case OP_MINUS: sp--; stack[sp-1] = stack[sp-1] - stack[sp]; break;
+							case OP_MULT:  sp--; stack[sp-1] = stack[sp-1] * stack[sp]; break;
+							case OP_DIV:   sp--; stack[sp-1] = stack[sp-1] / stack[sp]; break;
+							case OP_BINARY: sp--; stack[sp-1] = fns[p].execute(stack[sp-1], stack[sp]); break;
+							case OP_UNARY: stack[sp-1] = fns[p].execute(stack[sp-1]); break;
+						}
+					}
+					double val = stack[0];
+
+					//output or aggregation
+					switch( _aggtype ) {
+						case NONE:
+							c[i*n+j] = val;
+							_nnz += (val != 0) ? 1 : 0;
+							break;
+						case SUM:
+						case ROW_SUM:
+							kplus.execute2(kbuff, val);
+							break;
+						case COL_SUM:
+							kbuff.set(_partial[j], _corr[j]);
+							kplus.execute2(kbuff, val);
+							_partial[j] = kbuff._sum;
+							_corr[j] = kbuff._correction;
+							break;
+					}
+				}
+
+				if( _aggtype == AggType.ROW_SUM )
+					c[i] = kbuff._sum;
+			}
+
+			if( _aggtype == AggType.SUM ) {
+				_partial = new double[]{kbuff._sum};
+				_corr = new double[]{kbuff._correction};
+			}
+
+			return null;
+		}
+
+		/**
+		 *
+		 * @param in
+		 * @param r
+		 * @param buff
+		 */
+		private static void fillRowBuffer( MatrixBlock in, int r, double[] buff )
+		{
+			Arrays.fill(buff, 0);
+			if( in.isEmptyBlock(false) )
+				return;
+
+			if( in.isInSparseFormat() ) {
+				SparseBlock sblock = in.getSparseBlock();
+				if( sblock.isEmpty(r) )
+					return;
+				int apos = sblock.pos(r);
+				int alen = sblock.size(r);
+				int[] aix = sblock.indexes(r);
+				double[] avals = sblock.values(r);
+				for( int j=apos; j<apos+alen; j++ )
+					buff[aix[j]] = avals[j];
+			}
+			else {
+				System.arraycopy(in.getDenseBlock(), r*buff.length, buff, 0, buff.length);
+			}
+		}
+	}
+}
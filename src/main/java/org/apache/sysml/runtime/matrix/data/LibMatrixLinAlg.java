@@ -0,0 +1,1094 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.matrix.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.util.SortUtils;
+
+/**
+ * Library for dense linear algebra operations, i.e., solve, inverse, cholesky, lu, qr,
+ * and symmetric eigen decompositions. All kernels work directly on dense row-major
+ * arrays (w/o conversion to two-dimensional arrays), use row-wise, and where possible 
+ * blocked, access patterns for cache-friendly updates, and parallelize the dominating
+ * updates over row or column ranges with k threads. 
+ * 
+ * Memory requirements (beyond inputs and outputs): lu, inverse, solve (square), and
+ * qr require a dense working copy of the first input, eigen a dense working copy and
+ * five vectors of size n, and cholesky works in-place on its output.
+ * 
+ */
+public class LibMatrixLinAlg 
+{
+	//internal configuration
+	private static final int BLOCKSIZE_PANEL = 32;   //panel width of blocked lu and cholesky 
+	private static final int BLOCKSIZE_J = 1024;     //column blocking of trailing matrix updates
+	private static final long PAR_MINFLOP_THRESHOLD = 2L*1024*1024; //MIN 2 MFLOP per parallel step
+	private static final double CHOLESKY_SYMMETRY_THRESHOLD = 1e-15; //relative, see commons-math
+	private static final double CHOLESKY_POSITIVITY_THRESHOLD = 1e-10; //absolute, see commons-math
+	private static final double LU_SINGULARITY_THRESHOLD = 100;     //relative, in units of n * ulp(1) * max abs value
+	
+	//opt-in relative singularity check of lu-based solve/inverse (by default, only exact
+	//zero pivots are reported as singular in order to support ill-conditioned inputs)
+	public static boolean USE_RELATIVE_SINGULARITY_THRESHOLD = false;
+	private static final int EIGEN_MAX_ITER = 100; //max QL iterations per eigenvalue
+	
+	private LibMatrixLinAlg() {
+		//prevent instantiation via private constructor
+	}
+	
+	/**
+	 * Solves the system of linear equations A X = B, via LU decomposition with partial
+	 * pivoting for square A, and via QR decomposition (least squares) otherwise.
+	 * 
+	 * @param A
+	 * @param B
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock solve( MatrixBlock A, MatrixBlock B, int k ) 
+		throws DMLRuntimeException
+	{
+		int m = A.getNumRows(), n = A.getNumColumns();
+		if( B.getNumRows() != m )
+			throw new DMLRuntimeException("Dimension mismatch in solve: A has "+m+" rows, but b has "+B.getNumRows()+" rows.");
+		
+		int r = B.getNumColumns();
+		MatrixBlock ret = new MatrixBlock(n, r, false);
+		ret.allocateDenseBlock();
+		ExecutorService pool = createThreadPool(k);
+		try {
+			if( m == n ) { //LU
+				double[] a = toDenseArray(A);
+				int[] piv = new int[n];
+				if( luDecompose(a, piv, n, pool, k) )
+					throw new DMLRuntimeException("Solve failed: matrix is singular.");
+				luSolve(a, piv, n, toDenseArray(B), ret.getDenseBlock(), r, false, pool, k);
+			}
+			else { //QR
+				double[] qrt = toDenseArrayTransposed(A);
+				double[] rdiag = new double[Math.min(m, n)];
+				qrDecompose(qrt, rdiag, m, n, pool, k);
+				qrSolve(qrt, rdiag, m, n, toDenseArray(B), ret.getDenseBlock(), r, pool, k);
+			}
+		}
+		finally {
+			shutdownThreadPool(pool);
+		}
+		
+		return finalizeOutput(ret);
+	}
+	
+	/**
+	 * Computes the inverse of a square matrix via LU decomposition with partial pivoting.
+	 * 
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock inverse( MatrixBlock A, int k ) 
+		throws DMLRuntimeException
+	{
+		int n = A.getNumRows();
+		if( A.getNumColumns() != n )
+			throw new DMLRuntimeException("Input to inv() must be square matrix -- given: a " + n + "x" + A.getNumColumns() + " matrix.");
+		
+		MatrixBlock ret = new MatrixBlock(n, n, false);
+		ret.allocateDenseBlock();
+		ExecutorService pool = createThreadPool(k);
+		try {
+			double[] a = toDenseArray(A);
+			int[] piv = new int[n];
+			if( luDecompose(a, piv, n, pool, k) )
+				throw new DMLRuntimeException("Inverse failed: matrix is singular.");
+			luSolve(a, piv, n, null, ret.getDenseBlock(), n, true, pool, k);
+		}
+		finally {
+			shutdownThreadPool(pool);
+		}
+		
+		return finalizeOutput(ret);
+	}
+	
+	/**
+	 * Computes the Cholesky decomposition A = L t(L) of a symmetric positive definite
+	 * matrix A, and returns the lower triangular matrix L.
+	 * 
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock cholesky( MatrixBlock A, int k ) 
+		throws DMLRuntimeException
+	{
+		int n = A.getNumRows();
+		if( A.getNumColumns() != n )
+			throw new DMLRuntimeException("Input to cholesky() must be square matrix -- given: a " + n + "x" + A.getNumColumns() + " matrix.");
+		
+		//copy lower triangle into output (incl symmetry check)
+		MatrixBlock ret = new MatrixBlock(n, n, false);
+		ret.allocateDenseBlock();
+		double[] l = ret.getDenseBlock();
+		double[] a = A.isInSparseFormat() ? toDenseArray(A) : A.getDenseBlock();
+		if( a != null ) {
+			for( int i=0, ix=0; i<n; i++, ix+=n )
+				for( int j=0; j<=i; j++ ) {
+					double aij = a[ix+j], aji = a[j*n+i];
+					if( Math.abs(aij-aji) > Math.max(Math.abs(aij), Math.abs(aji)) * CHOLESKY_SYMMETRY_THRESHOLD )
+						throw new DMLRuntimeException("Input to cholesky() must be a symmetric matrix.");
+					l[ix+j] = aij;
+				}
+		}
+		
+		ExecutorService pool = createThreadPool(k);
+		try {
+			choleskyDecompose(l, n, pool, k);
+		}
+		finally {
+			shutdownThreadPool(pool);
+		}
+		
+		return finalizeOutput(ret);
+	}
+	
+	/**
+	 * Computes the LU decomposition with partial pivoting P A = L U of a square matrix, 
+	 * and returns the permutation matrix P, the unit lower triangular matrix L, and the
+	 * upper triangular matrix U.
+	 * 
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock[] lu( MatrixBlock A, int k ) 
+		throws DMLRuntimeException
+	{
+		int n = A.getNumRows();
+		if( A.getNumColumns() != n )
+			throw new DMLRuntimeException("LU Decomposition can only be done on a square matrix. Input matrix is rectangular (rows=" + n + ", cols="+ A.getNumColumns() +")");
+		
+		double[] a = toDenseArray(A);
+		int[] piv = new int[n];
+		ExecutorService pool = createThreadPool(k);
+		try {
+			luDecompose(a, piv, n, pool, k);
+		}
+		finally {
+			shutdownThreadPool(pool);
+		}
+		
+		//extract permutation, and lower and upper triangular matrices
+		MatrixBlock P = new MatrixBlock(n, n, true, n);
+		MatrixBlock L = new MatrixBlock(n, n, false);
+		MatrixBlock U = new MatrixBlock(n, n, false);
+		L.allocateDenseBlock();
+		U.allocateDenseBlock();
+		double[] l = L.getDenseBlock(), u = U.getDenseBlock();
+		for( int i=0, ix=0; i<n; i++, ix+=n ) {
+			P.appendValue(i, piv[i], 1);
+			System.arraycopy(a, ix, l, ix, i);
+			l[ix+i] = 1;
+			System.arraycopy(a, ix+i, u, ix+i, n-i);
+		}
+		
+		return new MatrixBlock[]{ P, finalizeOutput(L), finalizeOutput(U) };
+	}
+	
+	/**
+	 * Computes the Householder QR decomposition of a matrix A (m x n), and returns the 
+	 * Householder vectors H (m x n) and the upper triangular matrix R (m x n), in the 
+	 * same representation as commons-math.
+	 * 
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock[] qr( MatrixBlock A, int k ) 
+		throws DMLRuntimeException
+	{
+		int m = A.getNumRows(), n = A.getNumColumns();
+		
+		double[] qrt = toDenseArrayTransposed(A);
+		double[] rdiag = new double[Math.min(m, n)];
+		ExecutorService pool = createThreadPool(k);
+		try {
+			qrDecompose(qrt, rdiag, m, n, pool, k);
+		}
+		finally {
+			shutdownThreadPool(pool);
+		}
+		
+		//extract householder vectors and upper triangular matrix
+		MatrixBlock H = new MatrixBlock(m, n, false);
+		MatrixBlock R = new MatrixBlock(m, n, false);
+		H.allocateDenseBlock();
+		R.allocateDenseBlock();
+		double[] h = H.getDenseBlock(), r = R.getDenseBlock();
+		for( int i=0; i<m; i++ )
+			for( int j=0; j<Math.min(i+1, n); j++ )
+				h[i*n+j] = qrt[j*m+i] / -rdiag[j];
+		for( int i=0; i<rdiag.length; i++ ) {
+			r[i*n+i] = rdiag[i];
+			for( int j=i+1; j<n; j++ )
+				r[i*n+j] = qrt[j*m+i];
+		}
+		
+		return new MatrixBlock[]{ finalizeOutput(H), finalizeOutput(R) };
+	}
+	
+	/**
+	 * Computes the eigen decomposition of a symmetric matrix via Householder tridiagonal
+	 * reduction and the implicit QL algorithm, and returns the eigen values (n x 1) and 
+	 * eigen vectors (n x n, column-wise) in increasing order of eigen values. 
+	 * 
+	 * @param A
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock[] eigen( MatrixBlock A, int k ) 
+		throws DMLRuntimeException
+	{
+		int n = A.getNumRows();
+		if( A.getNumColumns() != n )
+			throw new DMLRuntimeException("Eigen Decomposition can only be done on a square matrix. Input matrix is rectangular (rows=" + n + ", cols="+ A.getNumColumns() +")");
+		
+		//working copy of transposed eigen vectors (i.e., rows are eigen vectors), 
+		//initialized with A because the input is symmetric
+		double[] v = toDenseArray(A);
+		double[] d = new double[n];
+		double[] e = new double[n];
+		ExecutorService pool = createThreadPool(k);
+		try {
+			tridiagonalize(v, d, e, n, pool, k);
+			tridiagonalQL(v, d, e, n, pool, k);
+		}
+		finally {
+			shutdownThreadPool(pool);
+		}
+		
+		//sort eigen values (and vectors) in increasing order (to be compatible w/ LAPACK.DSYEVR())
+		int[] ix = new int[n];
+		for( int i=0; i<n; i++ )
+			ix[i] = i;
+		SortUtils.sortByValueStable(0, n, d, ix);
+		
+		MatrixBlock evals = new MatrixBlock(n, 1, false);
+		MatrixBlock evecs = new MatrixBlock(n, n, false);
+		evals.allocateDenseBlock();
+		evecs.allocateDenseBlock();
+		double[] vals = evals.getDenseBlock(), vecs = evecs.getDenseBlock();
+		System.arraycopy(d, 0, vals, 0, n);
+		for( int j=0; j<n; j++ )
+			for( int i=0, vix=ix[j]*n; i<n; i++ )
+				vecs[i*n+j] = v[vix+i];
+		
+		return new MatrixBlock[]{ finalizeOutput(evals), finalizeOutput(evecs) };
+	}
+	
+	/**
+	 * Indicates if the given matrix is symmetric (with the relative tolerance of 
+	 * commons-math), which is required for our eigen decomposition.
+	 * 
+	 * @param A
+	 * @return
+	 */
+	public static boolean isSymmetric( MatrixBlock A ) 
+	{
+		int n = A.getNumRows();
+		if( A.getNumColumns() != n )
+			return false;
+		double eps = 10d * n * n * Math.ulp(1d);
+		for( int i=0; i<n; i++ )
+			for( int j=i+1; j<n; j++ ) {
+				double aij = A.quickGetValue(i, j), aji = A.quickGetValue(j, i);
+				if( Math.abs(aij-aji) > Math.max(Math.abs(aij), Math.abs(aji)) * eps )
+					return false;
+			}
+		return true;
+	}
+	
+	
+	///////////////////////////////////////////
+	// Core decomposition and solve kernels
+	///////////////////////////////////////////
+	
+	/**
+	 * In-place blocked right-looking LU decomposition with partial pivoting of the
+	 * square matrix a (n x n), where the row permutation is returned in piv. For
+	 * each panel of BLOCKSIZE_PANEL columns, we factor the panel, update the block 
+	 * row of U, and finally (in parallel over row ranges) the trailing matrix. The
+	 * matrix is reported as singular if any pivot is exactly zero or, if enabled, 
+	 * below a tolerance relative to the max abs input value (i.e., independent of 
+	 * scale) and the accumulated rounding errors of n elimination steps. 
+	 * 
+	 * @param a
+	 * @param piv
+	 * @param n
+	 * @param pool
+	 * @param k
+	 * @return true if the matrix is singular
+	 * @throws DMLRuntimeException
+	 */
+	private static boolean luDecompose( final double[] a, int[] piv, final int n, ExecutorService pool, int k ) 
+		throws DMLRuntimeException
+	{
+		boolean singular = false;
+		for( int i=0; i<n; i++ )
+			piv[i] = i;
+		
+		//determine scale-invariant singularity threshold (if enabled)
+		double tol = 0;
+		if( USE_RELATIVE_SINGULARITY_THRESHOLD ) {
+			double amax = 0;
+			for( int i=0; i<a.length; i++ )
+				amax = Math.max(amax, Math.abs(a[i]));
+			tol = LU_SINGULARITY_THRESHOLD * n * Math.ulp(1d) * amax;
+		}
+		
+		for( int bj=0; bj<n; bj+=BLOCKSIZE_PANEL ) 
+		{
+			final int bjmin = bj;
+			final int bjmax = Math.min(bj+BLOCKSIZE_PANEL, n);
+			
+			//factor panel a[bj:n, bj:bjmax] (incl row interchanges)
+			for( int j=bj; j<bjmax; j++ ) {
+				//find pivot and interchange rows
+				int p = j;
+				double max = Math.abs(a[j*n+j]);
+				for( int i=j+1, ix=(j+1)*n+j; i<n; i++, ix+=n )
+					if( Math.abs(a[ix]) > max ) {
+						max = Math.abs(a[ix]);
+						p = i;
+					}
+				if( p != j ) {
+					swapRows(a, n, p, j);
+					int tmp = piv[p]; piv[p] = piv[j]; piv[j] = tmp;
+				}
+				double ajj = a[j*n+j];
+				singular |= (max <= tol);
+				if( ajj == 0 )
+					continue;
+				
+				//compute multipliers and update remaining panel columns
+				for( int i=j+1, ix=(j+1)*n; i<n; i++, ix+=n ) {
+					double lij = (a[ix+j] /= ajj);
+					if( lij != 0 )
+						for( int c=j+1, jx=j*n; c<bjmax; c++ )
+							a[ix+c] -= lij * a[jx+c];
+				}
+			}
+			if( bjmax == n )
+				break;
+			
+			//update block row of U: a[bj:bjmax, bjmax:n] = inv(L11) a[bj:bjmax, bjmax:n]
+			for( int j=bj; j<bjmax; j++ )
+				for( int i=j+1, ix=(j+1)*n; i<bjmax; i++, ix+=n ) {
+					double lij = a[ix+j];
+					if( lij != 0 )
+						for( int c=bjmax, jx=j*n; c<n; c++ )
+							a[ix+c] -= lij * a[jx+c];
+				}
+			
+			//update trailing matrix: a[bjmax:n, bjmax:n] -= a[bjmax:n, bj:bjmax] a[bj:bjmax, bjmax:n]
+			long flops = 2L * (n-bjmax) * (n-bjmax) * (bjmax-bjmin);
+			executeRange(pool, k, bjmax, n, flops, new RangeOp() {
+				@Override
+				public void execute(int rl, int ru) {
+					for( int bc=bjmax; bc<n; bc+=BLOCKSIZE_J ) {
+						int bcmax = Math.min(bc+BLOCKSIZE_J, n);
+						for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
+							for( int p=bjmin; p<bjmax; p++ ) {
+								double lip = a[ix+p];
+								if( lip != 0 )
+									for( int c=bc, px=p*n; c<bcmax; c++ )
+										a[ix+c] -= lip * a[px+c];
+							}
+					}
+				}
+			});
+		}
+		
+		return singular;
+	}
+	
+	/**
+	 * Solves A X = B for a given LU decomposition of A (n x n) with row permutation piv,
+	 * via forward and backward substitution, in parallel over column ranges of X. If 
+	 * requested, B is an implicit identity matrix (for matrix inversion).
+	 * 
+	 * @param a
+	 * @param piv
+	 * @param n
+	 * @param b
+	 * @param x
+	 * @param r
+	 * @param identity
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void luSolve( final double[] a, int[] piv, final int n, double[] b, final double[] x, final int r, 
+			boolean identity, ExecutorService pool, int k ) 
+		throws DMLRuntimeException
+	{
+		//permute rows of B into X
+		for( int i=0; i<n; i++ ) {
+			if( identity )
+				x[i*r+piv[i]] = 1;
+			else
+				System.arraycopy(b, piv[i]*r, x, i*r, r);
+		}
+		
+		//forward and backward substitution
+		long flops = 2L * n * n * r;
+		executeRange(pool, k, 0, r, flops, new RangeOp() {
+			@Override
+			public void execute(int cl, int cu) {
+				//forward substitution with unit lower triangular L
+				for( int i=1, ix=n; i<n; i++, ix+=n )
+					for( int j=0, xi=i*r; j<i; j++ ) {
+						double lij = a[ix+j];
+						if( lij != 0 )
+							for( int c=cl, xj=j*r; c<cu; c++ )
+								x[xi+c] -= lij * x[xj+c];
+					}
+				//backward substitution with upper triangular U
+				for( int i=n-1, ix=(n-1)*n; i>=0; i--, ix-=n ) {
+					int xi = i*r;
+					for( int j=i+1; j<n; j++ ) {
+						double uij = a[ix+j];
+						if( uij != 0 )
+							for( int c=cl, xj=j*r; c<cu; c++ )
+								x[xi+c] -= uij * x[xj+c];
+					}
+					double uii = a[ix+i];
+					for( int c=cl; c<cu; c++ )
+						x[xi+c] /= uii;
+				}
+			}
+		});
+	}
+	
+	/**
+	 * In-place blocked Cholesky decomposition of the lower triangle of the symmetric
+	 * matrix l (n x n). For each block of BLOCKSIZE_PANEL columns, we factor the diagonal
+	 * block and subsequently (in parallel over row ranges) the block column below,
+	 * where all updates are dot products of contiguous row prefixes. 
+	 * 
+	 * @param l
+	 * @param n
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void choleskyDecompose( final double[] l, final int n, ExecutorService pool, int k ) 
+		throws DMLRuntimeException
+	{
+		for( int bj=0; bj<n; bj+=BLOCKSIZE_PANEL ) 
+		{
+			final int bjmin = bj;
+			final int bjmax = Math.min(bj+BLOCKSIZE_PANEL, n);
+			
+			//factor diagonal block
+			for( int j=bj; j<bjmax; j++ ) {
+				int jx = j*n;
+				for( int i=bj; i<j; i++ )
+					l[jx+i] = (l[jx+i] - dotProduct(l, l, jx, i*n, i)) / l[i*n+i];
+				double ljj = l[jx+j] - dotProduct(l, l, jx, jx, j);
+				if( ljj <= CHOLESKY_POSITIVITY_THRESHOLD )
+					throw new DMLRuntimeException("Input to cholesky() must be a positive definite matrix.");
+				l[jx+j] = Math.sqrt(ljj);
+			}
+			if( bjmax == n )
+				break;
+			
+			//factor block column below diagonal block
+			long flops = 2L * (n-bjmax) * (bjmax-bjmin) * bjmax;
+			executeRange(pool, k, bjmax, n, flops, new RangeOp() {
+				@Override
+				public void execute(int rl, int ru) {
+					for( int i=rl, ix=rl*n; i<ru; i++, ix+=n )
+						for( int j=bjmin, jx=bjmin*n; j<bjmax; j++, jx+=n )
+							l[ix+j] = (l[ix+j] - dotProduct(l, l, ix, jx, j)) / l[jx+j];
+				}
+			});
+		}
+	}
+	
+	/**
+	 * In-place Householder QR decomposition of the transposed matrix qrt (n x m), which
+	 * gives contiguous columns of A. The representation of Householder vectors and the
+	 * diagonal of R (rdiag) are equivalent to commons-math, while the update of remaining
+	 * columns per Householder reflection is parallelized over column ranges.
+	 * 
+	 * @param qrt
+	 * @param rdiag
+	 * @param m
+	 * @param n
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void qrDecompose( final double[] qrt, double[] rdiag, final int m, final int n, ExecutorService pool, int k ) 
+		throws DMLRuntimeException
+	{
+		for( int minor=0; minor<rdiag.length; minor++ ) 
+		{
+			final int mi = minor;
+			final int mx = minor*m;
+			
+			//compute householder reflection
+			double xNormSqr = 0;
+			for( int i=minor; i<m; i++ )
+				xNormSqr += qrt[mx+i] * qrt[mx+i];
+			final double a = (qrt[mx+minor] > 0) ? -Math.sqrt(xNormSqr) : Math.sqrt(xNormSqr);
+			rdiag[minor] = a;
+			if( a == 0 )
+				continue;
+			qrt[mx+minor] -= a;
+			
+			//apply reflection to remaining columns
+			long flops = 4L * (n-minor-1) * (m-minor);
+			executeRange(pool, k, minor+1, n, flops, new RangeOp() {
+				@Override
+				public void execute(int cl, int cu) {
+					for( int c=cl, cx=cl*m; c<cu; c++, cx+=m ) {
+						double alpha = -dotProduct(qrt, qrt, cx+mi, mx+mi, m-mi);
+						alpha /= a * qrt[mx+mi];
+						for( int i=mi; i<m; i++ )
+							qrt[cx+i] -= alpha * qrt[mx+i];
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Solves A X = B in the least squares sense for a given QR decomposition of A
+	 * (equivalent to commons-math), in parallel over column ranges of B.
+	 * 
+	 * @param qrt
+	 * @param rdiag
+	 * @param m
+	 * @param n
+	 * @param b
+	 * @param x
+	 * @param r
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void qrSolve( final double[] qrt, final double[] rdiag, final int m, final int n, 
+			final double[] b, final double[] x, final int r, ExecutorService pool, int k ) 
+		throws DMLRuntimeException
+	{
+		for( int i=0; i<rdiag.length; i++ )
+			if( rdiag[i] == 0 )
+				throw new DMLRuntimeException("Solve failed: matrix is singular.");
+		
+		long flops = 4L * m * n * r;
+		executeRange(pool, k, 0, r, flops, new RangeOp() {
+			@Override
+			public void execute(int cl, int cu) {
+				double[] y = new double[m];
+				for( int c=cl; c<cu; c++ ) {
+					//apply householder reflections to column of B
+					for( int i=0; i<m; i++ )
+						y[i] = b[i*r+c];
+					for( int minor=0, mx=0; minor<rdiag.length; minor++, mx+=m ) {
+						double dot = dotProduct(y, qrt, minor, mx+minor, m-minor);
+						dot /= rdiag[minor] * qrt[mx+minor];
+						for( int i=minor; i<m; i++ )
+							y[i] += dot * qrt[mx+i];
+					}
+					//backward substitution with R
+					for( int j=rdiag.length-1, jx=j*m; j>=0; j--, jx-=m ) {
+						y[j] /= rdiag[j];
+						double yj = y[j];
+						x[j*r+c] = yj;
+						for( int i=0; i<j; i++ )
+							y[i] -= yj * qrt[jx+i];
+					}
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Householder reduction of a symmetric matrix to tridiagonal form (see tred2 in 
+	 * EISPACK and JAMA), where v holds the transposed (and hence contiguous) columns of
+	 * the accumulated transformations. The symmetric matrix-vector products and rank-2
+	 * updates per step as well as the accumulation of transformations are parallelized.
+	 * 
+	 * @param v
+	 * @param d
+	 * @param e
+	 * @param n
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void tridiagonalize( final double[] v, final double[] d, final double[] e, final int n, ExecutorService pool, final int k ) 
+		throws DMLRuntimeException
+	{
+		for( int j=0; j<n; j++ )
+			d[j] = v[j*n+n-1];
+		
+		for( int i=n-1; i>0; i-- ) 
+		{
+			final int fi = i;
+			double scale = 0, h = 0;
+			for( int j=0; j<i; j++ )
+				scale += Math.abs(d[j]);
+			
+			if( scale == 0 ) {
+				e[i] = d[i-1];
+				for( int j=0; j<i; j++ ) {
+					d[j] = v[j*n+i-1];
+					v[j*n+i] = 0;
+					v[i*n+j] = 0;
+				}
+			}
+			else {
+				//generate householder vector
+				for( int j=0; j<i; j++ ) {
+					d[j] /= scale;
+					h += d[j] * d[j];
+				}
+				double f = d[i-1];
+				double g = (f > 0) ? -Math.sqrt(h) : Math.sqrt(h);
+				e[i] = scale * g;
+				h = h - f * g;
+				d[i-1] = f - g;
+				Arrays.fill(e, 0, i, 0);
+				for( int j=0; j<i; j++ )
+					v[i*n+j] = d[j];
+				
+				//symmetric matrix-vector product e = A d (w/ partial results per thread)
+				final int numParts = (pool != null && 2L*i*i >= PAR_MINFLOP_THRESHOLD) ? k : 1;
+				final double[][] partial = new double[numParts][];
+				executeRange(pool, numParts, 0, numParts, 2L*i*i, new RangeOp() {
+					@Override
+					public void execute(int pl, int pu) {
+						for( int p=pl; p<pu; p++ ) {
+							double[] ep = (numParts==1) ? e : new double[fi];
+							int blklen = (int)Math.ceil((double)fi/numParts);
+							for( int j=p*blklen, jx=j*n; j<Math.min((p+1)*blklen, fi); j++, jx+=n ) {
+								double fj = d[j];
+								double gj = v[jx+j] * fj;
+								for( int c=j+1; c<fi; c++ ) {
+									gj += v[jx+c] * d[c];
+									ep[c] += v[jx+c] * fj;
+								}
+								ep[j] += gj;
+							}
+							partial[p] = ep;
+						}
+					}
+				});
+				if( numParts > 1 )
+					for( int p=0; p<numParts; p++ )
+						for( int j=0; j<i; j++ )
+							e[j] += partial[p][j];
+				
+				f = 0;
+				for( int j=0; j<i; j++ ) {
+					e[j] /= h;
+					f += e[j] * d[j];
+				}
+				double hh = f / (h + h);
+				for( int j=0; j<i; j++ )
+					e[j] -= hh * d[j];
+				
+				//rank-2 update of remaining matrix
+				executeRange(pool, k, 0, i, 2L*i*i, new RangeOp() {
+					@Override
+					public void execute(int jl, int ju) {
+						for( int j=jl, jx=jl*n; j<ju; j++, jx+=n ) {
+							double fj = d[j], gj = e[j];
+							for( int c=j; c<fi; c++ )
+								v[jx+c] -= (fj * e[c] + gj * d[c]);
+						}
+					}
+				});
+				for( int j=0; j<i; j++ ) {
+					d[j] = v[j*n+i-1];
+					v[j*n+i] = 0;
+				}
+			}
+			d[i] = h;
+		}
+		
+		//accumulate transformations
+		for( int i=0; i<n-1; i++ ) 
+		{
+			final int fi = i;
+			final int ix1 = (i+1)*n;
+			v[i*n+n-1] = v[i*n+i];
+			v[i*n+i] = 1;
+			double h = d[i+1];
+			if( h != 0 ) {
+				for( int j=0; j<=i; j++ )
+					d[j] = v[ix1+j] / h;
+				executeRange(pool, k, 0, i+1, 4L*(i+1)*(i+1), new RangeOp() {
+					@Override
+					public void execute(int jl, int ju) {
+						for( int j=jl, jx=jl*n; j<ju; j++, jx+=n ) {
+							double g = dotProduct(v, v, ix1, jx, fi+1);
+							for( int c=0; c<=fi; c++ )
+								v[jx+c] -= g * d[c];
+						}
+					}
+				});
+			}
+			Arrays.fill(v, ix1, ix1+i+1, 0);
+		}
+		for( int j=0; j<n; j++ ) {
+			d[j] = v[j*n+n-1];
+			v[j*n+n-1] = 0;
+		}
+		v[n*n-1] = 1;
+		e[0] = 0;
+	}
+	
+	/**
+	 * Implicit QL algorithm for symmetric tridiagonal matrices (see tql2 in EISPACK 
+	 * and JAMA), where the rotations of each QL sweep are recorded and then applied
+	 * to the transposed eigen vectors v, in parallel over column ranges of v.
+	 * 
+	 * @param v
+	 * @param d
+	 * @param e
+	 * @param n
+	 * @param pool
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void tridiagonalQL( final double[] v, double[] d, double[] e, final int n, ExecutorService pool, int k ) 
+		throws DMLRuntimeException
+	{
+		for( int i=1; i<n; i++ )
+			e[i-1] = e[i];
+		e[n-1] = 0;
+		
+		final double[] rc = new double[n];
+		final double[] rs = new double[n];
+		double f = 0, tst1 = 0;
+		double eps = Math.ulp(1d);
+		for( int l=0; l<n; l++ ) 
+		{
+			//find small subdiagonal element
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while( m < n-1 && Math.abs(e[m]) > eps*tst1 )
+				m++;
+			
+			//if m == l, d[l] is an eigenvalue, otherwise iterate
+			if( m > l ) {
+				int iter = 0;
+				do {
+					if( ++iter > EIGEN_MAX_ITER )
+						throw new DMLRuntimeException("Eigen decomposition failed: no convergence after "+EIGEN_MAX_ITER+" iterations.");
+					
+					//compute implicit shift
+					double g = d[l];
+					double p = (d[l+1] - g) / (2 * e[l]);
+					double r = hypot(p, 1);
+					if( p < 0 ) 
+						r = -r;
+					d[l] = e[l] / (p + r);
+					d[l+1] = e[l] * (p + r);
+					double dl1 = d[l+1];
+					double h = g - d[l];
+					for( int i=l+2; i<n; i++ )
+						d[i] -= h;
+					f = f + h;
+					
+					//implicit QL transformation (w/ recorded rotations)
+					p = d[m];
+					double c = 1, c2 = c, c3 = c;
+					double el1 = e[l+1];
+					double s = 0, s2 = 0;
+					for( int i=m-1; i>=l; i-- ) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = hypot(p, e[i]);
+						e[i+1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i+1] = h + s * (c * g + s * d[i]);
+						rc[i] = c;
+						rs[i] = s;
+					}
+					
+					//apply rotations to eigen vectors
+					final int fl = l, fm = m;
+					executeRange(pool, k, 0, n, 6L*n*(m-l), new RangeOp() {
+						@Override
+						public void execute(int cl, int cu) {
+							for( int i=fm-1; i>=fl; i-- ) {
+								double ci = rc[i], si = rs[i];
+								for( int ix=i*n, ix1=(i+1)*n, c=cl; c<cu; c++ ) {
+									double hc = v[ix1+c];
+									v[ix1+c] = si * v[ix+c] + ci * hc;
+									v[ix+c] = ci * v[ix+c] - si * hc;
+								}
+							}
+						}
+					});
+					
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+				}
+				while( Math.abs(e[l]) > eps*tst1 );
+			}
+			d[l] = d[l] + f;
+			e[l] = 0;
+		}
+	}
+	
+	
+	///////////////////////////////////////////
+	// Utility functions
+	///////////////////////////////////////////
+	
+	/**
+	 * 
+	 * @param a
+	 * @param b
+	 * @param ai
+	 * @param bi
+	 * @param len
+	 * @return
+	 */
+	private static double dotProduct( double[] a, double[] b, int ai, int bi, int len ) 
+	{
+		return LibMatrixPrimitives.dotProduct(a, b, ai, bi, len);
+	}
+	
+	/**
+	 * sqrt(a^2 + b^2) without under/overflow (and faster than Math.hypot).
+	 * 
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	private static double hypot( double a, double b ) 
+	{
+		double aa = Math.abs(a), ab = Math.abs(b);
+		if( aa > ab ) {
+			double r = b / a;
+			return aa * Math.sqrt(1 + r * r);
+		}
+		else if( b != 0 ) {
+			double r = a / b;
+			return ab * Math.sqrt(1 + r * r);
+		}
+		return 0;
+	}
+	
+	/**
+	 * 
+	 * @param a
+	 * @param n
+	 * @param i1
+	 * @param i2
+	 */
+	private static void swapRows( double[] a, int n, int i1, int i2 ) 
+	{
+		for( int j=0, ix1=i1*n, ix2=i2*n; j<n; j++ ) {
+			double tmp = a[ix1+j];
+			a[ix1+j] = a[ix2+j];
+			a[ix2+j] = tmp;
+		}
+	}
+	
+	/**
+	 * Creates a dense row-major copy of the given matrix block.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	private static double[] toDenseArray( MatrixBlock in ) 
+	{
+		int m = in.getNumRows(), n = in.getNumColumns();
+		double[] ret = new double[m*n];
+		if( in.isEmptyBlock(false) )
+			return ret;
+		
+		if( in.isInSparseFormat() ) {
+			Iterator<IJV> iter = in.getSparseBlockIterator();
+			while( iter.hasNext() ) {
+				IJV cell = iter.next();
+				ret[cell.getI()*n+cell.getJ()] = cell.getV();
+			}
+		}
+		else
+			System.arraycopy(in.getDenseBlock(), 0, ret, 0, m*n);
+		
+		return ret;
+	}
+	
+	/**
+	 * Creates a dense row-major copy of the transpose of the given matrix block.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	private static double[] toDenseArrayTransposed( MatrixBlock in ) 
+	{
+		int m = in.getNumRows(), n = in.getNumColumns();
+		double[] ret = new double[m*n];
+		if( in.isEmptyBlock(false) )
+			return ret;
+		
+		if( in.isInSparseFormat() ) {
+			Iterator<IJV> iter = in.getSparseBlockIterator();
+			while( iter.hasNext() ) {
+				IJV cell = iter.next();
+				ret[cell.getJ()*m+cell.getI()] = cell.getV();
+			}
+		}
+		else {
+			double[] a = in.getDenseBlock();
+			for( int i=0, ix=0; i<m; i++, ix+=n )
+				for( int j=0; j<n; j++ )
+					ret[j*m+i] = a[ix+j];
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param ret
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static MatrixBlock finalizeOutput( MatrixBlock ret ) 
+		throws DMLRuntimeException
+	{
+		ret.recomputeNonZeros();
+		ret.examSparsity();
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param k
+	 * @return
+	 */
+	private static ExecutorService createThreadPool( int k ) {
+		return (k > 1) ? Executors.newFixedThreadPool(k) : null;
+	}
+	
+	/**
+	 * 
+	 * @param pool
+	 */
+	private static void shutdownThreadPool( ExecutorService pool ) {
+		if( pool != null )
+			pool.shutdown();
+	}
+	
+	/**
+	 * Executes the given range operation over [lb,ub), in parallel over k equi-sized
+	 * ranges if a thread pool is given and the number of floating point operations
+	 * exceeds the parallelization threshold.
+	 * 
+	 * @param pool
+	 * @param k
+	 * @param lb
+	 * @param ub
+	 * @param flops
+	 * @param op
+	 * @throws DMLRuntimeException
+	 */
+	private static void executeRange( ExecutorService pool, int k, int lb, int ub, long flops, RangeOp op ) 
+		throws DMLRuntimeException
+	{
+		//sequential execution for small problems
+		if( pool == null || k <= 1 || ub-lb < 2 || flops < PAR_MINFLOP_THRESHOLD ) {
+			op.execute(lb, ub);
+			return;
+		}
+		
+		//parallel execution over equi-sized ranges
+		try {
+			ArrayList<RangeTask> tasks = new ArrayList<RangeTask>();
+			int blklen = (int)(Math.ceil((double)(ub-lb)/k));
+			for( int i=lb; i<ub; i+=blklen )
+				tasks.add(new RangeTask(op, i, Math.min(i+blklen, ub)));
+			for( Future<Object> task : pool.invokeAll(tasks) )
+				task.get();
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+	}
+	
+	/**
+	 * Operation over a range [rl,ru) of rows or columns.
+	 */
+	private static abstract class RangeOp 
+	{
+		public abstract void execute(int rl, int ru);
+	}
+	
+	/**
+	 * 
+	 */
+	private static class RangeTask implements Callable<Object> 
+	{
+		private RangeOp _op = null;
+		private int _rl = -1;
+		private int _ru = -1;
+		
+		protected RangeTask( RangeOp op, int rl, int ru ) {
+			_op = op;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		@Override
+		public Object call() {
+			_op.execute(_rl, _ru);
+			return null;
+		}
+	}
+}
@@ -30,6 +30,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.apache.commons.math3.util.FastMath;
+import org.apache.sysml.hops.cost.CostModelProfile;
+import org.apache.sysml.hops.cost.CostModelProfile.CostParam;
 import org.apache.sysml.lops.MapMultChain.ChainType;
 import org.apache.sysml.lops.WeightedCrossEntropy.WCeMMType;
 import org.apache.sysml.lops.WeightedDivMM.WDivMMType;
@@ -40,6 +42,7 @@ import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.functionobjects.SwapIndex;
 import org.apache.sysml.runtime.functionobjects.ValueFunction;
 import org.apache.sysml.runtime.matrix.operators.ReorgOperator;
+import org.apache.sysml.runtime.util.SortUtils;
 import org.apache.sysml.runtime.util.UtilFunctions;
 
 /**
@@ -85,6 +88,8 @@ public class LibMatrixMult
 	 * 
 	 * All variants use a IKJ access pattern, and internally use dense output. After the
 	 * actual computation, we recompute nnz and check for sparse/dense representation.
+	 * The only exception is sparse-sparse matrix mult with estimated sparse output,
+	 * which uses row-wise accumulators and directly creates a CSR output block.
 	 *  
 	 * 
 	 * @param m1 first matrix
@@ -101,7 +106,17 @@ public class LibMatrixMult
 			return;
 		}
 		
+		//sparse-sparse matrix mult w/ sparse output (incl symbolic phase)
+		int[] rflops = computeSparseOutputRowFlops(m1, m2);
+		if( rflops != null ) {
+			matrixMultSparseSparseCSR(m1, m2, ret, rflops, 1);
+			return;
+		}
+		
 		//Timing time = new Timing(true);
+		boolean observe = CostModelProfile.isCalibrated() && !m1.sparse && !m2.sparse;
+		long t0 = observe ? System.nanoTime() : 0;
+		double nflop = (double)m1.rlen * m1.clen * m2.clen;
 		
 		//pre-processing: output allocation
 		boolean tm2 = checkPrepMatrixMultRightInput(m1,m2);
@@ -132,6 +147,10 @@ public class LibMatrixMult
 			ret.recomputeNonZeros();
 		ret.examSparsity();
 		
+		//online refinement of cost model (dense only, flops as of cost model)
+		if( observe )
+			CostModelProfile.maintainObservation(CostParam.FLOPS_MATMULT, nflop, System.nanoTime()-t0, 1);
+		
 		//System.out.println("MM ("+m1.isInSparseFormat()+","+m1.getNumRows()+","+m1.getNumColumns()+","+m1.getNonZeros()+")x" +
 		//		              "("+m2.isInSparseFormat()+","+m2.getNumRows()+","+m2.getNumColumns()+","+m2.getNonZeros()+") in "+time.stop());
 	}
@@ -155,6 +174,13 @@ public class LibMatrixMult
 			return;
 		}
 		
+		//sparse-sparse matrix mult w/ sparse output (incl symbolic phase)
+		int[] rflops = computeSparseOutputRowFlops(m1, m2);
+		if( rflops != null ) {
+			matrixMultSparseSparseCSR(m1, m2, ret, rflops, k);
+			return;
+		}
+		
 		//check too high additional vector-matrix memory requirements (fallback to sequential)
 		//check too small workload in terms of flops (fallback to sequential too)
 		if( m1.rlen == 1 && (8L * m2.clen * k > MEM_OVERHEAD_THRESHOLD || !LOW_LEVEL_OPTIMIZATION || m2.clen==1 || m1.isUltraSparse() || m2.isUltraSparse()) 
@@ -165,6 +191,9 @@ public class LibMatrixMult
 		}
 		
 		//Timing time = new Timing(true);
+		boolean observe = CostModelProfile.isCalibrated() && !m1.sparse && !m2.sparse;
+		long t0 = observe ? System.nanoTime() : 0;
+		double nflop = (double)m1.rlen * m1.clen * m2.clen;
 		
 		//pre-processing: output allocation (in contrast to single-threaded,
 		//we need to allocate sparse as well in order to prevent synchronization)
@@ -211,6 +240,10 @@ public class LibMatrixMult
 		//post-processing (nnz maintained in parallel)
 		ret.examSparsity();
 		
+		//online refinement of cost model (dense only, flops as of cost model)
+		if( observe )
+			CostModelProfile.maintainObservation(CostParam.FLOPS_MATMULT, nflop, System.nanoTime()-t0, k);
+		
 		//System.out.println("MM k="+k+" ("+m1.isInSparseFormat()+","+m1.getNumRows()+","+m1.getNumColumns()+","+m1.getNonZeros()+")x" +
 		//		              "("+m2.isInSparseFormat()+","+m2.getNumRows()+","+m2.getNumColumns()+","+m2.getNonZeros()+") in "+time.stop());
 	}
@@ -1515,6 +1548,128 @@ public class LibMatrixMult
 		}
 	}
 
+	/**
+	 * Symbolic phase of sparse-sparse matrix multiplication, which computes the number
+	 * of multiply-adds per output row. Since min(flops, n) is an exact upper bound of 
+	 * the output row nnz, this allows us to decide on sparse outputs without allocating
+	 * a dense intermediate. 
+	 * 
+	 * @param m1
+	 * @param m2
+	 * @return row flops, or null if not applicable or the output is likely dense
+	 */
+	private static int[] computeSparseOutputRowFlops(MatrixBlock m1, MatrixBlock m2) 
+	{
+		//check for applicability (sparse-sparse matrix-matrix, not ultra-sparse)
+		if( !m1.sparse || !m2.sparse || m1.rlen <= 1 || m1.isUltraSparse() || m2.isUltraSparse()
+			|| m1.sparseBlock == null || m2.sparseBlock == null )
+			return null;
+		
+		SparseBlock a = m1.sparseBlock;
+		SparseBlock b = m2.sparseBlock;
+		int m = m1.rlen;
+		int n = m2.clen;
+		
+		//compute flops per row and upper bound of output nnz
+		int[] rflops = new int[m];
+		long nnz = 0;
+		for( int i=0; i<m; i++ ) {
+			if( a.isEmpty(i) ) 
+				continue;
+			int apos = a.pos(i);
+			int alen = a.size(i);
+			int[] aix = a.indexes(i);
+			long flops = 0;
+			for( int k=apos; k<apos+alen; k++ )
+				if( !b.isEmpty(aix[k]) )
+					flops += b.size(aix[k]);
+			rflops[i] = (int) Math.min(flops, Integer.MAX_VALUE);
+			nnz += Math.min(flops, n);
+		}
+		
+		return (nnz < Integer.MAX_VALUE 
+			&& MatrixBlock.evalSparseFormatInMemory(m, n, nnz)) ? rflops : null;
+	}
+	
+	/**
+	 * Numeric phase of sparse-sparse matrix multiplication with sparse output (Gustavson's
+	 * row-wise algorithm). Every output row is computed in a row accumulator, which is a 
+	 * dense array over all columns for rows with many flops, or a small hash table (sized 
+	 * by the row flops) otherwise. The multi-threaded computation is over row partitions 
+	 * with balanced flops, and all partitions are directly concatenated into a CSR output.
+	 * 
+	 * @param m1
+	 * @param m2
+	 * @param ret
+	 * @param rflops
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void matrixMultSparseSparseCSR(MatrixBlock m1, MatrixBlock m2, MatrixBlock ret, int[] rflops, int k) 
+		throws DMLRuntimeException
+	{
+		int m = m1.rlen;
+		int n = m2.clen;
+		long flops = 0;
+		for( int i=0; i<m; i++ )
+			flops += rflops[i];
+		
+		//core sparse-sparse matrix mult computation (serial or multi-threaded)
+		ArrayList<MatrixMultSparseCSRTask> tasks = new ArrayList<MatrixMultSparseCSRTask>();
+		if( k <= 1 || 2*flops < PAR_MINFLOP_THRESHOLD || m < k ) {
+			MatrixMultSparseCSRTask task = new MatrixMultSparseCSRTask(m1, m2, rflops, 0, m);
+			task.call();
+			tasks.add(task);
+		}
+		else {
+			try {
+				//row partitions w/ balanced flops
+				long blkflops = (long)Math.ceil((double)flops/k);
+				for( int lb=0, ub=0; lb<m; lb=ub ) {
+					long tmp = 0;
+					while( ub<m && (tmp<blkflops || ub==lb) )
+						tmp += rflops[ub++];
+					tasks.add(new MatrixMultSparseCSRTask(m1, m2, rflops, lb, ub));
+				}
+				ExecutorService pool = Executors.newFixedThreadPool( k );
+				List<Future<Object>> taskret = pool.invokeAll(tasks);	
+				pool.shutdown();
+				for( Future<Object> task : taskret )
+					task.get(); //error handling
+			}
+			catch(Exception ex) {
+				throw new DMLRuntimeException(ex);
+			}
+		}
+		
+		//construct CSR output from row partitions (w/o copy for single partition)
+		long lnnz = 0;
+		for( MatrixMultSparseCSRTask task : tasks )
+			lnnz += task.getNonZeros();
+		int nnz = (int) lnnz;
+		int[] rptr = new int[m+1];
+		int[] cix = (tasks.size()==1) ? tasks.get(0).getIndexes() : new int[nnz];
+		double[] cvals = (tasks.size()==1) ? tasks.get(0).getValues() : new double[nnz];
+		for( MatrixMultSparseCSRTask task : tasks ) {
+			int[] rlens = task.getRowLengths();
+			int rl = task.getRowLower();
+			for( int i=0; i<rlens.length; i++ )
+				rptr[rl+i+1] = rptr[rl+i] + rlens[i];
+			if( tasks.size() > 1 ) {
+				System.arraycopy(task.getIndexes(), 0, cix, rptr[rl], task.getNonZeros());
+				System.arraycopy(task.getValues(), 0, cvals, rptr[rl], task.getNonZeros());
+			}
+		}
+		
+		ret.cleanupBlock(true, true);
+		ret.sparse = true;
+		ret.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, nnz);
+		ret.nonZeros = nnz;
+		
+		//post-processing: representation (if actual output is dense)
+		ret.examSparsity();
+	}
+	
 	/**
 	 * This implementation applies to any combination of dense/sparse if at least one
 	 * input is ultrasparse (sparse and very few nnz). In that case, most importantly,
@@ -3142,30 +3297,7 @@ public class LibMatrixMult
 	 */
 	private static double dotProduct( double[] a, double[] b, final int len )
 	{
-		double val = 0;
-		final int bn = len%8;
-				
-		//compute rest
-		for( int i = 0; i < bn; i++ )
-			val += a[ i ] * b[ i ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int i = bn; i < len; i+=8 )
-		{
-			//read 64B cachelines of a and b
-			//compute cval' = sum(a * b) + cval
-			val += a[ i+0 ] * b[ i+0 ]
-			     + a[ i+1 ] * b[ i+1 ]
-			     + a[ i+2 ] * b[ i+2 ]
-			     + a[ i+3 ] * b[ i+3 ]
-			     + a[ i+4 ] * b[ i+4 ]
-			     + a[ i+5 ] * b[ i+5 ]
-			     + a[ i+6 ] * b[ i+6 ]
-			     + a[ i+7 ] * b[ i+7 ];
-		}
-		
-		//scalar result
-		return val; 
+		return LibMatrixPrimitives.dotProduct(a, b, 0, 0, len);
 	}
 	
 	/**
@@ -3179,59 +3311,22 @@ public class LibMatrixMult
 	 */
 	private static double dotProduct( double[] a, double[] b, int ai, int bi, final int len )
 	{
-		double val = 0;
-		final int bn = len%8;
-				
-		//compute rest
-		for( int i = 0; i < bn; i++, ai++, bi++ )
-			val += a[ ai ] * b[ bi ];
-		
-		//unrolled 8-block (for better instruction-level parallelism)
-		for( int i = bn; i < len; i+=8, ai+=8, bi+=8 )
-		{
-			//read 64B cachelines of a and b
-			//compute cval' = sum(a * b) + cval
-			val += a[ ai+0 ] * b[ bi+0 ]
-			     + a[ ai+1 ] * b[ bi+1 ]
-			     + a[ ai+2 ] * b[ bi+2 ]
-			     + a[ ai+3 ] * b[ bi+3 ]
-			     + a[ ai+4 ] * b[ bi+4 ]
-			     + a[ ai+5 ] * b[ bi+5 ]
-			     + a[ ai+6 ] * b[ bi+6 ]
-			     + a[ ai+7 ] * b[ bi+7 ];
-		}
-		
-		//scalar result
-		return val; 
+		return LibMatrixPrimitives.dotProduct(a, b, ai, bi, len);
 	}
 	
+	/**
+	 * 
+	 * @param a
+	 * @param b
+	 * @param aix
+	 * @param ai
+	 * @param bi
+	 * @param len
+	 * @return
+	 */
 	private static double dotProduct( double[] a, double[] b, int[] aix, int ai, final int bi, final int len )
 	{
-		double val = 0;
-		final int bn = len%8;
-				
-		//compute rest
-		for( int i = ai; i < ai+bn; i++ )
-			val += a[ i ] * b[ bi+aix[i] ];
-		
-		//unrolled 8-block (for better instruction-level parallelism)
-		for( int i = ai+bn; i < ai+len; i+=8 )
-		{
-			//read 64B cacheline of a
-			//read 64B of b via 'gather'
-			//compute cval' = sum(a * b) + cval
-			val += a[ i+0 ] * b[ bi+aix[i+0] ]
-			     + a[ i+1 ] * b[ bi+aix[i+1] ]
-			     + a[ i+2 ] * b[ bi+aix[i+2] ]
-			     + a[ i+3 ] * b[ bi+aix[i+3] ]
-			     + a[ i+4 ] * b[ bi+aix[i+4] ]
-			     + a[ i+5 ] * b[ bi+aix[i+5] ]
-			     + a[ i+6 ] * b[ bi+aix[i+6] ]
-			     + a[ i+7 ] * b[ bi+aix[i+7] ];
-		}
-		
-		//scalar result
-		return val; 
+		return LibMatrixPrimitives.dotProduct(a, b, aix, ai, bi, len);
 	}
 	
 	/**
@@ -3245,27 +3340,7 @@ public class LibMatrixMult
 	 */
 	private static void vectMultiplyAdd( final double aval, double[] b, double[] c, int bi, int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, bi++, ci++)
-			c[ ci ] += aval * b[ bi ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, bi+=8, ci+=8) 
-		{
-			//read 64B cachelines of b and c
-			//compute c' = aval * b + c
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] += aval * b[ bi+0 ];
-			c[ ci+1 ] += aval * b[ bi+1 ];
-			c[ ci+2 ] += aval * b[ bi+2 ];
-			c[ ci+3 ] += aval * b[ bi+3 ];
-			c[ ci+4 ] += aval * b[ bi+4 ];
-			c[ ci+5 ] += aval * b[ bi+5 ];
-			c[ ci+6 ] += aval * b[ bi+6 ];
-			c[ ci+7 ] += aval * b[ bi+7 ];
-		}
+		LibMatrixPrimitives.vectMultiplyAdd(aval, b, c, bi, ci, len);
 	}
 	
 	/**
@@ -3279,67 +3354,11 @@ public class LibMatrixMult
 	 * @param ci
 	 * @param len
 	 */
-    private static void vectMultiplyAdd2( final double aval1, final double aval2, double[] b, double[] c, int bi1, int bi2, int ci, final int len )
+	private static void vectMultiplyAdd2( final double aval1, final double aval2, double[] b, double[] c, final int bi1, final int bi2, final int ci, final int len )
 	{
-		final int bn = len%8;	
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, bi1++, bi2++, ci++ )
-			c[ ci ] += aval1 * b[ bi1 ] + aval2 * b[ bi2 ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, bi1+=8, bi2+=8, ci+=8 ) 
-		{
-			//read 64B cachelines of b (2x) and c
-			//compute c' = aval_1 * b_1 + aval_2 * b_2 + c
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] += aval1 * b[ bi1+0 ] + aval2 * b[ bi2+0 ];
-			c[ ci+1 ] += aval1 * b[ bi1+1 ] + aval2 * b[ bi2+1 ];
-			c[ ci+2 ] += aval1 * b[ bi1+2 ] + aval2 * b[ bi2+2 ];
-			c[ ci+3 ] += aval1 * b[ bi1+3 ] + aval2 * b[ bi2+3 ];
-			c[ ci+4 ] += aval1 * b[ bi1+4 ] + aval2 * b[ bi2+4 ];
-			c[ ci+5 ] += aval1 * b[ bi1+5 ] + aval2 * b[ bi2+5 ];
-			c[ ci+6 ] += aval1 * b[ bi1+6 ] + aval2 * b[ bi2+6 ];
-			c[ ci+7 ] += aval1 * b[ bi1+7 ] + aval2 * b[ bi2+7 ];	
-		}
-	}
-	
-    /**
-     * 
-     * @param aval1
-     * @param aval2
-     * @param aval3
-     * @param b
-     * @param c
-     * @param bi1
-     * @param bi2
-     * @param bi3
-     * @param ci
-     * @param len
-     */
-	private static void vectMultiplyAdd3( final double aval1, final double aval2, final double aval3, double[] b, double[] c, int bi1, int bi2, int bi3, int ci, final int len )
-	{
-		final int bn = len%8;	
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, bi1++, bi2++, bi3++, ci++ )
-			c[ ci ] += aval1 * b[ bi1 ] + aval2 * b[ bi2 ] + aval3 * b[ bi3 ];
-		
-		//unrolled 8-block (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, bi1+=8, bi2+=8, bi3+=8, ci+=8 ) 
-		{
-			//read 64B cachelines of b (3x) and c
-			//compute c' = aval_1 * b_1 + aval_2 * b_2 + c
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] += aval1 * b[ bi1+0 ] + aval2 * b[ bi2+0 ] + aval3 * b[ bi3+0 ];
-			c[ ci+1 ] += aval1 * b[ bi1+1 ] + aval2 * b[ bi2+1 ] + aval3 * b[ bi3+1 ];
-			c[ ci+2 ] += aval1 * b[ bi1+2 ] + aval2 * b[ bi2+2 ] + aval3 * b[ bi3+2 ];
-			c[ ci+3 ] += aval1 * b[ bi1+3 ] + aval2 * b[ bi2+3 ] + aval3 * b[ bi3+3 ];
-			c[ ci+4 ] += aval1 * b[ bi1+4 ] + aval2 * b[ bi2+4 ] + aval3 * b[ bi3+4 ];
-			c[ ci+5 ] += aval1 * b[ bi1+5 ] + aval2 * b[ bi2+5 ] + aval3 * b[ bi3+5 ];
-			c[ ci+6 ] += aval1 * b[ bi1+6 ] + aval2 * b[ bi2+6 ] + aval3 * b[ bi3+6 ];
-			c[ ci+7 ] += aval1 * b[ bi1+7 ] + aval2 * b[ bi2+7 ] + aval3 * b[ bi3+7 ];	
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] += aval1 * b[ bi1+j ] + aval2 * b[ bi2+j ];
 	}
 	
 	/**
@@ -3347,75 +3366,41 @@ public class LibMatrixMult
 	 * @param aval1
 	 * @param aval2
 	 * @param aval3
-	 * @param aval4
 	 * @param b
 	 * @param c
 	 * @param bi1
 	 * @param bi2
 	 * @param bi3
-	 * @param bi4
 	 * @param ci
 	 * @param len
 	 */
-	private static void vectMultiplyAdd4( final double aval1, final double aval2, final double aval3, final double aval4, double[] b, double[] c, int bi1, int bi2, int bi3, int bi4, int ci, final int len )
+	private static void vectMultiplyAdd3( final double aval1, final double aval2, final double aval3, double[] b, double[] c, final int bi1, final int bi2, final int bi3, final int ci, final int len )
 	{
-		final int bn = len%8;	
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, bi1++, bi2++, bi3++, bi4++, ci++ )
-			c[ ci ] += aval1 * b[ bi1 ] + aval2 * b[ bi2 ] + aval3 * b[ bi3 ] + aval4 * b[ bi4 ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, bi1+=8, bi2+=8, bi3+=8, bi4+=8, ci+=8) 
-		{
-			//read 64B cachelines of b (4x) and c 
-			//compute c' = aval_1 * b_1 + aval_2 * b_2 + c
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] += aval1 * b[ bi1+0 ] + aval2 * b[ bi2+0 ] + aval3 * b[ bi3+0 ] + aval4 * b[ bi4+0 ];
-			c[ ci+1 ] += aval1 * b[ bi1+1 ] + aval2 * b[ bi2+1 ] + aval3 * b[ bi3+1 ] + aval4 * b[ bi4+1 ];
-			c[ ci+2 ] += aval1 * b[ bi1+2 ] + aval2 * b[ bi2+2 ] + aval3 * b[ bi3+2 ] + aval4 * b[ bi4+2 ];
-			c[ ci+3 ] += aval1 * b[ bi1+3 ] + aval2 * b[ bi2+3 ] + aval3 * b[ bi3+3 ] + aval4 * b[ bi4+3 ];
-			c[ ci+4 ] += aval1 * b[ bi1+4 ] + aval2 * b[ bi2+4 ] + aval3 * b[ bi3+4 ] + aval4 * b[ bi4+4 ];
-			c[ ci+5 ] += aval1 * b[ bi1+5 ] + aval2 * b[ bi2+5 ] + aval3 * b[ bi3+5 ] + aval4 * b[ bi4+5 ];
-			c[ ci+6 ] += aval1 * b[ bi1+6 ] + aval2 * b[ bi2+6 ] + aval3 * b[ bi3+6 ] + aval4 * b[ bi4+6 ];
-			c[ ci+7 ] += aval1 * b[ bi1+7 ] + aval2 * b[ bi2+7 ] + aval3 * b[ bi3+7 ] + aval4 * b[ bi4+7 ];	
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] += aval1 * b[ bi1+j ] + aval2 * b[ bi2+j ] + aval3 * b[ bi3+j ];
 	}
 	
 	/**
 	 * 
-	 * @param aval
+	 * @param aval1
+	 * @param aval2
+	 * @param aval3
+	 * @param aval4
 	 * @param b
 	 * @param c
-	 * @param bix
+	 * @param bi1
+	 * @param bi2
+	 * @param bi3
+	 * @param bi4
 	 * @param ci
 	 * @param len
 	 */
-	@SuppressWarnings("unused")
-	private static void vectMultiplyAdd( final double aval, double[] b, double[] c, int[] bix, final int ci, final int len )
+	private static void vectMultiplyAdd4( final double aval1, final double aval2, final double aval3, final double aval4, double[] b, double[] c, final int bi1, final int bi2, final int bi3, final int bi4, final int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++ )
-			c[ ci + bix[j] ] += aval * b[ j ];
-		
-		//unrolled 8-block (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8 )
-		{
-			//read 64B cacheline of b
-			//read 64B of c via 'gather'
-			//compute c' = aval * b + c
-			//write back 64B of c = c' via 'scatter'
-			c[ ci+bix[j+0] ] += aval * b[ j+0 ];
-			c[ ci+bix[j+1] ] += aval * b[ j+1 ];
-			c[ ci+bix[j+2] ] += aval * b[ j+2 ];
-			c[ ci+bix[j+3] ] += aval * b[ j+3 ];
-			c[ ci+bix[j+4] ] += aval * b[ j+4 ];
-			c[ ci+bix[j+5] ] += aval * b[ j+5 ];
-			c[ ci+bix[j+6] ] += aval * b[ j+6 ];
-			c[ ci+bix[j+7] ] += aval * b[ j+7 ];
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] += aval1 * b[ bi1+j ] + aval2 * b[ bi2+j ] + aval3 * b[ bi3+j ] + aval4 * b[ bi4+j ];
 	}
 	
 	/**
@@ -3430,28 +3415,7 @@ public class LibMatrixMult
 	 */
 	private static void vectMultiplyAdd( final double aval, double[] b, double[] c, int[] bix, final int bi, final int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = bi; j < bi+bn; j++ )
-			c[ ci + bix[j] ] += aval * b[ j ];
-		
-		//unrolled 8-block (for better instruction-level parallelism)
-		for( int j = bi+bn; j < bi+len; j+=8 )
-		{
-			//read 64B cacheline of b
-			//read 64B of c via 'gather'
-			//compute c' = aval * b + c
-			//write back 64B of c = c' via 'scatter'
-			c[ ci+bix[j+0] ] += aval * b[ j+0 ];
-			c[ ci+bix[j+1] ] += aval * b[ j+1 ];
-			c[ ci+bix[j+2] ] += aval * b[ j+2 ];
-			c[ ci+bix[j+3] ] += aval * b[ j+3 ];
-			c[ ci+bix[j+4] ] += aval * b[ j+4 ];
-			c[ ci+bix[j+5] ] += aval * b[ j+5 ];
-			c[ ci+bix[j+6] ] += aval * b[ j+6 ];
-			c[ ci+bix[j+7] ] += aval * b[ j+7 ];
-		}
+		LibMatrixPrimitives.vectMultiplyAdd(aval, b, c, bix, bi, ci, len);
 	}
 		
 	/**
@@ -3465,27 +3429,7 @@ public class LibMatrixMult
 	 */
 	private static void vectMultiplyWrite( final double aval, double[] b, double[] c, int bi, int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, bi++, ci++)
-			c[ ci ] = aval * b[ bi ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, bi+=8, ci+=8) 
-		{
-			//read 64B cachelines of b and c
-			//compute c' = aval * b + c
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] = aval * b[ bi+0 ];
-			c[ ci+1 ] = aval * b[ bi+1 ];
-			c[ ci+2 ] = aval * b[ bi+2 ];
-			c[ ci+3 ] = aval * b[ bi+3 ];
-			c[ ci+4 ] = aval * b[ bi+4 ];
-			c[ ci+5 ] = aval * b[ bi+5 ];
-			c[ ci+6 ] = aval * b[ bi+6 ];
-			c[ ci+7 ] = aval * b[ bi+7 ];
-		}
+		LibMatrixPrimitives.vectMultiplyWrite(aval, b, c, bi, ci, len);
 	}
 	
 	/**
@@ -3499,29 +3443,11 @@ public class LibMatrixMult
 	 * @param len
 	 */
 	@SuppressWarnings("unused")
-	private static void vectMultiplyWrite( double[] a, double[] b, double[] c, int ai, int bi, int ci, final int len )
+	private static void vectMultiplyWrite( double[] a, double[] b, double[] c, final int ai, final int bi, final int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, ai++, bi++, ci++)
-			c[ ci ] = a[ ai ] * b[ bi ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, ai+=8, bi+=8, ci+=8) 
-		{
-			//read 64B cachelines of a and b
-			//compute c' = a * b
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] = a[ ai+0 ] * b[ bi+0 ];
-			c[ ci+1 ] = a[ ai+1 ] * b[ bi+1 ];
-			c[ ci+2 ] = a[ ai+2 ] * b[ bi+2 ];
-			c[ ci+3 ] = a[ ai+3 ] * b[ bi+3 ];
-			c[ ci+4 ] = a[ ai+4 ] * b[ bi+4 ];
-			c[ ci+5 ] = a[ ai+5 ] * b[ bi+5 ];
-			c[ ci+6 ] = a[ ai+6 ] * b[ bi+6 ];
-			c[ ci+7 ] = a[ ai+7 ] * b[ bi+7 ];
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] = a[ ai+j ] * b[ bi+j ];
 	}
 
 	/**
@@ -3532,29 +3458,11 @@ public class LibMatrixMult
 	 * @param ci
 	 * @param len
 	 */
-	private static void vectMultiply( double[] a, double[] c, int ai, int ci, final int len )
+	private static void vectMultiply( double[] a, double[] c, final int ai, final int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, ai++, ci++)
-			c[ ci ] *= a[ ai ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, ai+=8, ci+=8) 
-		{
-			//read 64B cachelines of a and c
-			//compute c' = c * a
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] *= a[ ai+0 ];
-			c[ ci+1 ] *= a[ ai+1 ];
-			c[ ci+2 ] *= a[ ai+2 ];
-			c[ ci+3 ] *= a[ ai+3 ];
-			c[ ci+4 ] *= a[ ai+4 ];
-			c[ ci+5 ] *= a[ ai+5 ];
-			c[ ci+6 ] *= a[ ai+6 ];
-			c[ ci+7 ] *= a[ ai+7 ];
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] *= a[ ai+j ];
 	}
 	
 	/**
@@ -3567,27 +3475,7 @@ public class LibMatrixMult
 	 */
 	private static void vectAdd( double[] a, double[] c, int ai, int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, ai++, ci++)
-			c[ ci ] += a[ ai ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, ai+=8, ci+=8) 
-		{
-			//read 64B cachelines of a and c
-			//compute c' = c * a
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] += a[ ai+0 ];
-			c[ ci+1 ] += a[ ai+1 ];
-			c[ ci+2 ] += a[ ai+2 ];
-			c[ ci+3 ] += a[ ai+3 ];
-			c[ ci+4 ] += a[ ai+4 ];
-			c[ ci+5 ] += a[ ai+5 ];
-			c[ ci+6 ] += a[ ai+6 ];
-			c[ ci+7 ] += a[ ai+7 ];
-		}
+		LibMatrixPrimitives.vectAdd(a, c, ai, ci, len);
 	}
 	
 	/**
@@ -3601,29 +3489,11 @@ public class LibMatrixMult
 	 * @param ci
 	 * @param len
 	 */
-	private static void vectAdd4( double[] a1, double[] a2, double[] a3, double[] a4, double[] c, int ai, int ci, final int len )
+	private static void vectAdd4( double[] a1, double[] a2, double[] a3, double[] a4, double[] c, final int ai, final int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, ai++, ci++)
-			c[ ci ] += a1[ ai ] + a2[ ai ] + a3[ ai ] + a4[ ai ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, ai+=8, ci+=8) 
-		{
-			//read 64B cachelines of a (4x) and c
-			//compute c' = c + a1 + a2 + a3 + a4
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] += a1[ ai+0 ] + a2[ ai+0 ] + a3[ ai+0 ] + a4[ ai+0 ];
-			c[ ci+1 ] += a1[ ai+1 ] + a2[ ai+1 ] + a3[ ai+1 ] + a4[ ai+1 ];
-			c[ ci+2 ] += a1[ ai+2 ] + a2[ ai+2 ] + a3[ ai+2 ] + a4[ ai+2 ];
-			c[ ci+3 ] += a1[ ai+3 ] + a2[ ai+3 ] + a3[ ai+3 ] + a4[ ai+3 ];
-			c[ ci+4 ] += a1[ ai+4 ] + a2[ ai+4 ] + a3[ ai+4 ] + a4[ ai+4 ];
-			c[ ci+5 ] += a1[ ai+5 ] + a2[ ai+5 ] + a3[ ai+5 ] + a4[ ai+5 ];
-			c[ ci+6 ] += a1[ ai+6 ] + a2[ ai+6 ] + a3[ ai+6 ] + a4[ ai+6 ];
-			c[ ci+7 ] += a1[ ai+7 ] + a2[ ai+7 ] + a3[ ai+7 ] + a4[ ai+7 ];
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] += a1[ ai+j ] + a2[ ai+j ] + a3[ ai+j ] + a4[ ai+j ];
 	}
 	
 	/**
@@ -3634,29 +3504,11 @@ public class LibMatrixMult
 	 * @param ci
 	 * @param len
 	 */
-	private static void vectSubtract( double[] a, double[] c, int ai, int ci, final int len )
+	private static void vectSubtract( double[] a, double[] c, final int ai, final int ci, final int len )
 	{
-		final int bn = len%8;
-		
-		//rest, not aligned to 8-blocks
-		for( int j = 0; j < bn; j++, ai++, ci++)
-			c[ ci ] -= a[ ai ];
-		
-		//unrolled 8-block  (for better instruction-level parallelism)
-		for( int j = bn; j < len; j+=8, ai+=8, ci+=8) 
-		{
-			//read 64B cachelines of a and c
-			//compute c' = c * a
-			//write back 64B cacheline of c = c'
-			c[ ci+0 ] -= a[ ai+0 ];
-			c[ ci+1 ] -= a[ ai+1 ];
-			c[ ci+2 ] -= a[ ai+2 ];
-			c[ ci+3 ] -= a[ ai+3 ];
-			c[ ci+4 ] -= a[ ai+4 ];
-			c[ ci+5 ] -= a[ ai+5 ];
-			c[ ci+6 ] -= a[ ai+6 ];
-			c[ ci+7 ] -= a[ ai+7 ];
-		}
+		//simple counted loop (for auto-vectorization)
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] -= a[ ai+j ];
 	}
 
 	/**
@@ -4192,6 +4044,198 @@ public class LibMatrixMult
 		}
 	}
 	
+	/**
+	 * Task for sparse-sparse matrix multiplication of a row partition into
+	 * task-local CSR buffers (row lengths, column indexes and values).
+	 */
+	private static class MatrixMultSparseCSRTask implements Callable<Object> 
+	{
+		//use dense row accumulator if row flops exceed n/16
+		private static final int DENSE_ACC_RATIO = 16;
+		
+		private MatrixBlock _m1  = null;
+		private MatrixBlock _m2  = null;
+		private int[] _rflops = null;
+		private int _rl = -1;
+		private int _ru = -1;
+		
+		//task-local output buffers
+		private int[] _rlens = null;
+		private int[] _cix = null;
+		private double[] _cvals = null;
+		private int _nnz = 0;
+
+		protected MatrixMultSparseCSRTask( MatrixBlock m1, MatrixBlock m2, int[] rflops, int rl, int ru )
+		{
+			_m1 = m1;
+			_m2 = m2;
+			_rflops = rflops;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			SparseBlock a = _m1.sparseBlock;
+			SparseBlock b = _m2.sparseBlock;
+			int n = _m2.clen;
+			
+			//allocate output buffers (initially 1/4 of upper bound, grown on demand)
+			long ub = 0;
+			for( int i=_rl; i<_ru; i++ )
+				ub += Math.min(_rflops[i], n);
+			int cap = (int) Math.min(ub, Math.max(1024, ub/4));
+			_rlens = new int[_ru-_rl];
+			_cix = new int[cap];
+			_cvals = new double[cap];
+			
+			//row accumulators (allocated on demand)
+			double[] dacc = null;
+			boolean[] dmark = null;
+			int[] tix = null;
+			int[] hkeys = new int[0];
+			double[] hvals = new double[0];
+			
+			for( int i=_rl; i<_ru; i++ ) 
+			{
+				if( a.isEmpty(i) || _rflops[i] == 0 )
+					continue;
+				int apos = a.pos(i);
+				int alen = a.size(i);
+				int[] aix = a.indexes(i);
+				double[] avals = a.values(i);
+				ensureCapacity(_nnz + Math.min(_rflops[i], n));
+				
+				if( (long)_rflops[i] * DENSE_ACC_RATIO >= n ) //DENSE ROW ACCUMULATOR
+				{
+					if( dacc == null ) {
+						dacc = new double[n];
+						dmark = new boolean[n];
+						tix = new int[n];
+					}
+					int cnt = 0;
+					for( int k=apos; k<apos+alen; k++ ) {
+						if( b.isEmpty(aix[k]) )
+							continue;
+						double aval = avals[k];
+						int bpos = b.pos(aix[k]);
+						int blen = b.size(aix[k]);
+						int[] bix = b.indexes(aix[k]);
+						double[] bvals = b.values(aix[k]);
+						for( int j=bpos; j<bpos+blen; j++ ) {
+							int c = bix[j];
+							if( !dmark[c] ) {
+								dmark[c] = true;
+								tix[cnt++] = c;
+							}
+							dacc[c] += aval * bvals[j];
+						}
+					}
+					
+					//extract sorted non-zeros (sort of touched columns or full scan)
+					if( cnt < n/8 ) {
+						Arrays.sort(tix, 0, cnt);
+						for( int j=0; j<cnt; j++ )
+							appendNonZero(tix[j], dacc, dmark, i);
+					}
+					else {
+						for( int c=0; c<n; c++ )
+							if( dmark[c] )
+								appendNonZero(c, dacc, dmark, i);
+					}
+				}
+				else //HASH ROW ACCUMULATOR
+				{
+					int size = UtilFunctions.nextIntPow2(2*_rflops[i]);
+					if( hkeys.length < size ) {
+						hkeys = new int[size];
+						hvals = new double[size];
+					}
+					Arrays.fill(hkeys, 0, size, -1);
+					int mask = size-1;
+					for( int k=apos; k<apos+alen; k++ ) {
+						if( b.isEmpty(aix[k]) )
+							continue;
+						double aval = avals[k];
+						int bpos = b.pos(aix[k]);
+						int blen = b.size(aix[k]);
+						int[] bix = b.indexes(aix[k]);
+						double[] bvals = b.values(aix[k]);
+						for( int j=bpos; j<bpos+blen; j++ ) {
+							int c = bix[j];
+							int h = hash(c) & mask;
+							while( hkeys[h] != -1 && hkeys[h] != c )
+								h = (h+1) & mask;
+							if( hkeys[h] == -1 ) {
+								hkeys[h] = c;
+								hvals[h] = 0;
+							}
+							hvals[h] += aval * bvals[j];
+						}
+					}
+					
+					//extract and sort non-zeros by column index
+					int pos = _nnz;
+					for( int h=0; h<size; h++ )
+						if( hkeys[h] != -1 && hvals[h] != 0 ) {
+							_cix[pos] = hkeys[h];
+							_cvals[pos++] = hvals[h];
+						}
+					if( pos - _nnz > 1 )
+						SortUtils.sortByIndex(_nnz, pos, _cix, _cvals);
+					_rlens[i-_rl] = pos - _nnz;
+					_nnz = pos;
+				}
+			}
+			
+			return null;
+		}
+		
+		private void appendNonZero( int c, double[] dacc, boolean[] dmark, int i ) {
+			if( dacc[c] != 0 ) {
+				_cix[_nnz] = c;
+				_cvals[_nnz++] = dacc[c];
+				_rlens[i-_rl]++;
+			}
+			dacc[c] = 0;
+			dmark[c] = false;
+		}
+		
+		private void ensureCapacity( int len ) {
+			if( _cix.length < len ) {
+				int newcap = (int) Math.min(Integer.MAX_VALUE, Math.max(len, 2L*_cix.length));
+				_cix = Arrays.copyOf(_cix, newcap);
+				_cvals = Arrays.copyOf(_cvals, newcap);
+			}
+		}
+		
+		private static int hash( int c ) {
+			int h = c * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+		
+		public int getRowLower() {
+			return _rl;
+		}
+		
+		public int[] getRowLengths() {
+			return _rlens;
+		}
+		
+		public int[] getIndexes() {
+			return _cix;
+		}
+		
+		public double[] getValues() {
+			return _cvals;
+		}
+		
+		public int getNonZeros() {
+			return _nnz;
+		}
+	}
+	
 	/**
 	 * 
 	 * 
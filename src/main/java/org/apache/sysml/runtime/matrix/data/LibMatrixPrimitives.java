@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.runtime.matrix.data;
+
+import org.apache.sysml.runtime.instructions.cp.KahanObject;
+
+/**
+ * Library of primitive vector kernels over dense double arrays, which are shared by
+ * the matrix multiplication, aggregation, and linear algebra libraries.
+ *
+ * Element-wise kernels are written as simple counted loops (int induction variable,
+ * loop-invariant offsets, no calls or branches in the loop body) because this is the
+ * shape the JIT compiler (C2 superword optimization) auto-vectorizes, while manually
+ * unrolled 8-blocks often prevent vectorization. Reductions cannot be vectorized
+ * without reordering floating point additions, and hence use 4 independent
+ * accumulators for instruction-level parallelism. Compensated summation uses 4
+ * independent Kahan accumulators over primitive doubles instead of updating a
+ * KahanObject per element.
+ *
+ */
+public class LibMatrixPrimitives
+{
+	private LibMatrixPrimitives() {
+		//prevent instantiation via private constructor
+	}
+
+	/**
+	 * Computes the dot product of a[ai:ai+len] and b[bi:bi+len].
+	 *
+	 * @param a
+	 * @param b
+	 * @param ai
+	 * @param bi
+	 * @param len
+	 * @return
+	 */
+	public static double dotProduct( double[] a, double[] b, final int ai, final int bi, final int len )
+	{
+		double val0 = 0, val1 = 0, val2 = 0, val3 = 0;
+		final int bn = len%4;
+
+		//4 independent accumulators (for better instruction-level parallelism)
+		for( int i = 0; i < len-bn; i+=4 ) {
+			val0 += a[ ai+i+0 ] * b[ bi+i+0 ];
+			val1 += a[ ai+i+1 ] * b[ bi+i+1 ];
+			val2 += a[ ai+i+2 ] * b[ bi+i+2 ];
+			val3 += a[ ai+i+3 ] * b[ bi+i+3 ];
+		}
+
+		//compute rest
+		for( int i = len-bn; i < len; i++ )
+			val0 += a[ ai+i ] * b[ bi+i ];
+
+		return (val0 + val1) + (val2 + val3);
+	}
+
+	/**
+	 * Computes the dot product of the sparse vector (a[ai:ai+len], aix[ai:ai+len])
+	 * and the dense vector b starting at bi.
+	 *
+	 * @param a
+	 * @param b
+	 * @param aix
+	 * @param ai
+	 * @param bi
+	 * @param len
+	 * @return
+	 */
+	public static double dotProduct( double[] a, double[] b, int[] aix, final int ai, final int bi, final int len )
+	{
+		double val0 = 0, val1 = 0, val2 = 0, val3 = 0;
+		final int bn = len%4;
+
+		//4 independent accumulators (for better instruction-level parallelism)
+		for( int i = ai; i < ai+len-bn; i+=4 ) {
+			val0 += a[ i+0 ] * b[ bi+aix[i+0] ];
+			val1 += a[ i+1 ] * b[ bi+aix[i+1] ];
+			val2 += a[ i+2 ] * b[ bi+aix[i+2] ];
+			val3 += a[ i+3 ] * b[ bi+aix[i+3] ];
+		}
+
+		//compute rest
+		for( int i = ai+len-bn; i < ai+len; i++ )
+			val0 += a[ i ] * b[ bi+aix[i] ];
+
+		return (val0 + val1) + (val2 + val3);
+	}
+
+	/**
+	 * Computes c[ci:ci+len] += aval * b[bi:bi+len].
+	 *
+	 * @param aval
+	 * @param b
+	 * @param c
+	 * @param bi
+	 * @param ci
+	 * @param len
+	 */
+	public static void vectMultiplyAdd( final double aval, double[] b, double[] c, final int bi, final int ci, final int len )
+	{
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] += aval * b[ bi+j ];
+	}
+
+	/**
+	 * Computes c[ci+bix[j]] += aval * b[j] for all j in [bi, bi+len), i.e., the
+	 * scatter of a scaled sparse vector into a dense vector.
+	 *
+	 * @param aval
+	 * @param b
+	 * @param c
+	 * @param bix
+	 * @param bi
+	 * @param ci
+	 * @param len
+	 */
+	public static void vectMultiplyAdd( final double aval, double[] b, double[] c, int[] bix, final int bi, final int ci, final int len )
+	{
+		for( int j = bi; j < bi+len; j++ )
+			c[ ci+bix[j] ] += aval * b[ j ];
+	}
+
+	/**
+	 * Computes c[ci:ci+len] = aval * b[bi:bi+len].
+	 *
+	 * @param aval
+	 * @param b
+	 * @param c
+	 * @param bi
+	 * @param ci
+	 * @param len
+	 */
+	public static void vectMultiplyWrite( final double aval, double[] b, double[] c, final int bi, final int ci, final int len )
+	{
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] = aval * b[ bi+j ];
+	}
+
+	/**
+	 * Computes c[ci:ci+len] += a[ai:ai+len].
+	 *
+	 * @param a
+	 * @param c
+	 * @param ai
+	 * @param ci
+	 * @param len
+	 */
+	public static void vectAdd( double[] a, double[] c, final int ai, final int ci, final int len )
+	{
+		for( int j = 0; j < len; j++ )
+			c[ ci+j ] += a[ ai+j ];
+	}
+
+	/**
+	 * Computes the sum of a[ai:ai+len] without compensation.
+	 *
+	 * @param a
+	 * @param ai
+	 * @param len
+	 * @return
+	 */
+	public static double sum( double[] a, final int ai, final int len )
+	{
+		double val0 = 0, val1 = 0, val2 = 0, val3 = 0;
+		final int bn = len%4;
+
+		//4 independent accumulators (for better instruction-level parallelism)
+		for( int i = ai; i < ai+len-bn; i+=4 ) {
+			val0 += a[ i+0 ];
+			val1 += a[ i+1 ];
+			val2 += a[ i+2 ];
+			val3 += a[ i+3 ];
+		}
+
+		//compute rest
+		for( int i = ai+len-bn; i < ai+len; i++ )
+			val0 += a[ i ];
+
+		return (val0 + val1) + (val2 + val3);
+	}
+
+	/**
+	 * Adds the sum (or sum of squares) of a[ai:ai+len] to the given kahan buffer, using
+	 * 4 independent Kahan accumulators that are merged into the buffer at the end.
+	 *
+	 * In contrast to KahanPlus, there is no special handling of INF values within the
+	 * loop. If the final result is not finite (due to INF/NaN inputs or overflow), the
+	 * buffer is left unchanged and false is returned, in which case the caller falls
+	 * back to KahanPlus or KahanPlusSq in order to retain their semantics.
+	 *
+	 * @param a
+	 * @param ai
+	 * @param len
+	 * @param sq
+	 * @param kbuff
+	 * @return true if the sum was added to the kahan buffer, false otherwise
+	 */
+	public static boolean kahanSum( double[] a, final int ai, final int len, final boolean sq, KahanObject kbuff )
+	{
+		double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+		double cor0 = 0, cor1 = 0, cor2 = 0, cor3 = 0;
+		final int bn = len%4;
+
+		//4 independent kahan accumulators (for better instruction-level parallelism)
+		for( int i = ai; i < ai+len-bn; i+=4 ) {
+			double v0 = sq ? a[i+0]*a[i+0] : a[i+0];
+			double v1 = sq ? a[i+1]*a[i+1] : a[i+1];
+			double v2 = sq ? a[i+2]*a[i+2] : a[i+2];
+			double v3 = sq ? a[i+3]*a[i+3] : a[i+3];
+			double c0 = v0 + cor0, t0 = sum0 + c0; cor0 = c0 - (t0 - sum0); sum0 = t0;
+			double c1 = v1 + cor1, t1 = sum1 + c1; cor1 = c1 - (t1 - sum1); sum1 = t1;
+			double c2 = v2 + cor2, t2 = sum2 + c2; cor2 = c2 - (t2 - sum2); sum2 = t2;
+			double c3 = v3 + cor3, t3 = sum3 + c3; cor3 = c3 - (t3 - sum3); sum3 = t3;
+		}
+
+		//compute rest
+		for( int i = ai+len-bn; i < ai+len; i++ ) {
+			double v0 = sq ? a[i]*a[i] : a[i];
+			double c0 = v0 + cor0, t0 = sum0 + c0; cor0 = c0 - (t0 - sum0); sum0 = t0;
+		}
+
+		//merge partial sums and corrections into the kahan buffer
+		final double osum = kbuff._sum, ocor = kbuff._correction;
+		kahanAdd(kbuff, sum0); kahanAdd(kbuff, sum1);
+		kahanAdd(kbuff, sum2); kahanAdd(kbuff, sum3);
+		kahanAdd(kbuff, cor0); kahanAdd(kbuff, cor1);
+		kahanAdd(kbuff, cor2); kahanAdd(kbuff, cor3);
+
+		//reset the kahan buffer for non-finite results
+		if( Double.isNaN(kbuff._sum) || Double.isInfinite(kbuff._sum) ) {
+			kbuff.set(osum, ocor);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds a single value to the given kahan buffer (without INF handling).
+	 *
+	 * @param kbuff
+	 * @param val
+	 */
+	private static void kahanAdd( KahanObject kbuff, final double val )
+	{
+		double corr = val + kbuff._correction;
+		double sum = kbuff._sum + corr;
+		kbuff.set(sum, corr - (sum - kbuff._sum));
+	}
+}
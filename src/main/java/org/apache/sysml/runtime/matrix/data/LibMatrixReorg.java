@@ -57,6 +57,7 @@ import org.apache.sysml.runtime.util.UtilFunctions;
  *  - rsort (sorting data/indexes)
  *  - rmempty (remove empty)
  *  - rexpand (outer/table-seq expansion)
+ *  - replace (pattern replacement)
  */
 public class LibMatrixReorg 
 {
@@ -117,7 +118,7 @@ public class LibMatrixReorg
 				return diag(in, out); 
 			case SORT:      
 				SortIndex ix = (SortIndex) op.fn;
-				return sort(in, out, ix.getCol(), ix.getDecreasing(), ix.getIndexReturn());
+				return sort(in, out, ix.getCol(), ix.getDecreasing(), ix.getIndexReturn(), op.getNumThreads());
 			
 			default:        
 				throw new DMLRuntimeException("Unsupported reorg operator: "+op.fn);
@@ -152,15 +153,18 @@ public class LibMatrixReorg
 		
 		//Timing time = new Timing(true);
 		
-		//allocate output arrays (if required)
-		if( out.sparse )
+		//allocate output arrays (if required, CSR outputs allocated by kernel)
+		boolean csr = in.isInSparseCSRFormat() && out.sparse;
+		if( out.sparse && !csr )
 			out.allocateSparseRowsBlock(false);
-		else
+		else if( !out.sparse )
 			out.allocateDenseBlock(false);
 	
 		//execute transpose operation
 		if( !in.sparse && !out.sparse )
 			transposeDenseToDense( in, out, 0, in.rlen, 0, in.clen );
+		else if( csr )
+			transposeSparseToCSR( in, out, 1 );
 		else if( in.sparse && out.sparse )
 			transposeSparseToSparse( in, out );
 		else if( in.sparse )
@@ -185,15 +189,22 @@ public class LibMatrixReorg
 		throws DMLRuntimeException
 	{
 		//redirect small or special cases to sequential execution
-		if( in.isEmptyBlock(false) || (in.rlen * in.clen < PAR_NUMCELL_THRESHOLD)
+		if( in.isEmptyBlock(false) || ((long)in.rlen * in.clen < PAR_NUMCELL_THRESHOLD)
 			|| (SHALLOW_DENSE_VECTOR_TRANSPOSE && !in.sparse && !out.sparse && (in.rlen==1 || in.clen==1) )
-			|| (in.sparse && !out.sparse && in.rlen==1) || out.sparse )
+			|| (in.sparse && !out.sparse && in.rlen==1) || (!in.sparse && out.sparse)
+			|| (in.sparse && out.sparse && in.nonZeros > Integer.MAX_VALUE) )
 		{
 			return transpose(in, out);
 		}
 		
 		//Timing time = new Timing(true);
 		
+		//multi-threaded sparse-sparse transpose into CSR output
+		if( in.sparse && out.sparse ) {
+			transposeSparseToCSR(in, out, k);
+			return out;
+		}
+		
 		//set meta data and allocate output arrays (if required)
 		out.nonZeros = in.nonZeros;
 		if( out.sparse )
@@ -357,6 +368,26 @@ public class LibMatrixReorg
 	 */
 	public static MatrixBlock sort(MatrixBlock in, MatrixBlock out, int by, boolean desc, boolean ixret) 
 		throws DMLRuntimeException
+	{
+		return sort(in, out, by, desc, ixret, 1);
+	}
+	
+	/**
+	 * Sort of data or indexes by a given column, where both the sort and the 
+	 * stable reordering of ties are computed by k threads (parallel merge sort) if 
+	 * k>1 and the number of rows exceeds the parallelization threshold.
+	 * 
+	 * @param in
+	 * @param out
+	 * @param by
+	 * @param desc
+	 * @param ixret
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock sort(MatrixBlock in, MatrixBlock out, int by, boolean desc, boolean ixret, int k) 
+		throws DMLRuntimeException
 	{
 		//meta data gathering and preparation
 		boolean sparse = in.isInSparseFormat();
@@ -378,7 +409,7 @@ public class LibMatrixReorg
 			if( !sparse && clen == 1 ) { //DENSE COLUMN VECTOR
 				//in-place quicksort, unstable (no indexes needed)
 				out.copy( in ); //dense
-				Arrays.sort(out.denseBlock);
+				SortUtils.sortParallel(out.denseBlock, k);
 				if( desc )
 					sortReverseDense(out);
 				return out;
@@ -404,29 +435,9 @@ public class LibMatrixReorg
 			values[i] = in.quickGetValue(i, by-1);
 		}
 		
-		//sort index vector on extracted data (unstable)
-		SortUtils.sortByValue(0, rlen, values, vix);
-
-		//flip order if descending requested (note that this needs to happen
-		//before we ensure stable outputs, hence we also flip values)
-		if(desc) {
-			sortReverseDense(vix);
-			sortReverseDense(values);
-		}
-		
-		//final pass to ensure stable output
-		for( int i=0; i<rlen-1; i++ ) {
-			double tmp = values[i];
-			//determine run of equal values
-			int len = 0;
-			while( i+len+1<rlen && tmp==values[i+len+1] )
-				len++;
-			//unstable sort of run indexes (equal value guaranteed)
-			if( len>0 ) {
-				Arrays.sort(vix, i, i+len+1);
-				i += len; //skip processed run
-			}
-		}
+		//stable sort of index vector on extracted data (incl descending, NaNs), 
+		//multi-threaded if k>1 and the number of rows exceeds the threshold
+		SortUtils.sortByValueStableParallel(values, vix, desc, k);
 
 		//step 4: create output matrix (guaranteed non-empty, see step 2)
 		if( !ixret )
@@ -473,6 +484,26 @@ public class LibMatrixReorg
 	 */
 	public static MatrixBlock reshape( MatrixBlock in, MatrixBlock out, int rows, int cols, boolean rowwise ) 
 		throws DMLRuntimeException
+	{
+		return reshape(in, out, rows, cols, rowwise, 1);
+	}
+	
+	/**
+	 * CP reshape operation (single input, single output matrix), where rowwise
+	 * sparse-sparse reshapes are computed by k threads over row partitions if
+	 * k>1 and the number of non-zeros exceeds the parallelization threshold.
+	 *
+	 * @param in
+	 * @param out
+	 * @param rows
+	 * @param cols
+	 * @param rowwise
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException 
+	 */
+	public static MatrixBlock reshape( MatrixBlock in, MatrixBlock out, int rows, int cols, boolean rowwise, int k ) 
+		throws DMLRuntimeException
 	{
 		int rlen = in.rlen;
 		int clen = in.clen;
@@ -498,6 +529,9 @@ public class LibMatrixReorg
 		//core reshape (sparse or dense)	
 		if(!in.sparse && !out.sparse)
 			reshapeDense(in, out, rows, cols, rowwise);		
+		else if(in.sparse && out.sparse && rowwise && in.nonZeros <= Integer.MAX_VALUE
+			&& (in.isInSparseCSRFormat() || (k > 1 && in.nonZeros >= PAR_NUMCELL_THRESHOLD)) )
+			reshapeSparseToCSR(in, out, rows, cols, k);
 		else if(in.sparse && out.sparse)
 			reshapeSparse(in, out, rows, cols, rowwise);
 		else if(in.sparse)
@@ -579,6 +613,23 @@ public class LibMatrixReorg
 	 */
 	public static MatrixBlock rmempty(MatrixBlock in, MatrixBlock ret, boolean rows, MatrixBlock select) 
 		throws DMLRuntimeException
+	{
+		return rmempty(in, ret, rows, select, 1);
+	}
+
+	/**
+	 * CP rmempty operation (single input, single output matrix)
+	 *
+	 * @param in
+	 * @param ret
+	 * @param rows
+	 * @param select
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock rmempty(MatrixBlock in, MatrixBlock ret, boolean rows, MatrixBlock select, int k)
+		throws DMLRuntimeException
 	{
 		//check for empty inputs 
 		//(the semantics of removeEmpty are that for an empty m-by-n matrix, the output 
@@ -592,9 +643,60 @@ public class LibMatrixReorg
 		}
 		
 		if( rows )
-			return removeEmptyRows(in, ret, select);
+			return removeEmptyRows(in, ret, select, k);
 		else //cols
-			return removeEmptyColumns(in, ret, select);
+			return removeEmptyColumns(in, ret, select, k);
+	}
+
+	/**
+	 * CP replace operation, i.e., replaces all cells equal to the given pattern
+	 * (incl NaN patterns) with the given replacement.
+	 * 
+	 * @param in
+	 * @param ret
+	 * @param pattern
+	 * @param replacement
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock replace(MatrixBlock in, MatrixBlock ret, double pattern, double replacement, int k) 
+		throws DMLRuntimeException
+	{
+		in.examSparsity(); //ensure its in the right format
+		ret.reset(in.rlen, in.clen, in.sparse);
+		if( in.nonZeros == 0 && pattern != 0  )
+			return ret; //early abort
+		
+		//allocate output: sparse-safe for pattern!=0, otherwise DENSE <- SPARSE
+		//because all 0 values are replaced (see SPARSITY_TURN_POINT)
+		final int m = in.rlen;
+		int k2 = (k > 1 && (long)m*in.clen >= PAR_NUMCELL_THRESHOLD) ? Math.min(k, m) : 1;
+		if( in.sparse && pattern != 0 ) {
+			//note: parallel writes of disjoint rows require a thread-safe sparse block
+			ret.allocateSparseRowsBlock();
+			if( !ret.sparseBlock.isThreadSafe() )
+				k2 = 1;
+		}
+		else {
+			ret.sparse = false;
+			ret.allocateDenseBlock();
+		}
+		
+		//replace values over row partitions
+		int blklen = (int)(Math.ceil((double)m/k2));
+		ArrayList<ReplaceTask> tasks = new ArrayList<ReplaceTask>();
+		for( int i=0; i*blklen<m; i++ )
+			tasks.add(new ReplaceTask(in, ret, pattern, replacement, i*blklen, Math.min((i+1)*blklen, m)));
+		executeTasks(tasks, k2);
+		
+		long nnz = 0;
+		for( ReplaceTask task : tasks )
+			nnz += task._nnz;
+		ret.nonZeros = nnz;
+		ret.examSparsity();
+		
+		return ret;
 	}
 
 	/**
@@ -698,6 +800,27 @@ public class LibMatrixReorg
 	 */
 	public static MatrixBlock rexpand(MatrixBlock in, MatrixBlock ret, double max, boolean rows, boolean cast, boolean ignore) 
 		throws DMLRuntimeException
+	{
+		return rexpand(in, ret, max, rows, cast, ignore, 1);
+	}
+	
+	/**
+	 * CP rexpand operation (single input, single output), where the expansion
+	 * is computed by k threads over row partitions if k>1 and the number of
+	 * output cells exceeds the parallelization threshold.
+	 * 
+	 * @param in
+	 * @param ret
+	 * @param max
+	 * @param rows
+	 * @param cast
+	 * @param ignore
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public static MatrixBlock rexpand(MatrixBlock in, MatrixBlock ret, double max, boolean rows, boolean cast, boolean ignore, int k) 
+		throws DMLRuntimeException
 	{
 		//prepare parameters
 		int lmax = (int)UtilFunctions.toLong(max);
@@ -717,7 +840,9 @@ public class LibMatrixReorg
 		}
 		
 		//execute rexpand operations
-		if( rows )
+		if( k > 1 && (long)in.rlen*lmax >= PAR_NUMCELL_THRESHOLD )
+			return rexpandParallel(in, ret, lmax, rows, cast, ignore, k);
+		else if( rows )
 			return rexpandRows(in, ret, lmax, cast, ignore);
 		else //cols
 			return rexpandColumns(in, ret, lmax, cast, ignore);
@@ -940,7 +1065,7 @@ public class LibMatrixReorg
 						int[] aix = a.indexes(i);
 						double[] avals = a.values(i);
 						int j = ix[iix]; //last block boundary
-						for( ; j<alen && aix[j]<bjmin; j++ ) {
+						for( ; j<alen && aix[apos+j]<bjmin; j++ ) {
 							c.allocate(aix[apos+j], ennz2,n2);
 							c.append(aix[apos+j], i, avals[apos+j]);
 						}
@@ -951,6 +1076,60 @@ public class LibMatrixReorg
 		}
 	}
 	
+	/**
+	 * Transpose of a sparse input into a CSR output via counting sort of the
+	 * column indexes. The first pass computes column nnz counts per row partition,
+	 * the prefix offsets over columns and partitions yield the output row pointers
+	 * and write positions, and the second pass scatters the values of each row
+	 * partition into disjoint output ranges. Since partitions and rows within a
+	 * partition are processed in ascending order, the output rows are sorted.
+	 * 
+	 * @param in
+	 * @param out
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void transposeSparseToCSR(MatrixBlock in, MatrixBlock out, int k)
+		throws DMLRuntimeException
+	{
+		final int m = in.rlen;
+		final int n = in.clen;
+		SparseBlock a = in.getSparseBlock();
+		
+		//row partitions (w/ count arrays bounded by the number of non-zeros)
+		int k2 = (int)Math.max(1, Math.min(Math.min(k, m), in.nonZeros/n));
+		int blklen = (int)(Math.ceil((double)m/k2));
+		ArrayList<TransposeSparseTask> tasks = new ArrayList<TransposeSparseTask>();
+		for( int i=0; i*blklen<m; i++ )
+			tasks.add(new TransposeSparseTask(a, n, i*blklen, Math.min((i+1)*blklen, m)));
+		
+		//pass 1: column counts per row partition
+		executeTasks(tasks, k2);
+		
+		//prefix offsets over columns and row partitions
+		int[] rptr = new int[n+1];
+		for( int j=0; j<n; j++ ) {
+			int pos = rptr[j];
+			for( TransposeSparseTask task : tasks ) {
+				int cnt = task._pos[j];
+				task._pos[j] = pos;
+				pos += cnt;
+			}
+			rptr[j+1] = pos;
+		}
+		
+		//pass 2: scatter values into output rows
+		int nnz = rptr[n];
+		int[] cix = new int[nnz];
+		double[] cvals = new double[nnz];
+		for( TransposeSparseTask task : tasks )
+			task.setOutput(cix, cvals);
+		executeTasks(tasks, k2);
+		
+		out.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, nnz);
+		out.nonZeros = nnz;
+	}
+	
 	/**
 	 * 
 	 * @param in
@@ -1341,6 +1520,54 @@ public class LibMatrixReorg
 		}
 	}
 	
+	/**
+	 * Rowwise reshape of a sparse input into a CSR output. Since a rowwise reshape
+	 * preserves the linearized cell order, the output column indexes and values
+	 * are in the same order as the input non-zeros. Hence, each row partition
+	 * writes into a disjoint output range (given by the prefix sums of partition
+	 * nnz), and sets the row pointers of all output rows starting in its range.
+	 * 
+	 * @param in
+	 * @param out
+	 * @param rows
+	 * @param cols
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void reshapeSparseToCSR( MatrixBlock in, MatrixBlock out, int rows, int cols, int k )
+		throws DMLRuntimeException
+	{
+		final int m = in.rlen;
+		
+		//reshape empty block
+		if( in.isEmptyBlock(false) )
+			return;
+		
+		//row partitions and their output offsets
+		SparseBlock a = in.sparseBlock;
+		int k2 = (in.nonZeros < PAR_NUMCELL_THRESHOLD) ? 1 : Math.min(k, m);
+		int blklen = (int)(Math.ceil((double)m/k2));
+		ArrayList<ReshapeSparseTask> tasks = new ArrayList<ReshapeSparseTask>();
+		int nnz = 0;
+		for( int i=0; i*blklen<m; i++ ) {
+			int rl = i*blklen, ru = Math.min((i+1)*blklen, m);
+			tasks.add(new ReshapeSparseTask(in, rows, cols, rl, ru, nnz));
+			nnz += (int)a.size(rl, ru);
+		}
+		
+		//parallel copy w/ recomputed column indexes and row pointers
+		int[] rptr = new int[rows+1];
+		int[] cix = new int[nnz];
+		double[] cvals = new double[nnz];
+		for( ReshapeSparseTask task : tasks )
+			task.setOutput(rptr, cix, cvals);
+		executeTasks(tasks, k2);
+		rptr[rows] = nnz;
+		
+		out.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, nnz);
+		out.nonZeros = nnz;
+	}
+	
 	/**
 	 * 
 	 * @param in
@@ -1838,214 +2065,256 @@ public class LibMatrixReorg
 	}
 
 	/**
-	 * 
+	 * Removes empty (or non-selected) rows via two passes over row partitions:
+	 * (1) selected rows and their non-zeros, (2) prefix offsets and copy. For
+	 * sparse outputs we directly construct a CSR block. If all non-zeros of a
+	 * CSR input are retained (e.g., plain removeEmpty), the output gets new row
+	 * pointers and plain copies of the column indexes and values of the input.
+	 *
 	 * @param in
 	 * @param ret
 	 * @param select
+	 * @param k
 	 * @return
 	 * @throws DMLRuntimeException
 	 */
-	private static MatrixBlock removeEmptyRows(MatrixBlock in, MatrixBlock ret, MatrixBlock select) 
-		throws DMLRuntimeException 
-	{	
+	private static MatrixBlock removeEmptyRows(MatrixBlock in, MatrixBlock ret, MatrixBlock select, int k)
+		throws DMLRuntimeException
+	{
 		final int m = in.rlen;
 		final int n = in.clen;
-		boolean[] flags = null; 
-		int rlen2 = 0; 
-		
-		if(select == null) 
-		{
-			flags = new boolean[ m ]; //false
-			//Step 1: scan block and determine non-empty rows
-			
-			if( in.sparse ) //SPARSE 
-			{
-				SparseBlock a = in.sparseBlock;				
-				for ( int i=0; i < m; i++ )
-					if ( !a.isEmpty(i) ) {
-						flags[i] = true;
-						rlen2++;
-					}
-			}
-			else //DENSE
-			{
-				double[] a = in.denseBlock;
-				
-				for(int i=0, aix=0; i<m; i++, aix+=n) {
-					for(int j=0; j<n; j++)
-						if( a[aix+j] != 0 )
-						{
-							flags[i] = true;
-							rlen2++;
-							//early abort for current row
-							break; 
-						}
-				}
-			}
-		} 
-		else {			
-			flags = DataConverter.convertToBooleanVector(select);
-			rlen2 = (int)select.getNonZeros();
+
+		//Step 1: scan block and determine selected rows and their non-zeros
+		boolean[] flags = (select != null) ?
+			DataConverter.convertToBooleanVector(select) : new boolean[ m ];
+		int k2 = (k > 1 && (long)m*n >= PAR_NUMCELL_THRESHOLD) ? Math.min(k, m) : 1;
+		int blklen = (int)(Math.ceil((double)m/k2));
+		ArrayList<RemoveEmptyRowsTask> tasks = new ArrayList<RemoveEmptyRowsTask>();
+		for( int i=0; i*blklen<m; i++ )
+			tasks.add(new RemoveEmptyRowsTask(in, flags, select==null, i*blklen, Math.min((i+1)*blklen, m)));
+		executeTasks(tasks, k2);
+
+		//Step 2: prefix offsets of output rows and non-zeros over partitions
+		int rlen2 = 0;
+		long nnz = 0, nnzIn = 0;
+		for( RemoveEmptyRowsTask task : tasks ) {
+			int rcnt = task._rix;
+			long ncnt = task._nnz;
+			task._rix = rlen2;
+			task._nnz = nnz;
+			rlen2 += rcnt;
+			nnz += ncnt;
+			nnzIn += task._nnzIn;
 		}
 
-		//Step 2: reset result and copy rows
-		//dense stays dense if correct input representation (but robust for any input), 
+		//Step 3: reset result and copy rows
+		//dense stays dense if correct input representation (but robust for any input),
 		//sparse might be dense/sparse
 		rlen2 = Math.max(rlen2, 1); //ensure valid output
-		boolean sp = MatrixBlock.evalSparseFormatInMemory(rlen2, n, in.nonZeros);
+		boolean sp = MatrixBlock.evalSparseFormatInMemory(rlen2, n, nnz);
 		ret.reset(rlen2, n, sp);
-		
-		if( in.sparse ) //* <- SPARSE
+		if( nnz == 0 )
+			return ret;
+
+		if( sp && in.isInSparseCSRFormat() && nnz == nnzIn ) //CSR <- CSR (contiguous copy)
 		{
-			//note: output dense or sparse
-			for( int i=0, cix=0; i<m; i++ )
-				if( flags[i] )
-					ret.appendRow(cix++, in.sparseBlock.get(i));
-		}
-		else if( !in.sparse && !ret.sparse )  //DENSE <- DENSE
+			//all non-empty rows selected, i.e., same non-zeros in same order;
+			//we copy the arrays instead of sharing them, because the output might 
+			//be updated in-place (e.g., left indexing) while the input is still live
+			SparseBlock a = in.sparseBlock;
+			int[] rptr = new int[rlen2+1];
+			for( RemoveEmptyRowsTask task : tasks )
+				task.setOutput(null, rptr, null, null);
+			executeTasks(tasks, k2);
+			ret.sparseBlock = new SparseBlockCSR(rptr, Arrays.copyOf(a.indexes(0), (int)nnz), 
+				Arrays.copyOf(a.values(0), (int)nnz), (int)nnz);
+		}
+		else if( sp && nnz <= Integer.MAX_VALUE ) //CSR <- *
 		{
-			ret.allocateDenseBlock();
-			double[] a = in.denseBlock;
-			double[] c = ret.denseBlock;
-			
-			for( int i=0, aix=0, cix=0; i<m; i++, aix+=n )
-				if( flags[i] ) {
-					System.arraycopy(a, aix, c, cix, n);
-					cix += n; //target index
-				}
-		}
-		else //SPARSE <- DENSE
+			int[] rptr = new int[rlen2+1];
+			int[] cix = new int[(int)nnz];
+			double[] cvals = new double[(int)nnz];
+			for( RemoveEmptyRowsTask task : tasks )
+				task.setOutput(null, rptr, cix, cvals);
+			executeTasks(tasks, k2);
+			ret.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, (int)nnz);
+		}
+		else //DENSE/MCSR <- *
 		{
-			ret.allocateSparseRowsBlock();
-			double[] a = in.denseBlock;
-			
-			for( int i=0, aix=0, cix=0; i<m; i++, aix+=n )
-				if( flags[i] ) {
-					for( int j=0; j<n; j++ )
-						ret.appendValue(cix, j, a[aix+j]);
-					cix++;
-				}
+			if( sp ) {
+				//note: parallel writes of disjoint rows require a thread-safe sparse block
+				ret.allocateSparseRowsBlock();
+				if( !ret.sparseBlock.isThreadSafe() )
+					k2 = 1;
+			}
+			else
+				ret.allocateDenseBlock();
+			for( RemoveEmptyRowsTask task : tasks )
+				task.setOutput(ret, null, null, null);
+			executeTasks(tasks, k2);
 		}
-		
-		//check sparsity
-		ret.nonZeros = in.nonZeros;
-		ret.examSparsity();
+
+		ret.nonZeros = nnz;
 
 		return ret;
 	}
 
-	
+
 	/**
+	 * Removes empty (or non-selected) columns via two passes over row partitions:
+	 * (1) partial flags of non-empty columns, which are merged into a column mapping,
+	 * and (2) copy of the selected columns of independent rows.
+	 *
 	 * @param in
 	 * @param ret
 	 * @param select
+	 * @param k
 	 * @return
 	 * @throws DMLRuntimeException
 	 */
-	private static MatrixBlock removeEmptyColumns(MatrixBlock in, MatrixBlock ret, MatrixBlock select) 
-		throws DMLRuntimeException 
+	private static MatrixBlock removeEmptyColumns(MatrixBlock in, MatrixBlock ret, MatrixBlock select, int k)
+		throws DMLRuntimeException
 	{
 		final int m = in.rlen;
 		final int n = in.clen;
-		
-		//Step 1: scan block and determine non-empty columns 
+
+		int k2 = (k > 1 && (long)m*n >= PAR_NUMCELL_THRESHOLD) ? Math.min(k, m) : 1;
+		int blklen = (int)(Math.ceil((double)m/k2));
+		ArrayList<RemoveEmptyColsTask> tasks = new ArrayList<RemoveEmptyColsTask>();
+		for( int i=0; i*blklen<m; i++ )
+			tasks.add(new RemoveEmptyColsTask(in, i*blklen, Math.min((i+1)*blklen, m)));
+
+		//Step 1: scan block and determine non-empty columns
 		//(we optimized for cache-friendly behavior and hence don't do early abort)
-		boolean[] flags = null; 
-		
-		if (select == null) 
-		{
-			flags = new boolean[ n ]; //false
-			if( in.sparse ) //SPARSE 
-			{
-				SparseBlock a = in.sparseBlock;
-				
-				for( int i=0; i<m; i++ ) 
-					if ( !a.isEmpty(i) ) {
-						int apos = a.pos(i);
-						int alen = a.size(i);
-						int[] aix = a.indexes(i);
-						for( int j=apos; j<apos+alen; j++ )
-							flags[ aix[j] ] = true;
-					}
-			}
-			else //DENSE
-			{
-				double[] a = in.denseBlock;
-				
-				for(int i=0, aix=0; i<m; i++)
-					for(int j=0; j<n; j++, aix++)
-						if( a[aix] != 0 )
-							flags[j] = true; 	
+		boolean[] flags = null;
+		if (select == null) {
+			executeTasks(tasks, k2);
+			flags = tasks.get(0)._flags;
+			for( int t=1; t<tasks.size(); t++ ) {
+				boolean[] lflags = tasks.get(t)._flags;
+				for( int j=0; j<n; j++ )
+					flags[j] |= lflags[j];
 			}
-		} 
-		else {			
+		}
+		else {
 			flags = DataConverter.convertToBooleanVector(select);
 		}
 
-		
-		//Step 2: determine number of columns
+		//Step 2: create mapping of flags to target indexes
 		int clen2 = 0;
-		for( int j=0; j<n; j++ ) {
-			clen2 += flags[j] ? 1 : 0;
-		}
-		
-		//Step 3: create mapping of flags to target indexes
 		int[] cix = new int[n];
-		for( int j=0, pos=0; j<n; j++ ) {
+		for( int j=0; j<n; j++ ) {
 			if( flags[j] )
-				cix[j] = pos++;	
+				cix[j] = clen2++;
 		}
-		
+
 		//Step 3: reset result and copy cols
-		//dense stays dense if correct input representation (but robust for any input), 
+		//dense stays dense if correct input representation (but robust for any input),
 		// sparse might be dense/sparse
 		clen2 = Math.max(clen2, 1); //ensure valid output
 		boolean sp = MatrixBlock.evalSparseFormatInMemory(m, clen2, in.nonZeros);
 		ret.reset(m, clen2, sp);
+		if( sp ) {
+			//note: parallel writes of disjoint rows require a thread-safe sparse block
+			ret.allocateSparseRowsBlock();
+			if( !ret.sparseBlock.isThreadSafe() )
+				k2 = 1;
+		}
+		else
+			ret.allocateDenseBlock();
+
+		for( RemoveEmptyColsTask task : tasks )
+			task.setOutput(ret, flags, cix);
+		executeTasks(tasks, k2);
+
+		//check sparsity
+		long nnz = 0;
+		for( RemoveEmptyColsTask task : tasks )
+			nnz += task._nnz;
+		ret.nonZeros = nnz;
+		ret.examSparsity();
+
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @param ret
+	 * @param pattern
+	 * @param replacement
+	 * @param rl
+	 * @param ru
+	 * @return number of non-zeros in the output row range
+	 */
+	private static long replace(MatrixBlock in, MatrixBlock ret, double pattern, double replacement, int rl, int ru) 
+	{
+		final int n = in.clen;
+		final boolean NaNpattern = Double.isNaN(pattern);
+		long nnz = 0;
+		
+		if( in.sparse && ret.sparse ) //SPARSE <- SPARSE (sparse-safe)
+		{
+			SparseBlock a = in.sparseBlock;
+			SparseBlock c = ret.sparseBlock;
 			
-		if( in.sparse ) //* <- SPARSE 
+			for( int i=rl; i<ru; i++ ) {
+				if( a.isEmpty(i) ) continue;
+				int apos = a.pos(i);
+				int alen = a.size(i);
+				int[] aix = a.indexes(i);
+				double[] avals = a.values(i);
+				c.allocate(i, alen);
+				for( int j=apos; j<apos+alen; j++ ) {
+					double val = avals[j];
+					if( val== pattern || (NaNpattern && Double.isNaN(val)) )
+						c.append(i, aix[j], replacement);
+					else
+						c.append(i, aix[j], val);
+				}
+				nnz += c.size(i);
+			}
+		}
+		else if( in.sparse ) //DENSE <- SPARSE
 		{
-			//note: output dense or sparse
 			SparseBlock a = in.sparseBlock;
+			double[] c = ret.denseBlock;
+			
+			//initialize with replacement (since all 0 values, see SPARSITY_TURN_POINT)
+			Arrays.fill(c, rl*n, ru*n, replacement);
 			
-			for( int i=0; i<m; i++ ) 
-				if ( !a.isEmpty(i) ) {
+			//overwrite with existing values (via scatter)
+			if( a != null ) //check for empty matrix
+				for( int i=rl, cix=rl*n; i<ru; i++, cix+=n ) {
+					if( a.isEmpty(i) ) continue;
 					int apos = a.pos(i);
 					int alen = a.size(i);
 					int[] aix = a.indexes(i);
 					double[] avals = a.values(i);
 					for( int j=apos; j<apos+alen; j++ )
-						if( flags[aix[j]] )
-							ret.appendValue(i, cix[aix[j]], avals[j]);
+						if( avals[ j ] != 0 )
+							c[ cix+aix[j] ] = avals[ j ];
 				}
-		}
-		else if( !in.sparse && !ret.sparse )  //DENSE <- DENSE
-		{
-			ret.allocateDenseBlock();
-			double[] a = in.denseBlock;
-			double[] c = ret.denseBlock;
 			
-			for(int i=0, aix=0, lcix=0; i<m; i++, lcix+=clen2)
-				for(int j=0; j<n; j++, aix++)
-					if( flags[j] )
-						 c[ lcix+cix[j] ] = a[aix];	
+			for( int i=rl*n; i<ru*n; i++ )
+				nnz += (c[i] != 0) ? 1 : 0;
 		}
-		else //SPARSE <- DENSE
+		else //DENSE <- DENSE
 		{
-			ret.allocateSparseRowsBlock();
 			double[] a = in.denseBlock;
+			double[] c = ret.denseBlock;
 			
-			for(int i=0, aix=0; i<m; i++)
-				for(int j=0; j<n; j++, aix++)
-					if( flags[j] && a[aix]!=0 )
-						 ret.appendValue(i, cix[j], a[aix]);	
+			for( int i=rl*n; i<ru*n; i++ ) {
+				double val = a[i];
+				if( val== pattern || (NaNpattern && Double.isNaN(val)) )
+					c[i] = replacement;
+				else
+					c[i] = val;
+				nnz += (c[i] != 0) ? 1 : 0;
+			}
 		}
 		
-		//check sparsity
-		ret.nonZeros = in.nonZeros;
-		ret.examSparsity();
-		
-		return ret;
+		return nnz;
 	}
 	
 	/**
@@ -2097,7 +2366,7 @@ public class LibMatrixReorg
 					
 				//set expanded value if matching
 				if( val == Math.floor(val) && val >= 1 && val <= max )
-					ret.appendValue((int)(val-1), i+tmpi[j], 1);
+					ret.appendValue((int)(val-1), tmpi[j], 1);
 			}
 			
 		}
@@ -2147,15 +2416,99 @@ public class LibMatrixReorg
 	}
 	
 	/**
+	 * Multi-threaded rexpand over row partitions. The first pass computes the
+	 * expanded index per input row (incl casting and validation) and the nnz per
+	 * partition (and per output row for rows expansion). The second pass writes
+	 * the dense output or the CSR output into disjoint ranges given by the prefix
+	 * offsets, where rows expansion is a counting sort by expanded index.
 	 * 
 	 * @param in
-	 * @param ixin
-	 * @param tmp
-	 * @param len
-	 */
-	private static void copyColVector( MatrixBlock in, int ixin, double[] tmp, int[] tmpi, int len)
-	{
-		//copy value array from input matrix
+	 * @param ret
+	 * @param max
+	 * @param rows
+	 * @param cast
+	 * @param ignore
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private static MatrixBlock rexpandParallel(MatrixBlock in, MatrixBlock ret, int max, boolean rows, boolean cast, boolean ignore, int k) 
+		throws DMLRuntimeException
+	{
+		//set meta data (see sequential rexpand)
+		final int m = in.rlen;
+		final int rlen = rows ? max : m;
+		final int clen = rows ? m : max;
+		boolean sp = MatrixBlock.evalSparseFormatInMemory(rlen, clen, in.nonZeros);
+		ret.reset(rlen, clen, sp);
+		
+		//row partitions (w/ count arrays for rows expansion bounded by the input size)
+		int k2 = (rows && sp) ? Math.max(1, Math.min(k, m/max)) : Math.min(k, m);
+		int blklen = (int)(Math.ceil((double)m/k2));
+		int[] ix = new int[m];
+		ArrayList<RexpandTask> tasks = new ArrayList<RexpandTask>();
+		for( int i=0; i*blklen<m; i++ )
+			tasks.add(new RexpandTask(in, ix, max, rows, rows && sp, cast, ignore, i*blklen, Math.min((i+1)*blklen, m)));
+		
+		//pass 1: expanded indexes and counts
+		executeTasks(tasks, k2);
+		
+		//prefix offsets over partitions (and output rows)
+		int nnz = 0;
+		int[] rptr = null;
+		if( rows && sp ) {
+			rptr = new int[max+1];
+			for( int j=0; j<max; j++ ) {
+				int pos = rptr[j];
+				for( RexpandTask task : tasks ) {
+					int cnt = task._pos[j];
+					task._pos[j] = pos;
+					pos += cnt;
+				}
+				rptr[j+1] = pos;
+			}
+			nnz = rptr[max];
+		}
+		else {
+			for( RexpandTask task : tasks ) {
+				int cnt = task._nnz;
+				task._nnz = nnz;
+				nnz += cnt;
+			}
+			if( sp )
+				rptr = new int[m+1];
+		}
+		
+		//pass 2: write dense or CSR output
+		if( sp ) {
+			int[] cix = new int[nnz];
+			double[] cvals = new double[nnz];
+			for( RexpandTask task : tasks )
+				task.setOutput(rptr, cix, cvals, null);
+			executeTasks(tasks, k2);
+			ret.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, nnz);
+		}
+		else {
+			ret.allocateDenseBlock();
+			for( RexpandTask task : tasks )
+				task.setOutput(null, null, null, ret.denseBlock);
+			executeTasks(tasks, k2);
+		}
+		ret.nonZeros = nnz;
+		
+		return ret;
+	}
+	
+	/**
+	 * 
+	 * @param in
+	 * @param ixin
+	 * @param tmp
+	 * @param len
+	 */
+	private static void copyColVector( MatrixBlock in, int ixin, double[] tmp, int[] tmpi, int len)
+	{
+		//copy value array from input matrix
 		if( in.isEmptyBlock(false) ) {
 			Arrays.fill(tmp, 0, 0, len);
 		}
@@ -2192,36 +2545,6 @@ public class LibMatrixReorg
 		}
 	}
 	
-	/**
-	 * 
-	 * @param m1
-	 */
-	private static void sortReverseDense( int[] a )
-	{
-		int rlen = a.length;
-		
-		for( int i=0; i<rlen/2; i++ ) {
-			int tmp = a[i];
-			a[i] = a[rlen - i -1];
-			a[rlen - i - 1] = tmp;
-		}
-	}
-	
-	/**
-	 * 
-	 * @param a
-	 */
-	private static void sortReverseDense( double[] a )
-	{
-		int rlen = a.length;
-		
-		for( int i=0; i<rlen/2; i++ ) {
-			double tmp = a[i];
-			a[i] = a[rlen - i -1];
-			a[rlen - i - 1] = tmp;
-		}
-	}
-
 	/**
 	 * 
 	 * @param c
@@ -2273,6 +2596,38 @@ public class LibMatrixReorg
 		}
 	}
 	
+	/**
+	 * Executes the given tasks, either sequentially for k=1 or with a
+	 * thread pool of k threads, and rethrows any task exception.
+	 * 
+	 * @param tasks
+	 * @param k
+	 * @throws DMLRuntimeException
+	 */
+	private static void executeTasks( List<? extends Callable<Object>> tasks, int k ) 
+		throws DMLRuntimeException
+	{
+		try {
+			if( k <= 1 ) {
+				for( Callable<Object> task : tasks )
+					task.call();
+			}
+			else {
+				ExecutorService pool = Executors.newFixedThreadPool( k );
+				List<Future<Object>> taskret = pool.invokeAll(tasks);
+				pool.shutdown();
+				for( Future<Object> task : taskret )
+					task.get();
+			}
+		}
+		catch(DMLRuntimeException ex) {
+			throw ex;
+		}
+		catch(Exception ex) {
+			throw new DMLRuntimeException(ex);
+		}
+	}
+	
 	/**
 	 *
 	 */
@@ -2363,4 +2718,554 @@ public class LibMatrixReorg
 			return null;
 		}
 	}
+	
+	/**
+	 * Sparse transpose task (column counts and scatter) over a row partition.
+	 */
+	private static class TransposeSparseTask implements Callable<Object>
+	{
+		private final SparseBlock _a;
+		private final int _n;
+		private final int _rl;
+		private final int _ru;
+		
+		//column counts (pass 1), output write positions (pass 2)
+		private int[] _pos = null;
+		private int[] _cix = null;
+		private double[] _cvals = null;
+		
+		protected TransposeSparseTask(SparseBlock a, int n, int rl, int ru) {
+			_a = a;
+			_n = n;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		protected void setOutput(int[] cix, double[] cvals) {
+			_cix = cix;
+			_cvals = cvals;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			if( _cix == null ) { //pass 1: column counts
+				_pos = new int[_n];
+				for( int i=_rl; i<_ru; i++ )
+					if( !_a.isEmpty(i) )
+						countAgg(_pos, _a.indexes(i), _a.pos(i), _a.size(i));
+			}
+			else { //pass 2: scatter
+				for( int i=_rl; i<_ru; i++ ) {
+					if( _a.isEmpty(i) ) continue;
+					int apos = _a.pos(i);
+					int alen = _a.size(i);
+					int[] aix = _a.indexes(i);
+					double[] avals = _a.values(i);
+					for( int j=apos; j<apos+alen; j++ ) {
+						int cpos = _pos[aix[j]]++;
+						_cix[cpos] = i;
+						_cvals[cpos] = avals[j];
+					}
+				}
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Rowwise sparse reshape task over a row partition.
+	 */
+	private static class ReshapeSparseTask implements Callable<Object>
+	{
+		private final MatrixBlock _in;
+		private final int _rows;
+		private final int _cols;
+		private final int _rl;
+		private final int _ru;
+		private final int _off;
+		
+		private int[] _rptr = null;
+		private int[] _cix = null;
+		private double[] _cvals = null;
+		
+		protected ReshapeSparseTask(MatrixBlock in, int rows, int cols, int rl, int ru, int off) {
+			_in = in;
+			_rows = rows;
+			_cols = cols;
+			_rl = rl;
+			_ru = ru;
+			_off = off;
+		}
+		
+		protected void setOutput(int[] rptr, int[] cix, double[] cvals) {
+			_rptr = rptr;
+			_cix = cix;
+			_cvals = cvals;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			SparseBlock a = _in.sparseBlock;
+			final long clen = _in.clen;
+			final long cols = _cols;
+			
+			//first output row starting in the linearized range of this partition
+			int r = (int)((_rl*clen + cols - 1) / cols);
+			int pos = _off;
+			for( int i=_rl; i<_ru; i++ ) {
+				if( a.isEmpty(i) ) continue;
+				int apos = a.pos(i);
+				int alen = a.size(i);
+				int[] aix = a.indexes(i);
+				double[] avals = a.values(i);
+				for( int j=apos; j<apos+alen; j++ ) {
+					long lix = i*clen + aix[j];
+					while( r*cols <= lix )
+						_rptr[r++] = pos;
+					_cix[pos] = (int)(lix - (r-1)*cols);
+					_cvals[pos] = avals[j];
+					pos++;
+				}
+			}
+			
+			//row pointers of remaining output rows starting in this partition
+			long lend = _ru*clen;
+			while( r < _rows && r*cols < lend )
+				_rptr[r++] = pos;
+			
+			return null;
+		}
+	}
+	
+	/**
+	 * Rexpand task (expanded indexes and output) over a row partition.
+	 */
+	private static class RexpandTask implements Callable<Object>
+	{
+		private final MatrixBlock _in;
+		private final int[] _ix;
+		private final int _max;
+		private final boolean _rows;
+		private final boolean _rowsCSR;
+		private final boolean _cast;
+		private final boolean _ignore;
+		private final int _rl;
+		private final int _ru;
+		
+		//nnz (pass 1) and offset (pass 2), or per output row for rows expansion
+		private int _nnz = 0;
+		private int[] _pos = null;
+		
+		private int[] _rptr = null;
+		private int[] _cix = null;
+		private double[] _cvals = null;
+		private double[] _c = null;
+		private boolean _write = false;
+		
+		protected RexpandTask(MatrixBlock in, int[] ix, int max, boolean rows, boolean rowsCSR, boolean cast, boolean ignore, int rl, int ru) {
+			_in = in;
+			_ix = ix;
+			_max = max;
+			_rows = rows;
+			_rowsCSR = rowsCSR;
+			_cast = cast;
+			_ignore = ignore;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		protected void setOutput(int[] rptr, int[] cix, double[] cvals, double[] c) {
+			_rptr = rptr;
+			_cix = cix;
+			_cvals = cvals;
+			_c = c;
+			_write = true;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			if( !_write )
+				computeIndexes();
+			else if( _c != null )
+				writeDense();
+			else
+				writeSparse();
+			return null;
+		}
+		
+		private void computeIndexes() throws DMLRuntimeException
+		{
+			if( _rowsCSR )
+				_pos = new int[_max];
+			for( int i=_rl; i<_ru; i++ ) {
+				//get value and cast if necessary (table)
+				double val = _in.quickGetValue(i, 0);
+				if( _cast )
+					val = UtilFunctions.toLong(val);
+				
+				//handle invalid values if not to be ignored
+				if( !_ignore && val<=0 )
+					throw new DMLRuntimeException("Invalid input value <= 0 for ignore=false: "+val);
+				
+				//determine expanded index if matching
+				_ix[i] = -1;
+				if( val == Math.floor(val) && val >= 1 && val <= _max ) {
+					_ix[i] = (int)(val-1);
+					_nnz++;
+					if( _rowsCSR )
+						_pos[_ix[i]]++;
+				}
+			}
+		}
+		
+		private void writeDense()
+		{
+			//rows: (ix, i) in max x m, cols: (i, ix) in m x max
+			final int m = _in.rlen;
+			for( int i=_rl; i<_ru; i++ )
+				if( _ix[i] >= 0 )
+					_c[_rows ? _ix[i]*m+i : i*_max+_ix[i]] = 1;
+		}
+		
+		private void writeSparse()
+		{
+			if( _rowsCSR ) { //counting sort by expanded index
+				for( int i=_rl; i<_ru; i++ )
+					if( _ix[i] >= 0 ) {
+						int cpos = _pos[_ix[i]]++;
+						_cix[cpos] = i;
+						_cvals[cpos] = 1;
+					}
+			}
+			else { //one non-zero per output row
+				int pos = _nnz;
+				for( int i=_rl; i<_ru; i++ ) {
+					if( _ix[i] >= 0 ) {
+						_cix[pos] = _ix[i];
+						_cvals[pos] = 1;
+						pos++;
+					}
+					_rptr[i+1] = pos;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Remove empty rows task (selected rows and copy) over a row partition.
+	 */
+	private static class RemoveEmptyRowsTask implements Callable<Object>
+	{
+		private final MatrixBlock _in;
+		private final boolean[] _flags;
+		private final boolean _empty;
+		private final int _rl;
+		private final int _ru;
+		
+		//selected rows and non-zeros (pass 1), output offsets (pass 2)
+		private int _rix = 0;
+		private long _nnz = 0;
+		private long _nnzIn = 0;
+		
+		private MatrixBlock _out = null;
+		private int[] _rptr = null;
+		private int[] _cix = null;
+		private double[] _cvals = null;
+		private boolean _write = false;
+		
+		protected RemoveEmptyRowsTask(MatrixBlock in, boolean[] flags, boolean empty, int rl, int ru) {
+			_in = in;
+			_flags = flags;
+			_empty = empty;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		protected void setOutput(MatrixBlock out, int[] rptr, int[] cix, double[] cvals) {
+			_out = out;
+			_rptr = rptr;
+			_cix = cix;
+			_cvals = cvals;
+			_write = true;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			if( !_write )
+				computeSelectedRows();
+			else if( _out != null )
+				copyRows();
+			else
+				copyRowsCSR();
+			return null;
+		}
+		
+		private void computeSelectedRows()
+		{
+			final int n = _in.clen;
+			if( _in.sparse ) { //SPARSE
+				SparseBlock a = _in.sparseBlock;
+				for( int i=_rl; i<_ru; i++ ) {
+					int alen = a.isEmpty(i) ? 0 : a.size(i);
+					if( _empty )
+						_flags[i] = (alen > 0);
+					if( _flags[i] ) {
+						_rix++;
+						_nnz += alen;
+					}
+					_nnzIn += alen;
+				}
+			}
+			else { //DENSE
+				double[] a = _in.denseBlock;
+				for( int i=_rl, aix=_rl*n; i<_ru; i++, aix+=n ) {
+					if( !_empty && !_flags[i] )
+						continue;
+					int lnnz = 0;
+					for( int j=0; j<n; j++ )
+						lnnz += (a[aix+j] != 0) ? 1 : 0;
+					if( _empty )
+						_flags[i] = (lnnz > 0);
+					if( _flags[i] ) {
+						_rix++;
+						_nnz += lnnz;
+					}
+					_nnzIn += lnnz;
+				}
+			}
+		}
+		
+		private void copyRows()
+		{
+			final int n = _in.clen;
+			int rix = _rix;
+			
+			if( _in.sparse ) { //DENSE/MCSR <- SPARSE
+				SparseBlock a = _in.sparseBlock;
+				for( int i=_rl; i<_ru; i++ ) {
+					if( !_flags[i] ) continue;
+					if( !a.isEmpty(i) ) {
+						if( _out.sparse )
+							_out.sparseBlock.set(rix, a.get(i), true);
+						else {
+							int apos = a.pos(i);
+							int alen = a.size(i);
+							int[] aix = a.indexes(i);
+							double[] avals = a.values(i);
+							double[] c = _out.denseBlock;
+							for( int j=apos, cix=rix*n; j<apos+alen; j++ )
+								c[cix+aix[j]] = avals[j];
+						}
+					}
+					rix++;
+				}
+			}
+			else { //DENSE/MCSR <- DENSE
+				double[] a = _in.denseBlock;
+				for( int i=_rl, aix=_rl*n; i<_ru; i++, aix+=n ) {
+					if( !_flags[i] ) continue;
+					if( _out.sparse ) {
+						SparseBlock c = _out.sparseBlock;
+						for( int j=0; j<n; j++ )
+							if( a[aix+j] != 0 )
+								c.append(rix, j, a[aix+j]);
+					}
+					else
+						System.arraycopy(a, aix, _out.denseBlock, rix*n, n);
+					rix++;
+				}
+			}
+		}
+		
+		private void copyRowsCSR()
+		{
+			final int n = _in.clen;
+			int rix = _rix;
+			int pos = (int)_nnz;
+			
+			if( _cix == null ) { //CSR <- CSR (copied indexes and values)
+				SparseBlock a = _in.sparseBlock;
+				for( int i=_rl; i<_ru; i++ )
+					if( _flags[i] )
+						_rptr[++rix] = a.pos(i) + a.size(i);
+			}
+			else if( _in.sparse ) { //CSR <- SPARSE
+				SparseBlock a = _in.sparseBlock;
+				for( int i=_rl; i<_ru; i++ ) {
+					if( !_flags[i] ) continue;
+					if( !a.isEmpty(i) ) {
+						int apos = a.pos(i);
+						int alen = a.size(i);
+						System.arraycopy(a.indexes(i), apos, _cix, pos, alen);
+						System.arraycopy(a.values(i), apos, _cvals, pos, alen);
+						pos += alen;
+					}
+					_rptr[++rix] = pos;
+				}
+			}
+			else { //CSR <- DENSE
+				double[] a = _in.denseBlock;
+				for( int i=_rl, aix=_rl*n; i<_ru; i++, aix+=n ) {
+					if( !_flags[i] ) continue;
+					for( int j=0; j<n; j++ )
+						if( a[aix+j] != 0 ) {
+							_cix[pos] = j;
+							_cvals[pos] = a[aix+j];
+							pos++;
+						}
+					_rptr[++rix] = pos;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Remove empty columns task (non-empty columns and copy) over a row partition.
+	 */
+	private static class RemoveEmptyColsTask implements Callable<Object>
+	{
+		private final MatrixBlock _in;
+		private final int _rl;
+		private final int _ru;
+		
+		//partial non-empty columns (pass 1), selected columns (pass 2)
+		private boolean[] _flags = null;
+		private int[] _cix = null;
+		private MatrixBlock _out = null;
+		private long _nnz = 0;
+		
+		protected RemoveEmptyColsTask(MatrixBlock in, int rl, int ru) {
+			_in = in;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		protected void setOutput(MatrixBlock out, boolean[] flags, int[] cix) {
+			_out = out;
+			_flags = flags;
+			_cix = cix;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			if( _out == null )
+				computeNonEmptyColumns();
+			else
+				copyColumns();
+			return null;
+		}
+		
+		private void computeNonEmptyColumns()
+		{
+			final int n = _in.clen;
+			_flags = new boolean[n]; //false
+			if( _in.sparse ) { //SPARSE
+				SparseBlock a = _in.sparseBlock;
+				for( int i=_rl; i<_ru; i++ ) {
+					if( a.isEmpty(i) ) continue;
+					int apos = a.pos(i);
+					int alen = a.size(i);
+					int[] aix = a.indexes(i);
+					for( int j=apos; j<apos+alen; j++ )
+						_flags[ aix[j] ] = true;
+				}
+			}
+			else { //DENSE
+				double[] a = _in.denseBlock;
+				for( int i=_rl, aix=_rl*n; i<_ru; i++ )
+					for( int j=0; j<n; j++, aix++ )
+						if( a[aix] != 0 )
+							_flags[j] = true;
+			}
+		}
+		
+		private void copyColumns()
+		{
+			final int n = _in.clen;
+			final int clen2 = _out.clen;
+			
+			if( _in.sparse ) { //* <- SPARSE
+				SparseBlock a = _in.sparseBlock;
+				for( int i=_rl; i<_ru; i++ ) {
+					if( a.isEmpty(i) ) continue;
+					int apos = a.pos(i);
+					int alen = a.size(i);
+					int[] aix = a.indexes(i);
+					double[] avals = a.values(i);
+					if( _out.sparse ) {
+						SparseBlock c = _out.sparseBlock;
+						for( int j=apos; j<apos+alen; j++ )
+							if( _flags[aix[j]] ) {
+								c.append(i, _cix[aix[j]], avals[j]);
+								_nnz++;
+							}
+					}
+					else {
+						double[] c = _out.denseBlock;
+						for( int j=apos, cix=i*clen2; j<apos+alen; j++ )
+							if( _flags[aix[j]] ) {
+								c[cix+_cix[aix[j]]] = avals[j];
+								_nnz++;
+							}
+					}
+				}
+			}
+			else { //* <- DENSE
+				double[] a = _in.denseBlock;
+				for( int i=_rl, aix=_rl*n; i<_ru; i++ ) {
+					if( _out.sparse ) {
+						SparseBlock c = _out.sparseBlock;
+						for( int j=0; j<n; j++, aix++ )
+							if( _flags[j] && a[aix] != 0 ) {
+								c.append(i, _cix[j], a[aix]);
+								_nnz++;
+							}
+					}
+					else {
+						double[] c = _out.denseBlock;
+						for( int j=0, cix=i*clen2; j<n; j++, aix++ )
+							if( _flags[j] && a[aix] != 0 ) {
+								c[cix+_cix[j]] = a[aix];
+								_nnz++;
+							}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Replace task over a row partition.
+	 */
+	private static class ReplaceTask implements Callable<Object>
+	{
+		private final MatrixBlock _in;
+		private final MatrixBlock _out;
+		private final double _pattern;
+		private final double _replacement;
+		private final int _rl;
+		private final int _ru;
+		private long _nnz = 0;
+		
+		protected ReplaceTask(MatrixBlock in, MatrixBlock out, double pattern, double replacement, int rl, int ru) {
+			_in = in;
+			_out = out;
+			_pattern = pattern;
+			_replacement = replacement;
+			_rl = rl;
+			_ru = ru;
+		}
+		
+		@Override
+		public Object call() throws DMLRuntimeException
+		{
+			_nnz = replace(_in, _out, _pattern, _replacement, _rl, _ru);
+			return null;
+		}
+	}
 }
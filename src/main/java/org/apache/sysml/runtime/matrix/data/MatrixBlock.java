@@ -83,6 +83,7 @@ import org.apache.sysml.runtime.util.DataConverter;
 import org.apache.sysml.runtime.util.FastBufferedDataInputStream;
 import org.apache.sysml.runtime.util.FastBufferedDataOutputStream;
 import org.apache.sysml.runtime.util.IndexRange;
+import org.apache.sysml.runtime.util.SortUtils;
 import org.apache.sysml.runtime.util.UtilFunctions;
 
 
@@ -1021,7 +1022,21 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 	{
 		return sparse;
 	}
-	
+
+	/**
+	 * Indicates if this block is in sparse format with a CSR sparse block.
+	 * Sparse-safe operations that produce their output row by row with known
+	 * nnz upper bound (cell-wise, transpose, slice, append) preserve this
+	 * compact representation by directly constructing CSR outputs, while
+	 * operations with random updates keep using MCSR.
+	 *
+	 * @return
+	 */
+	public boolean isInSparseCSRFormat()
+	{
+		return sparse && sparseBlock instanceof SparseBlockCSR;
+	}
+
 	/**
 	 * 
 	 * @return
@@ -1387,6 +1402,29 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 			copyDenseToDense(that);
 	}
 	
+	/**
+	 * Copies the given block into this block for subsequent random updates
+	 * (e.g., left indexing). In contrast to copy, sparse CSR inputs are directly
+	 * converted into MCSR blocks because inserts into CSR require shifting the
+	 * column indexes and values of all subsequent rows.
+	 * 
+	 * @param that
+	 * @param sp
+	 */
+	private void copyForRandomUpdates(MatrixBlock that, boolean sp) 
+	{
+		if( sp && that.isInSparseCSRFormat() && that.sparseBlock.numRows()==that.rlen && this != that ) {
+			rlen = that.rlen;
+			clen = that.clen;
+			sparse = true;
+			nonZeros = that.nonZeros;
+			sparseBlock = SparseBlockFactory.copySparseBlock(
+				SparseBlock.Type.MCSR, that.sparseBlock, true);
+		}
+		else
+			copy(that, sp);
+	}
+	
 	private void copySparseToSparse(MatrixBlock that)
 	{
 		this.nonZeros=that.nonZeros;
@@ -1394,7 +1432,13 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 			resetSparse();
 			return;
 		}
-	
+
+		//deep copy of CSR blocks w/o conversion to MCSR
+		if( that.isInSparseCSRFormat() && that.sparseBlock.numRows()==rlen ) {
+			sparseBlock = SparseBlockFactory.copySparseBlock(SparseBlock.Type.CSR, that.sparseBlock, true);
+			return;
+		}
+
 		allocateSparseRowsBlock(false);
 		for(int i=0; i<Math.min(that.sparseBlock.numRows(), rlen); i++)
 		{
@@ -2901,7 +2945,34 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 		final int m = rlen;
 		final int n = clen;
 		
-		if( sparse ) //SPARSE <- SPARSE
+		if( sparse && isInSparseCSRFormat() && ret.sparse ) //CSR <- CSR
+		{
+			SparseBlock a = sparseBlock;
+			int[] aix = a.indexes(0);
+			double[] avals = a.values(0);
+
+			//single pass over contiguous arrays (nnz upper bound)
+			int[] rptr = new int[m+1];
+			int[] cix = new int[(int)a.size()];
+			double[] cvals = new double[(int)a.size()];
+			int pos = 0;
+			for( int i=0; i<m; i++ ) {
+				int apos = a.pos(i);
+				int alen = a.size(i);
+				for( int j=apos; j<apos+alen; j++ ) {
+					double val = op.fn.execute(avals[j]);
+					if( val != 0 ) {
+						cix[pos] = aix[j];
+						cvals[pos] = val;
+						pos++;
+					}
+				}
+				rptr[i+1] = pos;
+			}
+			ret.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, pos);
+			ret.nonZeros = pos;
+		}
+		else if( sparse ) //SPARSE <- SPARSE
 		{
 			SparseBlock a = sparseBlock;
 			
@@ -3722,6 +3793,13 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 				result.copy(rlen, m-1, 0, n-1, that, false);	
 			}
 		}
+		else if( (isInSparseCSRFormat() || that.isInSparseCSRFormat()) 
+			&& (isInSparseCSRFormat() || isEmptyBlock(false))
+			&& (that.isInSparseCSRFormat() || that.isEmptyBlock(false))
+			&& nnz <= Integer.MAX_VALUE ) //CSR <- CSR
+		{
+			appendToSparseCSR(this, that, result, cbind);
+		}
 		else //SPARSE
 		{
 			//adjust sparse rows if required
@@ -3741,6 +3819,66 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 		return result;
 	}
 
+	/**
+	 * Append (cbind/rbind) of CSR or empty inputs into a CSR output, which
+	 * copies the row segments of both inputs in output row order.
+	 * 
+	 * @param in1
+	 * @param in2
+	 * @param ret
+	 * @param cbind
+	 */
+	private static void appendToSparseCSR( MatrixBlock in1, MatrixBlock in2, MatrixBlock ret, boolean cbind )
+	{
+		final int m = ret.rlen;
+		SparseBlock a = in1.isEmptyBlock(false) ? null : in1.sparseBlock;
+		SparseBlock b = in2.isEmptyBlock(false) ? null : in2.sparseBlock;
+		int nnz = (int)((a!=null ? a.size() : 0) + (b!=null ? b.size() : 0));
+		
+		int[] rptr = new int[m+1];
+		int[] cix = new int[nnz];
+		double[] cvals = new double[nnz];
+		int pos = 0;
+		for( int i=0; i<m; i++ ) {
+			if( cbind ) {
+				pos = appendRowToCSR(a, i, 0, cix, cvals, pos);
+				pos = appendRowToCSR(b, i, in1.clen, cix, cvals, pos);
+			}
+			else { //rbind
+				pos = (i < in1.rlen) ? appendRowToCSR(a, i, 0, cix, cvals, pos) :
+					appendRowToCSR(b, i-in1.rlen, 0, cix, cvals, pos);
+			}
+			rptr[i+1] = pos;
+		}
+		
+		ret.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, pos);
+	}
+	
+	/**
+	 * 
+	 * @param a
+	 * @param r
+	 * @param coloffset
+	 * @param cix
+	 * @param cvals
+	 * @param pos
+	 * @return
+	 */
+	private static int appendRowToCSR( SparseBlock a, int r, int coloffset, int[] cix, double[] cvals, int pos )
+	{
+		if( a == null || a.isEmpty(r) )
+			return pos;
+		
+		int apos = a.pos(r);
+		int alen = a.size(r);
+		System.arraycopy(a.indexes(r), apos, cix, pos, alen);
+		System.arraycopy(a.values(r), apos, cvals, pos, alen);
+		if( coloffset > 0 )
+			for( int j=pos; j<pos+alen; j++ )
+				cix[j] += coloffset;
+		return pos+alen;
+	}
+	
 	/**
 	 * 
 	 * @param out
@@ -3937,7 +4075,7 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 				result=new MatrixBlock(rlen, clen, sp);
 			else
 				result.reset(rlen, clen, sp);
-			result.copy(this, sp);
+			result.copyForRandomUpdates(this, sp);
 		}
 		else //update in-place
 		{
@@ -4004,7 +4142,7 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 				ret=new MatrixBlock(rlen, clen, sp);
 			else
 				ret.reset(rlen, clen, sp);
-			ret.copy(this, sp);
+			ret.copyForRandomUpdates(this, sp);
 			
 		}
 		else //update in-place
@@ -4114,6 +4252,10 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 			//note: always sparse dest, but also works for dense
 			dest.appendRow(0, sparseBlock.get(rl));
 		}
+		else if( dest.sparse && isInSparseCSRFormat() ) //CSR <- CSR
+		{
+			sliceSparseCSR(rl, ru, cl, cu, dest);
+		}
 		else //general case (sparse/dense dest)
 		{
 			for(int i=rl; i <= ru; i++) 
@@ -4131,6 +4273,65 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 		}
 	}
 	
+	/**
+	 * Slicing of a CSR input into a CSR output, where the first pass determines
+	 * the column ranges per row (via binary search for cl) and the second pass
+	 * copies these ranges into the output arrays. Row slices over all columns
+	 * reduce to memcopies of the contiguous index and value arrays.
+	 * 
+	 * @param rl
+	 * @param ru
+	 * @param cl
+	 * @param cu
+	 * @param dest
+	 */
+	private void sliceSparseCSR(int rl, int ru, int cl, int cu, MatrixBlock dest)
+	{
+		final int m2 = ru-rl+1;
+		SparseBlock a = sparseBlock;
+		int[] aix = a.indexes(rl);
+		double[] avals = a.values(rl);
+		
+		//determine start positions and lengths of row ranges
+		int[] rptr = new int[m2+1];
+		int[] astart = new int[m2];
+		for( int i=rl, ix=0; i<=ru; i++, ix++ ) {
+			int len = 0;
+			if( !a.isEmpty(i) ) {
+				int apos = a.pos(i);
+				int alen = a.size(i);
+				int start = (cl>0) ? a.posFIndexGTE(i, cl) : apos;
+				if( start >= 0 ) {
+					int end = start;
+					if( cu < clen-1 )
+						while( end<apos+alen && aix[end]<=cu ) end++;
+					else
+						end = apos+alen;
+					astart[ix] = start;
+					len = end-start;
+				}
+			}
+			rptr[ix+1] = rptr[ix] + len;
+		}
+		
+		//copy row ranges w/ shifted column indexes
+		int nnz = rptr[m2];
+		int[] cix = new int[nnz];
+		double[] cvals = new double[nnz];
+		for( int ix=0; ix<m2; ix++ ) {
+			int len = rptr[ix+1]-rptr[ix];
+			if( len == 0 ) continue;
+			System.arraycopy(aix, astart[ix], cix, rptr[ix], len);
+			System.arraycopy(avals, astart[ix], cvals, rptr[ix], len);
+		}
+		if( cl > 0 )
+			for( int j=0; j<nnz; j++ )
+				cix[j] -= cl;
+		
+		dest.sparseBlock = new SparseBlockCSR(rptr, cix, cvals, nnz);
+		dest.nonZeros = nnz;
+	}
+	
 	/**
 	 * 
 	 * @param rl
@@ -4942,6 +5143,21 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 	}
 
 	public MatrixValue sortOperations(MatrixValue weights, MatrixValue result) throws DMLRuntimeException {
+		return sortOperations(weights, result, 1);
+	}
+	
+	/**
+	 * Sort operation for quantiles, median, and iqm, which creates a two-column output of 
+	 * sorted distinct values (incl a single row for all zeros) and their weights, where the
+	 * sort is computed with k threads.
+	 * 
+	 * @param weights
+	 * @param result
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public MatrixValue sortOperations(MatrixValue weights, MatrixValue result, int k) throws DMLRuntimeException {
 		boolean wtflag = (weights!=null);
 		
 		MatrixBlock wts= (weights == null ? null : checkType(weights));
@@ -4999,7 +5215,7 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 		
 		// Sort td and tw based on values inside td (ascending sort), incl copy into result
 		SortIndex sfn = SortIndex.getSortIndexFnObject(1, false, false);
-		ReorgOperator rop = new ReorgOperator(sfn);
+		ReorgOperator rop = new ReorgOperator(sfn, k);
 		LibMatrixReorg.reorg(tdw, (MatrixBlock)result, rop);
 		
 		return result;
@@ -5118,6 +5334,8 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 	}
 	
 	public double median() throws DMLRuntimeException {
+		if( getNumColumns() == 1 ) //unsorted column vector
+			return pickValue(0.5, getNumRows()%2==0);
 		double sum_wt = sumWeightForQuantile();
 		return pickValue(0.5, sum_wt%2==0);
 	}
@@ -5129,6 +5347,10 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 	public double pickValue(double quantile, boolean average) 
 		throws DMLRuntimeException 
 	{
+		//selection-based pick over unsorted column vector
+		if( getNumColumns() == 1 )
+			return pickValueUnsorted(quantile, average);
+		
 		double sum_wt = sumWeightForQuantile();
 		
 		// do averaging only if it is asked for; and sum_wt is even
@@ -5170,6 +5392,48 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 		}
 	}
 	
+	/**
+	 * Picks the value of the given quantile from an unsorted column vector (with
+	 * implicit unit weights) via selection in expected linear time, which gives the 
+	 * same result as pickValue over the output of sortOperations.
+	 * 
+	 * @param quantile
+	 * @param average
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	private double pickValueUnsorted(double quantile, boolean average) 
+		throws DMLRuntimeException 
+	{
+		int n = getNumRows();
+		if( n == 0 )
+			throw new DMLRuntimeException("Unexpected error while computing quantile -- empty input.");
+		
+		//copy values (incl zeros) into temporary array for in-place selection
+		double[] values = new double[n];
+		if( sparse && sparseBlock != null ) {
+			for( int i=0; i<n; i++ )
+				if( !sparseBlock.isEmpty(i) )
+					values[i] = sparseBlock.values(i)[sparseBlock.pos(i)];
+		}
+		else if( !sparse && denseBlock != null )
+			System.arraycopy(denseBlock, 0, values, 0, n);
+		
+		//select value at position ceil(quantile*n) (1-based)
+		int pos = Math.max((int) Math.ceil(quantile*n), 1) - 1;
+		double ret = SortUtils.select(values, 0, n, pos);
+		
+		//average with next larger value if requested (even number of values)
+		if( average && n%2 == 0 && pos+1 < n ) {
+			double next = values[pos+1];
+			for( int i=pos+2; i<n; i++ )
+				next = Math.min(next, values[i]);
+			ret = (ret + next) / 2;
+		}
+		
+		return ret;
+	}
+	
 	/**
 	 * In a given two column matrix, the second column denotes weights.
 	 * This function computes the total weight
@@ -5415,9 +5679,24 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 	 */
 	public MatrixBlock removeEmptyOperations( MatrixBlock ret, boolean rows, MatrixBlock select )
 		throws DMLRuntimeException 
+	{	
+		return removeEmptyOperations(ret, rows, select, 1);
+	}
+	
+	/**
+	 * 
+	 * @param ret
+	 * @param rows
+	 * @param select
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public MatrixBlock removeEmptyOperations( MatrixBlock ret, boolean rows, MatrixBlock select, int k )
+		throws DMLRuntimeException 
 	{	
 		MatrixBlock result = checkType(ret);
-		return LibMatrixReorg.rmempty(this, result, rows, select);
+		return LibMatrixReorg.rmempty(this, result, rows, select, k);
 	}
 	
 	/**
@@ -5445,98 +5724,50 @@ public class MatrixBlock extends MatrixValue implements CacheBlock, Externalizab
 	 */
 	public MatrixBlock rexpandOperations( MatrixBlock ret, double max, boolean rows, boolean cast, boolean ignore )
 		throws DMLRuntimeException 
+	{	
+		return rexpandOperations(ret, max, rows, cast, ignore, 1);
+	}
+	
+	/**
+	 * 
+	 * @param ret
+	 * @param max
+	 * @param rows
+	 * @param cast
+	 * @param ignore
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public MatrixBlock rexpandOperations( MatrixBlock ret, double max, boolean rows, boolean cast, boolean ignore, int k )
+		throws DMLRuntimeException 
 	{	
 		MatrixBlock result = checkType(ret);
-		return LibMatrixReorg.rexpand(this, result, max, rows, cast, ignore);
+		return LibMatrixReorg.rexpand(this, result, max, rows, cast, ignore, k);
 	}
 	
 	
 	@Override
 	public MatrixValue replaceOperations(MatrixValue result, double pattern, double replacement) 
 		throws DMLRuntimeException
+	{
+		return replaceOperations(result, pattern, replacement, 1);
+	}
+	
+	/**
+	 * 
+	 * @param result
+	 * @param pattern
+	 * @param replacement
+	 * @param k
+	 * @return
+	 * @throws DMLRuntimeException
+	 */
+	public MatrixValue replaceOperations(MatrixValue result, double pattern, double replacement, int k) 
+		throws DMLRuntimeException
 	{
 		MatrixBlock ret = checkType(result);
-		examSparsity(); //ensure its in the right format
-		ret.reset(rlen, clen, sparse);
-		if( nonZeros == 0 && pattern != 0  )
-			return ret; //early abort
-		boolean NaNpattern = Double.isNaN(pattern);
-		
-		if( sparse ) //SPARSE
-		{
-			if( pattern != 0d ) //SPARSE <- SPARSE (sparse-safe)
-			{
-				ret.allocateSparseRowsBlock();
-				SparseBlock a = sparseBlock;
-				SparseBlock c = ret.sparseBlock;
-				
-				for( int i=0; i<rlen; i++ ) {
-					if( !a.isEmpty(i) )
-					{
-						c.allocate(i);
-						int apos = a.pos(i);
-						int alen = a.size(i);
-						int[] aix = a.indexes(i);
-						double[] avals = a.values(i);
-						for( int j=apos; j<apos+alen; j++ )
-						{
-							double val = avals[j];
-							if( val== pattern || (NaNpattern && Double.isNaN(val)) )
-								c.append(i, aix[j], replacement);
-							else
-								c.append(i, aix[j], val);
-						}
-					}
-				}
-			}
-			else //DENSE <- SPARSE
-			{
-				ret.sparse = false;
-				ret.allocateDenseBlock();	
-				SparseBlock a = sparseBlock;
-				double[] c = ret.denseBlock;
-				
-				//initialize with replacement (since all 0 values, see SPARSITY_TURN_POINT)
-				Arrays.fill(c, replacement); 
-				
-				//overwrite with existing values (via scatter)
-				if( a != null  ) //check for empty matrix
-					for( int i=0, cix=0; i<rlen; i++, cix+=clen )
-					{
-						if( !a.isEmpty(i) )
-						{
-							int apos = a.pos(i);
-							int alen = a.size(i);
-							int[] aix = a.indexes(i);
-							double[] avals = a.values(i);
-							for( int j=apos; j<apos+alen; j++ )
-								if( avals[ j ] != 0 )
-									c[ cix+aix[j] ] = avals[ j ];
-						}
-					}
-			}			
-		}
-		else //DENSE <- DENSE
-		{
-			int mn = ret.rlen * ret.clen;
-			ret.allocateDenseBlock();
-			double[] a = denseBlock;
-			double[] c = ret.denseBlock;
-			
-			for( int i=0; i<mn; i++ ) 
-			{
-				double val = a[i];
-				if( val== pattern || (NaNpattern && Double.isNaN(val)) )
-					c[i] = replacement;
-				else
-					c[i] = a[i];
-			}
-		}
-		
-		ret.recomputeNonZeros();
-		ret.examSparsity();
-		
-		return ret;
+		return LibMatrixReorg.replace(this, ret, pattern, replacement, k);
 	}
 	
 	
@@ -60,6 +60,22 @@ public class SparseBlockCSR extends SparseBlock
 		_size = 0;
 	}
 	
+	/**
+	 * Constructor for a sparse block from already constructed (and sorted)
+	 * row pointers, column indexes, and values w/o copy.
+	 * 
+	 * @param rowPtr
+	 * @param colInd
+	 * @param values
+	 * @param nnz
+	 */
+	public SparseBlockCSR(int[] rowPtr, int[] colInd, double[] values, int nnz) {
+		_ptr = rowPtr;
+		_indexes = colInd;
+		_values = values;
+		_size = nnz;
+	}
+	
 	/**
 	 * Copy constructor sparse block abstraction. 
 	 */
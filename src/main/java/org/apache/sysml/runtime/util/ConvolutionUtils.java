@@ -73,11 +73,21 @@ public class ConvolutionUtils {
 		return false;
 	}
 	
-	public static Lop constructConvolutionBackwardFilterLops(Hop currentHop) throws HopsException, LopsException {
-		ExecType et = ExecType.CP;
+	/**
+	 * Indicates if the fused direct conv2d operations should be used for the given 
+	 * execution type, i.e., always for GPU and for CP unless the im2col path is selected. 
+	 * 
+	 * @param et
+	 * @return
+	 */
+	private static boolean isEligibleForDirectConv2d(ExecType et) {
+		return et == ExecType.CP && ConvolutionOp.FORCE_DIRECT_CONV2D_CP;
+	}
+	
+	public static Lop constructConvolutionBackwardFilterLops(Hop currentHop, ExecType et) throws HopsException, LopsException {
 		if(DMLScript.USE_ACCELERATOR)
 			et = ExecType.GPU; // TODO: Add memory estimate checks
-		else
+		else if(!isEligibleForDirectConv2d(et))
 			return null;
 		
 		if(currentHop != null && isTranspose(currentHop)) {
@@ -112,7 +122,7 @@ public class ConvolutionUtils {
 	public static Lop constructConvolutionLops(Hop currentHop, ExecType et) throws HopsException, LopsException {
 		if(DMLScript.USE_ACCELERATOR)
 			et = ExecType.GPU; // TODO: Add memory estimate checks
-		else
+		else if(!isEligibleForDirectConv2d(et))
 			return null;
 		
 		if(currentHop != null && isConvolutionOp(currentHop, ConvOp.RESHAPE_COL)) {
@@ -141,9 +151,9 @@ public class ConvolutionUtils {
 					long pad_h = currentHop.computeSizeInformation(inputs.get(4));
 					long pad_w = currentHop.computeSizeInformation(inputs.get(5));
 					long P = -1; long Q = -1;
-					if(H > 0 && R > 0 && stride_h > 0 && pad_h > 0)
+					if(H > 0 && R > 0 && stride_h > 0 && pad_h >= 0)
 						P = ConvolutionUtils.getP(H, R, stride_h, pad_h);
-					if(W > 0 && S > 0 && stride_w > 0 && pad_w > 0)
+					if(W > 0 && S > 0 && stride_w > 0 && pad_w >= 0)
 						Q = ConvolutionUtils.getQ(W, S, stride_w, pad_w);
 					long rlen = N;
 					long clen = ConvolutionOp.getExtractedVal(K, P, Q);
@@ -158,7 +168,7 @@ public class ConvolutionUtils {
 	public static Lop constructConvolutionBackwardDataLops(Hop currentHop, ExecType et) throws HopsException, LopsException {
 		if(DMLScript.USE_ACCELERATOR)
 			et = ExecType.GPU; // TODO: Add memory estimate checks
-		else
+		else if(!isEligibleForDirectConv2d(et))
 			return null;
 		
 		if(currentHop != null && isConvolutionOp(currentHop, ConvOp.COL2IM)) {
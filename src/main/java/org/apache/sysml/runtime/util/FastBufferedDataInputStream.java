@@ -20,6 +20,7 @@
 package org.apache.sysml.runtime.util;
 
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
@@ -113,7 +114,9 @@ public class FastBufferedDataInputStream extends FilterInputStream implements Da
 
 	@Override
 	public int readUnsignedShort() throws IOException {
-		throw new IOException("Not supported.");
+		readFully(_buff, 0, 2);
+		
+		return ((_buff[0] & 0xFF) << 8) | (_buff[1] & 0xFF);
 	}
 
 	@Override
@@ -161,7 +164,8 @@ public class FastBufferedDataInputStream extends FilterInputStream implements Da
 
 	@Override
 	public String readUTF() throws IOException {
-		throw new IOException("Not supported.");
+		//modified utf-8 decoding w/ 2-byte length prefix
+		return DataInputStream.readUTF(this);
 	}
 
 	
@@ -23,6 +23,7 @@ import java.io.DataOutput;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UTFDataFormatException;
 
 import org.apache.sysml.runtime.matrix.data.MatrixBlockDataOutput;
 import org.apache.sysml.runtime.matrix.data.SparseBlock;
@@ -201,7 +202,35 @@ public class FastBufferedDataOutputStream extends FilterOutputStream implements
 
 	@Override
 	public void writeUTF(String s) throws IOException {
-		byte[] strBytes = s.getBytes("UTF-8");
+		//modified utf-8 encoding w/ 2-byte length prefix (compatible with DataInput)
+		int slen = s.length();
+		int utflen = 0;
+		for( int i=0; i<slen; i++ ) {
+			char c = s.charAt(i);
+			utflen += (c >= 0x0001 && c <= 0x007F) ? 1 : (c > 0x07FF) ? 3 : 2;
+		}
+		if( utflen > 65535 )
+			throw new UTFDataFormatException("Encoded string too long: "+utflen+" bytes.");
+		
+		byte[] strBytes = new byte[utflen+2];
+		int pos = 0;
+		strBytes[pos++] = (byte)(utflen >>> 8);
+		strBytes[pos++] = (byte)(utflen);
+		for( int i=0; i<slen; i++ ) {
+			char c = s.charAt(i);
+			if( c >= 0x0001 && c <= 0x007F ) {
+				strBytes[pos++] = (byte) c;
+			}
+			else if( c > 0x07FF ) {
+				strBytes[pos++] = (byte)(0xE0 | ((c >> 12) & 0x0F));
+				strBytes[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+				strBytes[pos++] = (byte)(0x80 | (c & 0x3F));
+			}
+			else {
+				strBytes[pos++] = (byte)(0xC0 | ((c >> 6) & 0x1F));
+				strBytes[pos++] = (byte)(0x80 | (c & 0x3F));
+			}
+		}
 		write(strBytes, 0, strBytes.length);
 	}
 
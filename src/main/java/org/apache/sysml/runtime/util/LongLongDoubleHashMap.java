@@ -20,6 +20,7 @@
 package org.apache.sysml.runtime.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This native long long - double hashmap is specifically designed for
@@ -28,19 +29,27 @@ import java.util.ArrayList;
  * to be more memory-efficient which is important for large maps in order
  * to keep data in the caches and prevent high-latency random memory access. 
  * 
+ * The map uses open addressing with linear probing over primitive arrays
+ * of keys and values, i.e., it requires no entry objects and no pointer 
+ * chasing on collisions. Entries are never removed.
+ * 
  */
 public class LongLongDoubleHashMap 
 {
-	private static final int INIT_CAPACITY = 8;
+	private static final int INIT_CAPACITY = 16;
+	private static final int MAX_CAPACITY = 1 << 30; //max power of two array length
 	private static final int RESIZE_FACTOR = 2;
-	private static final float LOAD_FACTOR = 0.75f;
+	private static final float LOAD_FACTOR = 0.5f;
+	private static final long EMPTY = Long.MIN_VALUE; //key1 of unused slots
 
-	private LLDoubleEntry[] data = null;
+	private long[] keys1 = null;
+	private long[] keys2 = null;
+	private double[] values = null;
 	private int size = -1;
 	
 	public LongLongDoubleHashMap()
 	{
-		data = new LLDoubleEntry[INIT_CAPACITY];
+		allocate(INIT_CAPACITY);
 		size = 0;
 	}
 
@@ -56,70 +65,110 @@ public class LongLongDoubleHashMap
 	 */
 	public void addValue(long key1, long key2, double value)
 	{
-		//compute entry index position
-		int hash = hash(key1, key2);
-		int ix = indexFor(hash, data.length);
-
-		//find existing entry and add value
-		for( LLDoubleEntry e = data[ix]; e!=null; e = e.next ) {
-			if( e.key1==key1 && e.key2==key2 ) {
-				e.value += value;
+		//find existing entry or first free slot via linear probing
+		int mask = keys1.length - 1;
+		int ix = hash(key1, key2) & mask;
+		while( keys1[ix] != EMPTY ) {
+			if( keys1[ix]==key1 && keys2[ix]==key2 ) {
+				values[ix] += value;
 				return; //no need to append or resize
 			}
+			ix = (ix + 1) & mask;
 		}
 		
-		//add non-existing entry (constant time)
-		LLDoubleEntry enew = new LLDoubleEntry(key1, key2, value);
-		enew.next = data[ix]; //colliding entries / null
-		data[ix] = enew;
+		//add non-existing entry (w/ at least one free slot for termination of probing)
+		if( size >= keys1.length-1 )
+			throw new RuntimeException("LongLongDoubleHashMap exceeded its maximum capacity of "+size+" entries.");
+		keys1[ix] = key1;
+		keys2[ix] = key2;
+		values[ix] = value;
 		size++;
 		
 		//resize if necessary
-		if( size >= LOAD_FACTOR*data.length )
+		if( size >= LOAD_FACTOR*keys1.length )
 			resize();
 	}
 	
+	/**
+	 * Adds all entries of the given map to this map, i.e., merges 
+	 * the partial aggregates of both maps.
+	 * 
+	 * @param that
+	 */
+	public void addAll(LongLongDoubleHashMap that)
+	{
+		for( int i=0; i<that.keys1.length; i++ )
+			if( that.keys1[i] != EMPTY )
+				addValue(that.keys1[i], that.keys2[i], that.values[i]);
+	}
+	
 	/**
 	 * 
 	 * @return
 	 */
 	public ArrayList<LLDoubleEntry> extractValues()
 	{
-		ArrayList<LLDoubleEntry> ret = new ArrayList<LLDoubleEntry>();
-		for( LLDoubleEntry e : data ) {
-			if( e != null ) {
-				while( e.next!=null ) {
-					ret.add(e);
-					e = e.next;
-				}
-				ret.add(e);	
-			}
-		}
+		ArrayList<LLDoubleEntry> ret = new ArrayList<LLDoubleEntry>(size);
+		for( int i=0; i<keys1.length; i++ )
+			if( keys1[i] != EMPTY )
+				ret.add(new LLDoubleEntry(keys1[i], keys2[i], values[i]));
 
 		return ret;
 	}
 	
+	/**
+	 * Extracts all entries into the given primitive arrays of length 
+	 * greater or equal than size (w/o entry object creation).
+	 * 
+	 * @param k1
+	 * @param k2
+	 * @param vals
+	 */
+	public void extractValues(long[] k1, long[] k2, double[] vals)
+	{
+		for( int i=0, pos=0; i<keys1.length; i++ )
+			if( keys1[i] != EMPTY ) {
+				k1[pos] = keys1[i];
+				k2[pos] = keys2[i];
+				vals[pos] = values[i];
+				pos++;
+			}
+	}
+	
+	/**
+	 * 
+	 * @param cap
+	 */
+	private void allocate(int cap) {
+		keys1 = new long[cap];
+		keys2 = new long[cap];
+		values = new double[cap];
+		Arrays.fill(keys1, EMPTY);
+	}
+	
 	/**
 	 * 
 	 */
 	private void resize() {
-		//check for integer overflow on resize
-		if( data.length > Integer.MAX_VALUE/RESIZE_FACTOR )
+		//fall back to higher load factors at max capacity (which prevents
+		//integer overflow), until the map is full except one free slot
+		if( keys1.length >= MAX_CAPACITY )
 			return;
 		
-		//resize data array and copy existing contents
-		LLDoubleEntry[] olddata = data;
-		data = new LLDoubleEntry[data.length*RESIZE_FACTOR];
-		size = 0;
-		
-		//rehash all entries
-		for( LLDoubleEntry e : olddata ) {
-			if( e != null ) {
-				while( e.next!=null ) {
-					addValue(e.key1, e.key2, e.value);
-					e = e.next;
-				}
-				addValue(e.key1, e.key2, e.value);	
+		//resize data arrays and rehash existing contents
+		long[] okeys1 = keys1;
+		long[] okeys2 = keys2;
+		double[] ovalues = values;
+		allocate(keys1.length*RESIZE_FACTOR);
+		int mask = keys1.length - 1;
+		for( int i=0; i<okeys1.length; i++ ) {
+			if( okeys1[i] != EMPTY ) {
+				int ix = hash(okeys1[i], okeys2[i]) & mask;
+				while( keys1[ix] != EMPTY )
+					ix = (ix + 1) & mask;
+				keys1[ix] = okeys1[i];
+				keys2[ix] = okeys2[i];
+				values[ix] = ovalues[i];
 			}
 		}
 	}
@@ -141,31 +190,19 @@ public class LongLongDoubleHashMap
 		h ^= (h >>> 20) ^ (h >>> 12);
 		return h ^ (h >>> 7) ^ (h >>> 4);
 	}
-
-	/**
-	 * 
-	 * @param h
-	 * @param length
-	 * @return
-	 */
-	private static int indexFor(int h, int length) {
-		return h & (length-1);
-	}
 	
 	/**
 	 * 
 	 */
-	public class LLDoubleEntry {
+	public static class LLDoubleEntry {
 		public long key1 = Long.MAX_VALUE;
 		public long key2 = Long.MAX_VALUE;
 		public double value = Double.MAX_VALUE;
-		public LLDoubleEntry next = null;
 		
 		public LLDoubleEntry(long k1, long k2, double val) {
 			key1 = k1;
 			key2 = k2;
 			value = val;
-			next = null;
 		}
 	}
 }
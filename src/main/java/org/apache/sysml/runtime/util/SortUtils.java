@@ -19,9 +19,15 @@
 
 package org.apache.sysml.runtime.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.sysml.runtime.DMLRuntimeException;
 import org.apache.sysml.runtime.controlprogram.parfor.stat.Timing;
 
 /**
@@ -30,6 +36,9 @@ import org.apache.sysml.runtime.controlprogram.parfor.stat.Timing;
  */
 public class SortUtils 
 {
+	//minimum number of values for parallel sorting 
+	public static final int PAR_SORT_THRESHOLD = 64*1024;
+	
 	/**
 	 * 
 	 * @param start
@@ -473,6 +482,379 @@ public class SortUtils
     }
     
 
+    /**
+     * Parallel in-place sort of the given array in ascending order. The array is 
+     * split into k equi-sized runs that are sorted independently, and subsequently 
+     * merged in log2(k) rounds of pairwise merges, where each merge is further split 
+     * into disjoint output segments (via binary search) to keep all threads busy in
+     * later rounds.
+     * 
+     * @param values
+     * @param k
+     * @throws DMLRuntimeException
+     */
+    public static void sortParallel(double[] values, int k) 
+    	throws DMLRuntimeException
+    {
+    	if( k <= 1 || values.length < PAR_SORT_THRESHOLD ) {
+    		Arrays.sort(values);
+    		return;
+    	}
+    	
+    	mergeSortParallel(values, null, k);
+    }
+    
+    /**
+     * Parallel in-place stable sort of values and their indexes, where ties are ordered 
+     * by increasing indexes (in both ascending and descending order). This is equivalent 
+     * to sortByValueStable (plus reverse and reordering of ties for descending order) if
+     * the indexes are initially sorted in increasing order. NaNs are placed last for 
+     * ascending and first for descending order (as with Arrays.sort plus reverse).
+     * 
+     * @param values
+     * @param indexes
+     * @param desc
+     * @param k
+     * @throws DMLRuntimeException
+     */
+    public static void sortByValueStableParallel(double[] values, int[] indexes, boolean desc, int k) 
+    	throws DMLRuntimeException
+    {
+    	//separate NaNs, which are not ordered by the comparisons of sortByValue
+    	int nnan = 0;
+    	for( int i=0; i<values.length; i++ )
+    		nnan += Double.isNaN(values[i]) ? 1 : 0;
+    	if( nnan > 0 ) {
+    		sortByValueStableParallelNaN(values, indexes, nnan, desc, k);
+    		return;
+    	}
+    	
+    	//descending order via ascending order of negated values, which
+    	//retains the increasing order of indexes for ties
+    	if( desc )
+    		negate(values);
+    	
+    	if( k <= 1 || values.length < PAR_SORT_THRESHOLD ) {
+    		sortByValue(0, values.length, values, indexes);
+    		sortIndexesOfTies(0, values.length, values, indexes);
+    	}
+    	else
+    		mergeSortParallel(values, indexes, k);
+    	
+    	if( desc )
+    		negate(values);
+    }
+    
+    /**
+     * 
+     * @param values
+     * @param indexes
+     * @param nnan
+     * @param desc
+     * @param k
+     * @throws DMLRuntimeException
+     */
+    private static void sortByValueStableParallelNaN(double[] values, int[] indexes, int nnan, boolean desc, int k) 
+    	throws DMLRuntimeException
+    {
+    	//split non-NaN values and NaN indexes
+    	int n = values.length;
+    	double[] values2 = new double[n-nnan];
+    	int[] indexes2 = new int[n-nnan];
+    	int[] nanix = new int[nnan];
+    	for( int i=0, pos=0, npos=0; i<n; i++ ) {
+    		if( Double.isNaN(values[i]) )
+    			nanix[npos++] = indexes[i];
+    		else {
+    			values2[pos] = values[i];
+    			indexes2[pos++] = indexes[i];
+    		}
+    	}
+    	
+    	//sort non-NaN values, and NaNs by increasing indexes
+    	sortByValueStableParallel(values2, indexes2, desc, k);
+    	Arrays.sort(nanix);
+    	
+    	//write back NaNs first (descending) or last (ascending)
+    	int off = desc ? nnan : 0;
+    	int noff = desc ? 0 : n-nnan;
+    	System.arraycopy(values2, 0, values, off, n-nnan);
+    	System.arraycopy(indexes2, 0, indexes, off, n-nnan);
+    	Arrays.fill(values, noff, noff+nnan, Double.NaN);
+    	System.arraycopy(nanix, 0, indexes, noff, nnan);
+    }
+    
+    /**
+     * Selects the k-th smallest value (0-based) in the range [start,end) via quickselect, 
+     * i.e., in expected linear time, and partially reorders the given array such that all
+     * values left of position k are smaller or equal and all values right of k are larger
+     * or equal than the selected value. Values are compared via Double.compare, i.e., 
+     * consistent with Arrays.sort (incl NaNs as largest values).
+     * 
+     * @param values
+     * @param start
+     * @param end
+     * @param k
+     * @return
+     */
+    public static double select(double[] values, int start, int end, int k) 
+    {
+    	int lo = start, hi = end - 1;
+    	while( lo < hi ) {
+    		//median-of-three pivot and three-way partitioning (for many ties)
+    		double pivot = values[med3(values, lo, (lo + hi) >>> 1, hi)];
+    		int lt = lo, i = lo, gt = hi;
+    		while( i <= gt ) {
+    			int cmp = Double.compare(values[i], pivot);
+    			if( cmp < 0 )
+    				swap(values, lt++, i++);
+    			else if( cmp > 0 )
+    				swap(values, i, gt--);
+    			else
+    				i++;
+    		}
+    		if( k < lt )
+    			hi = lt - 1;
+    		else if( k > gt )
+    			lo = gt + 1;
+    		else
+    			return pivot;
+    	}
+    	return values[k];
+    }
+    
+    /**
+     * 
+     * @param values
+     * @param indexes
+     * @param k
+     * @throws DMLRuntimeException
+     */
+    private static void mergeSortParallel(double[] values, int[] indexes, int k) 
+    	throws DMLRuntimeException
+    {
+    	int n = values.length;
+    	ExecutorService pool = Executors.newFixedThreadPool(k);
+    	try
+    	{
+    		//sort k equi-sized runs independently
+    		ArrayList<SortTask> tasks = new ArrayList<SortTask>();
+    		ArrayList<Integer> bounds = new ArrayList<Integer>();
+    		int blklen = (int)(Math.ceil((double)n/k));
+    		for( int i=0; i<n; i+=blklen ) {
+    			tasks.add(new SortTask(values, indexes, i, Math.min(i+blklen, n)));
+    			bounds.add(i);
+    		}
+    		bounds.add(n);
+    		for( Future<Object> task : pool.invokeAll(tasks) )
+    			task.get();
+    		
+    		//merge runs pairwise (ping-pong between input and temporary buffers)
+    		double[] src = values, dst = new double[n];
+    		int[] srcix = indexes, dstix = (indexes != null) ? new int[n] : null;
+    		while( bounds.size() > 2 ) {
+    			ArrayList<MergeTask> mtasks = new ArrayList<MergeTask>();
+    			ArrayList<Integer> nbounds = new ArrayList<Integer>();
+    			int nruns = bounds.size() - 1;
+    			int parts = Math.max(1, k / (nruns/2));
+    			for( int r=0; r<nruns; r+=2 ) {
+    				int lo = bounds.get(r);
+    				int mid = bounds.get(r+1);
+    				int hi = (r+1 < nruns) ? bounds.get(r+2) : mid;
+    				nbounds.add(lo);
+    				//split merge into disjoint segments of the output
+    				int lprev = lo, rprev = mid;
+    				for( int p=1; p<=parts; p++ ) {
+    					int li = (p < parts) ? lo + (int)((long)(mid-lo)*p/parts) : mid;
+    					int ri = (p < parts && li < mid) ? lowerBound(src, srcix, mid, hi, src[li], 
+    						(srcix != null) ? srcix[li] : -1) : hi;
+    					mtasks.add(new MergeTask(src, srcix, dst, dstix, lprev, li, rprev, ri, lprev + (rprev - mid)));
+    					lprev = li;
+    					rprev = ri;
+    				}
+    			}
+    			nbounds.add(n);
+    			for( Future<Object> task : pool.invokeAll(mtasks) )
+    				task.get();
+    			
+    			//swap buffers and boundaries
+    			double[] tmp = src; src = dst; dst = tmp;
+    			int[] tmpix = srcix; srcix = dstix; dstix = tmpix;
+    			bounds = nbounds;
+    		}
+    		
+    		//copy final result back into the input arrays if necessary
+    		if( src != values ) {
+    			System.arraycopy(src, 0, values, 0, n);
+    			if( indexes != null )
+    				System.arraycopy(srcix, 0, indexes, 0, n);
+    		}
+    	}
+    	catch(Exception ex) {
+    		throw new DMLRuntimeException(ex);
+    	}
+    	finally {
+    		pool.shutdown();
+    	}
+    }
+    
+    /**
+     * Obtains the first position in [start,end) whose value-index pair is not less
+     * than the given value-index pair.
+     * 
+     * @param values
+     * @param indexes
+     * @param start
+     * @param end
+     * @param val
+     * @param ix
+     * @return
+     */
+    private static int lowerBound(double[] values, int[] indexes, int start, int end, double val, int ix) 
+    {
+    	int lo = start, hi = end;
+    	while( lo < hi ) {
+    		int mid = (lo + hi) >>> 1;
+    		if( isLess(values, indexes, mid, val, ix) )
+    			lo = mid + 1;
+    		else
+    			hi = mid;
+    	}
+    	return lo;
+    }
+    
+    /**
+     * Compares value-index pairs consistent with the order of the sorted runs, i.e.,
+     * Double.compare for values (runs sorted via Arrays.sort, incl NaNs and -0), and
+     * primitive comparisons for value-index pairs (runs sorted via sortByValue, w/o NaNs).
+     * 
+     * @param values
+     * @param indexes
+     * @param pos
+     * @param val
+     * @param ix
+     * @return
+     */
+    private static boolean isLess(double[] values, int[] indexes, int pos, double val, int ix) {
+    	if( indexes == null )
+    		return Double.compare(values[pos], val) < 0;
+    	return values[pos] < val || (values[pos] == val && indexes[pos] < ix);
+    }
+    
+    /**
+     * Sorts the indexes of runs of equal values in increasing order.
+     * 
+     * @param start
+     * @param end
+     * @param values
+     * @param indexes
+     */
+    private static void sortIndexesOfTies(int start, int end, double[] values, int[] indexes) 
+    {
+    	for( int i=start; i<end-1; i++ ) {
+    		double tmp = values[i];
+    		//determine run of equal values
+    		int len = 0;
+    		while( i+len+1<end && tmp==values[i+len+1] )
+    			len++;
+    		//unstable sort of run indexes (equal value guaranteed)
+    		if( len>0 ) {
+    			Arrays.sort(indexes, i, i+len+1);
+    			i += len; //skip processed run
+    		}
+    	}
+    }
+    
+    /**
+     * 
+     * @param values
+     */
+    private static void negate(double[] values) {
+    	for( int i=0; i<values.length; i++ )
+    		values[i] = -values[i];
+    }
+    
+    /**
+     * 
+     * @param values
+     * @param i
+     * @param j
+     */
+    private static void swap(double[] values, int i, int j) {
+    	double tmp = values[i];
+    	values[i] = values[j];
+    	values[j] = tmp;
+    }
+    
+    /**
+     * Task for sorting a single run [rl,ru) of values (and indexes).
+     */
+    private static class SortTask implements Callable<Object> 
+    {
+    	private double[] _values = null;
+    	private int[] _indexes = null;
+    	private int _rl = -1;
+    	private int _ru = -1;
+    	
+    	protected SortTask(double[] values, int[] indexes, int rl, int ru) {
+    		_values = values;
+    		_indexes = indexes;
+    		_rl = rl;
+    		_ru = ru;
+    	}
+    	
+    	@Override
+    	public Object call() {
+    		if( _indexes == null )
+    			Arrays.sort(_values, _rl, _ru);
+    		else {
+    			sortByValue(_rl, _ru, _values, _indexes);
+    			sortIndexesOfTies(_rl, _ru, _values, _indexes);
+    		}
+    		return null;
+    	}
+    }
+    
+    /**
+     * Task for merging the sorted segments [ll,lu) and [rl,ru) into the output
+     * at position opos, where ties are taken from the left segment first.
+     */
+    private static class MergeTask implements Callable<Object> 
+    {
+    	private double[] _src = null, _dst = null;
+    	private int[] _srcix = null, _dstix = null;
+    	private int _ll = -1, _lu = -1;
+    	private int _rl = -1, _ru = -1;
+    	private int _opos = -1;
+    	
+    	protected MergeTask(double[] src, int[] srcix, double[] dst, int[] dstix, int ll, int lu, int rl, int ru, int opos) {
+    		_src = src; _srcix = srcix;
+    		_dst = dst; _dstix = dstix;
+    		_ll = ll; _lu = lu;
+    		_rl = rl; _ru = ru;
+    		_opos = opos;
+    	}
+    	
+    	@Override
+    	public Object call() {
+    		int i = _ll, j = _rl, o = _opos;
+    		while( i < _lu && j < _ru ) {
+    			int pos = isLess(_src, _srcix, j, _src[i], (_srcix != null) ? _srcix[i] : -1) ? j++ : i++;
+    			_dst[o] = _src[pos];
+    			if( _dstix != null )
+    				_dstix[o] = _srcix[pos];
+    			o++;
+    		}
+    		//copy remaining tail of left or right segment
+    		int pos = (i < _lu) ? i : j;
+    		int len = (i < _lu) ? _lu - i : _ru - j;
+    		System.arraycopy(_src, pos, _dst, o, len);
+    		if( _dstix != null )
+    			System.arraycopy(_srcix, pos, _dstix, o, len);
+    		return null;
+    	}
+    }
+    
     public static void main(String[] args)
     {
     	int n = 10000000;
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.utils;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sysml.runtime.controlprogram.caching.CacheStatistics;
+import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
+import org.apache.sysml.runtime.controlprogram.context.ExecutionContext;
+import org.apache.sysml.runtime.instructions.Instruction;
+import org.apache.sysml.runtime.instructions.cp.ComputationCPInstruction;
+import org.apache.sysml.runtime.instructions.cp.Data;
+import org.apache.sysml.runtime.io.IOUtilFunctions;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
+
+/**
+ * Opt-in profiler for control program instructions (enabled via -profile). For
+ * every executed instruction, we attribute wall time, allocated bytes (if supported
+ * by the JVM), buffer pool reads/writes, and the output size (nnz, sparsity) to the
+ * instruction opcode and its originating script lines.
+ *
+ * All measurements are collected in thread-local buffers in order to avoid any
+ * synchronization in the instruction execution path (e.g., of parfor workers).
+ * Aggregates are exposed as a per-line summary for the statistics output, and raw
+ * events can be exported in the chrome trace event format (JSON), which can be
+ * loaded by chrome://tracing and common flamegraph viewers.
+ *
+ * Note that buffer pool statistics are global counters, i.e., with concurrent
+ * workers the cache reads/writes of an instruction may include those of concurrently
+ * executing instructions.
+ */
+public class InstructionProfiler
+{
+	//max number of raw trace events (to bound memory overhead)
+	public static final long MAX_TRACE_EVENTS = 1000000;
+
+	//registry of thread-local profiles of the current generation
+	private static final ConcurrentLinkedQueue<ThreadProfile> _profiles = new ConcurrentLinkedQueue<ThreadProfile>();
+	private static final AtomicInteger _generation = new AtomicInteger(0);
+	private static final AtomicLong _numEvents = new AtomicLong(0);
+	private static long _startTime = System.nanoTime();
+
+	private static final ThreadLocal<ThreadProfile> _tprofile = new ThreadLocal<ThreadProfile>();
+
+	//thread allocation monitoring (hotspot-specific, if available)
+	private static com.sun.management.ThreadMXBean _tmx = null;
+
+	static
+	{
+		try {
+			java.lang.management.ThreadMXBean tmx = ManagementFactory.getThreadMXBean();
+			if( tmx instanceof com.sun.management.ThreadMXBean ) {
+				com.sun.management.ThreadMXBean stmx = (com.sun.management.ThreadMXBean) tmx;
+				if( stmx.isThreadAllocatedMemorySupported() ) {
+					stmx.setThreadAllocatedMemoryEnabled(true);
+					_tmx = stmx;
+				}
+			}
+		}
+		catch(Throwable ex) {
+			//allocation monitoring unsupported, ignore
+			_tmx = null;
+		}
+	}
+
+	/**
+	 * Resets all profiles (required if multiple scripts are executed in one JVM).
+	 */
+	public static void reset()
+	{
+		_generation.incrementAndGet();
+		_profiles.clear();
+		_numEvents.set(0);
+		_startTime = System.nanoTime();
+	}
+
+	/**
+	 * Obtains the number of bytes allocated by the current thread, or -1 if
+	 * allocation monitoring is not supported.
+	 *
+	 * @return
+	 */
+	public static long getAllocatedBytes()
+	{
+		if( _tmx == null )
+			return -1;
+
+		return _tmx.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Obtains the current number of buffer pool reads (excluding in-memory hits).
+	 *
+	 * @return
+	 */
+	public static long getCacheReads()
+	{
+		return CacheStatistics.getFSBuffHits()
+			+ CacheStatistics.getFSHits()
+			+ CacheStatistics.getHDFSHits();
+	}
+
+	/**
+	 * Obtains the current number of buffer pool writes (evictions and exports).
+	 *
+	 * @return
+	 */
+	public static long getCacheWrites()
+	{
+		return CacheStatistics.getFSBuffWrites()
+			+ CacheStatistics.getFSWrites()
+			+ CacheStatistics.getHDFSWrites();
+	}
+
+	/**
+	 * Records the execution of a single instruction. The start values are captured
+	 * by the caller before instruction execution in order to support nested calls
+	 * (e.g., function call instructions).
+	 *
+	 * @param inst
+	 * @param ec
+	 * @param t0 start time in ns
+	 * @param alloc0 allocated bytes before execution
+	 * @param reads0 cache reads before execution
+	 * @param writes0 cache writes before execution
+	 */
+	public static void maintainInstruction( Instruction inst, ExecutionContext ec, long t0, long alloc0, long reads0, long writes0 )
+	{
+		long t1 = System.nanoTime();
+		long alloc = (alloc0 >= 0) ? getAllocatedBytes() - alloc0 : -1;
+		long reads = getCacheReads() - reads0;
+		long writes = getCacheWrites() - writes0;
+
+		//obtain output size meta data (w/o pinning the output)
+		long nnz = -1;
+		double sparsity = -1;
+		if( inst instanceof ComputationCPInstruction && ec != null ) {
+			Data dat = ec.getVariables().get(((ComputationCPInstruction)inst).getOutputVariableName());
+			if( dat instanceof MatrixObject ) {
+				MatrixCharacteristics mc = ((MatrixObject)dat).getMatrixCharacteristics();
+				if( mc.dimsKnown() && mc.nnzKnown() ) {
+					nnz = mc.getNonZeros();
+					sparsity = getSparsity(mc);
+				}
+			}
+		}
+
+		//maintain thread-local aggregates and trace events
+		String opcode = Statistics.getCPHeavyHitterCode(inst);
+		int bline = inst.getLineNum();
+		int eline = (inst.getLocation() != null) ? inst.getLocation().endLine : bline;
+		ThreadProfile prof = getThreadProfile();
+		prof.maintainEntry(opcode, bline, eline, t1-t0, alloc, reads, writes, nnz, sparsity);
+		if( _numEvents.incrementAndGet() <= MAX_TRACE_EVENTS )
+			prof.events.add(new TraceEvent(opcode, bline, eline, t0, t1-t0, alloc, reads, writes, nnz, sparsity));
+	}
+
+	/**
+	 * Creates a per-line summary of the top-k entries (by time) over all threads.
+	 *
+	 * @param num
+	 * @return
+	 */
+	public static String display( int num )
+	{
+		ProfileEntry[] tmp = getAggregatedEntries();
+		int len = tmp.length;
+		if( num <= 0 || len <= 0 )
+			return "-";
+
+		//sort by total time descending
+		Arrays.sort(tmp, new Comparator<ProfileEntry>() {
+			public int compare(ProfileEntry e1, ProfileEntry e2) {
+				return (e1.time < e2.time) ? 1 : (e1.time > e2.time) ? -1 : 0;
+			}
+		});
+
+		//prepare output string
+		StringBuilder sb = new StringBuilder();
+		for( int i=0; i<Math.min(num, len); i++ ) {
+			ProfileEntry e = tmp[i];
+			sb.append("-- "+(i+1)+") \t");
+			sb.append("line "+e.beginLine+((e.endLine>e.beginLine)?"-"+e.endLine:""));
+			sb.append(" \t");
+			sb.append(e.opcode);
+			sb.append(" \t");
+			sb.append(String.format("%.3f", ((double)e.time)/1000000000));
+			sb.append(" sec \t");
+			sb.append(e.count);
+			sb.append(" \t");
+			sb.append((e.alloc >= 0) ? String.format("%.1f MB", ((double)e.alloc)/(1024*1024)) : "-");
+			sb.append(" \t");
+			sb.append(e.reads+"/"+e.writes);
+			sb.append(" \t");
+			sb.append(e.threads.size());
+			sb.append("\n");
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Exports all collected raw events as chrome trace event JSON file.
+	 *
+	 * @param fname local file name
+	 * @throws IOException
+	 */
+	public static void exportTrace( String fname )
+		throws IOException
+	{
+		BufferedWriter out = null;
+		try
+		{
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fname), "UTF-8"));
+			out.write("{\"traceEvents\":[\n");
+			boolean first = true;
+			for( ThreadProfile prof : _profiles ) {
+				for( TraceEvent e : prof.events ) {
+					if( !first )
+						out.write(",\n");
+					e.writeJSON(out, prof.tid);
+					first = false;
+				}
+			}
+			out.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+		}
+		finally {
+			IOUtilFunctions.closeSilently(out);
+		}
+	}
+
+	/**
+	 *
+	 * @return
+	 */
+	private static ThreadProfile getThreadProfile()
+	{
+		ThreadProfile prof = _tprofile.get();
+		int gen = _generation.get();
+		if( prof == null || prof.generation != gen ) {
+			prof = new ThreadProfile(gen);
+			_tprofile.set(prof);
+			_profiles.add(prof);
+		}
+		return prof;
+	}
+
+	/**
+	 *
+	 * @return
+	 */
+	private static ProfileEntry[] getAggregatedEntries()
+	{
+		HashMap<String, ProfileEntry> agg = new HashMap<String, ProfileEntry>();
+		for( ThreadProfile prof : _profiles ) {
+			//note: no synchronization, intended for use after execution
+			for( Entry<String, ProfileEntry> e : prof.entries.entrySet() ) {
+				ProfileEntry tmp = agg.get(e.getKey());
+				if( tmp == null ) {
+					ProfileEntry pe = e.getValue();
+					tmp = new ProfileEntry(pe.opcode, pe.beginLine, pe.endLine);
+					agg.put(e.getKey(), tmp);
+				}
+				tmp.merge(e.getValue());
+				tmp.threads.add(prof.tid);
+			}
+		}
+		return agg.values().toArray(new ProfileEntry[0]);
+	}
+
+	/**
+	 *
+	 * @param mc
+	 * @return
+	 */
+	private static double getSparsity( MatrixCharacteristics mc )
+	{
+		double cells = (double)mc.getRows() * mc.getCols();
+		return (cells > 0) ? Math.min(mc.getNonZeros()/cells, 1.0) : 0;
+	}
+
+	/**
+	 * Thread-local buffer of aggregates and raw events.
+	 */
+	private static class ThreadProfile
+	{
+		private final int generation;
+		private final long tid;
+		private final HashMap<String, ProfileEntry> entries = new HashMap<String, ProfileEntry>();
+		private final ArrayList<TraceEvent> events = new ArrayList<TraceEvent>();
+
+		public ThreadProfile( int gen ) {
+			generation = gen;
+			tid = Thread.currentThread().getId();
+		}
+
+		public void maintainEntry( String opcode, int bline, int eline, long time, long alloc, long reads, long writes, long nnz, double sparsity ) {
+			String key = bline + "_" + opcode;
+			ProfileEntry e = entries.get(key);
+			if( e == null ) {
+				e = new ProfileEntry(opcode, bline, eline);
+				entries.put(key, e);
+			}
+			e.count++;
+			e.time += time;
+			e.alloc = (alloc >= 0 && e.alloc >= 0) ? e.alloc + alloc : -1;
+			e.reads += reads;
+			e.writes += writes;
+			e.nnz = Math.max(e.nnz, nnz);
+			e.sparsity = Math.max(e.sparsity, sparsity);
+		}
+	}
+
+	/**
+	 * Aggregated profile of a single opcode at a given script line.
+	 */
+	private static class ProfileEntry
+	{
+		private final String opcode;
+		private final int beginLine;
+		private final int endLine;
+		private long count = 0;
+		private long time = 0;
+		private long alloc = 0;
+		private long reads = 0;
+		private long writes = 0;
+		private long nnz = -1;
+		private double sparsity = -1;
+		private final HashSet<Long> threads = new HashSet<Long>();
+
+		public ProfileEntry( String op, int bline, int eline ) {
+			opcode = op;
+			beginLine = bline;
+			endLine = eline;
+		}
+
+		public void merge( ProfileEntry that ) {
+			count += that.count;
+			time += that.time;
+			alloc = (alloc >= 0 && that.alloc >= 0) ? alloc + that.alloc : -1;
+			reads += that.reads;
+			writes += that.writes;
+			nnz = Math.max(nnz, that.nnz);
+			sparsity = Math.max(sparsity, that.sparsity);
+		}
+	}
+
+	/**
+	 * Raw event of a single instruction execution.
+	 */
+	private static class TraceEvent
+	{
+		private final String opcode;
+		private final int beginLine;
+		private final int endLine;
+		private final long start;
+		private final long time;
+		private final long alloc;
+		private final long reads;
+		private final long writes;
+		private final long nnz;
+		private final double sparsity;
+
+		public TraceEvent( String op, int bline, int eline, long t0, long dt, long alloc, long reads, long writes, long nnz, double sp ) {
+			opcode = op;
+			beginLine = bline;
+			endLine = eline;
+			start = t0;
+			time = dt;
+			this.alloc = alloc;
+			this.reads = reads;
+			this.writes = writes;
+			this.nnz = nnz;
+			sparsity = sp;
+		}
+
+		public void writeJSON( BufferedWriter out, long tid )
+			throws IOException
+		{
+			//timestamps and durations in micro seconds (trace event format),
+			//note: no locale-specific formatting in order to produce valid json
+			out.write("{\"name\":\""+escape(opcode)+"\",\"cat\":\"line "+beginLine+"\",\"ph\":\"X\"");
+			out.write(",\"ts\":"+((double)(start-_startTime))/1000);
+			out.write(",\"dur\":"+((double)time)/1000);
+			out.write(",\"pid\":1,\"tid\":"+tid);
+			out.write(",\"args\":{\"beginLine\":"+beginLine+",\"endLine\":"+endLine);
+			out.write(",\"alloc\":"+alloc+",\"cacheReads\":"+reads+",\"cacheWrites\":"+writes);
+			out.write(",\"nnz\":"+nnz+",\"sparsity\":"+sparsity+"}}");
+		}
+
+		private static String escape( String str ) {
+			return (str==null) ? "" : str.replace("\\", "\\\\").replace("\"", "\\\"");
+		}
+	}
+}
@@ -85,6 +85,10 @@ public class Statistics
 	private static AtomicLong sparkCollectCount = new AtomicLong(0L);
 	private static AtomicLong sparkBroadcast = new AtomicLong(0L);
 	private static AtomicLong sparkBroadcastCount = new AtomicLong(0L);
+	private static AtomicLong sparkChkpointHits = new AtomicLong(0L);
+	private static AtomicLong sparkChkpointMisses = new AtomicLong(0L);
+	private static AtomicLong sparkChkpointSerialized = new AtomicLong(0L);
+	private static AtomicLong sparkChkpointDowngrades = new AtomicLong(0L);
 
 	//PARFOR optimization stats 
 	private static long parforOptTime = 0; //in milli sec
@@ -372,10 +376,17 @@ public class Statistics
 		lTotalLixUIP.set(0);
 		lTotalUIPVar.set(0);
 		
+		sparkChkpointHits.set(0);
+		sparkChkpointMisses.set(0);
+		sparkChkpointSerialized.set(0);
+		sparkChkpointDowngrades.set(0);
+		
 		resetJITCompileTime();
 		resetJVMgcTime();
 		resetJVMgcCount();
 		resetCPHeavyHitters();
+		if( DMLScript.PROFILE )
+			InstructionProfiler.reset();
 		
 		denseBlockAllocationTime.set(0);
 		sparseBlockAllocationTime.set(0);
@@ -448,6 +459,25 @@ public class Statistics
 		sparkBroadcastCount.addAndGet(c);
 	}
 	
+	/**
+	 * Maintains the checkpoint statistics, where a hit refers to an input rdd that 
+	 * is already persisted in the requested storage level.
+	 * 
+	 * @param hit
+	 * @param serialized
+	 * @param downgrade
+	 */
+	public static void incSparkCheckpointCount(boolean hit, boolean serialized, boolean downgrade) {
+		if( hit )
+			sparkChkpointHits.incrementAndGet();
+		else
+			sparkChkpointMisses.incrementAndGet();
+		if( !hit && serialized )
+			sparkChkpointSerialized.incrementAndGet();
+		if( downgrade )
+			sparkChkpointDowngrades.incrementAndGet();
+	}
+	
 	
 	public static String getCPHeavyHitterCode( Instruction inst )
 	{
@@ -681,6 +711,9 @@ public class Statistics
 								 ((double)sparkParallelize.get())*1e-9,
 								 ((double)sparkBroadcast.get())*1e-9,
 								 ((double)sparkCollect.get())*1e-9));
+				sb.append("Spark chkpt (hit,miss,ser,down):" +
+						String.format("%d/%d/%d/%d.\n", sparkChkpointHits.get(), sparkChkpointMisses.get(), 
+								sparkChkpointSerialized.get(), sparkChkpointDowngrades.get()));
 			}
 			if( parforOptCount>0 ){
 				sb.append("ParFor loops optimized:\t\t" + getParforOptCount() + ".\n");
@@ -693,6 +726,10 @@ public class Statistics
 			sb.append("Total JVM GC count:\t\t" + getJVMgcCount() + ".\n");
 			sb.append("Total JVM GC time:\t\t" + ((double)getJVMgcTime())/1000 + " sec.\n");
 			sb.append("Heavy hitter instructions (name, time, count):\n" + getHeavyHitters(10));
+			if( DMLScript.PROFILE ) {
+				sb.append("Instruction profile (line, name, time, count, alloc, cache r/w, threads):\n"
+						+ InstructionProfiler.display(10));
+			}
 		}
 		
 		return sb.toString();
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.aggregate;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.functionobjects.CM;
+import org.apache.sysml.runtime.instructions.cp.CM_COV_Object;
+import org.apache.sysml.runtime.instructions.cp.KahanObject;
+import org.apache.sysml.runtime.instructions.mr.GroupedAggregateInstruction;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.operators.CMOperator;
+import org.apache.sysml.runtime.matrix.operators.Operator;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the grouped aggregate of column vectors over
+ * primitive group buffers (single- and multi-threaded, w/ dense and hash-based
+ * partial buffers, and values w/ large offsets), as well as grouped central 
+ * moments of dense and sparse matrix targets, which compares the results against 
+ * the aggregation via kahan objects and CM function objects per group.
+ *
+ */
+public class GroupedAggregateKernelTest extends AutomatedTestBase
+{
+	private final static int rows = 1765432;
+	private final static int numGroups1 = 37;     //dense partial buffers
+	private final static int numGroups2 = 876543; //hash-based partial buffers
+	private final static int rows2 = 123456;
+	private final static int cols2 = 17;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.05;
+	private final static double offset = 1e8;
+	private final static double eps = 1e-6;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testSumFewGroups() {
+		runGroupedAggregateTest("sum", null, numGroups1, false, 1);
+	}
+
+	@Test
+	public void testSumManyGroupsWeightsMT() {
+		runGroupedAggregateTest("sum", null, numGroups2, true, 4);
+	}
+
+	@Test
+	public void testCountFewGroupsMT() {
+		runGroupedAggregateTest("count", null, numGroups1, false, 4);
+	}
+
+	@Test
+	public void testMeanManyGroupsMT() {
+		runGroupedAggregateTest("mean", null, numGroups2, false, 4);
+	}
+
+	@Test
+	public void testVarianceFewGroupsWeightsMT() {
+		runGroupedAggregateTest("variance", null, numGroups1, true, 4);
+	}
+
+	@Test
+	public void testVarianceManyGroupsMT() {
+		runGroupedAggregateTest("variance", null, numGroups2, false, 4);
+	}
+
+	@Test
+	public void testCM3FewGroupsMT() {
+		runGroupedAggregateTest("centralmoment", "3", numGroups1, false, 4);
+	}
+
+	@Test
+	public void testCM4ManyGroupsWeightsMT() {
+		runGroupedAggregateTest("centralmoment", "4", numGroups2, true, 4);
+	}
+
+	@Test
+	public void testMeanLargeOffsetFewGroupsMT() {
+		runGroupedAggregateTest("mean", null, numGroups1, false, offset, 4);
+	}
+
+	@Test
+	public void testVarianceLargeOffsetManyGroupsWeightsMT() {
+		runGroupedAggregateTest("variance", null, numGroups2, true, offset, 4);
+	}
+
+	@Test
+	public void testCM4LargeOffsetFewGroups() {
+		runGroupedAggregateTest("centralmoment", "4", numGroups1, false, offset, 1);
+	}
+
+	@Test
+	public void testVarianceMatrixDense() {
+		runGroupedAggregateMatrixTest("variance", null, sparsity1, 1);
+	}
+
+	@Test
+	public void testVarianceMatrixSparse() {
+		runGroupedAggregateMatrixTest("variance", null, sparsity2, 1);
+	}
+
+	@Test
+	public void testMeanMatrixSparseMT() {
+		runGroupedAggregateMatrixTest("mean", null, sparsity2, 4);
+	}
+
+	@Test
+	public void testCM3MatrixSparseMT() {
+		runGroupedAggregateMatrixTest("centralmoment", "3", sparsity2, 4);
+	}
+
+	/**
+	 *
+	 * @param fn
+	 * @param order
+	 * @param numGroups
+	 * @param weights
+	 * @param k
+	 */
+	private void runGroupedAggregateTest( String fn, String order, int numGroups, boolean weights, int k ) {
+		runGroupedAggregateTest(fn, order, numGroups, weights, 0, k);
+	}
+
+	/**
+	 *
+	 * @param fn
+	 * @param order
+	 * @param numGroups
+	 * @param weights
+	 * @param offset
+	 * @param k
+	 */
+	private void runGroupedAggregateTest( String fn, String order, int numGroups, boolean weights, double offset, int k )
+	{
+		try
+		{
+			double[][] G = TestUtils.round(getRandomMatrix(rows, 1, 1, numGroups, 1.0, 7));
+			double[][] X = getRandomMatrix(rows, 1, offset+10, offset+20, (offset!=0) ? 1.0 : 0.9, 3);
+			double[][] W = TestUtils.round(getRandomMatrix(rows, 1, 1, 3, 1.0, 9));
+			MatrixBlock mbG = DataConverter.convertToMatrixBlock(G);
+			MatrixBlock mbX = DataConverter.convertToMatrixBlock(X);
+			MatrixBlock mbW = weights ? DataConverter.convertToMatrixBlock(W) : null;
+
+			//grouped aggregate via primitive group buffers
+			Operator op = GroupedAggregateInstruction.parseGroupedAggOperator(fn, order);
+			MatrixBlock ret = mbG.groupedAggOperations(mbX, mbW, new MatrixBlock(), numGroups, op, k);
+
+			//expected results via kahan and cm objects per group
+			double[][] expected = new double[numGroups][1];
+			if( op instanceof CMOperator ) {
+				CMOperator cmOp = (CMOperator) op;
+				CM cmFn = CM.getCMFnObject(cmOp.getAggOpType());
+				CM_COV_Object[] cm = new CM_COV_Object[numGroups];
+				for( int i=0; i<numGroups; i++ )
+					cm[i] = new CM_COV_Object();
+				for( int i=0; i<rows; i++ )
+					cmFn.execute(cm[(int)G[i][0]-1], X[i][0], weights ? W[i][0] : 1);
+				for( int i=0; i<numGroups; i++ )
+					expected[i][0] = cm[i].getRequiredResult(cmOp);
+			}
+			else {
+				KahanObject[] sum = new KahanObject[numGroups];
+				for( int i=0; i<numGroups; i++ )
+					sum[i] = new KahanObject(0, 0);
+				for( int i=0; i<rows; i++ ) {
+					KahanObject kbuff = sum[(int)G[i][0]-1];
+					double val = X[i][0] * (weights ? W[i][0] : 1);
+					double corr = val + kbuff._correction;
+					double tmp = kbuff._sum + corr;
+					kbuff.set(tmp, corr-(tmp-kbuff._sum));
+				}
+				for( int i=0; i<numGroups; i++ )
+					expected[i][0] = sum[i]._sum;
+			}
+
+			//compare results
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret);
+			Assert.assertEquals("Wrong number of rows.", numGroups, actual.length);
+			TestUtils.compareMatrices(expected, actual, numGroups, 1, eps);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param fn
+	 * @param order
+	 * @param sparsity
+	 * @param k
+	 */
+	private void runGroupedAggregateMatrixTest( String fn, String order, double sparsity, int k )
+	{
+		try
+		{
+			double[][] G = TestUtils.round(getRandomMatrix(rows2, 1, 1, numGroups1, 1.0, 7));
+			double[][] X = getRandomMatrix(rows2, cols2, 10, 20, sparsity, 3);
+			MatrixBlock mbG = DataConverter.convertToMatrixBlock(G);
+			MatrixBlock mbX = DataConverter.convertToMatrixBlock(X);
+			Assert.assertEquals("Wrong target format.", sparsity < sparsity1, mbX.isInSparseFormat());
+
+			//grouped aggregate of matrix target
+			CMOperator cmOp = (CMOperator) GroupedAggregateInstruction.parseGroupedAggOperator(fn, order);
+			MatrixBlock ret = mbG.groupedAggOperations(mbX, null, new MatrixBlock(), numGroups1, cmOp, k);
+
+			//expected results via cm objects per group and column (incl zeros)
+			CM cmFn = CM.getCMFnObject(cmOp.getAggOpType());
+			CM_COV_Object[][] cm = new CM_COV_Object[numGroups1][cols2];
+			for( int i=0; i<numGroups1; i++ )
+				for( int j=0; j<cols2; j++ )
+					cm[i][j] = new CM_COV_Object();
+			for( int i=0; i<rows2; i++ )
+				for( int j=0; j<cols2; j++ )
+					cmFn.execute(cm[(int)G[i][0]-1][j], X[i][j], 1);
+			double[][] expected = new double[numGroups1][cols2];
+			for( int i=0; i<numGroups1; i++ )
+				for( int j=0; j<cols2; j++ )
+					expected[i][j] = cm[i][j].getRequiredResult(cmOp);
+
+			//compare results
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret);
+			Assert.assertEquals("Wrong number of rows.", numGroups1, actual.length);
+			TestUtils.compareMatrices(expected, actual, numGroups1, cols2, eps);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
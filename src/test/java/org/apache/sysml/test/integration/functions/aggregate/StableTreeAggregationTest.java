@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import scala.Tuple2;
+
+import org.apache.sysml.api.DMLScript;
+import org.apache.sysml.api.DMLScript.RUNTIME_PLATFORM;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
+import org.apache.sysml.runtime.functionobjects.Builtin;
+import org.apache.sysml.runtime.instructions.spark.utils.RDDAggregateUtils;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixIndexes;
+import org.apache.sysml.runtime.matrix.operators.AggregateOperator;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the stable reduce-all aggregates of binary block rdds,
+ * which compares tree and flat aggregation with the expected local aggregates, 
+ * including single-partition and empty rdds.
+ *
+ */
+public class StableTreeAggregationTest extends AutomatedTestBase
+{
+	private final static int rows = 57;
+	private final static int cols = 43;
+	private final static int numBlocks = 700;
+	private final static int numPartitions = RDDAggregateUtils.TREE_AGGREGATION_MIN_PARTITIONS + 44;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.05;
+	private final static double eps = 1e-8;
+	
+	private enum AggType {
+		SUM,
+		MAX,
+	}
+	
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+	
+	@Test
+	public void testSumDenseMultiPartition() {
+		runStableAggregateTest(AggType.SUM, sparsity1, numPartitions);
+	}
+	
+	@Test
+	public void testSumSparseMultiPartition() {
+		runStableAggregateTest(AggType.SUM, sparsity2, numPartitions);
+	}
+	
+	@Test
+	public void testSumDenseSinglePartition() {
+		runStableAggregateTest(AggType.SUM, sparsity1, 1);
+	}
+	
+	@Test
+	public void testSumEmptyRDD() {
+		runStableAggregateTest(AggType.SUM, sparsity1, 0);
+	}
+	
+	@Test
+	public void testMaxDenseMultiPartition() {
+		runStableAggregateTest(AggType.MAX, sparsity1, numPartitions);
+	}
+	
+	@Test
+	public void testMaxSparseSinglePartition() {
+		runStableAggregateTest(AggType.MAX, sparsity2, 1);
+	}
+	
+	@Test
+	public void testMaxEmptyRDD() {
+		runStableAggregateTest(AggType.MAX, sparsity1, 0);
+	}
+	
+	/**
+	 * 
+	 * @param type
+	 * @param sparsity
+	 * @param numParts number of partitions (0 for empty rdd)
+	 */
+	private void runStableAggregateTest( AggType type, double sparsity, int numParts )
+	{
+		RUNTIME_PLATFORM platformOld = rtplatform;
+		DMLScript.rtplatform = RUNTIME_PLATFORM.SPARK;
+		boolean sparkConfigOld = DMLScript.USE_LOCAL_SPARK_CONFIG;
+		DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+		
+		try
+		{
+			JavaSparkContext sc = SparkExecutionContext.getSparkContextStatic();
+			
+			//data generation and expected local aggregate
+			List<Tuple2<MatrixIndexes,MatrixBlock>> list = new ArrayList<Tuple2<MatrixIndexes,MatrixBlock>>();
+			double[][] expected = new double[rows][cols];
+			int nblks = (numParts > 0) ? numBlocks : 0;
+			for( int k=0; k<nblks; k++ ) {
+				double[][] A = getRandomMatrix(rows, cols, -1, 1, sparsity, 7+k);
+				for( int i=0; i<rows; i++ )
+					for( int j=0; j<cols; j++ )
+						expected[i][j] = (type==AggType.SUM) ? expected[i][j] + A[i][j] :
+							(k==0) ? A[i][j] : Math.max(expected[i][j], A[i][j]);
+				list.add(new Tuple2<MatrixIndexes,MatrixBlock>(
+					new MatrixIndexes(k+1, 1), DataConverter.convertToMatrixBlock(A)));
+			}
+			JavaPairRDD<MatrixIndexes,MatrixBlock> in = sc.parallelizePairs(list, Math.max(numParts, 1));
+			
+			//tree and flat aggregation, as well as default selection
+			MatrixBlock[] ret = new MatrixBlock[3];
+			try {
+				if( type == AggType.SUM ) {
+					ret[0] = RDDAggregateUtils.sumStable(in, rows, cols, true);
+					ret[1] = RDDAggregateUtils.sumStable(in, rows, cols, false);
+					ret[2] = RDDAggregateUtils.sumStable(in, rows, cols);
+				}
+				else {
+					AggregateOperator aop = new AggregateOperator(-Double.MAX_VALUE, Builtin.getBuiltinFnObject("max"));
+					ret[0] = RDDAggregateUtils.aggStable(in, aop, true);
+					ret[1] = RDDAggregateUtils.aggStable(in, aop, false);
+					ret[2] = RDDAggregateUtils.aggStable(in, aop);
+				}
+				Assert.assertFalse("Missing exception for empty aggregate.", numParts==0 && type==AggType.MAX);
+			}
+			catch(DMLRuntimeException ex) {
+				//expected for general aggregates of empty rdds
+				Assert.assertTrue("Unexpected exception: "+ex.getMessage(), numParts==0 && type==AggType.MAX);
+				return;
+			}
+			
+			//compare tree/flat/default aggregates w/ expected aggregate
+			for( MatrixBlock mb : ret ) {
+				Assert.assertEquals(rows, mb.getNumRows());
+				Assert.assertEquals(cols, mb.getNumColumns());
+				TestUtils.compareMatrices(expected, DataConverter.convertToDoubleMatrix(mb), rows, cols, eps);
+			}
+			
+			//empty sum w/o output dimensions
+			if( numParts == 0 && type == AggType.SUM ) {
+				Assert.assertEquals(0, ret[0].getNonZeros());
+				try {
+					RDDAggregateUtils.sumStable(in);
+					Assert.fail("Missing exception for empty sum without output dimensions.");
+				}
+				catch(DMLRuntimeException ex) {
+					//expected
+				}
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			DMLScript.rtplatform = platformOld;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = sparkConfigOld;
+		}
+	}
+}
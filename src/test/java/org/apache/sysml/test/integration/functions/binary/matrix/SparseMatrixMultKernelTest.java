@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.binary.matrix;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.matrix.data.LibMatrixMult;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.SparseBlock;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the sparse-sparse matrix multiplication with
+ * sparse output (single- and multi-threaded, w/ dense and hash-based row
+ * accumulators), which compares the results against a straightforward row-wise
+ * accumulation of the sparse inputs.
+ *
+ */
+public class SparseMatrixMultKernelTest extends AutomatedTestBase
+{
+	//dense row accumulators (n=500, ~150 flops per row)
+	private final static int rows1 = 8000;
+	private final static int cols1 = 1000;
+	private final static int cols2 = 500;
+	private final static double sparsityA1 = 0.03;
+	private final static double sparsityB1 = 0.01;
+
+	//hash-based row accumulators (n=20000, ~1000 flops per row)
+	private final static int rows2 = 2000;
+	private final static int cols3 = 2000;
+	private final static int cols4 = 20000;
+	private final static double sparsityA2 = 0.01;
+	private final static double sparsityB2 = 0.0025;
+
+	private final static double eps = 1e-10;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testDenseAccumulator() {
+		runSparseMatrixMultTest(rows1, cols1, cols2, sparsityA1, sparsityB1, 1);
+	}
+
+	@Test
+	public void testDenseAccumulatorMT() {
+		runSparseMatrixMultTest(rows1, cols1, cols2, sparsityA1, sparsityB1, 4);
+	}
+
+	@Test
+	public void testHashAccumulator() {
+		runSparseMatrixMultTest(rows2, cols3, cols4, sparsityA2, sparsityB2, 1);
+	}
+
+	@Test
+	public void testHashAccumulatorMT() {
+		runSparseMatrixMultTest(rows2, cols3, cols4, sparsityA2, sparsityB2, 4);
+	}
+
+	/**
+	 *
+	 * @param m
+	 * @param cd
+	 * @param n
+	 * @param sparsityA
+	 * @param sparsityB
+	 * @param k
+	 */
+	private void runSparseMatrixMultTest( int m, int cd, int n, double sparsityA, double sparsityB, int k )
+	{
+		try
+		{
+			MatrixBlock mbA = MatrixBlock.randOperations(m, cd, sparsityA, -1, 1, "uniform", 7);
+			MatrixBlock mbB = MatrixBlock.randOperations(cd, n, sparsityB, -1, 1, "uniform", 3);
+			Assert.assertTrue("Wrong input format.", mbA.isInSparseFormat() && mbB.isInSparseFormat());
+
+			//sparse-sparse matrix mult
+			MatrixBlock ret = new MatrixBlock(m, n, false);
+			if( k > 1 )
+				LibMatrixMult.matrixMult(mbA, mbB, ret, k);
+			else
+				LibMatrixMult.matrixMult(mbA, mbB, ret);
+			Assert.assertTrue("Wrong output format.", ret.isInSparseFormat());
+
+			//compare results row by row against a straightforward matrix mult
+			SparseBlock a = mbA.getSparseBlock();
+			SparseBlock b = mbB.getSparseBlock();
+			SparseBlock c = ret.getSparseBlock();
+			double[] expected = new double[n];
+			double[] actual = new double[n];
+			long nnz = 0;
+			for( int i=0; i<m; i++ ) {
+				Arrays.fill(expected, 0);
+				Arrays.fill(actual, 0);
+				if( !a.isEmpty(i) )
+					for( int p=a.pos(i); p<a.pos(i)+a.size(i); p++ ) {
+						int aix = a.indexes(i)[p];
+						double aval = a.values(i)[p];
+						if( !b.isEmpty(aix) )
+							for( int q=b.pos(aix); q<b.pos(aix)+b.size(aix); q++ )
+								expected[b.indexes(aix)[q]] += aval * b.values(aix)[q];
+					}
+				if( c != null && !c.isEmpty(i) )
+					for( int q=c.pos(i); q<c.pos(i)+c.size(i); q++ ) {
+						Assert.assertTrue("Unsorted column indexes.", q==c.pos(i) || c.indexes(i)[q-1] < c.indexes(i)[q]);
+						actual[c.indexes(i)[q]] = c.values(i)[q];
+					}
+				for( int j=0; j<n; j++ ) {
+					Assert.assertEquals("Wrong value at ("+i+","+j+").", expected[j], actual[j], eps);
+					nnz += (actual[j] != 0) ? 1 : 0;
+				}
+			}
+			Assert.assertEquals("Wrong number of non-zeros.", nnz, ret.getNonZeros());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
@@ -19,9 +19,11 @@
 
 package org.apache.sysml.test.integration.functions.binary.matrix_full_other;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -30,6 +32,8 @@ import org.apache.sysml.api.DMLScript.RUNTIME_PLATFORM;
 import org.apache.sysml.hops.AggBinaryOp;
 import org.apache.sysml.hops.AggBinaryOp.MMultMethod;
 import org.apache.sysml.lops.LopProperties.ExecType;
+import org.apache.sysml.runtime.instructions.spark.GridmmSPInstruction;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
 import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
 import org.apache.sysml.test.integration.AutomatedTestBase;
 import org.apache.sysml.test.integration.TestConfiguration;
@@ -221,7 +225,61 @@ public class FullDistributedMatrixMultiplicationTest extends AutomatedTestBase
 		runDistributedMatrixMatrixMultiplicationTest(true, true, MMultMethod.RMM, ExecType.SPARK);
 	}
 	
+	@Test
+	public void testDenseDenseGridmmSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(false, false, MMultMethod.GRIDMM, ExecType.SPARK);
+	}
+	
+	@Test
+	public void testDenseSparseGridmmSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(false, true, MMultMethod.GRIDMM, ExecType.SPARK);
+	}
+	
+	@Test
+	public void testSparseDenseGridmmSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(true, false, MMultMethod.GRIDMM, ExecType.SPARK);
+	}
+	
+	@Test
+	public void testSparseSparseGridmmSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(true, true, MMultMethod.GRIDMM, ExecType.SPARK);
+	}
+	
 
+	@Test
+	public void testDenseDenseGridmm3DSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(false, false, MMultMethod.GRIDMM, ExecType.SPARK, new int[]{2,1,2});
+	}
+	
+	@Test
+	public void testDenseSparseGridmm3DSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(false, true, MMultMethod.GRIDMM, ExecType.SPARK, new int[]{1,1,2});
+	}
+	
+	@Test
+	public void testSparseSparseGridmm3DSpark() 
+	{
+		runDistributedMatrixMatrixMultiplicationTest(true, true, MMultMethod.GRIDMM, ExecType.SPARK, new int[]{2,1,2});
+	}
+	
+	@Test
+	public void testGridmmOptimalGrid3D() 
+	{
+		//large common dimension and small task memory budget require Pk>1
+		MatrixCharacteristics mc1 = new MatrixCharacteristics(2000, 20000, 1000, 1000, 2000L*20000);
+		MatrixCharacteristics mc2 = new MatrixCharacteristics(20000, 2000, 1000, 1000, 20000L*2000);
+		double memBudget = 50 * 1024 * 1024;
+		int[] grid = GridmmSPInstruction.getOptimalGrid(mc1, mc2, 16, memBudget);
+		Assert.assertTrue("Expected 3D grid (Pk>1): "+Arrays.toString(grid), grid[2] > 1);
+		Assert.assertTrue("Invalid grid: "+Arrays.toString(grid), grid[0] <= 2 && grid[1] <= 2 && grid[2] <= 20);
+	}
+	
 	/**
 	 * 
 	 * @param sparseM1
@@ -229,6 +287,19 @@ public class FullDistributedMatrixMultiplicationTest extends AutomatedTestBase
 	 * @param instType
 	 */
 	private void runDistributedMatrixMatrixMultiplicationTest( boolean sparseM1, boolean sparseM2, MMultMethod method, ExecType instType)
+	{
+		runDistributedMatrixMatrixMultiplicationTest(sparseM1, sparseM2, method, instType, null);
+	}
+	
+	/**
+	 * 
+	 * @param sparseM1
+	 * @param sparseM2
+	 * @param method
+	 * @param instType
+	 * @param grid forced gridmm partitioning grid, or null
+	 */
+	private void runDistributedMatrixMatrixMultiplicationTest( boolean sparseM1, boolean sparseM2, MMultMethod method, ExecType instType, int[] grid)
 	{
 		//rtplatform for MR
 		RUNTIME_PLATFORM platformOld = rtplatform;
@@ -244,6 +315,8 @@ public class FullDistributedMatrixMultiplicationTest extends AutomatedTestBase
 
 		MMultMethod methodOld = AggBinaryOp.FORCED_MMULT_METHOD;
 		AggBinaryOp.FORCED_MMULT_METHOD = method;
+		int[] gridOld = GridmmSPInstruction.FORCED_GRID;
+		GridmmSPInstruction.FORCED_GRID = grid;
 		
 		try
 		{
@@ -286,6 +359,7 @@ public class FullDistributedMatrixMultiplicationTest extends AutomatedTestBase
 			rtplatform = platformOld;
 			DMLScript.USE_LOCAL_SPARK_CONFIG = sparkConfigOld;
 			AggBinaryOp.FORCED_MMULT_METHOD = methodOld;
+			GridmmSPInstruction.FORCED_GRID = gridOld;
 		}
 	}
 }
\ No newline at end of file
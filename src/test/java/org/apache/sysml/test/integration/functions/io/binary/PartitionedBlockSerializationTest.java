@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.sysml.test.integration.functions.io.binary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import org.apache.sysml.parser.Expression.ValueType;
+import org.apache.sysml.runtime.instructions.spark.data.PartitionedBlock;
+import org.apache.sysml.runtime.instructions.spark.utils.SparkKryoRegistrator;
+import org.apache.sysml.runtime.matrix.data.FrameBlock;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.runtime.util.UtilFunctions;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for serialize/deserialize round trips of partitioned
+ * blocks (as used for partitioned broadcasts) with matrix and frame payloads,
+ * via java serialization and kryo serialization with our kryo registrator.
+ *
+ */
+public class PartitionedBlockSerializationTest extends AutomatedTestBase
+{
+	private final static int rows = 2791;
+	private final static int cols = 1023;
+	private final static int blen = 1000;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.05;
+	private final static ValueType[] schemaMixed = new ValueType[]{ValueType.STRING, ValueType.DOUBLE, ValueType.INT, ValueType.BOOLEAN};
+
+	private enum SerType {
+		JAVA_SER,
+		KRYO_SER,
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testPartitionedMatrixDenseJava() {
+		runPartitionedMatrixSerializeTest(sparsity1, SerType.JAVA_SER);
+	}
+
+	@Test
+	public void testPartitionedMatrixSparseJava() {
+		runPartitionedMatrixSerializeTest(sparsity2, SerType.JAVA_SER);
+	}
+
+	@Test
+	public void testPartitionedMatrixDenseKryo() {
+		runPartitionedMatrixSerializeTest(sparsity1, SerType.KRYO_SER);
+	}
+
+	@Test
+	public void testPartitionedMatrixSparseKryo() {
+		runPartitionedMatrixSerializeTest(sparsity2, SerType.KRYO_SER);
+	}
+
+	@Test
+	public void testPartitionedFrameJava() {
+		runPartitionedFrameSerializeTest(SerType.JAVA_SER);
+	}
+
+	@Test
+	public void testPartitionedFrameKryo() {
+		runPartitionedFrameSerializeTest(SerType.KRYO_SER);
+	}
+
+	/**
+	 *
+	 * @param sparsity
+	 * @param stype
+	 */
+	@SuppressWarnings("unchecked")
+	private void runPartitionedMatrixSerializeTest( double sparsity, SerType stype )
+	{
+		try
+		{
+			//data generation
+			double[][] A = getRandomMatrix(rows, cols, -10, 10, sparsity, 7);
+			MatrixBlock mb = DataConverter.convertToMatrixBlock(A);
+			PartitionedBlock<MatrixBlock> pmb = new PartitionedBlock<MatrixBlock>(mb, blen, blen);
+
+			//core serialization and deserialization
+			pmb = (PartitionedBlock<MatrixBlock>) serializeAndDeserialize(pmb, stype);
+
+			//check meta data and block contents
+			checkMetaData(pmb);
+			for( int i=0; i<rows; i++ )
+				for( int j=0; j<cols; j++ ) {
+					MatrixBlock blk = pmb.getBlock(i/blen+1, j/blen+1);
+					double tmp = blk.quickGetValue(i%blen, j%blen);
+					if( tmp != A[i][j] )
+						Assert.fail("Wrong get value for cell ("+i+","+j+"): "+tmp+", expected: "+A[i][j]);
+				}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param stype
+	 */
+	@SuppressWarnings("unchecked")
+	private void runPartitionedFrameSerializeTest( SerType stype )
+	{
+		try
+		{
+			//data generation
+			double[][] A = getRandomMatrix(rows, schemaMixed.length, -10, 10, 0.9, 8234);
+			List<ValueType> lschema = Arrays.asList(schemaMixed);
+			FrameBlock frame = new FrameBlock(lschema);
+			Object[] row = new Object[lschema.size()];
+			for( int i=0; i<rows; i++ ) {
+				for( int j=0; j<lschema.size(); j++ )
+					A[i][j] = UtilFunctions.objectToDouble(lschema.get(j),
+							row[j] = UtilFunctions.doubleToObject(lschema.get(j), A[i][j]));
+				frame.appendRow(row);
+			}
+			PartitionedBlock<FrameBlock> pfb = new PartitionedBlock<FrameBlock>(frame, blen, lschema.size());
+
+			//core serialization and deserialization
+			pfb = (PartitionedBlock<FrameBlock>) serializeAndDeserialize(pfb, stype);
+
+			//check meta data and block contents (incl schema)
+			Assert.assertEquals("Wrong number of rows.", rows, pfb.getNumRows());
+			Assert.assertEquals("Wrong number of columns.", lschema.size(), pfb.getNumCols());
+			for( int i=0; i<rows; i++ ) {
+				FrameBlock blk = pfb.getBlock(i/blen+1, 1);
+				Assert.assertEquals("Wrong schema.", lschema, blk.getSchema());
+				for( int j=0; j<lschema.size(); j++ ) {
+					double tmp = UtilFunctions.objectToDouble(lschema.get(j), blk.get(i%blen, j));
+					if( tmp != A[i][j] )
+						Assert.fail("Wrong get value for cell ("+i+","+j+"): "+tmp+", expected: "+A[i][j]);
+				}
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param pb
+	 */
+	private static void checkMetaData( PartitionedBlock<?> pb )
+	{
+		Assert.assertEquals("Wrong number of rows.", rows, pb.getNumRows());
+		Assert.assertEquals("Wrong number of columns.", cols, pb.getNumCols());
+		Assert.assertEquals("Wrong number of rows per block.", blen, pb.getNumRowsPerBlock());
+		Assert.assertEquals("Wrong number of columns per block.", blen, pb.getNumColumnsPerBlock());
+	}
+
+	/**
+	 *
+	 * @param pb
+	 * @param stype
+	 * @return
+	 * @throws Exception
+	 */
+	private static PartitionedBlock<?> serializeAndDeserialize( PartitionedBlock<?> pb, SerType stype )
+		throws Exception
+	{
+		if( stype == SerType.JAVA_SER ) {
+			//serialization
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(pb);
+			oos.close();
+
+			//deserialization
+			ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+			ObjectInputStream ois = new ObjectInputStream(bis);
+			return (PartitionedBlock<?>) ois.readObject();
+		}
+		else { //KRYO_SER
+			//kryo w/ all classes registered by our registrator
+			Kryo kryo = new Kryo();
+			kryo.setRegistrationRequired(true);
+			new SparkKryoRegistrator().registerClasses(kryo);
+
+			//serialization (followed by a marker to detect over/under reads)
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			Output output = new Output(bos);
+			kryo.writeClassAndObject(output, pb);
+			output.writeInt(Integer.MAX_VALUE);
+			output.close();
+
+			//deserialization
+			Input input = new Input(new ByteArrayInputStream(bos.toByteArray()));
+			PartitionedBlock<?> ret = (PartitionedBlock<?>) kryo.readClassAndObject(input);
+			Assert.assertEquals("Wrong end of serialized partitioned block.", Integer.MAX_VALUE, input.readInt());
+			input.close();
+			return ret;
+		}
+	}
+}
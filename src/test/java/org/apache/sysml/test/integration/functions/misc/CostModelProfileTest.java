@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.hops.cost.CostModelProfile;
+import org.apache.sysml.hops.cost.CostModelProfile.CostParam;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This test runs a script with a large dense matrix multiplication and a local
+ * parfor with and without a configured cost model profile, which compares the 
+ * results of both runs and checks the calibrated, loaded, and refined profile.
+ *
+ */
+public class CostModelProfileTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "CostModelProfile";
+	private final static String TEST_DIR = "functions/misc/";
+	private final static String TEST_CLASS_DIR = TEST_DIR + CostModelProfileTest.class.getSimpleName() + "/";
+	private final static double eps = 1e-8;
+	
+	private final static int rows = 512; //2*512^3 flops > observation threshold
+	private final static double flopsMM = 123456789;
+	private final static double mbsRead = 321;
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME, new String[] { "R1", "R2" }) );
+	}
+	
+	@Test
+	public void testProfileCalibrate() 
+	{
+		runCostModelProfileTest(false);
+	}
+	
+	@Test
+	public void testProfileLoadRefine() 
+	{
+		runCostModelProfileTest(true);
+	}
+	
+	/**
+	 * 
+	 * @param existing
+	 */
+	private void runCostModelProfileTest( boolean existing )
+	{
+		try
+		{
+			getAndLoadTestConfiguration(TEST_NAME);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			
+			double[][] X = getRandomMatrix(rows, rows, -1, 1, 1.0, 7);
+			writeInputMatrixWithMTD("X", X, false);
+			
+			//baseline run w/o cost model profile
+			programArgs = new String[]{"-args", input("X"), output("R1") };
+			runTest(true, false, null, -1);
+			Assert.assertFalse("Unexpected calibrated profile.", CostModelProfile.isCalibrated());
+			Assert.assertEquals(CostParam.FLOPS_MATMULT.getDefault(), CostModelProfile.get(CostParam.FLOPS_MATMULT), 0);
+			
+			//configure cost model profile (optionally preloaded)
+			File profile = new File(output("profile.properties"));
+			profile.getParentFile().mkdirs();
+			if( existing ) {
+				Properties props = new Properties();
+				props.setProperty(CostParam.FLOPS_MATMULT.name().toLowerCase(), String.valueOf(flopsMM));
+				props.setProperty(CostParam.MBS_HDFSREAD_BINARYBLOCK_DENSE.name().toLowerCase(), String.valueOf(mbsRead));
+				FileOutputStream out = new FileOutputStream(profile);
+				try {
+					props.store(out, null);
+				}
+				finally {
+					out.close();
+				}
+			}
+			else {
+				profile.delete();
+			}
+			String conf = FileUtils.readFileToString(getCurConfigFile(), "UTF-8");
+			conf = conf.replace("</root>", "   <cp.costmodel.profile>"
+				+ profile.getAbsolutePath() + "</cp.costmodel.profile>\n</root>");
+			FileUtils.write(getCurConfigFile(), conf, "UTF-8");
+			
+			//run w/ cost model profile
+			programArgs = new String[]{"-args", input("X"), output("R2") };
+			runTest(true, false, null, -1);
+			Assert.assertTrue("Profile not calibrated.", CostModelProfile.isCalibrated());
+			
+			//compare results of both runs
+			HashMap<CellIndex, Double> dmlfile1 = readDMLMatrixFromHDFS("R1");
+			HashMap<CellIndex, Double> dmlfile2 = readDMLMatrixFromHDFS("R2");
+			TestUtils.compareMatrices(dmlfile1, dmlfile2, eps, "Baseline", "Profile");
+			
+			//check persisted profile (all parameters, loaded and refined values)
+			Assert.assertTrue("Missing profile.", profile.exists());
+			Properties props = new Properties();
+			FileInputStream in = new FileInputStream(profile);
+			try {
+				props.load(in);
+			}
+			finally {
+				in.close();
+			}
+			for( CostParam param : CostParam.values() ) {
+				String val = props.getProperty(param.name().toLowerCase());
+				Assert.assertNotNull("Missing parameter "+param.name()+".", val);
+				Assert.assertTrue("Invalid parameter "+param.name()+".", Double.parseDouble(val) > 0);
+			}
+			if( existing ) {
+				Assert.assertEquals(mbsRead, CostModelProfile.get(CostParam.MBS_HDFSREAD_BINARYBLOCK_DENSE), 0);
+				Assert.assertEquals(CostParam.MR_JOB_LATENCY_REMOTE.getDefault(), 
+					CostModelProfile.get(CostParam.MR_JOB_LATENCY_REMOTE), 0);
+				Assert.assertTrue("Profile not refined.", flopsMM != 
+					Double.parseDouble(props.getProperty(CostParam.FLOPS_MATMULT.name().toLowerCase())));
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			//reset to default parameters
+			CostModelProfile.initialize(null);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.lops.FusedCellwise.AggType;
+import org.apache.sysml.runtime.matrix.data.LibMatrixFusedCellwise;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for fused cell-wise operations with and without
+ * sum, rowSums, and colSums aggregation, which compares the fused kernels
+ * against straightforward cell-wise computation of the unfused expressions.
+ *
+ */
+public class FusedCellwiseKernelTest extends AutomatedTestBase
+{
+	private final static int rows1 = 732;
+	private final static int rows2 = 1893;
+	private final static int cols = 681;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.1;
+	private final static double eps = 1e-6;
+
+	private enum ExprType {
+		MINUS_MULT, // (X-Y)*W
+		SQ_DIFF,    // (X-Y)^2
+		EXP_DIV_CV, // exp(X)/v
+		MULT_GT,    // X*(Y>0.5)
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testMinusMultNoAggDense() {
+		runFusedCellwiseTest(ExprType.MINUS_MULT, AggType.NONE, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testMinusMultNoAggSparseMT() {
+		runFusedCellwiseTest(ExprType.MINUS_MULT, AggType.NONE, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testSqDiffSumDense() {
+		runFusedCellwiseTest(ExprType.SQ_DIFF, AggType.SUM, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testSqDiffSumDenseMT() {
+		runFusedCellwiseTest(ExprType.SQ_DIFF, AggType.SUM, sparsity1, rows2, 4);
+	}
+
+	@Test
+	public void testExpDivRowSumsDense() {
+		runFusedCellwiseTest(ExprType.EXP_DIV_CV, AggType.ROW_SUM, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testExpDivRowSumsSparseMT() {
+		runFusedCellwiseTest(ExprType.EXP_DIV_CV, AggType.ROW_SUM, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testExpDivNoAggRowVector() {
+		//1 x n region w/ 1x1 matrix input
+		runFusedCellwiseTest(ExprType.EXP_DIV_CV, AggType.NONE, sparsity1, 1, 1);
+	}
+
+	@Test
+	public void testExpDivSumRowVector() {
+		//1 x n region w/ 1x1 matrix input
+		runFusedCellwiseTest(ExprType.EXP_DIV_CV, AggType.SUM, sparsity1, 1, 4);
+	}
+
+	@Test
+	public void testMultGtColSumsDense() {
+		runFusedCellwiseTest(ExprType.MULT_GT, AggType.COL_SUM, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testMultGtColSumsSparseMT() {
+		runFusedCellwiseTest(ExprType.MULT_GT, AggType.COL_SUM, sparsity2, rows2, 4);
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param aggtype
+	 * @param sparsity
+	 * @param rows
+	 * @param k
+	 */
+	private void runFusedCellwiseTest( ExprType type, AggType aggtype, double sparsity, int rows, int k )
+	{
+		try
+		{
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, sparsity, 7);
+			double[][] Y = getRandomMatrix(rows, cols, 0, 1, sparsity, 3);
+			double[][] W = getRandomMatrix(rows, cols, 1, 2, 1.0, 9);
+			double[][] v = getRandomMatrix(rows, 1, 1, 2, 1.0, 11);
+			MatrixBlock mbX = DataConverter.convertToMatrixBlock(X);
+			MatrixBlock mbY = DataConverter.convertToMatrixBlock(Y);
+			MatrixBlock mbW = DataConverter.convertToMatrixBlock(W);
+			MatrixBlock mbv = DataConverter.convertToMatrixBlock(v);
+
+			//fused execution and expected cell values
+			MatrixBlock ret = null;
+			double[][] cells = new double[rows][cols];
+			switch( type ) {
+				case MINUS_MULT:
+					ret = LibMatrixFusedCellwise.execute(new MatrixBlock[]{mbX, mbY, mbW},
+						new double[3], "$0,$1,b-,$2,b*", aggtype, k);
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<cols; j++ )
+							cells[i][j] = (X[i][j]-Y[i][j])*W[i][j];
+					break;
+				case SQ_DIFF:
+					ret = LibMatrixFusedCellwise.execute(new MatrixBlock[]{mbX, mbY, null},
+						new double[]{0, 0, 2}, "$0,$1,b-,$2,b^", aggtype, k);
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<cols; j++ )
+							cells[i][j] = Math.pow(X[i][j]-Y[i][j], 2);
+					break;
+				case EXP_DIV_CV:
+					ret = LibMatrixFusedCellwise.execute(new MatrixBlock[]{mbX, mbv},
+						new double[2], "$0,uexp,$1,b/", aggtype, k);
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<cols; j++ )
+							cells[i][j] = Math.exp(X[i][j])/v[i][0];
+					break;
+				case MULT_GT:
+					ret = LibMatrixFusedCellwise.execute(new MatrixBlock[]{mbX, mbY, null},
+						new double[]{0, 0, 0.5}, "$0,$1,$2,b>,b*", aggtype, k);
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<cols; j++ )
+							cells[i][j] = X[i][j]*((Y[i][j]>0.5)?1:0);
+					break;
+			}
+
+			//compare results
+			double[][] expected = aggregate(cells, aggtype);
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret);
+			Assert.assertEquals("Wrong number of rows.", expected.length, actual.length);
+			Assert.assertEquals("Wrong number of columns.", expected[0].length, actual[0].length);
+			TestUtils.compareMatrices(expected, actual, expected.length, expected[0].length, eps);
+			if( aggtype == AggType.NONE ) {
+				long nnz = ret.getNonZeros();
+				Assert.assertEquals("Wrong number of non-zeros.", ret.recomputeNonZeros(), nnz);
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param cells
+	 * @param aggtype
+	 * @return
+	 */
+	private static double[][] aggregate( double[][] cells, AggType aggtype )
+	{
+		int m = cells.length, n = cells[0].length;
+		switch( aggtype ) {
+			case SUM: {
+				double sum = 0;
+				for( int i=0; i<m; i++ )
+					for( int j=0; j<n; j++ )
+						sum += cells[i][j];
+				return new double[][]{{sum}};
+			}
+			case ROW_SUM: {
+				double[][] ret = new double[m][1];
+				for( int i=0; i<m; i++ )
+					for( int j=0; j<n; j++ )
+						ret[i][0] += cells[i][j];
+				return ret;
+			}
+			case COL_SUM: {
+				double[][] ret = new double[1][n];
+				for( int i=0; i<m; i++ )
+					for( int j=0; j<n; j++ )
+						ret[0][j] += cells[i][j];
+				return ret;
+			}
+			default:
+				return cells;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.hops.OptimizerUtils;
+import org.apache.sysml.lops.FusedCellwise;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+import org.apache.sysml.utils.Statistics;
+
+/**
+ * This is an end-to-end test for fused cell-wise operations over row and
+ * column vector regions with vector inputs, which includes 1x1 matrix inputs
+ * (valid row and column vectors) and checks that the region is indeed fused.
+ *
+ */
+public class FusedCellwiseVectorTest extends AutomatedTestBase
+{
+	private static final String TEST_NAME1 = "FusedCellwiseVector";
+	private static final String TEST_DIR = "functions/misc/";
+	private static final String TEST_CLASS_DIR = TEST_DIR + FusedCellwiseVectorTest.class.getSimpleName() + "/";
+
+	private static final int dim1 = 1;
+	private static final int dim2 = 1073;
+	private static final double eps = 1e-10;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration( TEST_NAME1, new TestConfiguration(TEST_CLASS_DIR, TEST_NAME1, new String[] { "R" }) );
+	}
+
+	@Test
+	public void testFusedRowVectorScalarMatrix() {
+		testFusedCellwiseVector( TEST_NAME1, dim1, dim2, dim1 );
+	}
+
+	@Test
+	public void testFusedRowVectorRowVector() {
+		testFusedCellwiseVector( TEST_NAME1, dim1, dim2, dim2 );
+	}
+
+	@Test
+	public void testFusedColVectorScalarMatrix() {
+		testFusedCellwiseVector( TEST_NAME1, dim2, dim1, dim1 );
+	}
+
+	/**
+	 *
+	 * @param testname
+	 * @param rows
+	 * @param cols
+	 * @param vcols
+	 */
+	private void testFusedCellwiseVector( String testname, int rows, int cols, int vcols )
+	{
+		boolean oldFlag = OptimizerUtils.ALLOW_OPERATOR_FUSION;
+
+		try {
+			TestConfiguration config = getTestConfiguration(testname);
+			loadTestConfiguration(config);
+
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + testname + ".dml";
+			programArgs = new String[]{ "-stats", "-args", input("X"), input("v"), output("R") };
+			OptimizerUtils.ALLOW_OPERATOR_FUSION = true;
+
+			//generate actual datasets (1 x vcols vector, or 1x1 matrix)
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, 1.0, 7);
+			double[][] v = getRandomMatrix(1, vcols, -1, 1, 1.0, 3);
+			writeInputMatrixWithMTD("X", X, true);
+			writeInputMatrixWithMTD("v", v, true);
+
+			runTest(true, false, null, -1);
+
+			//compare matrices
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("R");
+			for( int i=0; i<rows; i++ )
+				for( int j=0; j<cols; j++ ) {
+					double expected = (X[i][j] - v[0][(vcols>1)?j:0]) * X[i][j] * 2;
+					Double actual = dmlfile.get(new CellIndex(i+1, j+1));
+					Assert.assertEquals("Wrong value at ("+i+","+j+").", expected,
+						(actual != null) ? actual : 0, eps);
+				}
+			Assert.assertTrue("Missing fused operator.",
+				Statistics.getCPHeavyHitterOpCodes().contains(FusedCellwise.OPCODE));
+		}
+		finally {
+			OptimizerUtils.ALLOW_OPERATOR_FUSION = oldFlag;
+		}
+	}
+}
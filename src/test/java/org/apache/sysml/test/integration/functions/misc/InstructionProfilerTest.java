@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import java.io.File;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.api.DMLScript;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.runtime.util.MapReduceTool;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+import org.apache.sysml.utils.InstructionProfiler;
+
+/**
+ * This test runs a script with matrix multiplication and a local parfor with
+ * and without the instruction profiler, which compares the results of both
+ * runs and checks the per-line summary and the exported trace events.
+ *
+ */
+public class InstructionProfilerTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "InstructionProfiler";
+	private final static String TEST_DIR = "functions/misc/";
+	private final static String TEST_CLASS_DIR = TEST_DIR + InstructionProfilerTest.class.getSimpleName() + "/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows = 1234;
+	private final static int cols = 123;
+	private final static int cols2 = 17;
+	private final static int mmLine = 26;  //line of X %*% W in script
+	private final static int pfLine = 29;  //line of parfor body in script
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME, new String[] { "R1", "R2" }) );
+	}
+	
+	@Test
+	public void testProfileDense() 
+	{
+		runInstructionProfilerTest(0.9);
+	}
+	
+	@Test
+	public void testProfileSparse() 
+	{
+		runInstructionProfilerTest(0.05);
+	}
+	
+	/**
+	 * 
+	 * @param sparsity
+	 */
+	private void runInstructionProfilerTest( double sparsity )
+	{
+		boolean oldStatistics = DMLScript.STATISTICS;
+		boolean oldProfile = DMLScript.PROFILE;
+		String oldProfileFile = DMLScript.PROFILE_FILE;
+		
+		try
+		{
+			getAndLoadTestConfiguration(TEST_NAME);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, sparsity, 7);
+			double[][] W = getRandomMatrix(cols, cols2, -1, 1, 1.0, 3);
+			writeInputMatrixWithMTD("X", X, false);
+			writeInputMatrixWithMTD("W", W, false);
+			
+			//baseline run w/o profiling
+			programArgs = new String[]{"-args", input("X"), input("W"), output("R1") };
+			runTest(true, false, null, -1);
+			
+			//run w/ profiling and trace export
+			String trace = output("trace.json");
+			programArgs = new String[]{"-profile", trace, "-args", input("X"), input("W"), output("R2") };
+			runTest(true, false, null, -1);
+			Assert.assertTrue("Profiler not enabled.", DMLScript.PROFILE && DMLScript.STATISTICS);
+			
+			//compare results of both runs
+			HashMap<CellIndex, Double> dmlfile1 = readDMLMatrixFromHDFS("R1");
+			HashMap<CellIndex, Double> dmlfile2 = readDMLMatrixFromHDFS("R2");
+			TestUtils.compareMatrices(dmlfile1, dmlfile2, eps, "Baseline", "Profile");
+			
+			//check per-line summary and trace events (incl parfor workers)
+			String summary = InstructionProfiler.display(100);
+			Assert.assertTrue("Missing matmult in summary.", summary.contains("line "+mmLine+" \tba+*"));
+			Assert.assertTrue("Missing trace file.", new File(trace).exists());
+			String json = MapReduceTool.readStringFromHDFSFile(trace).trim();
+			Assert.assertTrue("Invalid trace.", json.startsWith("{\"traceEvents\":[") && json.endsWith("}"));
+			Assert.assertTrue("Missing matmult event.", json.contains("{\"name\":\"ba+*\",\"cat\":\"line "+mmLine+"\""));
+			Assert.assertTrue("Missing parfor body event.", json.contains("\"cat\":\"line "+pfLine+"\""));
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			DMLScript.STATISTICS = oldStatistics;
+			DMLScript.PROFILE = oldProfile;
+			DMLScript.PROFILE_FILE = oldProfileFile;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import org.apache.spark.storage.StorageLevel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.parser.Expression.ValueType;
+import org.apache.sysml.runtime.controlprogram.caching.MatrixObject;
+import org.apache.sysml.runtime.instructions.spark.CheckpointSPInstruction;
+import org.apache.sysml.runtime.instructions.spark.data.RDDObject;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for checkpoint downgrades of deserialized inputs to 
+ * serialized storage levels, which checks the downgrade decision and that only
+ * provably unshared checkpoint inputs are eligible for release.
+ *
+ */
+public class SparkCheckpointDowngradeTest extends AutomatedTestBase
+{
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testDowngradeMemoryAndDisk() {
+		Assert.assertTrue(CheckpointSPInstruction.isDowngrade(
+			StorageLevel.MEMORY_AND_DISK(), StorageLevel.MEMORY_AND_DISK_SER()));
+	}
+
+	@Test
+	public void testDowngradeMemoryOnly() {
+		Assert.assertTrue(CheckpointSPInstruction.isDowngrade(
+			StorageLevel.MEMORY_ONLY(), StorageLevel.MEMORY_AND_DISK_SER()));
+	}
+
+	@Test
+	public void testNoDowngradeSameLevel() {
+		Assert.assertFalse(CheckpointSPInstruction.isDowngrade(
+			StorageLevel.MEMORY_AND_DISK(), StorageLevel.MEMORY_AND_DISK()));
+	}
+
+	@Test
+	public void testNoDowngradeUncached() {
+		Assert.assertFalse(CheckpointSPInstruction.isDowngrade(
+			StorageLevel.NONE(), StorageLevel.MEMORY_AND_DISK_SER()));
+	}
+
+	@Test
+	public void testNoDowngradeSerialized() {
+		Assert.assertFalse(CheckpointSPInstruction.isDowngrade(
+			StorageLevel.MEMORY_AND_DISK_SER(), StorageLevel.MEMORY_ONLY_SER()));
+	}
+
+	@Test
+	public void testSerializedStorageLevel() {
+		Assert.assertEquals(StorageLevel.MEMORY_AND_DISK_SER(), 
+			CheckpointSPInstruction.getSerializedStorageLevel(StorageLevel.MEMORY_AND_DISK()));
+		Assert.assertEquals(StorageLevel.MEMORY_ONLY_SER(), 
+			CheckpointSPInstruction.getSerializedStorageLevel(StorageLevel.MEMORY_ONLY()));
+	}
+
+	@Test
+	public void testUnsharedCheckpointInput() {
+		RDDObject inro = new RDDObject(null, "X");
+		RDDObject outro = new RDDObject(null, "X");
+		outro.addLineageChild(inro);
+		Assert.assertTrue(CheckpointSPInstruction.isUnsharedLineageInput(inro));
+	}
+
+	@Test
+	public void testSharedCheckpointInputLineage() {
+		//input consumed by another (lazily evaluated) rdd
+		RDDObject inro = new RDDObject(null, "X");
+		RDDObject outro = new RDDObject(null, "X");
+		RDDObject other = new RDDObject(null, "Y");
+		outro.addLineageChild(inro);
+		other.addLineageChild(inro);
+		Assert.assertFalse(CheckpointSPInstruction.isUnsharedLineageInput(inro));
+	}
+
+	@Test
+	public void testSharedCheckpointInputVariable() {
+		//input still referenced by a matrix object
+		RDDObject inro = new RDDObject(null, "X");
+		RDDObject outro = new RDDObject(null, "X");
+		outro.addLineageChild(inro);
+		inro.setBackReference(new MatrixObject(ValueType.DOUBLE, null));
+		Assert.assertFalse(CheckpointSPInstruction.isUnsharedLineageInput(inro));
+	}
+}
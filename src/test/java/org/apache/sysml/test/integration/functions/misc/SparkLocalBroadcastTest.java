@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.instructions.spark.data.LocalBroadcast;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the by-reference broadcasts of local spark
+ * backends, which checks the lookup of deserialized handles, the removal
+ * from the jvm-wide registry on destroy, and that registered objects do not
+ * outlive their driver-side handles if never destroyed.
+ *
+ */
+public class SparkLocalBroadcastTest extends AutomatedTestBase
+{
+	private final static int rows = 1000;
+	private final static int cols = 1000;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testLookupDeserializedHandle() {
+		try {
+			MatrixBlock mb = MatrixBlock.randOperations(rows, cols, 0.1, -1, 1, "uniform", 7);
+			LocalBroadcast<MatrixBlock> bc = new LocalBroadcast<MatrixBlock>(mb);
+			LocalBroadcast<MatrixBlock> bc2 = serializeAndDeserialize(bc);
+			Assert.assertSame("Wrong broadcast object.", mb, bc2.getValue());
+			bc.destroy();
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	@Test
+	public void testRegistryRemovalOnDestroy() {
+		try {
+			int num = LocalBroadcast.getNumRegisteredObjects();
+			LocalBroadcast<MatrixBlock> bc = new LocalBroadcast<MatrixBlock>(new MatrixBlock(rows, cols, true));
+			LocalBroadcast<MatrixBlock> bc2 = serializeAndDeserialize(bc);
+			Assert.assertEquals("Broadcast not registered.", num+1, LocalBroadcast.getNumRegisteredObjects());
+			bc.destroy();
+			Assert.assertEquals("Broadcast not removed.", num, LocalBroadcast.getNumRegisteredObjects());
+			try {
+				bc2.getValue();
+				Assert.fail("Expected exception for destroyed broadcast.");
+			}
+			catch(RuntimeException ex) {
+				//expected
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	@Test
+	public void testRegistryReleaseUnreachable() {
+		try {
+			int num = LocalBroadcast.getNumRegisteredObjects();
+			for( int i=0; i<3; i++ )
+				createUnreachableBroadcast(i);
+			Assert.assertTrue("Broadcasts not registered.", LocalBroadcast.getNumRegisteredObjects() > num);
+
+			//wait for garbage collection of unreachable broadcast objects
+			for( int i=0; i<100 && LocalBroadcast.getNumRegisteredObjects() > num; i++ ) {
+				System.gc();
+				Thread.sleep(10);
+			}
+			Assert.assertEquals("Unreachable broadcasts not released.", num, LocalBroadcast.getNumRegisteredObjects());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 * Creates a broadcast without destroy, whose handle is unreachable after return.
+	 *
+	 * @param seed
+	 * @throws DMLRuntimeException
+	 */
+	private static void createUnreachableBroadcast( int seed ) 
+		throws DMLRuntimeException 
+	{
+		MatrixBlock mb = MatrixBlock.randOperations(rows, cols, 1.0, -1, 1, "uniform", seed);
+		LocalBroadcast<MatrixBlock> bc = new LocalBroadcast<MatrixBlock>(mb);
+		Assert.assertSame("Wrong broadcast object.", mb, bc.value());
+	}
+
+	/**
+	 *
+	 * @param bc
+	 * @return
+	 * @throws Exception
+	 */
+	@SuppressWarnings("unchecked")
+	private static LocalBroadcast<MatrixBlock> serializeAndDeserialize( LocalBroadcast<MatrixBlock> bc )
+		throws Exception
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(bc);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		LocalBroadcast<MatrixBlock> ret = (LocalBroadcast<MatrixBlock>) ois.readObject();
+		ois.close();
+		return ret;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.api.DMLScript;
+import org.apache.sysml.api.DMLScript.RUNTIME_PLATFORM;
+import org.apache.sysml.hops.LeftIndexingOp;
+import org.apache.sysml.hops.LeftIndexingOp.LeftIndexingMethod;
+import org.apache.sysml.lops.Checkpoint;
+import org.apache.sysml.runtime.instructions.Instruction;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+import org.apache.sysml.utils.Statistics;
+
+/**
+ * This test runs a loop with element-wise operations and left indexing over 
+ * read-only loop variables on spark (partitioned loop checkpoints, general and 
+ * broadcast-based left indexing), and compares the results with single-node
+ * execution.
+ *
+ */
+public class SparkLoopPartitioningTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "SparkLoopPartitioning";
+	private final static String TEST_DIR = "functions/misc/";
+	private final static String TEST_CLASS_DIR = TEST_DIR + SparkLoopPartitioningTest.class.getSimpleName() + "/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows = 2345;
+	private final static int cols = 1234;
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME, new String[] { "R1", "R2" }) );
+	}
+	
+	@Test
+	public void testLoopPartitioningDenseGeneralLix() 
+	{
+		runSparkLoopPartitioningTest(0.9, LeftIndexingMethod.SP_GLEFTINDEX);
+	}
+	
+	@Test
+	public void testLoopPartitioningSparseGeneralLix() 
+	{
+		runSparkLoopPartitioningTest(0.05, LeftIndexingMethod.SP_GLEFTINDEX);
+	}
+	
+	@Test
+	public void testLoopPartitioningDenseBroadcastLix() 
+	{
+		runSparkLoopPartitioningTest(0.9, LeftIndexingMethod.SP_MLEFTINDEX);
+	}
+	
+	/**
+	 * 
+	 * @param sparsity
+	 * @param method
+	 */
+	private void runSparkLoopPartitioningTest( double sparsity, LeftIndexingMethod method )
+	{
+		RUNTIME_PLATFORM platformOld = rtplatform;
+		boolean sparkConfigOld = DMLScript.USE_LOCAL_SPARK_CONFIG;
+		LeftIndexingMethod methodOld = LeftIndexingOp.FORCED_LEFT_INDEXING;
+		
+		try
+		{
+			getAndLoadTestConfiguration(TEST_NAME);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, sparsity, 7);
+			double[][] Y = getRandomMatrix(rows, cols, -1, 1, sparsity, 3);
+			writeInputMatrixWithMTD("X", X, true);
+			writeInputMatrixWithMTD("Y", Y, true);
+			
+			//baseline run in single-node execution
+			rtplatform = RUNTIME_PLATFORM.SINGLE_NODE;
+			programArgs = new String[]{"-args", input("X"), input("Y"), output("R1") };
+			runTest(true, false, null, -1);
+			
+			//run w/ forced spark execution
+			rtplatform = RUNTIME_PLATFORM.SPARK;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			LeftIndexingOp.FORCED_LEFT_INDEXING = method;
+			programArgs = new String[]{"-stats", "-args", input("X"), input("Y"), output("R2") };
+			runTest(true, false, null, -1);
+			
+			//compare results of both runs
+			HashMap<CellIndex, Double> dmlfile1 = readDMLMatrixFromHDFS("R1");
+			HashMap<CellIndex, Double> dmlfile2 = readDMLMatrixFromHDFS("R2");
+			TestUtils.compareMatrices(dmlfile1, dmlfile2, eps, "SingleNode", "Spark");
+			
+			//check for loop checkpoints and the selected left indexing
+			String lixOpcode = (method == LeftIndexingMethod.SP_GLEFTINDEX) ? "leftIndex" : "mapLeftIndex";
+			Assert.assertTrue("Missing loop checkpoint.", Statistics.getCPHeavyHitterOpCodes()
+				.contains(Instruction.SP_INST_PREFIX + Checkpoint.OPCODE));
+			Assert.assertTrue("Missing spark left indexing.", Statistics.getCPHeavyHitterOpCodes()
+				.contains(Instruction.SP_INST_PREFIX + lixOpcode));
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			rtplatform = platformOld;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = sparkConfigOld;
+			LeftIndexingOp.FORCED_LEFT_INDEXING = methodOld;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.sysml.test.integration.functions.misc;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.hops.OptimizerUtils;
+import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext;
+import org.apache.sysml.runtime.controlprogram.context.SparkExecutionContext.PrefetchType;
+import org.apache.sysml.runtime.instructions.Instruction;
+import org.apache.sysml.runtime.instructions.InstructionParser;
+import org.apache.sysml.runtime.matrix.MatrixCharacteristics;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the consumer analysis of asynchronous prefetch
+ * of spark outputs, which checks that only actual local reads and broadcast
+ * inputs trigger prefetch, while meta data operations, variable operations,
+ * function calls, and rdd inputs do not, and that outputs exceeding the driver
+ * memory budget are never prefetched.
+ *
+ */
+public class SparkPrefetchConsumerTest extends AutomatedTestBase
+{
+	private final static String VAR = "_mVar1";
+	private final static String MAT = Instruction.DATATYPE_PREFIX + "MATRIX" + Instruction.VALUETYPE_PREFIX + "DOUBLE";
+	private final static String SCA = Instruction.DATATYPE_PREFIX + "SCALAR" + Instruction.VALUETYPE_PREFIX + "DOUBLE";
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testConsumerSum() {
+		runPrefetchTypeTest(PrefetchType.COLLECT, "CP", "uak+", VAR+MAT, "_Var2"+SCA, "4");
+	}
+
+	@Test
+	public void testConsumerBinary() {
+		runPrefetchTypeTest(PrefetchType.COLLECT, "CP", "+", "_mVar3"+MAT, VAR+MAT, "_mVar4"+MAT);
+	}
+
+	@Test
+	public void testConsumerOtherVariable() {
+		runPrefetchTypeTest(PrefetchType.NONE, "CP", "+", "_mVar3"+MAT, "_mVar5"+MAT, "_mVar4"+MAT);
+	}
+
+	@Test
+	public void testConsumerNrow() {
+		runPrefetchTypeTest(PrefetchType.OTHER, "CP", "nrow", VAR+MAT, "_Var2"+SCA);
+	}
+
+	@Test
+	public void testConsumerNcol() {
+		runPrefetchTypeTest(PrefetchType.OTHER, "CP", "ncol", VAR+MAT, "_Var2"+SCA);
+	}
+
+	@Test
+	public void testConsumerRmvar() {
+		runPrefetchTypeTest(PrefetchType.OTHER, "CP", "rmvar", VAR);
+	}
+
+	@Test
+	public void testConsumerFunctionCall() {
+		runPrefetchTypeTest(PrefetchType.OTHER, "CP", "extfunct", ".defaultNS", "foo", "1", "1", VAR+MAT, "_mVar5");
+	}
+
+	@Test
+	public void testConsumerFunctionCallOtherVariable() {
+		runPrefetchTypeTest(PrefetchType.NONE, "CP", "extfunct", ".defaultNS", "foo", "1", "1", "_mVar3"+MAT, "_mVar5");
+	}
+
+	@Test
+	public void testConsumerMapmmBroadcast() {
+		runPrefetchTypeTest(PrefetchType.BROADCAST, "SPARK", "mapmm", "_mVar3"+MAT, VAR+MAT, "_mVar4"+MAT, "RIGHT", "true", "MULTI_BLOCK");
+	}
+
+	@Test
+	public void testConsumerMapmmRDD() {
+		runPrefetchTypeTest(PrefetchType.OTHER, "SPARK", "mapmm", VAR+MAT, "_mVar3"+MAT, "_mVar4"+MAT, "RIGHT", "true", "MULTI_BLOCK");
+	}
+
+	@Test
+	public void testPrefetchMemoryBudget() {
+		long rows = (long)Math.sqrt(OptimizerUtils.getLocalMemBudget()/8) * 2;
+		Assert.assertTrue("Small output not applicable.", SparkExecutionContext
+			.isPrefetchApplicable(new MatrixCharacteristics(1000, 1000, 1000, 1000, 1000000)));
+		Assert.assertFalse("Large output applicable.", SparkExecutionContext
+			.isPrefetchApplicable(new MatrixCharacteristics(rows, rows, 1000, 1000, rows*rows)));
+		Assert.assertFalse("Large output w/ unknown nnz applicable.", SparkExecutionContext
+			.isPrefetchApplicable(new MatrixCharacteristics(rows, rows, 1000, 1000, -1)));
+		Assert.assertFalse("Output w/ unknown dims applicable.", SparkExecutionContext
+			.isPrefetchApplicable(new MatrixCharacteristics(-1, 1000, 1000, 1000, -1)));
+	}
+
+	/**
+	 *
+	 * @param expected
+	 * @param parts exec type, opcode, and operands
+	 */
+	private void runPrefetchTypeTest( PrefetchType expected, String... parts )
+	{
+		try
+		{
+			StringBuilder sb = new StringBuilder();
+			for( int i=0; i<parts.length; i++ )
+				sb.append((i>0) ? Instruction.OPERAND_DELIM : "").append(parts[i]);
+			Instruction inst = InstructionParser.parseSingleInstruction(sb.toString());
+			Assert.assertEquals("Wrong prefetch type.", expected,
+				SparkExecutionContext.getPrefetchType(inst, VAR));
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
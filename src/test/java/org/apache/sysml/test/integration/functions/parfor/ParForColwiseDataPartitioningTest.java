@@ -48,6 +48,7 @@ public class ParForColwiseDataPartitioningTest extends AutomatedTestBase
 	
 	private final static double sparsity1 = 0.7;
 	private final static double sparsity2 = 0.1d;
+	private final static double sparsity3 = 0.05d; //binary cell input of fused partitioning
 	
 	
 	@Override
@@ -233,6 +234,21 @@ public class ParForColwiseDataPartitioningTest extends AutomatedTestBase
 	}
 
 
+	//fused colwise partitioning and execution
+	
+	@Test
+	public void testParForDataPartitioningRemoteSparkFusedLargeDense() 
+	{
+		runParForDataPartitioningTest(PDataPartitioner.REMOTE_SPARK, PExecMode.REMOTE_SPARK_DP, false, false);
+	}
+
+	@Test
+	public void testParForDataPartitioningRemoteSparkFusedLargeSparse() 
+	{
+		runParForDataPartitioningTest(PDataPartitioner.REMOTE_SPARK, PExecMode.REMOTE_SPARK_DP, false, true);
+	}
+	
+	
 	//NOT colwise
 	
 	@Test
@@ -322,6 +338,8 @@ public class ParForColwiseDataPartitioningTest extends AutomatedTestBase
 						else 
 							scriptNum = 9;
 					}
+					else if( mode==PExecMode.REMOTE_SPARK_DP )
+						scriptNum = 10;
 					else
 						scriptNum = 8;	
 					break; 
@@ -346,7 +364,7 @@ public class ParForColwiseDataPartitioningTest extends AutomatedTestBase
 			long seed = System.nanoTime();
 			double sparsity = -1;
 			if( sparse )
-				sparsity = sparsity2;
+				sparsity = (mode==PExecMode.REMOTE_SPARK_DP) ? sparsity3 : sparsity2;
 			else
 				sparsity = sparsity1;
 	        double[][] V = getRandomMatrix(rows, cols, 0, 1, sparsity, seed);
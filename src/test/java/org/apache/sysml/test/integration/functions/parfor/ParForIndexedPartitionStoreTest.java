@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.parfor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock.PDataPartitionFormat;
+import org.apache.sysml.runtime.controlprogram.parfor.util.IndexedPartitionStore;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.runtime.util.IndexRange;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the indexed partition store of local data
+ * partitioning, which compares all partitions read by index against slices
+ * of the input matrix, for sequential writes and writes via a shared thread
+ * pool (which must remain usable across stores).
+ *
+ */
+public class ParForIndexedPartitionStoreTest extends AutomatedTestBase
+{
+	private final static int rows = 1234;
+	private final static int cols = 567;
+	private final static int blen = 100;
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.05;
+	private final static double eps = 1e-10;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testRowwiseDenseSequential() {
+		runIndexedPartitionStoreTest(PDataPartitionFormat.ROW_WISE, sparsity1, false);
+	}
+
+	@Test
+	public void testRowBlockwiseSparseParallel() {
+		runIndexedPartitionStoreTest(PDataPartitionFormat.ROW_BLOCK_WISE, sparsity2, true);
+	}
+
+	@Test
+	public void testColumnwiseSparseParallel() {
+		runIndexedPartitionStoreTest(PDataPartitionFormat.COLUMN_WISE, sparsity2, true);
+	}
+
+	@Test
+	public void testColumnBlockwiseDenseParallel() {
+		runIndexedPartitionStoreTest(PDataPartitionFormat.COLUMN_BLOCK_WISE, sparsity1, true);
+	}
+
+	@Test
+	public void testInvalidPartitionIndex() throws Exception {
+		MatrixBlock in = MatrixBlock.randOperations(rows, cols, sparsity1, -1, 1, "uniform", 7);
+		String fname = createTempFileName();
+		IndexedPartitionStore store = IndexedPartitionStore.createPartitionStore(
+			fname, in, PDataPartitionFormat.ROW_BLOCK_WISE, blen, blen, null, 1);
+		try {
+			store.readPartition(store.getNumPartitions());
+			Assert.fail("Expected exception for invalid partition index.");
+		}
+		catch(IOException ex) {
+			//expected
+		}
+		finally {
+			store.cleanup();
+		}
+	}
+
+	/**
+	 *
+	 * @param dpf
+	 * @param sparsity
+	 * @param parallel
+	 */
+	private void runIndexedPartitionStoreTest( PDataPartitionFormat dpf, double sparsity, boolean parallel )
+	{
+		ExecutorService pool = parallel ? Executors.newFixedThreadPool(3) : null;
+		try
+		{
+			MatrixBlock in = MatrixBlock.randOperations(rows, cols, sparsity, -1, 1, "uniform", 7);
+			double[][] A = DataConverter.convertToDoubleMatrix(in);
+
+			//create two stores over the same pool (pool not shut down by store)
+			for( int r=0; r<2; r++ ) {
+				String fname = createTempFileName();
+				IndexedPartitionStore store = IndexedPartitionStore.createPartitionStore(
+					fname, in, dpf, blen, blen, pool, 4);
+				Assert.assertEquals("Wrong number of partitions.", IndexedPartitionStore
+					.getNumPartitions(rows, cols, dpf, blen, blen), store.getNumPartitions());
+
+				//read and compare all partitions
+				for( int pix=0; pix<store.getNumPartitions(); pix++ ) {
+					int[] ix = getPartitionBounds(dpf, pix);
+					IndexRange pred = new IndexRange(ix[0]+1, ix[1]+1, ix[2]+1, ix[3]+1);
+					Assert.assertEquals("Wrong partition index.", pix, store.getPartitionIndex(pred));
+					MatrixBlock part = store.readPartition(pix);
+					Assert.assertEquals("Wrong number of rows.", ix[1]-ix[0]+1, part.getNumRows());
+					Assert.assertEquals("Wrong number of columns.", ix[3]-ix[2]+1, part.getNumColumns());
+					for( int i=ix[0]; i<=ix[1]; i++ )
+						for( int j=ix[2]; j<=ix[3]; j++ )
+							Assert.assertEquals(A[i][j], part.quickGetValue(i-ix[0], j-ix[2]), eps);
+				}
+
+				store.cleanup();
+				Assert.assertFalse("Partition file not deleted.", new File(fname).exists());
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			if( pool != null )
+				pool.shutdown();
+		}
+	}
+
+	/**
+	 *
+	 * @param dpf
+	 * @param pix
+	 * @return 0-based, inclusive (rl, ru, cl, cu) bounds
+	 */
+	private static int[] getPartitionBounds( PDataPartitionFormat dpf, int pix )
+	{
+		switch( dpf ) {
+			case ROW_WISE:          return new int[]{pix, pix, 0, cols-1};
+			case ROW_BLOCK_WISE:    return new int[]{pix*blen, Math.min((pix+1)*blen, rows)-1, 0, cols-1};
+			case COLUMN_WISE:       return new int[]{0, rows-1, pix, pix};
+			case COLUMN_BLOCK_WISE: return new int[]{0, rows-1, pix*blen, Math.min((pix+1)*blen, cols)-1};
+			default:                return null;
+		}
+	}
+
+	/**
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private static String createTempFileName()
+		throws IOException
+	{
+		File tmp = File.createTempFile("partitionStore", ".bin");
+		tmp.deleteOnExit();
+		return tmp.getAbsolutePath();
+	}
+}
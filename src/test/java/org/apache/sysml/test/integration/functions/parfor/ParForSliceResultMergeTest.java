@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.parfor;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This test checks the local slice-based result merge of parfor results with 
+ * row-wise or column-wise writes into a non-empty output (incl writes of zero 
+ * rows/columns and untouched rows/columns), which compares the parfor results
+ * against the results of the same updates in a sequential for loop.
+ *
+ */
+public class ParForSliceResultMergeTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME1 = "parfor_slice_resultmerge1"; //row-wise
+	private final static String TEST_NAME2 = "parfor_slice_resultmerge2"; //column-wise
+	private final static String TEST_DIR = "functions/parfor/";
+	private final static String TEST_CLASS_DIR = TEST_DIR + ParForSliceResultMergeTest.class.getSimpleName() + "/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows = 1234;
+	private final static int cols = 345;
+	
+	private final static double sparsity1 = 0.7;
+	private final static double sparsity2 = 0.05;
+	
+	@Override
+	public void setUp() 
+	{
+		addTestConfiguration(TEST_NAME1, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME1, new String[] { "R", "S" }) );
+		addTestConfiguration(TEST_NAME2, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME2, new String[] { "R", "S" }) );
+	}
+	
+	@Test
+	public void testParForRowwiseResultMergeDense() 
+	{
+		runParForSliceResultMergeTest(TEST_NAME1, false);
+	}
+	
+	@Test
+	public void testParForRowwiseResultMergeSparse() 
+	{
+		runParForSliceResultMergeTest(TEST_NAME1, true);
+	}
+	
+	@Test
+	public void testParForColwiseResultMergeDense() 
+	{
+		runParForSliceResultMergeTest(TEST_NAME2, false);
+	}
+	
+	@Test
+	public void testParForColwiseResultMergeSparse() 
+	{
+		runParForSliceResultMergeTest(TEST_NAME2, true);
+	}
+	
+	/**
+	 * 
+	 * @param testname
+	 * @param sparse
+	 */
+	private void runParForSliceResultMergeTest( String testname, boolean sparse )
+	{
+		TestConfiguration config = getTestConfiguration(testname);
+		config.addVariable("rows", rows);
+		config.addVariable("cols", cols);
+		loadTestConfiguration(config);
+		
+		String HOME = SCRIPT_DIR + TEST_DIR;
+		fullDMLScriptName = HOME + testname + ".dml";
+		programArgs = new String[]{"-args", input("V"), 
+			String.valueOf(rows), String.valueOf(cols), output("R"), output("S") };
+		
+		double sparsity = sparse ? sparsity2 : sparsity1;
+		double[][] V = getRandomMatrix(rows, cols, 0, 1, sparsity, 7);
+		writeInputMatrix("V", V, false);
+		
+		runTest(true, false, null, -1);
+		
+		//compare parfor results with for loop results
+		HashMap<CellIndex, Double> dmlfile1 = readDMLMatrixFromHDFS("R");
+		HashMap<CellIndex, Double> dmlfile2 = readDMLMatrixFromHDFS("S");
+		TestUtils.compareMatrices(dmlfile1, dmlfile2, eps, "ParFor", "For");
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.parfor;
+
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.sysml.api.DMLScript;
+import org.apache.sysml.api.DMLScript.RUNTIME_PLATFORM;
+import org.apache.sysml.runtime.controlprogram.ParForProgramBlock;
+import org.apache.sysml.runtime.controlprogram.parfor.RemoteParForSparkWorker;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This test runs two subsequent remote spark parfor jobs with many small 
+ * tasks, and checks the results as well as the reuse and invalidation of 
+ * cached parfor workers.
+ *
+ */
+public class ParForSparkWorkerReuseTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "parfor_spark_worker_reuse";
+	private final static String TEST_DIR = "functions/parfor/";
+	private final static String TEST_CLASS_DIR = TEST_DIR + ParForSparkWorkerReuseTest.class.getSimpleName() + "/";
+	private final static double eps = 1e-10;
+	
+	private final static int rows = 512;
+	private final static int cols = 37;
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME, 
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME, new String[] { "R1", "R2" }) );
+	}
+	
+	@Test
+	public void testParForSparkWorkerReuse() 
+	{
+		runParForSparkWorkerReuseTest(true);
+	}
+	
+	@Test
+	public void testParForSparkNoWorkerReuse() 
+	{
+		runParForSparkWorkerReuseTest(false);
+	}
+	
+	/**
+	 * 
+	 * @param reuse
+	 */
+	private void runParForSparkWorkerReuseTest( boolean reuse )
+	{
+		RUNTIME_PLATFORM platformOld = rtplatform;
+		boolean sparkConfigOld = DMLScript.USE_LOCAL_SPARK_CONFIG;
+		boolean reuseOld = ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER;
+		
+		try
+		{
+			getAndLoadTestConfiguration(TEST_NAME);
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			programArgs = new String[]{"-args", input("X"), output("R1"), output("R2") };
+			
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, 1.0, 7);
+			writeInputMatrixWithMTD("X", X, true);
+			
+			rtplatform = RUNTIME_PLATFORM.HYBRID_SPARK;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER = reuse;
+			RemoteParForSparkWorker.cleanupCachedWorkers(null);
+			RemoteParForSparkWorker.resetNumReusedWorkers();
+			
+			runTest(true, false, null, -1);
+			
+			//compare results with expected row aggregates
+			HashMap<CellIndex, Double> dmlfile1 = readDMLMatrixFromHDFS("R1");
+			HashMap<CellIndex, Double> dmlfile2 = readDMLMatrixFromHDFS("R2");
+			HashMap<CellIndex, Double> expected1 = new HashMap<CellIndex, Double>();
+			HashMap<CellIndex, Double> expected2 = new HashMap<CellIndex, Double>();
+			for( int i=0; i<rows; i++ ) {
+				double sum = 0, max = -Double.MAX_VALUE;
+				for( int j=0; j<cols; j++ ) {
+					sum += X[i][j];
+					max = Math.max(max, X[i][j]);
+				}
+				expected1.put(new CellIndex(i+1,1), sum * (i+1));
+				expected2.put(new CellIndex(i+1,1), max + (i+1));
+			}
+			TestUtils.compareMatrices(dmlfile1, expected1, eps, "Stat-DML", "Stat-Java");
+			TestUtils.compareMatrices(dmlfile2, expected2, eps, "Stat-DML", "Stat-Java");
+			
+			//check reuse of workers and their invalidation after each job
+			//(more spark tasks than local cores, executors share the driver jvm)
+			if( reuse )
+				Assert.assertTrue("No reused parfor workers.", 
+					RemoteParForSparkWorker.getNumReusedWorkers() > 0);
+			else
+				Assert.assertEquals(0, RemoteParForSparkWorker.getNumReusedWorkers());
+			Assert.assertEquals("Cached parfor workers not invalidated.", 
+				0, RemoteParForSparkWorker.getNumCachedWorkers(null));
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			rtplatform = platformOld;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = sparkConfigOld;
+			ParForProgramBlock.ALLOW_REUSE_SPARK_PAR_WORKER = reuseOld;
+		}
+	}
+}
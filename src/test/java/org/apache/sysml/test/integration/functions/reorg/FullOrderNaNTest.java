@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.sysml.test.integration.functions.reorg;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.api.DMLScript;
+import org.apache.sysml.api.DMLScript.RUNTIME_PLATFORM;
+import org.apache.sysml.hops.ReorgOp;
+import org.apache.sysml.runtime.instructions.spark.utils.RDDSortUtils;
+import org.apache.sysml.runtime.matrix.data.MatrixValue.CellIndex;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.integration.TestConfiguration;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This test checks the distributed order of inputs with NaNs and ties on Spark,
+ * where the orderby column is not in the first column block, and with forced
+ * range-partitioned sorts where NaNs are spread across partitions. The expected
+ * outputs are computed by a stable sort with NaNs last for ascending and first 
+ * for descending order (i.e., the order of Double.compare).
+ * 
+ */
+public class FullOrderNaNTest extends AutomatedTestBase 
+{
+	private final static String TEST_NAME = "Order";
+	private final static String TEST_DIR = "functions/reorg/";
+	private static final String TEST_CLASS_DIR = TEST_DIR + FullOrderNaNTest.class.getSimpleName() + "/";
+	
+	private final static int rows1 = 1017;
+	private final static int rows2 = 5321;
+	private final static int cols1 = 1010;
+	private final static int by = 1005; //> bclen
+	
+	@Override
+	public void setUp() 
+	{
+		TestUtils.clearAssertionInformation();
+		addTestConfiguration(TEST_NAME,
+			new TestConfiguration(TEST_CLASS_DIR, TEST_NAME, new String[]{"B"}));
+	}
+	
+	@Test
+	public void testOrderMatrixIndexDescNaNSP() 
+	{
+		runOrderNaNTest(true, true, true);
+	}
+	
+	@Test
+	public void testOrderMatrixDataDescNaNSP() 
+	{
+		runOrderNaNTest(true, true, false);
+	}
+	
+	@Test
+	public void testOrderMatrixIndexAscNaNSP() 
+	{
+		runOrderNaNTest(true, false, true);
+	}
+	
+	@Test
+	public void testOrderVectorIndexDescNaNSP() 
+	{
+		runOrderNaNTest(false, true, true);
+	}
+	
+	@Test
+	public void testOrderVectorDataDescNaNSP() 
+	{
+		runOrderNaNTest(false, true, false);
+	}
+	
+	@Test
+	public void testOrderVectorDataAscNaNDistSP() 
+	{
+		runOrderNaNTest(false, false, false, true);
+	}
+	
+	@Test
+	public void testOrderVectorDataDescNaNDistSP() 
+	{
+		runOrderNaNTest(false, true, false, true);
+	}
+	
+	@Test
+	public void testOrderVectorIndexAscNaNDistSP() 
+	{
+		runOrderNaNTest(false, false, true, true);
+	}
+	
+	@Test
+	public void testOrderVectorIndexDescNaNDistSP() 
+	{
+		runOrderNaNTest(false, true, true, true);
+	}
+	
+	@Test
+	public void testOrderMatrixIndexDescNaNDistSP() 
+	{
+		runOrderNaNTest(true, true, true, true);
+	}
+	
+	/**
+	 * 
+	 * @param matrix
+	 * @param desc
+	 * @param ixreturn
+	 */
+	private void runOrderNaNTest( boolean matrix, final boolean desc, boolean ixreturn )
+	{
+		runOrderNaNTest(matrix, desc, ixreturn, false);
+	}
+	
+	/**
+	 * 
+	 * @param matrix
+	 * @param desc
+	 * @param ixreturn
+	 * @param distSort force distributed sort w/ range partitions per row block
+	 */
+	private void runOrderNaNTest( boolean matrix, final boolean desc, boolean ixreturn, boolean distSort )
+	{
+		RUNTIME_PLATFORM platformOld = rtplatform;
+		boolean sparkConfigOld = DMLScript.USE_LOCAL_SPARK_CONFIG;
+		boolean forceOpOld = ReorgOp.FORCE_DIST_SORT_INDEXES;
+		boolean forceSortOld = RDDSortUtils.FORCED_DIST_SORT;
+		
+		try
+		{
+			rtplatform = RUNTIME_PLATFORM.SPARK;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = true;
+			ReorgOp.FORCE_DIST_SORT_INDEXES = true; //w/o in-memory sort index rewrite
+			RDDSortUtils.FORCED_DIST_SORT = distSort; //w/o driver in-memory sort
+			
+			int rows = matrix ? rows1 : rows2;
+			int cols = matrix ? cols1 : 1;
+			final int bycol = matrix ? by : 1;
+			
+			getAndLoadTestConfiguration(TEST_NAME);
+			
+			String HOME = SCRIPT_DIR + TEST_DIR;
+			fullDMLScriptName = HOME + TEST_NAME + ".dml";
+			programArgs = new String[]{"-explain","-args", input("A"), Integer.toString(bycol),
+				Boolean.toString(desc).toUpperCase(), Boolean.toString(ixreturn).toUpperCase(), output("B") };
+			
+			//generate dataset with ties and NaNs in orderby column
+			final double[][] A = getRandomMatrix(rows, cols, -1, 1, 1.0, 7);
+			for( int i=0; i<rows; i++ ) {
+				A[i][bycol-1] = (i%7==3) ? Double.NaN : Math.round(A[i][bycol-1]*10);
+				if( matrix )
+					A[i][0] = i+1; //row identifiers
+			}
+			writeInputMatrixWithMTD("A", A, false);
+			
+			runTest(true, false, null, -1); 
+			
+			//compute expected order (stable, NaNs as largest values)
+			Integer[] ix = new Integer[rows];
+			for( int i=0; i<rows; i++ )
+				ix[i] = i;
+			Arrays.sort(ix, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					int ret = Double.compare(A[o1][bycol-1], A[o2][bycol-1]);
+					return (ret != 0) ? (desc ? -ret : ret) : o1.compareTo(o2);
+				}
+			});
+			
+			//compare row indexes, row identifiers, or values (incl NaNs)
+			HashMap<CellIndex, Double> dmlfile = readDMLMatrixFromHDFS("B");
+			for( int i=0; i<rows; i++ ) {
+				double expected = ixreturn ? ix[i]+1 : A[ix[i]][0];
+				Double actual = dmlfile.get(new CellIndex(i+1, 1));
+				Assert.assertEquals("Wrong order at row "+(i+1)+".", 
+					expected, (actual!=null) ? actual : 0, 0);
+			}
+		}
+		finally
+		{
+			rtplatform = platformOld;
+			DMLScript.USE_LOCAL_SPARK_CONFIG = sparkConfigOld;
+			ReorgOp.FORCE_DIST_SORT_INDEXES = forceOpOld;
+			RDDSortUtils.FORCED_DIST_SORT = forceSortOld;
+		}
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.reorg;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.controlprogram.caching.MatrixObject.UpdateType;
+import org.apache.sysml.runtime.matrix.data.LibMatrixReorg;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.SparseBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the multi-threaded removeEmpty (rows/cols,
+ * w/ and w/o select vector) and replace over dense, MCSR, and CSR inputs,
+ * which compares the results against straightforward computations over the
+ * input arrays, incl the number of non-zeros of the outputs.
+ *
+ */
+public class ParallelRemoveEmptyTest extends AutomatedTestBase
+{
+	private final static int rows = 3000;
+	private final static int cols = 400;
+	private final static double sparsity1 = 1.0;
+	private final static double sparsity2 = 0.02;
+	private final static double eps = 1e-10;
+
+	private enum InputType {
+		DENSE,
+		MCSR,
+		CSR,
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testRemoveEmptyRowsDense() {
+		runParallelRemoveEmptyTest(InputType.DENSE, true, false);
+	}
+
+	@Test
+	public void testRemoveEmptyRowsSparse() {
+		runParallelRemoveEmptyTest(InputType.MCSR, true, false);
+	}
+
+	@Test
+	public void testRemoveEmptyRowsSparseCSR() {
+		runParallelRemoveEmptyTest(InputType.CSR, true, false);
+	}
+
+	@Test
+	public void testRemoveEmptyRowsSparseCSRInplaceUpdate() {
+		runRemoveEmptyInplaceUpdateTest();
+	}
+
+	@Test
+	public void testRemoveEmptyRowsSelectDense() {
+		runParallelRemoveEmptyTest(InputType.DENSE, true, true);
+	}
+
+	@Test
+	public void testRemoveEmptyRowsSelectSparseCSR() {
+		runParallelRemoveEmptyTest(InputType.CSR, true, true);
+	}
+
+	@Test
+	public void testRemoveEmptyColsDense() {
+		runParallelRemoveEmptyTest(InputType.DENSE, false, false);
+	}
+
+	@Test
+	public void testRemoveEmptyColsSparse() {
+		runParallelRemoveEmptyTest(InputType.MCSR, false, false);
+	}
+
+	@Test
+	public void testRemoveEmptyColsSelectSparseCSR() {
+		runParallelRemoveEmptyTest(InputType.CSR, false, true);
+	}
+
+	@Test
+	public void testReplaceDense() {
+		runParallelReplaceTest(InputType.DENSE, 1, 7);
+	}
+
+	@Test
+	public void testReplaceDenseNaN() {
+		runParallelReplaceTest(InputType.DENSE, Double.NaN, 0);
+	}
+
+	@Test
+	public void testReplaceSparse() {
+		runParallelReplaceTest(InputType.MCSR, 1, 0);
+	}
+
+	@Test
+	public void testReplaceSparseZero() {
+		runParallelReplaceTest(InputType.CSR, 0, 7);
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param rowsMargin
+	 * @param select
+	 */
+	private void runParallelRemoveEmptyTest( InputType type, boolean rowsMargin, boolean select )
+	{
+		try
+		{
+			double[][] A = getRandomMatrix(type);
+			MatrixBlock in = getMatrixBlock(A, type);
+
+			//determine selected rows/cols
+			int len = rowsMargin ? rows : cols;
+			boolean[] flags = new boolean[len];
+			double[] sel = new double[len];
+			Random rand = new Random(3);
+			for( int i=0; i<rows; i++ )
+				for( int j=0; j<cols; j++ )
+					if( !select && A[i][j] != 0 )
+						flags[rowsMargin ? i : j] = true;
+			if( select )
+				for( int i=0; i<len; i++ ) {
+					flags[i] = rand.nextInt(3) == 0;
+					sel[i] = flags[i] ? 1 : 0;
+				}
+			MatrixBlock vect = select ? DataConverter.convertToMatrixBlock(sel, true) : null;
+
+			//multi-threaded removeEmpty
+			MatrixBlock out = LibMatrixReorg.rmempty(in, new MatrixBlock(), rowsMargin, vect, 4);
+
+			//compare results
+			long nnz = 0;
+			for( int i=0, ci=0; i<rows; i++ ) {
+				if( rowsMargin && !flags[i] ) continue;
+				for( int j=0, cj=0; j<cols; j++ ) {
+					if( !rowsMargin && !flags[j] ) continue;
+					Assert.assertEquals("Wrong value at ("+i+","+j+").", A[i][j], out.quickGetValue(ci, cj), eps);
+					nnz += (A[i][j] != 0) ? 1 : 0;
+					cj++;
+				}
+				ci++;
+			}
+			Assert.assertEquals("Wrong number of non-zeros.", nnz, out.getNonZeros());
+			if( type == InputType.CSR && out.isInSparseFormat() )
+				Assert.assertTrue("Wrong output format.", !rowsMargin || out.isInSparseCSRFormat());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 * Checks that in-place updates of the output of removeEmpty over a CSR
+	 * input (where all non-zeros are retained) do not modify the input.
+	 */
+	private void runRemoveEmptyInplaceUpdateTest()
+	{
+		try
+		{
+			double[][] A = getRandomMatrix(InputType.CSR);
+			MatrixBlock in = getMatrixBlock(A, InputType.CSR);
+			MatrixBlock out = LibMatrixReorg.rmempty(in, new MatrixBlock(), true, null, 4);
+			Assert.assertTrue("Wrong output format.", out.isInSparseCSRFormat());
+			Assert.assertNotSame("Shared column indexes.", in.getSparseBlock().indexes(0), out.getSparseBlock().indexes(0));
+			Assert.assertNotSame("Shared values.", in.getSparseBlock().values(0), out.getSparseBlock().values(0));
+
+			//in-place update of existing non-zeros and left indexing into the output
+			SparseBlock c = out.getSparseBlock();
+			for( int i=0; i<out.getNumRows(); i++ )
+				if( !c.isEmpty(i) )
+					out.quickSetValue(i, c.indexes(i)[c.pos(i)], 7);
+			double[][] B = new double[3][cols];
+			for( int i=0; i<3; i++ )
+				Arrays.fill(B[i], 11);
+			MatrixBlock rhs = DataConverter.convertToMatrixBlock(B);
+			out.leftIndexingOperations(rhs, 0, 2, 0, cols-1, null, UpdateType.INPLACE_PINNED);
+
+			//check unmodified input
+			for( int i=0; i<rows; i++ )
+				for( int j=0; j<cols; j++ )
+					Assert.assertEquals("Modified input at ("+i+","+j+").", A[i][j], in.quickGetValue(i, j), eps);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param pattern
+	 * @param replacement
+	 */
+	private void runParallelReplaceTest( InputType type, double pattern, double replacement )
+	{
+		try
+		{
+			double[][] A = getRandomMatrix(type);
+			if( Double.isNaN(pattern) )
+				for( int i=0; i<rows; i+=3 )
+					A[i][i%cols] = Double.NaN;
+			MatrixBlock in = getMatrixBlock(A, type);
+
+			//multi-threaded replace
+			MatrixBlock out = (MatrixBlock) in.replaceOperations(new MatrixBlock(), pattern, replacement, 4);
+
+			//compare results
+			long nnz = 0;
+			for( int i=0; i<rows; i++ )
+				for( int j=0; j<cols; j++ ) {
+					double val = A[i][j];
+					double expected = (val == pattern || Double.isNaN(pattern) && Double.isNaN(val)) ? replacement : val;
+					Assert.assertEquals("Wrong value at ("+i+","+j+").", expected, out.quickGetValue(i, j), eps);
+					nnz += (expected != 0) ? 1 : 0;
+				}
+			Assert.assertEquals("Wrong number of non-zeros.", nnz, out.getNonZeros());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 * Creates a random matrix with small integer values, and empty rows and columns.
+	 *
+	 * @param type
+	 * @return
+	 */
+	private static double[][] getRandomMatrix( InputType type )
+	{
+		double sparsity = (type == InputType.DENSE) ? sparsity1 : sparsity2;
+		Random rand = new Random(7);
+		double[][] A = new double[rows][cols];
+		for( int i=0; i<rows; i++ )
+			for( int j=0; j<cols; j++ )
+				if( i%7 != 3 && j%5 != 2 && rand.nextDouble() < sparsity )
+					A[i][j] = rand.nextInt(5) - 2;
+		return A;
+	}
+
+	/**
+	 *
+	 * @param A
+	 * @param type
+	 * @return
+	 * @throws Exception
+	 */
+	private static MatrixBlock getMatrixBlock( double[][] A, InputType type )
+		throws Exception
+	{
+		MatrixBlock mb = DataConverter.convertToMatrixBlock(A);
+		Assert.assertEquals("Wrong input format.", type != InputType.DENSE, mb.isInSparseFormat());
+		if( type == InputType.CSR )
+			mb = new MatrixBlock(mb, SparseBlock.Type.CSR, true);
+		return mb;
+	}
+}
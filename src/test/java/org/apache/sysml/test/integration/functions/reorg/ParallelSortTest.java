@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.reorg;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.matrix.data.LibMatrixReorg;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the multi-threaded sort of data and indexes 
+ * (incl stable ordering of ties) as well as the selection-based quantiles, 
+ * which compares the results against the single-threaded sort, and against
+ * a stable reference sort with NaNs (last for ascending, first for descending).
+ *
+ */
+public class ParallelSortTest extends AutomatedTestBase
+{
+	private final static int rows = 321789;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.1;
+	private final static double eps = 1e-10;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testSortDataDense() {
+		runParallelSortTest(sparsity1, false, false);
+	}
+
+	@Test
+	public void testSortDataSparseDesc() {
+		runParallelSortTest(sparsity2, true, false);
+	}
+
+	@Test
+	public void testSortIndexesDense() {
+		runParallelSortTest(sparsity1, false, true);
+	}
+
+	@Test
+	public void testSortIndexesDenseDesc() {
+		runParallelSortTest(sparsity1, true, true);
+	}
+
+	@Test
+	public void testSortIndexesSparseDesc() {
+		runParallelSortTest(sparsity2, true, true);
+	}
+
+	@Test
+	public void testSortDataDenseNaN() {
+		runParallelSortNaNTest(false, false);
+	}
+
+	@Test
+	public void testSortDataDenseDescNaN() {
+		runParallelSortNaNTest(true, false);
+	}
+
+	@Test
+	public void testSortIndexesDenseNaN() {
+		runParallelSortNaNTest(false, true);
+	}
+
+	@Test
+	public void testSortIndexesDenseDescNaN() {
+		runParallelSortNaNTest(true, true);
+	}
+
+	@Test
+	public void testQuantilesDense() {
+		runQuantileTest(sparsity1);
+	}
+
+	@Test
+	public void testQuantilesSparse() {
+		runQuantileTest(sparsity2);
+	}
+
+	/**
+	 *
+	 * @param sparsity
+	 * @param desc
+	 * @param ixret
+	 */
+	private void runParallelSortTest( double sparsity, boolean desc, boolean ixret )
+	{
+		try
+		{
+			//rounded values to obtain many ties
+			double[][] A = getRandomMatrix(rows, 1, -100, 100, sparsity, 7);
+			for( int i=0; i<rows; i++ )
+				A[i][0] = Math.round(A[i][0]);
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+
+			MatrixBlock ret1 = LibMatrixReorg.sort(mbA, new MatrixBlock(), 1, desc, ixret, 1);
+			MatrixBlock ret2 = LibMatrixReorg.sort(mbA, new MatrixBlock(), 1, desc, ixret, 4);
+
+			//compare results
+			double[][] expected = DataConverter.convertToDoubleMatrix(ret1);
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret2);
+			TestUtils.compareMatrices(expected, actual, rows, 1, 0);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param desc
+	 * @param ixret
+	 */
+	private void runParallelSortNaNTest( final boolean desc, boolean ixret )
+	{
+		try
+		{
+			//rounded values to obtain many ties, and NaNs
+			final double[][] A = getRandomMatrix(rows, 1, -100, 100, sparsity1, 7);
+			for( int i=0; i<rows; i++ )
+				A[i][0] = (i%11==5) ? Double.NaN : Math.round(A[i][0]);
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+
+			MatrixBlock ret = LibMatrixReorg.sort(mbA, new MatrixBlock(), 1, desc, ixret, 4);
+
+			//stable reference sort (NaNs as largest values)
+			Integer[] ix = new Integer[rows];
+			for( int i=0; i<rows; i++ )
+				ix[i] = i;
+			Arrays.sort(ix, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					int cmp = Double.compare(A[o1][0]+0.0, A[o2][0]+0.0);
+					return (cmp != 0) ? (desc ? -cmp : cmp) : o1.compareTo(o2);
+				}
+			});
+
+			//compare results
+			for( int i=0; i<rows; i++ ) {
+				double expected = ixret ? ix[i]+1 : A[ix[i]][0];
+				Assert.assertEquals("Wrong value at row "+i+".", expected, ret.quickGetValue(i, 0), 0);
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param sparsity
+	 */
+	private void runQuantileTest( double sparsity )
+	{
+		try
+		{
+			double[][] A = getRandomMatrix(rows+1, 1, -1, 1, sparsity, 3);
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+			MatrixBlock mbB = DataConverter.convertToMatrixBlock(new double[][]{{0},{-1},{2}});
+
+			//sorted (two-column) inputs vs selection over unsorted inputs
+			for( MatrixBlock in : new MatrixBlock[]{mbA, mbB} ) {
+				MatrixBlock sorted = (MatrixBlock) in.sortOperations(null, new MatrixBlock(), 4);
+				Assert.assertEquals(sorted.median(), in.median(), eps);
+				for( double q : new double[]{0, 0.01, 0.25, 0.5, 0.75, 0.99, 1} )
+					Assert.assertEquals(sorted.pickValue(q), in.pickValue(q), eps);
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.reorg;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.matrix.data.LibMatrixReorg;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.SparseBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the multi-threaded sparse transpose, rowwise
+ * sparse reshape, and rexpand (w/ CSR outputs), which compares the results
+ * against straightforward cell-wise computations and the linearized input.
+ *
+ */
+public class ParallelSparseReorgTest extends AutomatedTestBase
+{
+	private final static int rows1 = 2500;
+	private final static int cols1 = 1000;
+	private final static int rows2 = 20000;
+	private final static int cols2 = 2000;
+	private final static int rows3 = 100000;
+	private final static double sparsity1 = 0.05;
+	private final static double sparsity2 = 0.03;
+	private final static double eps = 1e-10;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testTransposeSparse() {
+		runParallelTransposeTest(sparsity1, false);
+	}
+
+	@Test
+	public void testTransposeSparseCSR() {
+		runParallelTransposeTest(sparsity1, true);
+	}
+
+	@Test
+	public void testReshapeSparseMatrix() {
+		runParallelReshapeTest(4000, 10000);
+	}
+
+	@Test
+	public void testReshapeSparseTall() {
+		runParallelReshapeTest(80000, 500);
+	}
+
+	@Test
+	public void testRexpandRowsSparse() {
+		runParallelRexpandTest(true, 20);
+	}
+
+	@Test
+	public void testRexpandColsSparse() {
+		runParallelRexpandTest(false, 20);
+	}
+
+	@Test
+	public void testRexpandColsDense() {
+		runParallelRexpandTest(false, 2);
+	}
+
+	/**
+	 *
+	 * @param sparsity
+	 * @param csr
+	 */
+	private void runParallelTransposeTest( double sparsity, boolean csr )
+	{
+		try
+		{
+			MatrixBlock in = MatrixBlock.randOperations(rows1, cols1, sparsity, -1, 1, "uniform", 7);
+			if( csr )
+				in = new MatrixBlock(in, SparseBlock.Type.CSR, true);
+
+			//multi-threaded transpose into CSR output
+			MatrixBlock out = LibMatrixReorg.transpose(in, new MatrixBlock(cols1, rows1, true), 4);
+			Assert.assertTrue("Wrong output format.", out.isInSparseCSRFormat());
+			checkSortedRows(out);
+
+			//compare results
+			double[][] A = DataConverter.convertToDoubleMatrix(in);
+			double[][] expected = new double[cols1][rows1];
+			for( int i=0; i<rows1; i++ )
+				for( int j=0; j<cols1; j++ )
+					expected[j][i] = A[i][j];
+			double[][] actual = DataConverter.convertToDoubleMatrix(out);
+			TestUtils.compareMatrices(expected, actual, cols1, rows1, eps);
+			Assert.assertEquals("Wrong number of non-zeros.", in.getNonZeros(), out.getNonZeros());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param rows
+	 * @param cols
+	 */
+	private void runParallelReshapeTest( int rows, int cols )
+	{
+		try
+		{
+			MatrixBlock in = MatrixBlock.randOperations(rows2, cols2, sparsity2, -1, 1, "uniform", 3);
+
+			//multi-threaded rowwise reshape into CSR output
+			MatrixBlock out = LibMatrixReorg.reshape(in, new MatrixBlock(), rows, cols, true, 4);
+			Assert.assertTrue("Wrong output format.", out.isInSparseCSRFormat());
+			checkSortedRows(out);
+			Assert.assertEquals("Wrong number of non-zeros.", in.getNonZeros(), out.getNonZeros());
+
+			//compare linearized non-zeros (same order for rowwise reshape)
+			SparseBlock a = in.getSparseBlock();
+			SparseBlock c = out.getSparseBlock();
+			int ci = 0, cpos = c.pos(0);
+			for( int i=0; i<rows2; i++ ) {
+				if( a.isEmpty(i) ) continue;
+				for( int j=a.pos(i); j<a.pos(i)+a.size(i); j++ ) {
+					while( cpos >= c.pos(ci)+c.size(ci) )
+						cpos = c.pos(++ci);
+					long lix1 = (long)i*cols2 + a.indexes(i)[j];
+					long lix2 = (long)ci*cols + c.indexes(ci)[cpos];
+					Assert.assertEquals("Wrong cell index.", lix1, lix2);
+					Assert.assertEquals("Wrong value.", a.values(i)[j], c.values(ci)[cpos], eps);
+					cpos++;
+				}
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param rows
+	 * @param max
+	 */
+	private void runParallelRexpandTest( boolean rows, int max )
+	{
+		try
+		{
+			//input vector w/ out-of-range values (ignored)
+			Random rand = new Random(7);
+			MatrixBlock in = new MatrixBlock(rows3, 1, false);
+			in.allocateDenseBlock();
+			for( int i=0; i<rows3; i++ )
+				in.quickSetValue(i, 0, rand.nextInt(max+2)+1);
+			in.recomputeNonZeros();
+
+			//multi-threaded rexpand
+			MatrixBlock out = in.rexpandOperations(new MatrixBlock(), max, rows, false, true, 4);
+			if( out.isInSparseFormat() ) {
+				Assert.assertTrue("Wrong output format.", out.isInSparseCSRFormat());
+				checkSortedRows(out);
+			}
+
+			//compare results
+			long nnz = 0;
+			for( int i=0; i<rows3; i++ ) {
+				int val = (int)in.quickGetValue(i, 0);
+				for( int j=0; j<max; j++ ) {
+					double expected = (val == j+1) ? 1 : 0;
+					double actual = rows ? out.quickGetValue(j, i) : out.quickGetValue(i, j);
+					Assert.assertEquals("Wrong value at ("+i+","+j+").", expected, actual, eps);
+					nnz += (int)expected;
+				}
+			}
+			Assert.assertEquals("Wrong number of non-zeros.", nnz, out.getNonZeros());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param mb
+	 */
+	private static void checkSortedRows( MatrixBlock mb )
+	{
+		SparseBlock c = mb.getSparseBlock();
+		for( int i=0; i<mb.getNumRows(); i++ )
+			if( !c.isEmpty(i) )
+				for( int j=c.pos(i)+1; j<c.pos(i)+c.size(i); j++ )
+					Assert.assertTrue("Unsorted column indexes.", c.indexes(i)[j-1] < c.indexes(i)[j]);
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.sparse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.controlprogram.caching.MatrixObject.UpdateType;
+import org.apache.sysml.runtime.functionobjects.Builtin;
+import org.apache.sysml.runtime.functionobjects.Builtin.BuiltinFunctionCode;
+import org.apache.sysml.runtime.functionobjects.Multiply;
+import org.apache.sysml.runtime.functionobjects.NotEquals;
+import org.apache.sysml.runtime.matrix.data.LibMatrixReorg;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.matrix.data.SparseBlock;
+import org.apache.sysml.runtime.matrix.operators.RightScalarOperator;
+import org.apache.sysml.runtime.matrix.operators.UnaryOperator;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a sparse matrix block component test for CSR-preserving operations
+ * (cell-wise, transpose, slice, append, copy), which compares the results over
+ * CSR inputs against the same operations over MCSR inputs, and checks that the
+ * outputs are again in CSR format with sorted column indexes. Left indexing into
+ * a copy of a CSR input is expected to output MCSR due to its random inserts.
+ *
+ */
+public class SparseBlockCSROperations extends AutomatedTestBase
+{
+	private final static int rows = 1021;
+	private final static int cols = 673;
+	private final static double sparsity1 = 0.07;
+	private final static double sparsity2 = 0.002;
+	private final static double eps = 1e-10;
+
+	public enum OpType {
+		SCALAR_MULT,
+		SCALAR_NEQ,
+		UNARY_ROUND,
+		TRANSPOSE,
+		SLICE_ROWS,
+		SLICE_RANGE,
+		RBIND,
+		CBIND,
+		COPY,
+		LEFT_INDEX,
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testCSRScalarMult1()  {
+		runSparseBlockCSROperationsTest(OpType.SCALAR_MULT, sparsity1);
+	}
+
+	@Test
+	public void testCSRScalarNotEquals1()  {
+		runSparseBlockCSROperationsTest(OpType.SCALAR_NEQ, sparsity1);
+	}
+
+	@Test
+	public void testCSRUnaryRound1()  {
+		runSparseBlockCSROperationsTest(OpType.UNARY_ROUND, sparsity1);
+	}
+
+	@Test
+	public void testCSRTranspose1()  {
+		runSparseBlockCSROperationsTest(OpType.TRANSPOSE, sparsity1);
+	}
+
+	@Test
+	public void testCSRTranspose2()  {
+		runSparseBlockCSROperationsTest(OpType.TRANSPOSE, sparsity2);
+	}
+
+	@Test
+	public void testCSRSliceRows1()  {
+		runSparseBlockCSROperationsTest(OpType.SLICE_ROWS, sparsity1);
+	}
+
+	@Test
+	public void testCSRSliceRange1()  {
+		runSparseBlockCSROperationsTest(OpType.SLICE_RANGE, sparsity1);
+	}
+
+	@Test
+	public void testCSRSliceRange2()  {
+		runSparseBlockCSROperationsTest(OpType.SLICE_RANGE, sparsity2);
+	}
+
+	@Test
+	public void testCSRRbind1()  {
+		runSparseBlockCSROperationsTest(OpType.RBIND, sparsity1);
+	}
+
+	@Test
+	public void testCSRCbind1()  {
+		runSparseBlockCSROperationsTest(OpType.CBIND, sparsity1);
+	}
+
+	@Test
+	public void testCSRCbind2()  {
+		runSparseBlockCSROperationsTest(OpType.CBIND, sparsity2);
+	}
+
+	@Test
+	public void testCSRCopy1()  {
+		runSparseBlockCSROperationsTest(OpType.COPY, sparsity1);
+	}
+
+	@Test
+	public void testCSRLeftIndex1()  {
+		runSparseBlockCSROperationsTest(OpType.LEFT_INDEX, sparsity1);
+	}
+
+	@Test
+	public void testCSRLeftIndex2()  {
+		runSparseBlockCSROperationsTest(OpType.LEFT_INDEX, sparsity2);
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param sparsity
+	 */
+	private void runSparseBlockCSROperationsTest( OpType type, double sparsity )
+	{
+		try
+		{
+			//data generation (MCSR reference and CSR inputs)
+			MatrixBlock mcsr1 = MatrixBlock.randOperations(rows, cols, sparsity, -1, 1, "uniform", 3456);
+			MatrixBlock mcsr2 = MatrixBlock.randOperations(rows, cols, sparsity, -1, 1, "uniform", 7);
+			Assert.assertTrue("Wrong input format.", mcsr1.isInSparseFormat() && mcsr2.isInSparseFormat());
+			MatrixBlock csr1 = new MatrixBlock(mcsr1, SparseBlock.Type.CSR, true);
+			MatrixBlock csr2 = new MatrixBlock(mcsr2, SparseBlock.Type.CSR, true);
+
+			//execute operation over both representations
+			MatrixBlock expected = executeOperation(type, mcsr1, mcsr2);
+			MatrixBlock actual = executeOperation(type, csr1, csr2);
+
+			//check output format and sorted column indexes
+			Assert.assertTrue("Wrong output format.", actual.isInSparseFormat()
+				&& actual.isInSparseCSRFormat() == (type != OpType.LEFT_INDEX));
+			SparseBlock c = actual.getSparseBlock();
+			for( int i=0; i<actual.getNumRows(); i++ )
+				if( !c.isEmpty(i) )
+					for( int j=c.pos(i)+1; j<c.pos(i)+c.size(i); j++ )
+						Assert.assertTrue("Unsorted column indexes.", c.indexes(i)[j-1] < c.indexes(i)[j]);
+
+			//compare results and nnz
+			double[][] ret1 = DataConverter.convertToDoubleMatrix(expected);
+			double[][] ret2 = DataConverter.convertToDoubleMatrix(actual);
+			TestUtils.compareMatrices(ret1, ret2, ret1.length, ret1[0].length, eps);
+			long nnz = actual.getNonZeros();
+			Assert.assertEquals("Wrong number of non-zeros.", actual.recomputeNonZeros(), nnz);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param in1
+	 * @param in2
+	 * @return
+	 * @throws Exception
+	 */
+	private static MatrixBlock executeOperation( OpType type, MatrixBlock in1, MatrixBlock in2 )
+		throws Exception
+	{
+		switch( type ) {
+			case SCALAR_MULT:
+				return (MatrixBlock) in1.scalarOperations(
+					new RightScalarOperator(Multiply.getMultiplyFnObject(), 7), new MatrixBlock());
+			case SCALAR_NEQ:
+				return (MatrixBlock) in1.scalarOperations(
+					new RightScalarOperator(NotEquals.getNotEqualsFnObject(), 0), new MatrixBlock());
+			case UNARY_ROUND: //w/ new zeros
+				return (MatrixBlock) in1.unaryOperations(new UnaryOperator(
+					Builtin.getBuiltinFnObject(BuiltinFunctionCode.ROUND)), new MatrixBlock());
+			case TRANSPOSE:
+				return LibMatrixReorg.transpose(in1, new MatrixBlock(cols, rows, true));
+			case SLICE_ROWS:
+				return in1.sliceOperations(13, rows-17, 0, cols-1, new MatrixBlock());
+			case SLICE_RANGE:
+				return in1.sliceOperations(13, rows-17, 7, cols-93, new MatrixBlock());
+			case RBIND:
+				return in1.appendOperations(in2, new MatrixBlock(), false);
+			case CBIND:
+				return in1.appendOperations(in2, new MatrixBlock(), true);
+			case COPY: {
+				MatrixBlock ret = new MatrixBlock(rows, cols, true);
+				ret.copy(in1);
+				return ret;
+			}
+			case LEFT_INDEX: {
+				MatrixBlock rhs = in2.sliceOperations(0, 99, 0, 199, new MatrixBlock());
+				return in1.leftIndexingOperations(rhs, 13, 112, 7, 206, new MatrixBlock(), UpdateType.COPY);
+			}
+		}
+		return null;
+	}
+}
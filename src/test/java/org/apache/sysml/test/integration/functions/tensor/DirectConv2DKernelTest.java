@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.tensor;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.matrix.data.LibMatrixDNN;
+import org.apache.sysml.runtime.matrix.data.LibMatrixDNN.ConvolutionParameters;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the direct conv2d, conv2d_backward_filter,
+ * conv2d_backward_data, maxpooling, and maxpooling_backward kernels (single- and
+ * multi-threaded, w/ dense and sparse inputs), which compares the results against
+ * a straightforward computation over all output cells and filter offsets.
+ *
+ */
+public class DirectConv2DKernelTest extends AutomatedTestBase
+{
+	private final static int N = 13;
+	private final static int C = 3;
+	private final static int H = 28;
+	private final static int W = 24;
+	private final static int K = 8;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.1;
+	private final static double eps = 1e-10;
+
+	private enum OpType {
+		CONV2D,
+		CONV2D_BACKWARD_FILTER,
+		CONV2D_BACKWARD_DATA,
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testConv2dDense() {
+		runDirectConv2DTest(OpType.CONV2D, sparsity1, 3, 1, 0, 1);
+	}
+
+	@Test
+	public void testConv2dSparseStridePadMT() {
+		runDirectConv2DTest(OpType.CONV2D, sparsity2, 5, 3, 1, 4);
+	}
+
+	@Test
+	public void testConv2dBackwardFilterDenseMT() {
+		runDirectConv2DTest(OpType.CONV2D_BACKWARD_FILTER, sparsity1, 3, 1, 1, 4);
+	}
+
+	@Test
+	public void testConv2dBackwardFilterSparseStride() {
+		runDirectConv2DTest(OpType.CONV2D_BACKWARD_FILTER, sparsity2, 4, 2, 0, 1);
+	}
+
+	@Test
+	public void testConv2dBackwardDataDense() {
+		runDirectConv2DTest(OpType.CONV2D_BACKWARD_DATA, sparsity1, 4, 2, 1, 1);
+	}
+
+	@Test
+	public void testConv2dBackwardDataSparseMT() {
+		runDirectConv2DTest(OpType.CONV2D_BACKWARD_DATA, sparsity2, 3, 1, 1, 4);
+	}
+
+	@Test
+	public void testMaxPoolingDense() {
+		runMaxPoolingTest(false, N, sparsity1, 2, 2, 0, 1);
+	}
+
+	@Test
+	public void testMaxPoolingSparseStridePadMT() {
+		runMaxPoolingTest(false, N, sparsity2, 3, 2, 1, 4);
+	}
+
+	@Test
+	public void testMaxPoolingSingleImageMT() {
+		runMaxPoolingTest(false, 1, sparsity1, 3, 1, 1, 4);
+	}
+
+	@Test
+	public void testMaxPoolingBackwardDense() {
+		runMaxPoolingTest(true, N, sparsity1, 2, 2, 0, 1);
+	}
+
+	@Test
+	public void testMaxPoolingBackwardSparseStridePadMT() {
+		runMaxPoolingTest(true, N, sparsity2, 3, 2, 1, 4);
+	}
+
+	@Test
+	public void testMaxPoolingBackwardSingleImageSparseMT() {
+		runMaxPoolingTest(true, 1, sparsity2, 3, 1, 1, 4);
+	}
+
+	@Test
+	public void testMaxPoolingBackwardTwoImagesMT() {
+		runMaxPoolingTest(true, 2, sparsity1, 2, 1, 0, 4);
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param sparsity
+	 * @param filterSize
+	 * @param stride
+	 * @param pad
+	 * @param k
+	 */
+	private void runDirectConv2DTest( OpType type, double sparsity, int filterSize, int stride, int pad, int k )
+	{
+		try
+		{
+			ConvolutionParameters params = new ConvolutionParameters(N, C, H, W, K,
+					filterSize, filterSize, stride, stride, pad, pad, k);
+			int R = params.R, S = params.S, P = params.P, Q = params.Q;
+			double[][] X = getRandomMatrix(N, C*H*W, -1, 1, sparsity, 7);
+			double[][] F = getRandomMatrix(K, C*R*S, -1, 1, sparsity, 3);
+			double[][] D = getRandomMatrix(N, K*P*Q, -1, 1, sparsity, 9);
+
+			//expected results over all output cells and filter offsets
+			double[][] expected = null;
+			switch( type ) {
+				case CONV2D: expected = new double[N][K*P*Q]; break;
+				case CONV2D_BACKWARD_FILTER: expected = new double[K][C*R*S]; break;
+				case CONV2D_BACKWARD_DATA: expected = new double[N][C*H*W]; break;
+			}
+			for( int n=0; n<N; n++ )
+				for( int f=0; f<K; f++ )
+					for( int p=0; p<P; p++ )
+						for( int q=0; q<Q; q++ )
+							for( int c=0; c<C; c++ )
+								for( int r=0; r<R; r++ )
+									for( int s=0; s<S; s++ ) {
+										int h = p*stride - pad + r, w = q*stride - pad + s;
+										if( h < 0 || h >= H || w < 0 || w >= W )
+											continue;
+										int xix = c*H*W + h*W + w, fix = c*R*S + r*S + s, oix = f*P*Q + p*Q + q;
+										switch( type ) {
+											case CONV2D: expected[n][oix] += X[n][xix] * F[f][fix]; break;
+											case CONV2D_BACKWARD_FILTER: expected[f][fix] += X[n][xix] * D[n][oix]; break;
+											case CONV2D_BACKWARD_DATA: expected[n][xix] += F[f][fix] * D[n][oix]; break;
+										}
+									}
+
+			//direct kernels w/ zeroed dense outputs
+			MatrixBlock mbX = DataConverter.convertToMatrixBlock(X);
+			MatrixBlock mbF = DataConverter.convertToMatrixBlock(F);
+			MatrixBlock mbD = DataConverter.convertToMatrixBlock(D);
+			MatrixBlock ret = new MatrixBlock(expected.length, expected[0].length, false);
+			ret.allocateDenseBlock();
+			switch( type ) {
+				case CONV2D: LibMatrixDNN.conv2d(mbX, mbF, ret, params); break;
+				case CONV2D_BACKWARD_FILTER: LibMatrixDNN.conv2d_backward_filter(mbX, mbD, ret, params); break;
+				case CONV2D_BACKWARD_DATA: LibMatrixDNN.conv2d_backward_data(mbF, mbD, ret, params); break;
+			}
+			ret.setNonZeros(params.outputNNZ.get());
+
+			//compare results
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret);
+			TestUtils.compareMatrices(expected, actual, expected.length, expected[0].length, eps);
+			long nnz = ret.getNonZeros();
+			Assert.assertEquals("Wrong number of non-zeros.", ret.recomputeNonZeros(), nnz);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param backward
+	 * @param numImg
+	 * @param sparsity
+	 * @param poolSize
+	 * @param stride
+	 * @param pad
+	 * @param k
+	 */
+	private void runMaxPoolingTest( boolean backward, int numImg, double sparsity, int poolSize, int stride, int pad, int k )
+	{
+		try
+		{
+			ConvolutionParameters params = new ConvolutionParameters(numImg, C, H, W, C,
+					poolSize, poolSize, stride, stride, pad, pad, k);
+			int R = params.R, S = params.S, P = params.P, Q = params.Q;
+			double[][] X = getRandomMatrix(numImg, C*H*W, -1, 1, sparsity, 7);
+			double[][] D = getRandomMatrix(numImg, C*P*Q, -1, 1, sparsity, 9);
+
+			//expected results over all output cells and window offsets
+			//(first maximum per window for the backward pass)
+			double[][] expected = backward ? new double[numImg][C*H*W] : new double[numImg][C*P*Q];
+			for( int n=0; n<numImg; n++ )
+				for( int c=0; c<C; c++ )
+					for( int p=0; p<P; p++ )
+						for( int q=0; q<Q; q++ ) {
+							double maxVal = -Double.MAX_VALUE;
+							int maxIndex = -1;
+							for( int r=0; r<R; r++ )
+								for( int s=0; s<S; s++ ) {
+									int h = p*stride - pad + r, w = q*stride - pad + s;
+									if( h < 0 || h >= H || w < 0 || w >= W )
+										continue;
+									int xix = c*H*W + h*W + w;
+									if( maxIndex < 0 || X[n][xix] > maxVal ) {
+										maxVal = X[n][xix];
+										maxIndex = xix;
+									}
+								}
+							if( backward )
+								expected[n][maxIndex] += D[n][c*P*Q + p*Q + q];
+							else
+								expected[n][c*P*Q + p*Q + q] = maxVal;
+						}
+
+			//pooling kernels w/ zeroed dense outputs
+			MatrixBlock mbX = DataConverter.convertToMatrixBlock(X);
+			MatrixBlock mbD = DataConverter.convertToMatrixBlock(D);
+			MatrixBlock ret = new MatrixBlock(expected.length, expected[0].length, false);
+			ret.allocateDenseBlock();
+			if( backward )
+				LibMatrixDNN.maxpooling_backward(mbX, mbD, ret, params);
+			else
+				LibMatrixDNN.maxpooling(mbX, ret, params);
+			ret.setNonZeros(params.outputNNZ.get());
+
+			//compare results
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret);
+			TestUtils.compareMatrices(expected, actual, expected.length, expected[0].length, eps);
+			long nnz = 0;
+			for( int i=0; i<expected.length; i++ )
+				for( int j=0; j<expected[i].length; j++ )
+					nnz += (expected[i][j] != 0) ? 1 : 0;
+			Assert.assertEquals("Wrong number of non-zeros.", nnz, ret.getNonZeros());
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
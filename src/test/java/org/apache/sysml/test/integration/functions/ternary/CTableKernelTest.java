@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.ternary;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.matrix.data.LibMatrixCTable;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the dense and hash-based ctable kernels (single-
+ * and multi-threaded), which compares the results against a straightforward
+ * aggregation of all input tuples.
+ *
+ */
+public class CTableKernelTest extends AutomatedTestBase
+{
+	private final static int rows = 1234567;
+	private final static int maxVal1 = 17;   //dense output
+	private final static int maxVal2 = 2345; //sparse output
+	private final static double eps = 1e-8;
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testCTableDenseUnknownDims() {
+		runCTableTest(maxVal1, false, false, false, 1);
+	}
+
+	@Test
+	public void testCTableDenseUnknownDimsMT() {
+		runCTableTest(maxVal1, false, false, false, 4);
+	}
+
+	@Test
+	public void testCTableDenseKnownDimsWeightsMT() {
+		runCTableTest(maxVal1, true, true, false, 4);
+	}
+
+	@Test
+	public void testCTableSparseUnknownDimsMT() {
+		runCTableTest(maxVal2, false, false, false, 4);
+	}
+
+	@Test
+	public void testCTableSparseKnownDimsWeights() {
+		runCTableTest(maxVal2, true, true, false, 1);
+	}
+
+	@Test
+	public void testCTableSparseKnownDimsWeightsMT() {
+		runCTableTest(maxVal2, true, true, false, 4);
+	}
+
+	@Test
+	public void testHistogramDenseMT() {
+		runCTableTest(maxVal1, false, false, true, 4);
+	}
+
+	@Test
+	public void testHistogramSparseWeightsMT() {
+		runCTableTest(maxVal2, false, true, true, 4);
+	}
+
+	/**
+	 *
+	 * @param maxVal
+	 * @param knownDims
+	 * @param weights
+	 * @param histogram
+	 * @param k
+	 */
+	private void runCTableTest( int maxVal, boolean knownDims, boolean weights, boolean histogram, int k )
+	{
+		try
+		{
+			double[][] A = TestUtils.round(getRandomMatrix(rows, 1, 1, maxVal, 1.0, 7));
+			double[][] B = TestUtils.round(getRandomMatrix(rows, 1, 1, maxVal, 1.0, 3));
+			double[][] W = getRandomMatrix(rows, 1, 1, 2, 1.0, 9);
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+			MatrixBlock mbB = histogram ? null : DataConverter.convertToMatrixBlock(B);
+			MatrixBlock mbW = weights ? DataConverter.convertToMatrixBlock(W) : null;
+
+			//known output dimensions smaller than the value domain
+			int dim1 = knownDims ? maxVal/2 : maxVal;
+			int dim2 = knownDims ? maxVal/2 : (histogram ? 1 : maxVal);
+
+			//ctable kernel and expected cell values
+			MatrixBlock ret = LibMatrixCTable.ctable(mbA, mbB, 1, mbW, 1, false,
+					knownDims ? dim1 : -1, knownDims ? dim2 : -1, k);
+			double[][] expected = new double[dim1][dim2];
+			for( int i=0; i<rows; i++ ) {
+				int ri = (int)A[i][0], ci = histogram ? 1 : (int)B[i][0];
+				if( ri <= dim1 && ci <= dim2 )
+					expected[ri-1][ci-1] += weights ? W[i][0] : 1;
+			}
+
+			//compare results
+			double[][] actual = DataConverter.convertToDoubleMatrix(ret);
+			Assert.assertEquals("Wrong number of rows.", dim1, actual.length);
+			Assert.assertEquals("Wrong number of columns.", dim2, actual[0].length);
+			TestUtils.compareMatrices(expected, actual, dim1, dim2, eps);
+			long nnz = ret.getNonZeros();
+			Assert.assertEquals("Wrong number of non-zeros.", ret.recomputeNonZeros(), nnz);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
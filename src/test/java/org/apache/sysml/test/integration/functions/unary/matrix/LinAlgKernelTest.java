@@ -0,0 +1,457 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.unary.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.DMLRuntimeException;
+import org.apache.sysml.runtime.matrix.data.LibMatrixLinAlg;
+import org.apache.sysml.runtime.matrix.data.MatrixBlock;
+import org.apache.sysml.runtime.util.DataConverter;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the dense linear algebra kernels (solve, inverse,
+ * cholesky, lu, qr, and symmetric eigen), which checks the defining properties of
+ * the results of single- and multi-threaded decompositions over dense and sparse
+ * inputs, least squares solve for non-square inputs, and the singularity detection
+ * of lu-based solve and inverse (exact zero pivots, and opt-in scale-invariant).
+ *
+ */
+public class LinAlgKernelTest extends AutomatedTestBase
+{
+	private final static int rows1 = 73;
+	private final static int rows2 = 417;
+	private final static double sparsity1 = 0.9;
+	private final static double sparsity2 = 0.1;
+	private final static double eps = 1e-8;
+
+	private enum LinAlgType {
+		SOLVE,
+		SOLVE_LS,
+		INVERSE,
+		CHOLESKY,
+		LU,
+		QR,
+		EIGEN,
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testSolveDense() {
+		runLinAlgTest(LinAlgType.SOLVE, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testSolveSparseMT() {
+		runLinAlgTest(LinAlgType.SOLVE, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testInverseDense() {
+		runLinAlgTest(LinAlgType.INVERSE, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testInverseDenseMT() {
+		runLinAlgTest(LinAlgType.INVERSE, sparsity1, rows2, 4);
+	}
+
+	@Test
+	public void testCholeskyDense() {
+		runLinAlgTest(LinAlgType.CHOLESKY, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testCholeskySparseMT() {
+		runLinAlgTest(LinAlgType.CHOLESKY, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testLUDense() {
+		runLinAlgTest(LinAlgType.LU, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testLUDenseMT() {
+		runLinAlgTest(LinAlgType.LU, sparsity1, rows2, 4);
+	}
+
+	@Test
+	public void testLUSparseMT() {
+		runLinAlgTest(LinAlgType.LU, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testQRDense() {
+		runLinAlgTest(LinAlgType.QR, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testQRDenseMT() {
+		runLinAlgTest(LinAlgType.QR, sparsity1, rows2, 4);
+	}
+
+	@Test
+	public void testQRSparseMT() {
+		runLinAlgTest(LinAlgType.QR, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testSolveLeastSquaresDense() {
+		runLinAlgTest(LinAlgType.SOLVE_LS, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testSolveLeastSquaresDenseMT() {
+		runLinAlgTest(LinAlgType.SOLVE_LS, sparsity1, rows2, 4);
+	}
+
+	@Test
+	public void testSolveLeastSquaresSparseMT() {
+		runLinAlgTest(LinAlgType.SOLVE_LS, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testEigenDense() {
+		runLinAlgTest(LinAlgType.EIGEN, sparsity1, rows1, 1);
+	}
+
+	@Test
+	public void testEigenSparseMT() {
+		runLinAlgTest(LinAlgType.EIGEN, sparsity2, rows2, 4);
+	}
+
+	@Test
+	public void testSolveSingular() {
+		runSingularityTest(LinAlgType.SOLVE, 1, true, false, rows1, 1);
+	}
+
+	@Test
+	public void testInverseSingularLargeScaleMT() {
+		runSingularityTest(LinAlgType.INVERSE, 1e20, true, false, rows2, 4);
+	}
+
+	@Test
+	public void testSolveIllConditioned() {
+		runIllConditionedTest(LinAlgType.SOLVE, false);
+	}
+
+	@Test
+	public void testInverseIllConditioned() {
+		runIllConditionedTest(LinAlgType.INVERSE, false);
+	}
+
+	@Test
+	public void testSolveSingularRelTol() {
+		runSingularityTest(LinAlgType.SOLVE, 1, true, true, rows1, 1);
+	}
+
+	@Test
+	public void testSolveSingularSmallScaleRelTolMT() {
+		runSingularityTest(LinAlgType.SOLVE, 1e-20, true, true, rows2, 4);
+	}
+
+	@Test
+	public void testSolveNonSingularSmallScaleRelTol() {
+		runSingularityTest(LinAlgType.SOLVE, 1e-20, false, true, rows1, 1);
+	}
+
+	@Test
+	public void testInverseSingularLargeScaleRelTolMT() {
+		runSingularityTest(LinAlgType.INVERSE, 1e20, true, true, rows2, 4);
+	}
+
+	@Test
+	public void testInverseNonSingularSmallScaleRelTolMT() {
+		runSingularityTest(LinAlgType.INVERSE, 1e-20, false, true, rows2, 4);
+	}
+
+	@Test
+	public void testInverseIllConditionedRelTol() {
+		runIllConditionedTest(LinAlgType.INVERSE, true);
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param sparsity
+	 * @param rows
+	 * @param k
+	 */
+	private void runLinAlgTest( LinAlgType type, double sparsity, int rows, int k )
+	{
+		try
+		{
+			//symmetric positive definite input, either dense A = t(X) %*% X + diag(1), or
+			//sparse and strictly diagonally dominant A = X + t(X) + diag(rowSums(abs(X + t(X)))+1), 
+			//and for lu (dense), qr, and least squares solve, the random input A = X
+			boolean sparse = (sparsity < sparsity1);
+			int cols = (type==LinAlgType.QR || type==LinAlgType.SOLVE_LS) ? rows/2 : rows;
+			double[][] X = getRandomMatrix(rows, cols, -1, 1, sparsity, 7);
+			double[][] A = (cols < rows || (type==LinAlgType.LU && !sparse)) ? X :
+				sparse ? getDiagonallyDominantMatrix(X) : multiply(transpose(X), X);
+			if( A != X && !sparse )
+				for( int i=0; i<rows; i++ )
+					A[i][i] += 1;
+			double[][] B = getRandomMatrix(rows, 3, -1, 1, 1.0, 3);
+			double[][] I = new double[rows][rows];
+			for( int i=0; i<rows; i++ )
+				I[i][i] = 1;
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+			MatrixBlock mbB = DataConverter.convertToMatrixBlock(B);
+			Assert.assertEquals("Wrong input format.", sparse, mbA.isInSparseFormat());
+
+			switch( type ) {
+				case SOLVE: {
+					double[][] Y = DataConverter.convertToDoubleMatrix(LibMatrixLinAlg.solve(mbA, mbB, k));
+					TestUtils.compareMatrices(B, multiply(A, Y), rows, 3, eps);
+					break;
+				}
+				case SOLVE_LS: {
+					//check normal equations t(A) %*% (A %*% Y - B) = 0
+					double[][] Y = DataConverter.convertToDoubleMatrix(LibMatrixLinAlg.solve(mbA, mbB, k));
+					Assert.assertEquals("Wrong number of rows.", cols, Y.length);
+					double[][] E = multiply(A, Y);
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<3; j++ )
+							E[i][j] -= B[i][j];
+					TestUtils.compareMatrices(new double[cols][3], multiply(transpose(A), E), cols, 3, eps);
+					break;
+				}
+				case INVERSE: {
+					double[][] Ainv = DataConverter.convertToDoubleMatrix(LibMatrixLinAlg.inverse(mbA, k));
+					TestUtils.compareMatrices(I, multiply(A, Ainv), rows, rows, eps);
+					break;
+				}
+				case CHOLESKY: {
+					double[][] L = DataConverter.convertToDoubleMatrix(LibMatrixLinAlg.cholesky(mbA, k));
+					for( int i=0; i<rows; i++ )
+						for( int j=i+1; j<rows; j++ )
+							Assert.assertEquals(0, L[i][j], 0);
+					TestUtils.compareMatrices(A, multiply(L, transpose(L)), rows, rows, eps);
+					break;
+				}
+				case LU: {
+					MatrixBlock[] ret = LibMatrixLinAlg.lu(mbA, k);
+					double[][] P = DataConverter.convertToDoubleMatrix(ret[0]);
+					double[][] L = DataConverter.convertToDoubleMatrix(ret[1]);
+					double[][] U = DataConverter.convertToDoubleMatrix(ret[2]);
+					TestUtils.compareMatrices(multiply(P, A), multiply(L, U), rows, rows, eps);
+					break;
+				}
+				case QR: {
+					MatrixBlock[] ret = LibMatrixLinAlg.qr(mbA, k);
+					double[][] H = DataConverter.convertToDoubleMatrix(ret[0]);
+					double[][] R = DataConverter.convertToDoubleMatrix(ret[1]);
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<cols; j++ ) {
+							if( i < j ) Assert.assertEquals(0, H[i][j], 0);
+							if( i > j ) Assert.assertEquals(0, R[i][j], 0);
+						}
+					//Q = P_1 ... P_n with householder reflections P_j = I - h_j t(h_j) / h_jj,
+					//which are orthogonal iff t(h_j) h_j = 2 h_jj, and A = Q R
+					double[][] QR = R;
+					for( int j=cols-1; j>=0; j-- ) {
+						double hnorm = 0;
+						for( int i=j; i<rows; i++ )
+							hnorm += H[i][j] * H[i][j];
+						Assert.assertEquals("Non-orthogonal reflection.", 2 * H[j][j], hnorm, eps);
+						for( int c=0; c<cols; c++ ) {
+							double dot = 0;
+							for( int i=j; i<rows; i++ )
+								dot += H[i][j] * QR[i][c];
+							for( int i=j; i<rows; i++ )
+								QR[i][c] -= H[i][j] * dot / H[j][j];
+						}
+					}
+					TestUtils.compareMatrices(A, QR, rows, cols, eps);
+					break;
+				}
+				case EIGEN: {
+					MatrixBlock[] ret = LibMatrixLinAlg.eigen(mbA, k);
+					double[][] evals = DataConverter.convertToDoubleMatrix(ret[0]);
+					double[][] evecs = DataConverter.convertToDoubleMatrix(ret[1]);
+					double[][] VD = new double[rows][rows];
+					for( int i=0; i<rows; i++ )
+						for( int j=0; j<rows; j++ )
+							VD[i][j] = evecs[i][j] * evals[j][0];
+					for( int i=1; i<rows; i++ )
+						Assert.assertTrue("Unsorted eigen values.", evals[i-1][0] <= evals[i][0]);
+					TestUtils.compareMatrices(VD, multiply(A, evecs), rows, rows, eps);
+					TestUtils.compareMatrices(I, multiply(transpose(evecs), evecs), rows, rows, eps);
+					break;
+				}
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @param scale
+	 * @param singular
+	 * @param relTol
+	 * @param rows
+	 * @param k
+	 */
+	private void runSingularityTest( LinAlgType type, double scale, boolean singular, boolean relTol, int rows, int k )
+	{
+		boolean relTolOld = LibMatrixLinAlg.USE_RELATIVE_SINGULARITY_THRESHOLD;
+		
+		try
+		{
+			LibMatrixLinAlg.USE_RELATIVE_SINGULARITY_THRESHOLD = relTol;
+			
+			//scaled random input, where singular inputs have a linearly dependent last row
+			//(w/o relative tolerance, a duplicate row that yields an exact zero pivot)
+			double[][] A = getRandomMatrix(rows, rows, -scale, scale, 1.0, 7);
+			if( singular )
+				for( int j=0; j<rows; j++ )
+					A[rows-1][j] = relTol ? A[0][j] + 0.3 * A[1][j] : A[0][j];
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+			MatrixBlock mbB = DataConverter.convertToMatrixBlock(getRandomMatrix(rows, 3, -1, 1, 1.0, 3));
+
+			try {
+				if( type == LinAlgType.SOLVE )
+					LibMatrixLinAlg.solve(mbA, mbB, k);
+				else
+					LibMatrixLinAlg.inverse(mbA, k);
+				Assert.assertFalse("Singular matrix not detected.", singular);
+			}
+			catch(DMLRuntimeException ex) {
+				Assert.assertTrue("Non-singular matrix detected as singular.", singular);
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			LibMatrixLinAlg.USE_RELATIVE_SINGULARITY_THRESHOLD = relTolOld;
+		}
+	}
+
+	/**
+	 * Runs solve/inverse over an ill-conditioned but nonsingular 12x12 Hilbert 
+	 * matrix (min pivot about 5e-15), which is only reported as singular if the
+	 * relative singularity threshold is enabled.
+	 *
+	 * @param type
+	 * @param relTol
+	 */
+	private void runIllConditionedTest( LinAlgType type, boolean relTol )
+	{
+		boolean relTolOld = LibMatrixLinAlg.USE_RELATIVE_SINGULARITY_THRESHOLD;
+		
+		try
+		{
+			LibMatrixLinAlg.USE_RELATIVE_SINGULARITY_THRESHOLD = relTol;
+			
+			int n = 12;
+			double[][] A = new double[n][n];
+			for( int i=0; i<n; i++ )
+				for( int j=0; j<n; j++ )
+					A[i][j] = 1d / (i+j+1);
+			MatrixBlock mbA = DataConverter.convertToMatrixBlock(A);
+			MatrixBlock mbB = DataConverter.convertToMatrixBlock(getRandomMatrix(n, 3, -1, 1, 1.0, 3));
+			
+			try {
+				MatrixBlock ret = (type == LinAlgType.SOLVE) ?
+					LibMatrixLinAlg.solve(mbA, mbB, 1) : LibMatrixLinAlg.inverse(mbA, 1);
+				Assert.assertFalse("Ill-conditioned matrix not detected.", relTol);
+				for( int i=0; i<ret.getNumRows(); i++ )
+					for( int j=0; j<ret.getNumColumns(); j++ )
+						Assert.assertFalse("Non-finite result.", Double.isNaN(ret.quickGetValue(i, j))
+							|| Double.isInfinite(ret.quickGetValue(i, j)));
+			}
+			catch(DMLRuntimeException ex) {
+				Assert.assertTrue("Ill-conditioned matrix detected as singular.", relTol);
+			}
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+		finally {
+			LibMatrixLinAlg.USE_RELATIVE_SINGULARITY_THRESHOLD = relTolOld;
+		}
+	}
+
+	/**
+	 * Creates a symmetric, strictly diagonally dominant matrix with positive
+	 * diagonal (and hence positive definite) of the same sparsity as X + t(X).
+	 *
+	 * @param X
+	 * @return
+	 */
+	private static double[][] getDiagonallyDominantMatrix( double[][] X )
+	{
+		int n = X.length;
+		double[][] A = new double[n][n];
+		for( int i=0; i<n; i++ ) {
+			double rowSum = 0;
+			for( int j=0; j<n; j++ )
+				if( i != j ) {
+					A[i][j] = X[i][j] + X[j][i];
+					rowSum += Math.abs(A[i][j]);
+				}
+			A[i][i] = rowSum + 1;
+		}
+		return A;
+	}
+
+	/**
+	 *
+	 * @param A
+	 * @param B
+	 * @return
+	 */
+	private static double[][] multiply( double[][] A, double[][] B )
+	{
+		int m = A.length, n = B[0].length;
+		double[][] C = new double[m][n];
+		for( int i=0; i<m; i++ )
+			for( int p=0; p<B.length; p++ )
+				for( int j=0; j<n; j++ )
+					C[i][j] += A[i][p] * B[p][j];
+		return C;
+	}
+
+	/**
+	 *
+	 * @param A
+	 * @return
+	 */
+	private static double[][] transpose( double[][] A )
+	{
+		double[][] C = new double[A[0].length][A.length];
+		for( int i=0; i<A.length; i++ )
+			for( int j=0; j<A[0].length; j++ )
+				C[j][i] = A[i][j];
+		return C;
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.sysml.test.integration.functions.vect;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.apache.sysml.runtime.functionobjects.KahanPlus;
+import org.apache.sysml.runtime.functionobjects.KahanPlusSq;
+import org.apache.sysml.runtime.instructions.cp.KahanObject;
+import org.apache.sysml.runtime.matrix.data.LibMatrixPrimitives;
+import org.apache.sysml.test.integration.AutomatedTestBase;
+import org.apache.sysml.test.utils.TestUtils;
+
+/**
+ * This is a component test for the primitive vector kernels (w/ unaligned
+ * offsets and lengths), which compares the results against straightforward
+ * scalar loops, and the multi-accumulator compensated summation against exact
+ * sums and per-value KahanPlus.
+ *
+ */
+public class PrimitiveKernelTest extends AutomatedTestBase
+{
+	private final static int len1 = 1003;
+	private final static int len2 = 1000003;
+	private final static int ai = 3;
+	private final static int bi = 5;
+	private final static double eps = 1e-10;
+
+	private enum KernelType {
+		DOT_PRODUCT,
+		DOT_PRODUCT_SPARSE,
+		VECT_MULT_ADD,
+		VECT_MULT_ADD_SPARSE,
+		VECT_MULT_WRITE,
+		VECT_ADD,
+	}
+
+	@Override
+	public void setUp() {
+		TestUtils.clearAssertionInformation();
+	}
+
+	@Test
+	public void testDotProduct() {
+		runPrimitiveKernelTest(KernelType.DOT_PRODUCT);
+	}
+
+	@Test
+	public void testDotProductSparse() {
+		runPrimitiveKernelTest(KernelType.DOT_PRODUCT_SPARSE);
+	}
+
+	@Test
+	public void testVectMultiplyAdd() {
+		runPrimitiveKernelTest(KernelType.VECT_MULT_ADD);
+	}
+
+	@Test
+	public void testVectMultiplyAddSparse() {
+		runPrimitiveKernelTest(KernelType.VECT_MULT_ADD_SPARSE);
+	}
+
+	@Test
+	public void testVectMultiplyWrite() {
+		runPrimitiveKernelTest(KernelType.VECT_MULT_WRITE);
+	}
+
+	@Test
+	public void testVectAdd() {
+		runPrimitiveKernelTest(KernelType.VECT_ADD);
+	}
+
+	@Test
+	public void testKahanSum() {
+		runKahanSumTest(false);
+	}
+
+	@Test
+	public void testKahanSumSq() {
+		runKahanSumTest(true);
+	}
+
+	@Test
+	public void testKahanSumNonFinite() {
+		KahanObject kbuff = new KahanObject(7, 0);
+		double[] a = new double[]{1, 2, Double.POSITIVE_INFINITY, 3, 4};
+		Assert.assertFalse(LibMatrixPrimitives.kahanSum(a, 0, a.length, false, kbuff));
+		Assert.assertEquals("Modified kahan buffer.", 7, kbuff._sum, 0);
+		a[2] = Double.NaN;
+		Assert.assertFalse(LibMatrixPrimitives.kahanSum(a, 0, a.length, true, kbuff));
+		Assert.assertEquals("Modified kahan buffer.", 7, kbuff._sum, 0);
+	}
+
+	/**
+	 *
+	 * @param type
+	 */
+	private void runPrimitiveKernelTest( KernelType type )
+	{
+		try
+		{
+			double[] a = getRandomVector(ai+len1, 7);
+			double[] b = getRandomVector(bi+2*len1, 3);
+			int[] aix = new int[ai+len1];
+			for( int i=0; i<len1; i++ )
+				aix[ai+i] = 2*i; //sorted, w/ gaps
+			double aval = 0.7;
+			double[] expected = getRandomVector(bi+2*len1, 9);
+			double[] actual = expected.clone();
+
+			switch( type ) {
+				case DOT_PRODUCT: {
+					double val = 0;
+					for( int i=0; i<len1; i++ )
+						val += a[ai+i] * b[bi+i];
+					Assert.assertEquals(val, LibMatrixPrimitives.dotProduct(a, b, ai, bi, len1), eps);
+					break;
+				}
+				case DOT_PRODUCT_SPARSE: {
+					double val = 0;
+					for( int i=ai; i<ai+len1; i++ )
+						val += a[i] * b[bi+aix[i]];
+					Assert.assertEquals(val, LibMatrixPrimitives.dotProduct(a, b, aix, ai, bi, len1), eps);
+					break;
+				}
+				case VECT_MULT_ADD:
+					for( int i=0; i<len1; i++ )
+						expected[bi+i] += aval * a[ai+i];
+					LibMatrixPrimitives.vectMultiplyAdd(aval, a, actual, ai, bi, len1);
+					break;
+				case VECT_MULT_ADD_SPARSE:
+					for( int i=ai; i<ai+len1; i++ )
+						expected[bi+aix[i]] += aval * a[i];
+					LibMatrixPrimitives.vectMultiplyAdd(aval, a, actual, aix, ai, bi, len1);
+					break;
+				case VECT_MULT_WRITE:
+					for( int i=0; i<len1; i++ )
+						expected[bi+i] = aval * a[ai+i];
+					LibMatrixPrimitives.vectMultiplyWrite(aval, a, actual, ai, bi, len1);
+					break;
+				case VECT_ADD:
+					for( int i=0; i<len1; i++ )
+						expected[bi+i] += a[ai+i];
+					LibMatrixPrimitives.vectAdd(a, actual, ai, bi, len1);
+					break;
+			}
+
+			//compare results (incl untouched cells)
+			for( int i=0; i<expected.length; i++ )
+				Assert.assertEquals("Wrong value at "+i+".", expected[i], actual[i], eps);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param sq
+	 */
+	private void runKahanSumTest( boolean sq )
+	{
+		try
+		{
+			//values of very different magnitudes (w/ cancellation)
+			Random rand = new Random(7);
+			double[] a = new double[ai+len2];
+			BigDecimal exact = new BigDecimal(11);
+			for( int i=ai; i<ai+len2; i++ ) {
+				a[i] = (rand.nextDouble()-0.5) * Math.pow(10, rand.nextInt(20)-10);
+				exact = exact.add(new BigDecimal(sq ? a[i]*a[i] : a[i]));
+			}
+
+			//compensated summation (on top of existing sum) vs KahanPlus per value
+			KahanObject kbuff1 = new KahanObject(11, 0);
+			Assert.assertTrue(LibMatrixPrimitives.kahanSum(a, ai, len2, sq, kbuff1));
+			KahanObject kbuff2 = new KahanObject(11, 0);
+			for( int i=ai; i<ai+len2; i++ ) {
+				if( sq )
+					KahanPlusSq.getKahanPlusSqFnObject().execute2(kbuff2, a[i]);
+				else
+					KahanPlus.getKahanPlusFnObject().execute2(kbuff2, a[i]);
+			}
+
+			double expected = exact.doubleValue();
+			double tol = Math.abs(expected) * 1e-15;
+			Assert.assertEquals("Wrong compensated sum.", expected, kbuff1._sum, tol);
+			Assert.assertEquals("Wrong reference sum.", expected, kbuff2._sum, tol);
+		}
+		catch(Exception ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	/**
+	 *
+	 * @param len
+	 * @param seed
+	 * @return
+	 */
+	private static double[] getRandomVector( int len, long seed )
+	{
+		Random rand = new Random(seed);
+		double[] ret = new double[len];
+		for( int i=0; i<len; i++ )
+			ret[i] = rand.nextDouble()*2-1;
+		return ret;
+	}
+}
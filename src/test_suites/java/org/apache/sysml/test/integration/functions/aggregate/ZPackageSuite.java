@@ -51,9 +51,11 @@ import org.junit.runners.Suite;
 	FullColAggregateTest.class,
 	FullGroupedAggregateTest.class,
 	FullGroupedAggregateMatrixTest.class,
+	GroupedAggregateKernelTest.class,
 	FullRowAggregateTest.class,
 	
 	PushdownSumBinaryTest.class,
+	StableTreeAggregationTest.class,
 })
 
 
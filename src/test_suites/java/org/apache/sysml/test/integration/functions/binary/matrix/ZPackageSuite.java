@@ -50,6 +50,7 @@ import org.junit.runners.Suite;
 	ScalarModulusTest.class,
 	ScalarMultiplicationTest.class,
 	ScalarSubtractionTest.class,
+	SparseMatrixMultKernelTest.class,
 	TransposeMatrixMultiplicationTest.class,
 	UaggOuterChainTest.class,
 	UltraSparseMRMatrixMultiplicationTest.class,
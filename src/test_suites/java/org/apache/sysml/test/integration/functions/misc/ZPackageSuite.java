@@ -27,11 +27,15 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 	ConditionalValidateTest.class,
+	CostModelProfileTest.class,
 	DataTypeCastingTest.class,
 	DataTypeChangeTest.class,
 	FunctionInliningTest.class,
 	FunctionNamespaceTest.class,
+	FusedCellwiseKernelTest.class,
+	FusedCellwiseVectorTest.class,
 	IfTest.class,
+	InstructionProfilerTest.class,
 	InvalidFunctionAssignmentTest.class,
 	InvalidFunctionSignatureTest.class,
 	IPALiteralReplacementTest.class,
@@ -56,6 +60,10 @@ import org.junit.runners.Suite;
 	ScalarMatrixUnaryBinaryTermTest.class,
 	ScalarToMatrixInLoopTest.class,
 	SetWorkingDirTest.class,
+	SparkCheckpointDowngradeTest.class,
+	SparkLocalBroadcastTest.class,
+	SparkLoopPartitioningTest.class,
+	SparkPrefetchConsumerTest.class,
 	ToStringTest.class,
 	ValueTypeAutoCastingTest.class,
 	ValueTypeCastingTest.class
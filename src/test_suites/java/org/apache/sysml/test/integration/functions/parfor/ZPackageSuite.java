@@ -32,10 +32,13 @@ import org.junit.runners.Suite;
 	ParForDataPartitionLeftIndexingTest.class,
 	ParForDependencyAnalysisTest.class,
 	ParForFunctionSerializationTest.class,
+	ParForIndexedPartitionStoreTest.class,
 	ParForMultipleDataPartitioningTest.class,
 	ParForNaNResultMergeTest.class,
 	ParForReplaceThreadIDRecompileTest.class,
 	ParForRowwiseDataPartitioningTest.class,
+	ParForSliceResultMergeTest.class,
+	ParForSparkWorkerReuseTest.class,
 	
 	ParForParallelRemoteResultMergeTest.class,
 	ParForSerialRemoteResultMergeTest.class,
@@ -27,10 +27,14 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 	DiagV2MTest.class,
+	FullOrderNaNTest.class,
 	FullOrderTest.class,
 	FullReverseTest.class,
 	FullTransposeTest.class,
-	MatrixReshapeTest.class
+	MatrixReshapeTest.class,
+	ParallelRemoveEmptyTest.class,
+	ParallelSortTest.class,
+	ParallelSparseReorgTest.class
 })
 
 
@@ -28,6 +28,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	CentralMomentWeightsTest.class,
 	CovarianceWeightsTest.class,
+	CTableKernelTest.class,
 	CTableMatrixIgnoreZerosTest.class,
 	CTableSequenceTest.class,
 	QuantileWeightsTest.class,
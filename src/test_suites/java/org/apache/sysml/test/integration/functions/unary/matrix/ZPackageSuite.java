@@ -41,6 +41,7 @@ import org.junit.runners.Suite;
 	FullSelectPosTest.class,
 	FullSignTest.class,
 	IQMTest.class,
+	LinAlgKernelTest.class,
 	LUFactorizeTest.class,
 	MatrixInverseTest.class,
 	MinusTest.class,
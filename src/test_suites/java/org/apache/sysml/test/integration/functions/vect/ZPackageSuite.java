@@ -28,6 +28,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
 	AutoVectorizationTest.class,
 	LeftIndexingChainUpdateTest.class,
+	PrimitiveKernelTest.class,
 })
 
 